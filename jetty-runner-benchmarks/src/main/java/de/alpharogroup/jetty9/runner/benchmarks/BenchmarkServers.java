@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+import javax.servlet.Servlet;
+
+import de.alpharogroup.jetty9.runner.Jetty9Runner;
+import de.alpharogroup.jetty9.runner.ServerHandle;
+import de.alpharogroup.jetty9.runner.config.Jetty9RunConfiguration;
+import de.alpharogroup.jetty9.runner.config.ServletContextHandlerConfiguration;
+import de.alpharogroup.jetty9.runner.config.ServletHolderConfiguration;
+import de.alpharogroup.jetty9.runner.factories.ServletContextHandlerFactory;
+import lombok.experimental.UtilityClass;
+
+/**
+ * The class {@link BenchmarkServers} starts the servers of the benchmarks with
+ * {@link Jetty9Runner} on the loopback interface.
+ */
+@UtilityClass
+public class BenchmarkServers
+{
+
+	/** The host of the servers. */
+	public static final String HOST = "127.0.0.1";
+
+	/**
+	 * Finds a free port. A fixed port is required if several connectors share a port with
+	 * SO_REUSEPORT, with port 0 every connector would get its own ephemeral port.
+	 *
+	 * @return the free port
+	 */
+	public static int freePort()
+	{
+		try (ServerSocket serverSocket = new ServerSocket(0))
+		{
+			return serverSocket.getLocalPort();
+		}
+		catch (final IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Factory method for create the builder of a {@link ServletContextHandlerConfiguration} with
+	 * the root context path that maps the given servlet class to all paths.
+	 *
+	 * @param servletClass
+	 *            the servlet class
+	 * @return the builder of the servlet context handler configuration
+	 */
+	public static ServletContextHandlerConfiguration.ServletContextHandlerConfigurationBuilder newContextConfiguration(
+		final Class<? extends Servlet> servletClass)
+	{
+		return ServletContextHandlerConfiguration.builder().contextPath("/")
+			.webapp(new File(System.getProperty("java.io.tmpdir")))
+			.servletHolderConfiguration(ServletHolderConfiguration.builder()
+				.servletClass(servletClass).pathSpec("/*").build());
+	}
+
+	/**
+	 * Starts a server with the servlet context handler of the given context configuration and the
+	 * given run configuration.
+	 *
+	 * @param contextConfiguration
+	 *            the context configuration
+	 * @param runConfiguration
+	 *            the run configuration without servlet context handler
+	 * @return the {@link ServerHandle} of the started server
+	 */
+	public static ServerHandle start(final ServletContextHandlerConfiguration contextConfiguration,
+		final Jetty9RunConfiguration runConfiguration)
+	{
+		runConfiguration.setServletContextHandler(
+			ServletContextHandlerFactory.getNewServletContextHandler(contextConfiguration));
+		return Jetty9Runner.startServletContextHandler(runConfiguration);
+	}
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The servlet class {@link HelloServlet} answers every request with a constant text body, the
+ * size in bytes is taken from the init parameter {@link #SIZE}.
+ */
+public class HelloServlet extends HttpServlet
+{
+
+	/** The init parameter for the size in bytes of the body. */
+	public static final String SIZE = "size";
+
+	/** The default size in bytes of the body. */
+	public static final int DEFAULT_SIZE = 2048;
+
+	/** The serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The body. */
+	private byte[] body;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doGet(final HttpServletRequest request, final HttpServletResponse response)
+		throws ServletException, IOException
+	{
+		response.setContentType("text/plain;charset=utf-8");
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void init() throws ServletException
+	{
+		final String size = getInitParameter(SIZE);
+		final char[] text = new char[size == null ? DEFAULT_SIZE : Integer.parseInt(size)];
+		Arrays.fill(text, 'a');
+		body = new String(text).getBytes(StandardCharsets.UTF_8);
+	}
+
+}
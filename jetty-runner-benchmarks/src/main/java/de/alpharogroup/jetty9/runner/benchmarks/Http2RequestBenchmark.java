@@ -0,0 +1,225 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.benchmarks;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.ResetFrame;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FuturePromise;
+import org.eclipse.jetty.util.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.alpharogroup.jetty9.runner.ServerHandle;
+import de.alpharogroup.jetty9.runner.config.Jetty9RunConfiguration;
+import de.alpharogroup.jetty9.runner.config.ThreadPoolConfiguration;
+import de.alpharogroup.jetty9.runner.connector.Http2ConnectionFactoriesProvider;
+
+/**
+ * The class {@link Http2RequestBenchmark} measures the throughput of cleartext HTTP/2 (h2c)
+ * requests against a server with the {@link Http2ConnectionFactoriesProvider}. Every benchmark
+ * thread has its own session and sends in every operation the given number of concurrent streams.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Threads(4)
+public class Http2RequestBenchmark
+{
+
+	/** The client. */
+	private HTTP2Client client;
+
+	/** The port of the server. */
+	private int port;
+
+	/** The server handle. */
+	private ServerHandle serverHandle;
+
+	/** The number of concurrent streams per operation. */
+	@Param({ "1", "8" })
+	private int streams;
+
+	/**
+	 * Sends the concurrent streams of one operation and waits for all responses.
+	 *
+	 * @param connection
+	 *            the connection of the benchmark thread
+	 * @throws Exception
+	 *             if a request fails
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public void requests(final Connection connection) throws Exception
+	{
+		final CompletableFuture<?>[] responses = new CompletableFuture<?>[streams];
+		for (int i = 0; i < streams; i++)
+		{
+			responses[i] = connection.request(port);
+		}
+		CompletableFuture.allOf(responses).get(10, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Starts the server and the client.
+	 *
+	 * @throws Exception
+	 *             if the client can not be started
+	 */
+	@Setup(Level.Trial)
+	public void start() throws Exception
+	{
+		port = BenchmarkServers.freePort();
+		serverHandle = BenchmarkServers.start(
+			BenchmarkServers.newContextConfiguration(HelloServlet.class).build(),
+			Jetty9RunConfiguration.builder().httpPort(port)
+				.threadPoolConfiguration(ThreadPoolConfiguration.builder().build())
+				.connectionFactoriesProvider(new Http2ConnectionFactoriesProvider()).build());
+		client = new HTTP2Client();
+		client.start();
+	}
+
+	/**
+	 * Stops the client and the server.
+	 *
+	 * @throws Exception
+	 *             if the client can not be stopped
+	 */
+	@TearDown(Level.Trial)
+	public void stop() throws Exception
+	{
+		client.stop();
+		serverHandle.close();
+		serverHandle.await();
+	}
+
+	/**
+	 * The HTTP/2 session of a benchmark thread.
+	 */
+	@State(Scope.Thread)
+	public static class Connection
+	{
+
+		/** The session. */
+		private Session session;
+
+		/**
+		 * Closes the session.
+		 */
+		@TearDown(Level.Trial)
+		public void close()
+		{
+			session.close(0, null, Callback.NOOP);
+		}
+
+		/**
+		 * Opens the session to the server of the given benchmark.
+		 *
+		 * @param benchmark
+		 *            the benchmark
+		 * @throws Exception
+		 *             if the session can not be opened
+		 */
+		@Setup(Level.Trial)
+		public void open(final Http2RequestBenchmark benchmark) throws Exception
+		{
+			final FuturePromise<Session> promise = new FuturePromise<>();
+			benchmark.client.connect(new InetSocketAddress(BenchmarkServers.HOST, benchmark.port),
+				new Session.Listener.Adapter(), promise);
+			session = promise.get(10, TimeUnit.SECONDS);
+		}
+
+		/**
+		 * Sends a GET request on a new stream.
+		 *
+		 * @param port
+		 *            the port of the server
+		 * @return the future that is completed at the end of the response
+		 */
+		private CompletableFuture<Void> request(final int port)
+		{
+			final CompletableFuture<Void> response = new CompletableFuture<>();
+			final MetaData.Request request = new MetaData.Request("GET",
+				new HttpURI("http://" + BenchmarkServers.HOST + ":" + port + "/hello"),
+				HttpVersion.HTTP_2, new HttpFields());
+			session.newStream(new HeadersFrame(request, null, true), new Promise.Adapter<Stream>()
+			{
+				@Override
+				public void failed(final Throwable cause)
+				{
+					response.completeExceptionally(cause);
+				}
+			}, new Stream.Listener.Adapter()
+			{
+				@Override
+				public void onData(final Stream stream, final DataFrame frame,
+					final Callback callback)
+				{
+					callback.succeeded();
+					if (frame.isEndStream())
+					{
+						response.complete(null);
+					}
+				}
+
+				@Override
+				public void onHeaders(final Stream stream, final HeadersFrame frame)
+				{
+					if (frame.isEndStream())
+					{
+						response.complete(null);
+					}
+				}
+
+				@Override
+				public void onReset(final Stream stream, final ResetFrame frame)
+				{
+					response.completeExceptionally(
+						new IllegalStateException("The stream is reset: " + frame.getError()));
+				}
+			});
+			return response;
+		}
+
+	}
+
+}
@@ -0,0 +1,334 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.benchmarks;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * The class {@link LoadGenerator} is a minimal http/1.1 client for the loopback interface that
+ * sends the requests over one persistent connection and reads the responses with content length
+ * or chunked transfer encoding. It has no dependencies, so the measured time is dominated from
+ * the server and not from a client library. Instances are not thread safe, every benchmark thread
+ * needs its own. With a {@link ChannelFactory} the connection is opened over another transport
+ * than tcp, for instance a unix domain socket.
+ */
+public class LoadGenerator implements Closeable
+{
+
+	/** The channel or null if the connection is a socket. */
+	private ByteChannel channel;
+
+	/** The factory of the channel or null if a socket to the host and port is opened. */
+	private final ChannelFactory channelFactory;
+
+	/** The host. */
+	private final String host;
+
+	/** The input stream of the connection. */
+	private InputStream input;
+
+	/** The line buffer of the response headers. */
+	private final StringBuilder line = new StringBuilder(256);
+
+	/** The output stream of the connection. */
+	private OutputStream output;
+
+	/** The port. */
+	private final int port;
+
+	/** The session cookie of the last response or null if it sets none. */
+	private String setCookie;
+
+	/** The socket. */
+	private Socket socket;
+
+	/**
+	 * Instantiates a new {@link LoadGenerator}.
+	 *
+	 * @param host
+	 *            the host
+	 * @param port
+	 *            the port
+	 */
+	public LoadGenerator(final String host, final int port)
+	{
+		this(host, port, null);
+	}
+
+	/**
+	 * Instantiates a new {@link LoadGenerator} that opens the connection with the given
+	 * {@link ChannelFactory}.
+	 *
+	 * @param host
+	 *            the host of the Host header
+	 * @param port
+	 *            the port of the Host header
+	 * @param channelFactory
+	 *            the channel factory, if null a socket to the host and port is opened
+	 */
+	public LoadGenerator(final String host, final int port, final ChannelFactory channelFactory)
+	{
+		this.host = host;
+		this.port = port;
+		this.channelFactory = channelFactory;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (socket != null)
+		{
+			socket.close();
+			socket = null;
+		}
+		if (channel != null)
+		{
+			channel.close();
+			channel = null;
+		}
+	}
+
+	/**
+	 * Opens the connection if it is not open.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void connect() throws IOException
+	{
+		if (channelFactory != null)
+		{
+			if (channel == null)
+			{
+				channel = channelFactory.open();
+				input = new BufferedInputStream(Channels.newInputStream(channel), 16384);
+				output = new BufferedOutputStream(Channels.newOutputStream(channel), 1024);
+			}
+		}
+		else if (socket == null)
+		{
+			socket = new Socket();
+			socket.setTcpNoDelay(true);
+			socket.connect(new InetSocketAddress(host, port));
+			input = new BufferedInputStream(socket.getInputStream(), 16384);
+			output = new BufferedOutputStream(socket.getOutputStream(), 1024);
+		}
+	}
+
+	/**
+	 * Sends a GET request for the given path and reads the response.
+	 *
+	 * @param path
+	 *            the path
+	 * @param gzip
+	 *            the flag if the request accepts gzip
+	 * @param cookie
+	 *            the cookie header value or null
+	 * @return the status code
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	public int get(final String path, final boolean gzip, final String cookie) throws IOException
+	{
+		connect();
+		final StringBuilder request = new StringBuilder(128).append("GET ").append(path)
+			.append(" HTTP/1.1\r\nHost: ").append(host).append(':').append(port).append("\r\n");
+		if (gzip)
+		{
+			request.append("Accept-Encoding: gzip\r\n");
+		}
+		if (cookie != null)
+		{
+			request.append("Cookie: ").append(cookie).append("\r\n");
+		}
+		output.write(request.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1));
+		output.flush();
+		try
+		{
+			return readResponse();
+		}
+		catch (final IOException e)
+		{
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets the session cookie of the last response.
+	 *
+	 * @return the session cookie, for instance <code>JSESSIONID=node01abc</code>, or null if the
+	 *         last response sets none
+	 */
+	public String getSetCookie()
+	{
+		return setCookie;
+	}
+
+	/**
+	 * Reads a line without the line terminator into the line buffer.
+	 *
+	 * @return the line buffer
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private StringBuilder readLine() throws IOException
+	{
+		line.setLength(0);
+		int c;
+		while ((c = input.read()) != '\n')
+		{
+			if (c < 0)
+			{
+				throw new EOFException("The connection is closed");
+			}
+			if (c != '\r')
+			{
+				line.append((char)c);
+			}
+		}
+		return line;
+	}
+
+	/**
+	 * Reads the response and skips the body.
+	 *
+	 * @return the status code
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private int readResponse() throws IOException
+	{
+		final String statusLine = readLine().toString();
+		final int status = Integer.parseInt(statusLine.substring(9, 12));
+		long contentLength = -1;
+		boolean chunked = false;
+		boolean closed = false;
+		setCookie = null;
+		while (0 < readLine().length())
+		{
+			final int colon = line.indexOf(":");
+			if (colon < 0)
+			{
+				continue;
+			}
+			final String name = line.substring(0, colon).trim().toLowerCase(Locale.ENGLISH);
+			final String value = line.substring(colon + 1).trim();
+			if ("content-length".equals(name))
+			{
+				contentLength = Long.parseLong(value);
+			}
+			else if ("transfer-encoding".equals(name))
+			{
+				chunked = value.toLowerCase(Locale.ENGLISH).contains("chunked");
+			}
+			else if ("connection".equals(name))
+			{
+				closed = "close".equalsIgnoreCase(value);
+			}
+			else if ("set-cookie".equals(name))
+			{
+				final int semicolon = value.indexOf(';');
+				setCookie = semicolon < 0 ? value : value.substring(0, semicolon);
+			}
+		}
+		if (chunked)
+		{
+			long size;
+			while (0 < (size = Long.parseLong(readLine().toString().split(";")[0].trim(), 16)))
+			{
+				skip(size);
+				readLine();
+			}
+			while (0 < readLine().length())
+			{
+				// the trailers are not needed
+			}
+		}
+		else if (0 < contentLength)
+		{
+			skip(contentLength);
+		}
+		if (closed)
+		{
+			close();
+		}
+		return status;
+	}
+
+	/**
+	 * Skips the given number of bytes of the input stream.
+	 *
+	 * @param count
+	 *            the number of bytes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void skip(final long count) throws IOException
+	{
+		long remaining = count;
+		while (0 < remaining)
+		{
+			final long skipped = input.skip(remaining);
+			if (skipped <= 0)
+			{
+				if (input.read() < 0)
+				{
+					throw new EOFException("The connection is closed");
+				}
+				remaining--;
+			}
+			else
+			{
+				remaining -= skipped;
+			}
+		}
+	}
+
+	/**
+	 * The interface {@link ChannelFactory} opens the connection of a {@link LoadGenerator}.
+	 */
+	@FunctionalInterface
+	public interface ChannelFactory
+	{
+
+		/**
+		 * Opens a new connected channel in blocking mode.
+		 *
+		 * @return the channel
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		ByteChannel open() throws IOException;
+
+	}
+
+}
@@ -0,0 +1,204 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.alpharogroup.jetty9.runner.ServerHandle;
+import de.alpharogroup.jetty9.runner.config.CompressionConfiguration;
+import de.alpharogroup.jetty9.runner.config.Jetty9RunConfiguration;
+import de.alpharogroup.jetty9.runner.config.ServerConnectorConfiguration;
+import de.alpharogroup.jetty9.runner.config.ThreadPoolConfiguration;
+import de.alpharogroup.jetty9.runner.connector.ConfigurableServerConnector;
+
+/**
+ * The class {@link RequestPathBenchmark} measures the throughput and the latency of http/1.1
+ * requests over persistent loopback connections against a server started from
+ * {@link de.alpharogroup.jetty9.runner.Jetty9Runner}, for the combinations of thread pool,
+ * number of connectors that share the port and compression. Several connectors need a jdk that
+ * supports SO_REUSEPORT, otherwise these parameter combinations fail.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Threads(4)
+public class RequestPathBenchmark
+{
+
+	/** The flag if the responses are compressed. */
+	@Param({ "false", "true" })
+	private boolean compression;
+
+	/** The number of connectors that share the port with SO_REUSEPORT. */
+	@Param({ "1", "2" })
+	private int connectors;
+
+	/** The port of the server. */
+	private int port;
+
+	/** The server handle. */
+	private ServerHandle serverHandle;
+
+	/**
+	 * The thread pool, <code>default</code> is a QueuedThreadPool with the defaults,
+	 * <code>bounded</code> one with a bounded job queue and <code>virtual</code> virtual threads
+	 * if the running jdk supports them.
+	 */
+	@Param({ "default", "bounded", "virtual" })
+	private String threadPool;
+
+	/**
+	 * Factory method for create the {@link ThreadPoolConfiguration} of the thread pool parameter.
+	 *
+	 * @return the thread pool configuration
+	 */
+	private ThreadPoolConfiguration newThreadPoolConfiguration()
+	{
+		switch (threadPool)
+		{
+			case "bounded" :
+				return ThreadPoolConfiguration.builder().queueCapacity(1024).build();
+			case "virtual" :
+				return ThreadPoolConfiguration.builder().virtualThreads(true).build();
+			default :
+				return ThreadPoolConfiguration.builder().build();
+		}
+	}
+
+	/**
+	 * Measures the latency distribution of the requests.
+	 *
+	 * @param client
+	 *            the client of the benchmark thread
+	 * @return the status code
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public int latency(final Client client) throws IOException
+	{
+		return client.loadGenerator.get("/hello", compression, null);
+	}
+
+	/**
+	 * Starts the server.
+	 */
+	@Setup(Level.Trial)
+	public void start()
+	{
+		if (1 < connectors && !ConfigurableServerConnector.isReusePortSupported())
+		{
+			throw new IllegalStateException("SO_REUSEPORT is not supported from the running jdk, "
+				+ "several connectors can not share the port");
+		}
+		port = BenchmarkServers.freePort();
+		serverHandle = BenchmarkServers.start(
+			BenchmarkServers.newContextConfiguration(HelloServlet.class).build(),
+			Jetty9RunConfiguration.builder().httpPort(port)
+				.threadPoolConfiguration(newThreadPoolConfiguration())
+				.serverConnectorConfiguration(ServerConnectorConfiguration.builder()
+					.reusePort(1 < connectors).connectorCount(connectors).build())
+				.compressionConfiguration(
+					compression ? CompressionConfiguration.builder().build() : null)
+				.build());
+	}
+
+	/**
+	 * Stops the server.
+	 *
+	 * @throws InterruptedException
+	 *             if the current thread is interrupted while waiting
+	 */
+	@TearDown(Level.Trial)
+	public void stop() throws InterruptedException
+	{
+		serverHandle.close();
+		serverHandle.await();
+	}
+
+	/**
+	 * Measures the throughput of the requests.
+	 *
+	 * @param client
+	 *            the client of the benchmark thread
+	 * @return the status code
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public int throughput(final Client client) throws IOException
+	{
+		return client.loadGenerator.get("/hello", compression, null);
+	}
+
+	/**
+	 * The client of a benchmark thread with its own persistent connection.
+	 */
+	@State(Scope.Thread)
+	public static class Client
+	{
+
+		/** The load generator. */
+		private LoadGenerator loadGenerator;
+
+		/**
+		 * Closes the connection.
+		 *
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		@TearDown(Level.Trial)
+		public void close() throws IOException
+		{
+			loadGenerator.close();
+		}
+
+		/**
+		 * Creates the load generator for the server of the given benchmark.
+		 *
+		 * @param benchmark
+		 *            the benchmark
+		 */
+		@Setup(Level.Trial)
+		public void open(final RequestPathBenchmark benchmark)
+		{
+			loadGenerator = new LoadGenerator(BenchmarkServers.HOST, benchmark.port);
+		}
+
+	}
+
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.alpharogroup.jetty9.runner.config.BulkheadConfiguration;
+import de.alpharogroup.jetty9.runner.config.CompressionConfiguration;
+import de.alpharogroup.jetty9.runner.config.RateLimitConfiguration;
+import de.alpharogroup.jetty9.runner.config.ServletContextHandlerConfiguration;
+import de.alpharogroup.jetty9.runner.config.StaticResourceConfiguration;
+import de.alpharogroup.jetty9.runner.factories.ServletContextHandlerFactory;
+
+/**
+ * The class {@link ServletContextHandlerFactoryBenchmark} measures the construction of
+ * {@link ServletContextHandler} objects from the {@link ServletContextHandlerFactory}, for a
+ * minimal configuration and for a configuration with all filters, and the concurrent
+ * construction of many contexts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ServletContextHandlerFactoryBenchmark
+{
+
+	/** The number of contexts that are created concurrently. */
+	private static final int CONTEXTS = 20;
+
+	/** The configuration. */
+	private ServletContextHandlerConfiguration configuration;
+
+	/** The configurations of the concurrently created contexts. */
+	private List<ServletContextHandlerConfiguration> configurations;
+
+	/**
+	 * The configuration, <code>minimal</code> has only a servlet and <code>full</code> has
+	 * additional the rate limit, the bulkhead, the Cache-Control rules and the compression.
+	 */
+	@Param({ "minimal", "full" })
+	private String features;
+
+	/**
+	 * Creates one {@link ServletContextHandler}.
+	 *
+	 * @return the servlet context handler
+	 */
+	@Benchmark
+	public ServletContextHandler newServletContextHandler()
+	{
+		return ServletContextHandlerFactory.getNewServletContextHandler(configuration);
+	}
+
+	/**
+	 * Creates the {@link ServletContextHandler} objects of many configurations concurrently.
+	 *
+	 * @return the servlet context handlers
+	 */
+	@Benchmark
+	public List<ServletContextHandler> newServletContextHandlers()
+	{
+		return ServletContextHandlerFactory.newServletContextHandlers(configurations);
+	}
+
+	/**
+	 * Creates the configurations.
+	 */
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		final ServletContextHandlerConfiguration.ServletContextHandlerConfigurationBuilder builder = BenchmarkServers
+			.newContextConfiguration(HelloServlet.class);
+		if ("full".equals(features))
+		{
+			builder.rateLimitConfiguration(RateLimitConfiguration.builder().build())
+				.bulkheadConfiguration(BulkheadConfiguration.builder().build())
+				.staticResourceConfiguration(StaticResourceConfiguration.builder()
+					.cacheControlRule("*.css", "max-age=86400").build())
+				.compressionConfiguration(CompressionConfiguration.builder().build());
+		}
+		configuration = builder.build();
+		configurations = new ArrayList<>();
+		for (int i = 0; i < CONTEXTS; i++)
+		{
+			configurations.add(configuration.toBuilder().contextPath("/context" + i).build());
+		}
+	}
+
+}
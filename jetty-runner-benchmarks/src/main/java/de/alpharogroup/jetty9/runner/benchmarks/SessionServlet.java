@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.benchmarks;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * The servlet class {@link SessionServlet} creates a session with a payload attribute on the
+ * first request of a client and reads the payload on the following requests, so the session
+ * store is exercised like from a stateful application.
+ */
+public class SessionServlet extends HttpServlet
+{
+
+	/** The name of the payload attribute. */
+	public static final String PAYLOAD = "payload";
+
+	/** The init parameter for the size in bytes of the payload. */
+	public static final String PAYLOAD_SIZE = "payloadSize";
+
+	/** The default size in bytes of the payload. */
+	public static final int DEFAULT_PAYLOAD_SIZE = 4096;
+
+	/** The serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The size in bytes of the payload. */
+	private int payloadSize;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doGet(final HttpServletRequest request, final HttpServletResponse response)
+		throws ServletException, IOException
+	{
+		final HttpSession session = request.getSession(true);
+		byte[] payload = (byte[])session.getAttribute(PAYLOAD);
+		if (payload == null)
+		{
+			payload = new byte[payloadSize];
+			session.setAttribute(PAYLOAD, payload);
+		}
+		response.setContentType("text/plain;charset=utf-8");
+		response.getWriter().print(payload.length);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void init() throws ServletException
+	{
+		final String size = getInitParameter(PAYLOAD_SIZE);
+		payloadSize = size == null ? DEFAULT_PAYLOAD_SIZE : Integer.parseInt(size);
+	}
+
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.alpharogroup.jetty9.runner.ServerHandle;
+import de.alpharogroup.jetty9.runner.config.Jetty9RunConfiguration;
+import de.alpharogroup.jetty9.runner.config.SessionStoreConfiguration;
+import de.alpharogroup.jetty9.runner.session.SessionStoreType;
+
+/**
+ * The class {@link SessionStoreBenchmark} measures the latency of requests of many clients with
+ * sessions for the session store types. The session of every client holds a payload, so with the
+ * {@link SessionStoreType#MEMORY} store the sessions fill the heap and with the
+ * {@link SessionStoreType#OFF_HEAP} store they are held outside of the heap. Run it with the gc
+ * profiler <code>-prof gc</code> to compare the allocation and the gc time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx1g", "-XX:MaxDirectMemorySize=1g" })
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+public class SessionStoreBenchmark
+{
+
+	/** The capacity of the off-heap store, large enough that no session is evicted. */
+	private static final long OFF_HEAP_CAPACITY = 768L * 1024 * 1024;
+
+	/** The port of the server. */
+	private int port;
+
+	/** The server handle. */
+	private ServerHandle serverHandle;
+
+	/** The number of clients with a session per benchmark thread. */
+	@Param({ "25000" })
+	private int sessions;
+
+	/** The session store type. */
+	@Param({ "MEMORY", "OFF_HEAP" })
+	private SessionStoreType storeType;
+
+	/**
+	 * Sends a request of the next client.
+	 *
+	 * @param clients
+	 *            the clients of the benchmark thread
+	 * @return the status code
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Benchmark
+	public int request(final Clients clients) throws IOException
+	{
+		return clients.request();
+	}
+
+	/**
+	 * Starts the server.
+	 */
+	@Setup(Level.Trial)
+	public void start()
+	{
+		port = BenchmarkServers.freePort();
+		serverHandle = BenchmarkServers.start(
+			BenchmarkServers.newContextConfiguration(SessionServlet.class)
+				.maxInactiveInterval(3600)
+				.sessionStoreConfiguration(SessionStoreConfiguration.builder().storeType(storeType)
+					.offHeapCapacity(OFF_HEAP_CAPACITY).build())
+				.build(),
+			Jetty9RunConfiguration.builder().httpPort(port).build());
+	}
+
+	/**
+	 * Stops the server.
+	 *
+	 * @throws InterruptedException
+	 *             if the current thread is interrupted while waiting
+	 */
+	@TearDown(Level.Trial)
+	public void stop() throws InterruptedException
+	{
+		serverHandle.close();
+		serverHandle.await();
+	}
+
+	/**
+	 * The clients of a benchmark thread, they share one connection and send their session
+	 * cookies in turn.
+	 */
+	@State(Scope.Thread)
+	public static class Clients
+	{
+
+		/** The session cookies of the clients. */
+		private String[] cookies;
+
+		/** The index of the next client. */
+		private int index;
+
+		/** The load generator. */
+		private LoadGenerator loadGenerator;
+
+		/**
+		 * Closes the connection.
+		 *
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		@TearDown(Level.Trial)
+		public void close() throws IOException
+		{
+			loadGenerator.close();
+		}
+
+		/**
+		 * Creates the load generator for the server of the given benchmark.
+		 *
+		 * @param benchmark
+		 *            the benchmark
+		 */
+		@Setup(Level.Trial)
+		public void open(final SessionStoreBenchmark benchmark)
+		{
+			loadGenerator = new LoadGenerator(BenchmarkServers.HOST, benchmark.port);
+			cookies = new String[benchmark.sessions];
+		}
+
+		/**
+		 * Sends a request of the next client and keeps the session cookie if a new session is
+		 * created.
+		 *
+		 * @return the status code
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		private int request() throws IOException
+		{
+			final int client = index;
+			index = (index + 1) % cookies.length;
+			final int status = loadGenerator.get("/session", false, cookies[client]);
+			if (loadGenerator.getSetCookie() != null)
+			{
+				cookies[client] = loadGenerator.getSetCookie();
+			}
+			return status;
+		}
+
+	}
+
+}
@@ -0,0 +1,204 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.alpharogroup.jetty9.runner.ServerHandle;
+import de.alpharogroup.jetty9.runner.config.Jetty9RunConfiguration;
+import de.alpharogroup.jetty9.runner.config.TlsConfiguration;
+
+/**
+ * The class {@link TlsHandshakeBenchmark} measures the TLS handshakes per second of the https
+ * connector for a security provider and with or without session resumption. The key store with a
+ * self signed certificate is generated with the keytool of the running jdk. Other providers than
+ * the default can be measured with the parameter <code>provider</code> if they are on the
+ * classpath, for instance <code>-p provider=Conscrypt</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Threads(4)
+public class TlsHandshakeBenchmark
+{
+
+	/** The password of the generated key store. */
+	private static final String PASSWORD = "benchmark";
+
+	/** The generated key store. */
+	private File keyStore;
+
+	/** The port of the https connector. */
+	private int port;
+
+	/** The name of the security provider of the server, empty takes the default provider. */
+	@Param({ "" })
+	private String provider;
+
+	/** The flag if the client resumes the TLS sessions. */
+	@Param({ "false", "true" })
+	private boolean resumption;
+
+	/** The server handle. */
+	private ServerHandle serverHandle;
+
+	/** The socket factory of the client that trusts all certificates. */
+	private SSLSocketFactory socketFactory;
+
+	/**
+	 * Factory method for create a {@link SSLContext} that trusts all certificates.
+	 *
+	 * @return the ssl context
+	 * @throws Exception
+	 *             if the ssl context can not be created
+	 */
+	private static SSLContext newTrustAllContext() throws Exception
+	{
+		final SSLContext sslContext = SSLContext.getInstance("TLS");
+		sslContext.init(null, new TrustManager[] { new X509TrustManager()
+		{
+			@Override
+			public void checkClientTrusted(final X509Certificate[] chain, final String authType)
+			{
+			}
+
+			@Override
+			public void checkServerTrusted(final X509Certificate[] chain, final String authType)
+			{
+			}
+
+			@Override
+			public X509Certificate[] getAcceptedIssuers()
+			{
+				return new X509Certificate[0];
+			}
+		} }, new SecureRandom());
+		return sslContext;
+	}
+
+	/**
+	 * Generates a key store with a self signed certificate for localhost.
+	 *
+	 * @return the key store file
+	 * @throws Exception
+	 *             if the key store can not be generated
+	 */
+	private static File newKeyStore() throws Exception
+	{
+		final File directory = Files.createTempDirectory("tls-benchmark").toFile();
+		final File file = new File(directory, "keystore.jks");
+		final Process process = new ProcessBuilder(
+			new File(System.getProperty("java.home"), "bin/keytool").getAbsolutePath(),
+			"-genkeypair", "-alias", "jetty", "-keyalg", "RSA", "-keysize", "2048", "-dname",
+			"CN=localhost", "-validity", "30", "-storetype", "JKS", "-keystore",
+			file.getAbsolutePath(), "-storepass", PASSWORD, "-keypass", PASSWORD).inheritIO()
+				.start();
+		if (process.waitFor() != 0 || !file.exists())
+		{
+			throw new IOException("The key store could not be generated with the keytool");
+		}
+		return file;
+	}
+
+	/**
+	 * Opens a connection and performs the TLS handshake.
+	 *
+	 * @return the negotiated cipher suite
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Benchmark
+	public String handshake() throws IOException
+	{
+		try (SSLSocket socket = (SSLSocket)socketFactory.createSocket(BenchmarkServers.HOST,
+			port))
+		{
+			socket.startHandshake();
+			if (!resumption)
+			{
+				socket.getSession().invalidate();
+			}
+			return socket.getSession().getCipherSuite();
+		}
+	}
+
+	/**
+	 * Generates the key store and starts the server.
+	 *
+	 * @throws Exception
+	 *             if the key store or the client can not be created
+	 */
+	@Setup(Level.Trial)
+	public void start() throws Exception
+	{
+		keyStore = newKeyStore();
+		serverHandle = BenchmarkServers.start(
+			BenchmarkServers.newContextConfiguration(HelloServlet.class).build(),
+			Jetty9RunConfiguration.builder().httpPort(0).httpsPort(BenchmarkServers.freePort())
+				.keyStorePathResource(keyStore.getAbsolutePath()).keyStorePassword(PASSWORD)
+				.tlsConfiguration(TlsConfiguration.builder()
+					.provider(StringUtils.trimToNull(provider)).build())
+				.build());
+		port = serverHandle.getHttpsPort();
+		socketFactory = newTrustAllContext().getSocketFactory();
+	}
+
+	/**
+	 * Stops the server and deletes the key store.
+	 *
+	 * @throws InterruptedException
+	 *             if the current thread is interrupted while waiting
+	 */
+	@TearDown(Level.Trial)
+	public void stop() throws InterruptedException
+	{
+		serverHandle.close();
+		serverHandle.await();
+		keyStore.delete();
+		keyStore.getParentFile().delete();
+	}
+
+}
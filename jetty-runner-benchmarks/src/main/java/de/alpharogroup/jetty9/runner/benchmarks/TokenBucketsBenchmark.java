@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.alpharogroup.jetty9.runner.filter.RateLimitFilter;
+import de.alpharogroup.jetty9.runner.ratelimit.TokenBuckets;
+
+/**
+ * The class {@link TokenBucketsBenchmark} measures the contended throughput of the
+ * {@link TokenBuckets} of the {@link RateLimitFilter}. With one key all threads compete for the
+ * same bucket, with more keys than the maximum number of clients the overflow buckets and the
+ * purge are exercised like under a scan of many addresses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+public class TokenBucketsBenchmark
+{
+
+	/** The buckets. */
+	private TokenBuckets buckets;
+
+	/** The number of distinct client keys. */
+	@Param({ "1", "10000", "1000000" })
+	private int keys;
+
+	/** The client keys. */
+	private String[] clientKeys;
+
+	/**
+	 * Takes a token of the next client key.
+	 *
+	 * @param cursor
+	 *            the cursor of the benchmark thread
+	 * @return zero if a token is taken, otherwise the time in nanoseconds until a token is
+	 *         available
+	 */
+	@Benchmark
+	public long tryAcquire(final Cursor cursor)
+	{
+		final String key = clientKeys[cursor.next(clientKeys.length)];
+		return buckets.tryAcquire(key, System.nanoTime());
+	}
+
+	/**
+	 * Creates the buckets and the client keys.
+	 */
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		buckets = new TokenBuckets(1_000_000, RateLimitFilter.DEFAULT_BURST,
+			RateLimitFilter.DEFAULT_MAX_CLIENTS, RateLimitFilter.DEFAULT_STRIPES);
+		clientKeys = new String[keys];
+		for (int i = 0; i < keys; i++)
+		{
+			clientKeys[i] = "10." + (i >>> 16 & 0xff) + "." + (i >>> 8 & 0xff) + "." + (i & 0xff);
+		}
+	}
+
+	/**
+	 * The position of a benchmark thread in the client keys.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor
+	{
+
+		/** The position. */
+		private int position = ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+
+		/**
+		 * Gets the next index.
+		 *
+		 * @param length
+		 *            the number of client keys
+		 * @return the next index
+		 */
+		private int next(final int length)
+		{
+			position = position == Integer.MAX_VALUE ? 0 : position + 1;
+			return position % length;
+		}
+
+	}
+
+}
@@ -0,0 +1,217 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.alpharogroup.jetty9.runner.ServerHandle;
+import de.alpharogroup.jetty9.runner.config.Jetty9RunConfiguration;
+import de.alpharogroup.jetty9.runner.config.UnixSocketConfiguration;
+import de.alpharogroup.jetty9.runner.connector.UnixSocketConnectorProvider;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+
+/**
+ * The class {@link UnixSocketRequestBenchmark} compares the throughput and the latency of http/1.1
+ * requests over persistent connections to the loopback tcp connector with the ones to the unix
+ * domain socket connector of the {@link UnixSocketConnectorProvider}, without and with the PROXY
+ * protocol header that a reverse proxy sends on every new connection. Needs linux or macOS.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Threads(4)
+public class UnixSocketRequestBenchmark
+{
+
+	/** The PROXY protocol header that the clients send on every new connection. */
+	private static final byte[] PROXY_HEADER = "PROXY TCP4 192.0.2.1 127.0.0.1 50000 8080\r\n"
+		.getBytes(StandardCharsets.US_ASCII);
+
+	/** The port of the server. */
+	private int port;
+
+	/** The server handle. */
+	private ServerHandle serverHandle;
+
+	/** The socket file. */
+	private File socketFile;
+
+	/**
+	 * The transport of the requests, <code>tcp</code> is the loopback tcp connector,
+	 * <code>unix</code> the unix domain socket connector and <code>unix-proxy</code> the unix
+	 * domain socket connector with the PROXY protocol.
+	 */
+	@Param({ "tcp", "unix", "unix-proxy" })
+	private String transport;
+
+	/**
+	 * Measures the latency distribution of the requests.
+	 *
+	 * @param client
+	 *            the client of the benchmark thread
+	 * @return the status code
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public int latency(final Client client) throws IOException
+	{
+		return client.loadGenerator.get("/hello", false, null);
+	}
+
+	/**
+	 * Factory method for creating the {@link LoadGenerator} of a benchmark thread for the
+	 * transport parameter.
+	 *
+	 * @return the load generator
+	 */
+	private LoadGenerator newLoadGenerator()
+	{
+		if ("tcp".equals(transport))
+		{
+			return new LoadGenerator(BenchmarkServers.HOST, port);
+		}
+		final boolean proxyProtocol = "unix-proxy".equals(transport);
+		return new LoadGenerator(BenchmarkServers.HOST, port, () -> {
+			final UnixSocketChannel channel = UnixSocketChannel
+				.open(new UnixSocketAddress(socketFile));
+			if (proxyProtocol)
+			{
+				final ByteBuffer header = ByteBuffer.wrap(PROXY_HEADER);
+				while (header.hasRemaining())
+				{
+					channel.write(header);
+				}
+			}
+			return channel;
+		});
+	}
+
+	/**
+	 * Starts the server with the tcp and the unix domain socket connector.
+	 *
+	 * @throws IOException
+	 *             if the directory of the socket file can not be created
+	 */
+	@Setup(Level.Trial)
+	public void start() throws IOException
+	{
+		port = BenchmarkServers.freePort();
+		socketFile = new File(Files.createTempDirectory("jetty-runner").toFile(), "jetty.sock");
+		serverHandle = BenchmarkServers.start(
+			BenchmarkServers.newContextConfiguration(HelloServlet.class).build(),
+			Jetty9RunConfiguration.builder().httpPort(port)
+				.connectorProvider(new UnixSocketConnectorProvider(UnixSocketConfiguration
+					.builder().socketPath(socketFile.getAbsolutePath())
+					.proxyProtocol("unix-proxy".equals(transport)).build()))
+				.build());
+	}
+
+	/**
+	 * Stops the server and deletes the directory of the socket file.
+	 *
+	 * @throws InterruptedException
+	 *             if the current thread is interrupted while waiting
+	 * @throws IOException
+	 *             if the directory of the socket file can not be deleted
+	 */
+	@TearDown(Level.Trial)
+	public void stop() throws InterruptedException, IOException
+	{
+		serverHandle.close();
+		serverHandle.await();
+		Files.deleteIfExists(socketFile.toPath());
+		Files.deleteIfExists(socketFile.getParentFile().toPath());
+	}
+
+	/**
+	 * Measures the throughput of the requests.
+	 *
+	 * @param client
+	 *            the client of the benchmark thread
+	 * @return the status code
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public int throughput(final Client client) throws IOException
+	{
+		return client.loadGenerator.get("/hello", false, null);
+	}
+
+	/**
+	 * The client of a benchmark thread with its own persistent connection.
+	 */
+	@State(Scope.Thread)
+	public static class Client
+	{
+
+		/** The load generator. */
+		private LoadGenerator loadGenerator;
+
+		/**
+		 * Closes the connection.
+		 *
+		 * @throws IOException
+		 *             Signals that an I/O exception has occurred
+		 */
+		@TearDown(Level.Trial)
+		public void close() throws IOException
+		{
+			loadGenerator.close();
+		}
+
+		/**
+		 * Creates the load generator for the server of the given benchmark.
+		 *
+		 * @param benchmark
+		 *            the benchmark
+		 */
+		@Setup(Level.Trial)
+		public void open(final UnixSocketRequestBenchmark benchmark)
+		{
+			loadGenerator = benchmark.newLoadGenerator();
+		}
+
+	}
+
+}
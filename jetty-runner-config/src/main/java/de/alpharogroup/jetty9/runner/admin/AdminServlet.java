@@ -0,0 +1,373 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.admin;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.handler.ContextHandler;
+
+/**
+ * The servlet class {@link AdminServlet} gives access to the {@link RunnerControl} of the server
+ * over http. A GET request writes the current values and the change history as plain text, a
+ * POST request changes the values of the given request parameters:
+ * <ul>
+ * <li><code>minThreads</code> and <code>maxThreads</code> for the size of the thread pool</li>
+ * <li><code>httpIdleTimeout</code> and <code>httpsIdleTimeout</code> in milliseconds</li>
+ * <li><code>compressionLevel</code> from -1 to 9</li>
+ * <li><code>rateLimitContextPath</code> with <code>rate</code> and <code>burst</code> for the rate
+ * limit of a context or of all contexts with <code>*</code></li>
+ * </ul>
+ * All parameters are parsed and checked before the first value is changed, so a request with an
+ * invalid parameter changes nothing.
+ * <p>
+ * Every request has to be authorized with one of the init parameters:
+ * </p>
+ * <ul>
+ * <li><code>token</code>: the request sends the token in the header
+ * <code>X-Admin-Token</code></li>
+ * <li><code>role</code>: the authenticated user of the request has the role, a POST request
+ * sends also the header <code>X-Requested-By</code> with any value, so a cross site form can not
+ * change the values</li>
+ * </ul>
+ * Without one of them every request is rejected. Mount it with a
+ * <code>ServletHolderConfiguration</code> on a path that is only reachable for operators.
+ */
+public class AdminServlet extends HttpServlet
+{
+
+	/** The parameter name for the burst of the rate limit. */
+	public static final String BURST = "burst";
+
+	/** The parameter name for the compression level. */
+	public static final String COMPRESSION_LEVEL = "compressionLevel";
+
+	/** The parameter name for the idle timeout of the http connectors. */
+	public static final String HTTP_IDLE_TIMEOUT = "httpIdleTimeout";
+
+	/** The parameter name for the idle timeout of the https connectors. */
+	public static final String HTTPS_IDLE_TIMEOUT = "httpsIdleTimeout";
+
+	/** The parameter name for the max threads of the thread pool. */
+	public static final String MAX_THREADS = "maxThreads";
+
+	/** The parameter name for the min threads of the thread pool. */
+	public static final String MIN_THREADS = "minThreads";
+
+	/** The parameter name for the rate of the rate limit. */
+	public static final String RATE = "rate";
+
+	/** The parameter name for the context path of the rate limit. */
+	public static final String RATE_LIMIT_CONTEXT_PATH = "rateLimitContextPath";
+
+	/** The name of the header that a POST request of a user with the role has to send. */
+	public static final String REQUESTED_BY_HEADER = "X-Requested-By";
+
+	/** The init parameter name for the role that authorizes a request. */
+	public static final String ROLE = "role";
+
+	/** The init parameter name for the token that authorizes a request. */
+	public static final String TOKEN = "token";
+
+	/** The name of the header with the token. */
+	public static final String TOKEN_HEADER = "X-Admin-Token";
+
+	/** The serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The role that authorizes a request or null. */
+	private String role;
+
+	/** The token that authorizes a request or null. */
+	private String token;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doGet(final HttpServletRequest request, final HttpServletResponse response)
+		throws ServletException, IOException
+	{
+		if (!isAuthorized(request, false))
+		{
+			response.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+		final RunnerControl runnerControl = getRunnerControl();
+		if (runnerControl == null)
+		{
+			response.sendError(HttpServletResponse.SC_NOT_FOUND, "No runner control available");
+			return;
+		}
+		writeState(response, runnerControl);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doPost(final HttpServletRequest request, final HttpServletResponse response)
+		throws ServletException, IOException
+	{
+		if (!isAuthorized(request, true))
+		{
+			response.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+		final RunnerControl runnerControl = getRunnerControl();
+		if (runnerControl == null)
+		{
+			response.sendError(HttpServletResponse.SC_NOT_FOUND, "No runner control available");
+			return;
+		}
+		final String source = "admin " + request.getRemoteAddr();
+		// the values are checked and changed under the lock of the runner control, so they can
+		// not be changed from another source in between
+		synchronized (runnerControl)
+		{
+			try
+			{
+				final String minThreads = request.getParameter(MIN_THREADS);
+				final String maxThreads = request.getParameter(MAX_THREADS);
+				final boolean threadPoolSize = minThreads != null || maxThreads != null;
+				final int min = minThreads == null
+					? runnerControl.getMinThreads()
+					: parseInt(minThreads);
+				final int max = maxThreads == null
+					? runnerControl.getMaxThreads()
+					: parseInt(maxThreads);
+				final String httpIdleTimeout = request.getParameter(HTTP_IDLE_TIMEOUT);
+				final long httpTimeout = httpIdleTimeout == null ? 0 : parseLong(httpIdleTimeout);
+				final String httpsIdleTimeout = request.getParameter(HTTPS_IDLE_TIMEOUT);
+				final long httpsTimeout = httpsIdleTimeout == null
+					? 0
+					: parseLong(httpsIdleTimeout);
+				final String compressionLevel = request.getParameter(COMPRESSION_LEVEL);
+				final int level = compressionLevel == null ? 0 : parseInt(compressionLevel);
+				final String contextPath = request.getParameter(RATE_LIMIT_CONTEXT_PATH);
+				final double rate = contextPath == null
+					? 0
+					: parseDouble(request.getParameter(RATE));
+				final int burst = contextPath == null ? 0 : parseInt(request.getParameter(BURST));
+
+				if (threadPoolSize)
+				{
+					runnerControl.checkThreadPoolSize(min, max);
+				}
+				if (httpIdleTimeout != null)
+				{
+					runnerControl.checkIdleTimeout(false, httpTimeout);
+				}
+				if (httpsIdleTimeout != null)
+				{
+					runnerControl.checkIdleTimeout(true, httpsTimeout);
+				}
+				if (compressionLevel != null)
+				{
+					runnerControl.checkCompressionLevel(level);
+				}
+				if (contextPath != null)
+				{
+					runnerControl.checkRateLimit(contextPath, rate, burst);
+				}
+
+				if (threadPoolSize)
+				{
+					runnerControl.setThreadPoolSize(min, max, source);
+				}
+				if (httpIdleTimeout != null)
+				{
+					runnerControl.setIdleTimeout(false, httpTimeout, source);
+				}
+				if (httpsIdleTimeout != null)
+				{
+					runnerControl.setIdleTimeout(true, httpsTimeout, source);
+				}
+				if (compressionLevel != null)
+				{
+					runnerControl.setCompressionLevel(level, source);
+				}
+				if (contextPath != null)
+				{
+					runnerControl.setRateLimit(contextPath, rate, burst, source);
+				}
+			}
+			catch (final IllegalArgumentException | IllegalStateException e)
+			{
+				response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+				return;
+			}
+		}
+		writeState(response, runnerControl);
+	}
+
+	/**
+	 * Gets the {@link RunnerControl} from the servlet context attribute with the class name or
+	 * from the beans of the server.
+	 *
+	 * @return the {@link RunnerControl} or null if not available
+	 */
+	private RunnerControl getRunnerControl()
+	{
+		final Object attribute = getServletContext().getAttribute(RunnerControl.class.getName());
+		if (attribute instanceof RunnerControl)
+		{
+			return (RunnerControl)attribute;
+		}
+		final ContextHandler contextHandler = ContextHandler
+			.getContextHandler(getServletContext());
+		if (contextHandler == null || contextHandler.getServer() == null)
+		{
+			return null;
+		}
+		return contextHandler.getServer().getBean(RunnerControl.class);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void init() throws ServletException
+	{
+		role = StringUtils.trimToNull(getInitParameter(ROLE));
+		token = StringUtils.trimToNull(getInitParameter(TOKEN));
+		if (role == null && token == null)
+		{
+			log("No init parameter " + ROLE + " or " + TOKEN + " is set, all requests are "
+				+ "rejected.");
+		}
+	}
+
+	/**
+	 * Checks if the given request is authorized from the token header or the role of its user.
+	 * A POST request of a user with the role has to send the header {@link #REQUESTED_BY_HEADER}
+	 * too, that a cross site form can not send.
+	 *
+	 * @param request
+	 *            the request
+	 * @param post
+	 *            the flag if the request changes values
+	 * @return true, if the request is authorized
+	 */
+	private boolean isAuthorized(final HttpServletRequest request, final boolean post)
+	{
+		final String header = request.getHeader(TOKEN_HEADER);
+		if (token != null && header != null && MessageDigest.isEqual(
+			token.getBytes(StandardCharsets.UTF_8), header.getBytes(StandardCharsets.UTF_8)))
+		{
+			return true;
+		}
+		return role != null && request.isUserInRole(role)
+			&& (!post || request.getHeader(REQUESTED_BY_HEADER) != null);
+	}
+
+	/**
+	 * Parses the given value as double.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the double
+	 */
+	private double parseDouble(final String value)
+	{
+		if (StringUtils.isBlank(value))
+		{
+			throw new IllegalArgumentException("Missing parameter " + RATE);
+		}
+		return Double.parseDouble(value.trim());
+	}
+
+	/**
+	 * Parses the given value as int.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the int
+	 */
+	private int parseInt(final String value)
+	{
+		if (StringUtils.isBlank(value))
+		{
+			throw new IllegalArgumentException("Missing numeric parameter");
+		}
+		return Integer.parseInt(value.trim());
+	}
+
+	/**
+	 * Parses the given value as long.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the long
+	 */
+	private long parseLong(final String value)
+	{
+		if (StringUtils.isBlank(value))
+		{
+			throw new IllegalArgumentException("Missing numeric parameter");
+		}
+		return Long.parseLong(value.trim());
+	}
+
+	/**
+	 * Writes the current values and the change history of the given {@link RunnerControl} as
+	 * plain text.
+	 *
+	 * @param response
+	 *            the response
+	 * @param runnerControl
+	 *            the runner control
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void writeState(final HttpServletResponse response, final RunnerControl runnerControl)
+		throws IOException
+	{
+		response.setHeader(HttpHeader.CACHE_CONTROL.asString(), "no-cache");
+		response.setContentType("text/plain;charset=utf-8");
+		final StringBuilder builder = new StringBuilder(512);
+		builder.append(MIN_THREADS).append(' ').append(runnerControl.getMinThreads())
+			.append('\n');
+		builder.append(MAX_THREADS).append(' ').append(runnerControl.getMaxThreads())
+			.append('\n');
+		builder.append(HTTP_IDLE_TIMEOUT).append(' ').append(runnerControl.getHttpIdleTimeout())
+			.append('\n');
+		builder.append(HTTPS_IDLE_TIMEOUT).append(' ')
+			.append(runnerControl.getHttpsIdleTimeout()).append('\n');
+		builder.append(COMPRESSION_LEVEL).append(' ')
+			.append(runnerControl.getCompressionLevel()).append('\n');
+		for (final String rateLimit : runnerControl.getRateLimits())
+		{
+			builder.append("rateLimit ").append(rateLimit).append('\n');
+		}
+		for (final String change : runnerControl.getChangeHistory())
+		{
+			builder.append("change ").append(change).append('\n');
+		}
+		final PrintWriter writer = response.getWriter();
+		writer.write(builder.toString());
+	}
+
+}
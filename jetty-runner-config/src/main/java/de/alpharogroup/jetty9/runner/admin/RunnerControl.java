@@ -0,0 +1,602 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.admin;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.server.AbstractConnector;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPoolBudget;
+
+import de.alpharogroup.jetty9.runner.compression.TunableGzipHandler;
+import de.alpharogroup.jetty9.runner.filter.RateLimitFilter;
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link RunnerControl} changes the tuning parameters of a running {@link Server}
+ * without restart, that are the size of the thread pool, the idle timeouts of the http and https
+ * connectors, the rate limits of the contexts and the compression level. Every value is changed
+ * in one atomic step and every change is recorded in a bounded history with the time, the old
+ * and the new value and the source of the change. The runner adds it as bean of the server, so
+ * it is exported over JMX, the {@link AdminServlet} gives access over http.
+ */
+@ManagedObject("Live tuning of the jetty runner")
+@Log
+public class RunnerControl
+{
+
+	/** The source of the changes over JMX. */
+	public static final String JMX = "jmx";
+
+	/** The maximum number of entries in the change history. */
+	public static final int MAX_HISTORY = 100;
+
+	/** The change history, the newest change is last. */
+	private final Deque<String> history = new ArrayDeque<>();
+
+	/** The server. */
+	private final Server server;
+
+	/**
+	 * Instantiates a new {@link RunnerControl} for the given {@link Server}.
+	 *
+	 * @param server
+	 *            the server
+	 */
+	public RunnerControl(final Server server)
+	{
+		this.server = server;
+	}
+
+	/**
+	 * Checks if the given compression level can be set, without changing it.
+	 *
+	 * @param compressionLevel
+	 *            the compression level from -1 for the default level to 9
+	 * @throws IllegalArgumentException
+	 *             if the compression level is out of range
+	 * @throws IllegalStateException
+	 *             if the server has no compressing handler
+	 */
+	public void checkCompressionLevel(final int compressionLevel)
+	{
+		if (compressionLevel < Deflater.DEFAULT_COMPRESSION
+			|| Deflater.BEST_COMPRESSION < compressionLevel)
+		{
+			throw new IllegalArgumentException(
+				"The compression level must be between -1 and 9 but was " + compressionLevel);
+		}
+		if (getGzipHandlers().isEmpty())
+		{
+			throw new IllegalStateException("The server has no compressing handler");
+		}
+	}
+
+	/**
+	 * Checks if the given idle timeout can be set on the https or http connectors, without
+	 * changing it.
+	 *
+	 * @param secure
+	 *            the flag for the https connectors
+	 * @param idleTimeout
+	 *            the idle timeout in milliseconds
+	 * @throws IllegalArgumentException
+	 *             if the idle timeout is not positive
+	 * @throws IllegalStateException
+	 *             if the server has no such connector
+	 */
+	public void checkIdleTimeout(final boolean secure, final long idleTimeout)
+	{
+		if (idleTimeout <= 0)
+		{
+			throw new IllegalArgumentException("The idle timeout must be positive");
+		}
+		if (getConnectors(secure).isEmpty())
+		{
+			throw new IllegalStateException("The server has no connector for "
+				+ (secure ? "httpsIdleTimeout" : "httpIdleTimeout"));
+		}
+	}
+
+	/**
+	 * Checks if the given rate limit can be set on the contexts with the given context path,
+	 * without changing it.
+	 *
+	 * @param contextPath
+	 *            the context path or <code>*</code> for all contexts
+	 * @param rate
+	 *            the sustained number of requests per second and client
+	 * @param burst
+	 *            the maximum number of requests that a client can send at once
+	 * @throws IllegalArgumentException
+	 *             if the rate is not positive or the burst is less than 1
+	 * @throws IllegalStateException
+	 *             if no rate limit filter is registered for the context path
+	 */
+	public void checkRateLimit(final String contextPath, final double rate, final int burst)
+	{
+		if (!(0 < rate))
+		{
+			throw new IllegalArgumentException("The rate must be positive");
+		}
+		if (burst < 1)
+		{
+			throw new IllegalArgumentException("The burst must be at least 1");
+		}
+		if (getRateLimitFilters(contextPath).isEmpty())
+		{
+			throw new IllegalStateException("No rate limit is registered for " + contextPath);
+		}
+	}
+
+	/**
+	 * Checks if the given min and max threads can be set on the thread pool, without changing
+	 * them.
+	 *
+	 * @param minThreads
+	 *            the min threads
+	 * @param maxThreads
+	 *            the max threads
+	 * @throws IllegalArgumentException
+	 *             if the min threads are negative or greater than the max threads
+	 * @throws IllegalStateException
+	 *             if the thread pool is not sizeable or the max threads are not enough for the
+	 *             threads that are leased from the thread pool budget
+	 */
+	public void checkThreadPoolSize(final int minThreads, final int maxThreads)
+	{
+		if (minThreads < 0 || maxThreads <= 0 || maxThreads < minThreads)
+		{
+			throw new IllegalArgumentException(
+				"The min threads must be between 0 and the max threads and the max threads "
+					+ "must be positive");
+		}
+		final ThreadPool threadPool = server.getThreadPool();
+		if (!(threadPool instanceof QueuedThreadPool))
+		{
+			throw new IllegalStateException(
+				"The thread pool " + threadPool.getClass().getSimpleName() + " is not sizeable");
+		}
+		final ThreadPoolBudget budget = ((QueuedThreadPool)threadPool).getThreadPoolBudget();
+		if (budget != null)
+		{
+			budget.check(maxThreads);
+		}
+	}
+
+	/**
+	 * Gets the change history, the newest change is last.
+	 *
+	 * @return the change history
+	 */
+	@ManagedAttribute("The history of the changes, the newest change is last")
+	public String[] getChangeHistory()
+	{
+		synchronized (history)
+		{
+			return history.toArray(new String[0]);
+		}
+	}
+
+	/**
+	 * Gets the compression level of the first compressing handler or -2 if no compressing handler
+	 * exists.
+	 *
+	 * @return the compression level
+	 */
+	@ManagedAttribute("The compression level of the compressing handlers")
+	public int getCompressionLevel()
+	{
+		final List<TunableGzipHandler> gzipHandlers = getGzipHandlers();
+		return gzipHandlers.isEmpty() ? -2 : gzipHandlers.get(0).getCompressionLevel();
+	}
+
+	/**
+	 * Gets the connectors that are https connectors if the given flag is true or else http
+	 * connectors.
+	 *
+	 * @param secure
+	 *            the flag for the https connectors
+	 * @return the connectors
+	 */
+	private List<AbstractConnector> getConnectors(final boolean secure)
+	{
+		final List<AbstractConnector> connectors = new ArrayList<>();
+		for (final Connector connector : server.getConnectors())
+		{
+			if (connector instanceof AbstractConnector && secure == (connector
+				.getConnectionFactory(SslConnectionFactory.class) != null))
+			{
+				connectors.add((AbstractConnector)connector);
+			}
+		}
+		return connectors;
+	}
+
+	/**
+	 * Gets the compressing handlers of the server.
+	 *
+	 * @return the compressing handlers
+	 */
+	private List<TunableGzipHandler> getGzipHandlers()
+	{
+		final List<TunableGzipHandler> gzipHandlers = new ArrayList<>();
+		final Handler[] handlers = server.getChildHandlersByClass(TunableGzipHandler.class);
+		if (handlers != null)
+		{
+			for (final Handler handler : handlers)
+			{
+				gzipHandlers.add((TunableGzipHandler)handler);
+			}
+		}
+		return gzipHandlers;
+	}
+
+	/**
+	 * Gets the idle timeout of the http connectors or -1 if no http connector exists.
+	 *
+	 * @return the idle timeout in milliseconds
+	 */
+	@ManagedAttribute("The idle timeout of the http connectors in milliseconds")
+	public long getHttpIdleTimeout()
+	{
+		return getIdleTimeout(false);
+	}
+
+	/**
+	 * Gets the idle timeout of the https connectors or -1 if no https connector exists.
+	 *
+	 * @return the idle timeout in milliseconds
+	 */
+	@ManagedAttribute("The idle timeout of the https connectors in milliseconds")
+	public long getHttpsIdleTimeout()
+	{
+		return getIdleTimeout(true);
+	}
+
+	/**
+	 * Gets the idle timeout of the first https or http connector.
+	 *
+	 * @param secure
+	 *            the flag for the https connectors
+	 * @return the idle timeout in milliseconds or -1 if no such connector exists
+	 */
+	private long getIdleTimeout(final boolean secure)
+	{
+		final List<AbstractConnector> connectors = getConnectors(secure);
+		return connectors.isEmpty() ? -1 : connectors.get(0).getIdleTimeout();
+	}
+
+	/**
+	 * Gets the max threads of the thread pool or -1 if the thread pool is not sizeable.
+	 *
+	 * @return the max threads
+	 */
+	@ManagedAttribute("The max threads of the thread pool")
+	public int getMaxThreads()
+	{
+		final ThreadPool threadPool = server.getThreadPool();
+		return threadPool instanceof QueuedThreadPool
+			? ((QueuedThreadPool)threadPool).getMaxThreads()
+			: -1;
+	}
+
+	/**
+	 * Gets the min threads of the thread pool or -1 if the thread pool is not sizeable.
+	 *
+	 * @return the min threads
+	 */
+	@ManagedAttribute("The min threads of the thread pool")
+	public int getMinThreads()
+	{
+		final ThreadPool threadPool = server.getThreadPool();
+		return threadPool instanceof QueuedThreadPool
+			? ((QueuedThreadPool)threadPool).getMinThreads()
+			: -1;
+	}
+
+	/**
+	 * Gets the rate limits of the contexts, one entry per rate limit filter with the context path,
+	 * the rate and the burst.
+	 *
+	 * @return the rate limits
+	 */
+	@ManagedAttribute("The rate limits of the contexts")
+	public String[] getRateLimits()
+	{
+		final List<String> rateLimits = new ArrayList<>();
+		for (final ContextHandler contextHandler : getContextHandlers())
+		{
+			for (final RateLimitFilter filter : contextHandler.getBeans(RateLimitFilter.class))
+			{
+				rateLimits.add(contextHandler.getContextPath() + " rate=" + filter.getRate()
+					+ " burst=" + filter.getBurst());
+			}
+		}
+		return rateLimits.toArray(new String[0]);
+	}
+
+	/**
+	 * Gets the rate limit filters of the contexts with the given context path.
+	 *
+	 * @param contextPath
+	 *            the context path or <code>*</code> for all contexts
+	 * @return the rate limit filters with the context path of their context
+	 */
+	private Map<RateLimitFilter, String> getRateLimitFilters(final String contextPath)
+	{
+		final Map<RateLimitFilter, String> filters = new LinkedHashMap<>();
+		for (final ContextHandler contextHandler : getContextHandlers())
+		{
+			if ("*".equals(contextPath) || contextHandler.getContextPath().equals(contextPath))
+			{
+				for (final RateLimitFilter filter : contextHandler
+					.getBeans(RateLimitFilter.class))
+				{
+					filters.put(filter, contextHandler.getContextPath());
+				}
+			}
+		}
+		return filters;
+	}
+
+	/**
+	 * Gets the context handlers of the server.
+	 *
+	 * @return the context handlers
+	 */
+	private List<ContextHandler> getContextHandlers()
+	{
+		final List<ContextHandler> contextHandlers = new ArrayList<>();
+		final Handler[] handlers = server.getChildHandlersByClass(ContextHandler.class);
+		if (handlers != null)
+		{
+			for (final Handler handler : handlers)
+			{
+				contextHandlers.add((ContextHandler)handler);
+			}
+		}
+		return contextHandlers;
+	}
+
+	/**
+	 * Records the given change in the history and in the log.
+	 *
+	 * @param source
+	 *            the source of the change
+	 * @param change
+	 *            the change
+	 */
+	private void record(final String source, final String change)
+	{
+		final String entry = Instant.now() + " " + change + " (" + source + ")";
+		synchronized (history)
+		{
+			if (history.size() == MAX_HISTORY)
+			{
+				history.removeFirst();
+			}
+			history.addLast(entry);
+		}
+		log.info("Changed " + change + " from " + source + ".");
+	}
+
+	/**
+	 * Sets the compression level of all compressing handlers.
+	 *
+	 * @param compressionLevel
+	 *            the compression level from -1 for the default level to 9
+	 */
+	@ManagedOperation(value = "Sets the compression level of the compressing handlers",
+		impact = "ACTION")
+	public void setCompressionLevel(@Name("compressionLevel") final int compressionLevel)
+	{
+		setCompressionLevel(compressionLevel, JMX);
+	}
+
+	/**
+	 * Sets the compression level of all compressing handlers.
+	 *
+	 * @param compressionLevel
+	 *            the compression level from -1 for the default level to 9
+	 * @param source
+	 *            the source of the change
+	 * @throws IllegalArgumentException
+	 *             if the compression level is out of range
+	 * @throws IllegalStateException
+	 *             if the server has no compressing handler
+	 */
+	public synchronized void setCompressionLevel(final int compressionLevel, final String source)
+	{
+		checkCompressionLevel(compressionLevel);
+		final int old = getCompressionLevel();
+		for (final TunableGzipHandler gzipHandler : getGzipHandlers())
+		{
+			gzipHandler.setCompressionLevel(compressionLevel);
+		}
+		record(source, "compressionLevel " + old + " -> " + compressionLevel);
+	}
+
+	/**
+	 * Sets the idle timeout of the http connectors.
+	 *
+	 * @param idleTimeout
+	 *            the idle timeout in milliseconds
+	 */
+	@ManagedOperation(value = "Sets the idle timeout of the http connectors", impact = "ACTION")
+	public void setHttpIdleTimeout(@Name("idleTimeout") final long idleTimeout)
+	{
+		setIdleTimeout(false, idleTimeout, JMX);
+	}
+
+	/**
+	 * Sets the idle timeout of the https connectors.
+	 *
+	 * @param idleTimeout
+	 *            the idle timeout in milliseconds
+	 */
+	@ManagedOperation(value = "Sets the idle timeout of the https connectors", impact = "ACTION")
+	public void setHttpsIdleTimeout(@Name("idleTimeout") final long idleTimeout)
+	{
+		setIdleTimeout(true, idleTimeout, JMX);
+	}
+
+	/**
+	 * Sets the idle timeout of the https or http connectors and of their open connections.
+	 *
+	 * @param secure
+	 *            the flag for the https connectors
+	 * @param idleTimeout
+	 *            the idle timeout in milliseconds
+	 * @param source
+	 *            the source of the change
+	 * @throws IllegalArgumentException
+	 *             if the idle timeout is not positive
+	 * @throws IllegalStateException
+	 *             if the server has no such connector
+	 */
+	public synchronized void setIdleTimeout(final boolean secure, final long idleTimeout,
+		final String source)
+	{
+		checkIdleTimeout(secure, idleTimeout);
+		final List<AbstractConnector> connectors = getConnectors(secure);
+		final String name = secure ? "httpsIdleTimeout" : "httpIdleTimeout";
+		final long old = getIdleTimeout(secure);
+		for (final AbstractConnector connector : connectors)
+		{
+			connector.setIdleTimeout(idleTimeout);
+			for (final EndPoint endPoint : connector.getConnectedEndPoints())
+			{
+				endPoint.setIdleTimeout(idleTimeout);
+			}
+		}
+		record(source, name + " " + old + " -> " + idleTimeout);
+	}
+
+	/**
+	 * Sets the rate and the burst of the rate limit filters of the contexts with the given context
+	 * path.
+	 *
+	 * @param contextPath
+	 *            the context path or <code>*</code> for all contexts
+	 * @param rate
+	 *            the sustained number of requests per second and client
+	 * @param burst
+	 *            the maximum number of requests that a client can send at once
+	 */
+	@ManagedOperation(value = "Sets the rate limit of the contexts with the context path",
+		impact = "ACTION")
+	public void setRateLimit(@Name("contextPath") final String contextPath,
+		@Name("rate") final double rate, @Name("burst") final int burst)
+	{
+		setRateLimit(contextPath, rate, burst, JMX);
+	}
+
+	/**
+	 * Sets the rate and the burst of the rate limit filters of the contexts with the given context
+	 * path.
+	 *
+	 * @param contextPath
+	 *            the context path or <code>*</code> for all contexts
+	 * @param rate
+	 *            the sustained number of requests per second and client
+	 * @param burst
+	 *            the maximum number of requests that a client can send at once
+	 * @param source
+	 *            the source of the change
+	 * @throws IllegalArgumentException
+	 *             if the rate is not positive or the burst is less than 1
+	 * @throws IllegalStateException
+	 *             if no rate limit filter is registered for the context path
+	 */
+	public synchronized void setRateLimit(final String contextPath, final double rate,
+		final int burst, final String source)
+	{
+		checkRateLimit(contextPath, rate, burst);
+		for (final Map.Entry<RateLimitFilter, String> entry : getRateLimitFilters(contextPath)
+			.entrySet())
+		{
+			final RateLimitFilter filter = entry.getKey();
+			final String old = "rate=" + filter.getRate() + " burst=" + filter.getBurst();
+			filter.setLimit(rate, burst);
+			record(source, "rateLimit " + entry.getValue() + " " + old + " -> rate=" + rate
+				+ " burst=" + burst);
+		}
+	}
+
+	/**
+	 * Sets the min and max threads of the thread pool.
+	 *
+	 * @param minThreads
+	 *            the min threads
+	 * @param maxThreads
+	 *            the max threads
+	 */
+	@ManagedOperation(value = "Sets the min and max threads of the thread pool",
+		impact = "ACTION")
+	public void setThreadPoolSize(@Name("minThreads") final int minThreads,
+		@Name("maxThreads") final int maxThreads)
+	{
+		setThreadPoolSize(minThreads, maxThreads, JMX);
+	}
+
+	/**
+	 * Sets the min and max threads of the thread pool. The max threads are set first, the thread
+	 * pool lowers the min threads to them if needed, and then the min threads are set.
+	 *
+	 * @param minThreads
+	 *            the min threads
+	 * @param maxThreads
+	 *            the max threads
+	 * @param source
+	 *            the source of the change
+	 * @throws IllegalArgumentException
+	 *             if the min threads are negative or greater than the max threads
+	 * @throws IllegalStateException
+	 *             if the thread pool is not sizeable or the max threads are not enough for the
+	 *             threads that are leased from the thread pool budget
+	 */
+	public synchronized void setThreadPoolSize(final int minThreads, final int maxThreads,
+		final String source)
+	{
+		checkThreadPoolSize(minThreads, maxThreads);
+		final QueuedThreadPool queuedThreadPool = (QueuedThreadPool)server.getThreadPool();
+		final String old = queuedThreadPool.getMinThreads() + "/"
+			+ queuedThreadPool.getMaxThreads();
+		queuedThreadPool.setMaxThreads(maxThreads);
+		queuedThreadPool.setMinThreads(minThreads);
+		record(source, "threadPool " + old + " -> " + minThreads + "/" + maxThreads);
+	}
+
+}
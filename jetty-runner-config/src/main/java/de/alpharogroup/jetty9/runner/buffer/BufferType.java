@@ -0,0 +1,37 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.buffer;
+
+/**
+ * The enum {@link BufferType} defines if the byte buffer pool of the connectors hands out direct
+ * or heap buffers.
+ */
+public enum BufferType
+{
+
+	/** The connections decide per buffer if a direct or a heap buffer is taken. */
+	DEFAULT,
+
+	/**
+	 * All buffers are direct buffers, they avoid a copy on socket reads and writes but are
+	 * allocated outside of the heap.
+	 */
+	DIRECT,
+
+	/** All buffers are heap buffers, the memory is bounded from the heap size. */
+	HEAP
+
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+
+import de.alpharogroup.jetty9.runner.config.ByteBufferPoolConfiguration;
+
+/**
+ * The class {@link InstrumentedByteBufferPool} is an {@link ArrayByteBufferPool} that is created
+ * from a {@link ByteBufferPoolConfiguration} and counts the acquired, allocated and released
+ * buffers. An allocation is an acquire that the pool could not serve from its buckets, so the
+ * allocation rate together with the retained heap and direct memory shows if the bucket layout
+ * and the max retained memory fit the load. Share one instance between all connectors of a server
+ * and add it as bean to the server, then the counters are exposed over JMX.
+ */
+@ManagedObject("Instrumented byte buffer pool of the connectors")
+public class InstrumentedByteBufferPool extends ArrayByteBufferPool
+{
+
+	/** The number of acquired buffers. */
+	private final LongAdder acquired = new LongAdder();
+
+	/** The number of allocated bytes. */
+	private final LongAdder allocatedBytes = new LongAdder();
+
+	/** The number of allocated buffers. */
+	private final LongAdder allocations = new LongAdder();
+
+	/** The type of the buffers. */
+	private final BufferType bufferType;
+
+	/** The number of released buffers. */
+	private final LongAdder released = new LongAdder();
+
+	/** The time in nanoseconds of the last reset. */
+	private volatile long resetTime = System.nanoTime();
+
+	/**
+	 * Instantiates a new {@link InstrumentedByteBufferPool} with the defaults of the
+	 * {@link ByteBufferPoolConfiguration}.
+	 */
+	public InstrumentedByteBufferPool()
+	{
+		this(ByteBufferPoolConfiguration.builder().build());
+	}
+
+	/**
+	 * Instantiates a new {@link InstrumentedByteBufferPool} from the given
+	 * {@link ByteBufferPoolConfiguration}.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @throws IllegalArgumentException
+	 *             if the factor is not a divisor of the max capacity
+	 */
+	public InstrumentedByteBufferPool(final ByteBufferPoolConfiguration configuration)
+	{
+		super(configuration.getMinCapacity(), configuration.getFactor(),
+			configuration.getMaxCapacity(), configuration.getMaxQueueLength(),
+			configuration.getMaxHeapMemory(), configuration.getMaxDirectMemory());
+		this.bufferType = configuration.getBufferType() == null
+			? BufferType.DEFAULT
+			: configuration.getBufferType();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ByteBuffer acquire(final int size, final boolean direct)
+	{
+		acquired.increment();
+		switch (bufferType)
+		{
+			case DIRECT :
+				return super.acquire(size, true);
+			case HEAP :
+				return super.acquire(size, false);
+			default :
+				return super.acquire(size, direct);
+		}
+	}
+
+	/**
+	 * Gets the number of acquired buffers since the last reset.
+	 *
+	 * @return the number of acquired buffers
+	 */
+	@ManagedAttribute("The number of acquired buffers")
+	public long getAcquired()
+	{
+		return acquired.sum();
+	}
+
+	/**
+	 * Gets the number of allocated bytes since the last reset.
+	 *
+	 * @return the number of allocated bytes
+	 */
+	@ManagedAttribute("The number of allocated bytes")
+	public long getAllocatedBytes()
+	{
+		return allocatedBytes.sum();
+	}
+
+	/**
+	 * Gets the allocated bytes per second since the last reset.
+	 *
+	 * @return the allocated bytes per second
+	 */
+	@ManagedAttribute("The allocated bytes per second")
+	public double getAllocatedBytesRate()
+	{
+		return perSecond(allocatedBytes.sum());
+	}
+
+	/**
+	 * Gets the number of buffers that the pool could not serve from its buckets and allocated
+	 * since the last reset.
+	 *
+	 * @return the number of allocated buffers
+	 */
+	@ManagedAttribute("The number of allocated buffers")
+	public long getAllocations()
+	{
+		return allocations.sum();
+	}
+
+	/**
+	 * Gets the allocated buffers per second since the last reset.
+	 *
+	 * @return the allocated buffers per second
+	 */
+	@ManagedAttribute("The allocated buffers per second")
+	public double getAllocationRate()
+	{
+		return perSecond(allocations.sum());
+	}
+
+	/**
+	 * Gets the type of the buffers.
+	 *
+	 * @return the type of the buffers
+	 */
+	@ManagedAttribute("The type of the buffers")
+	public BufferType getBufferType()
+	{
+		return bufferType;
+	}
+
+	/**
+	 * Gets the ratio of the acquired buffers that were served from the buckets of the pool.
+	 *
+	 * @return the hit ratio between 0 and 1 or 1 if no buffer was acquired
+	 */
+	@ManagedAttribute("The ratio of the acquired buffers that were served from the pool")
+	public double getHitRatio()
+	{
+		final long acquires = acquired.sum();
+		if (acquires == 0)
+		{
+			return 1;
+		}
+		return Math.max(0, acquires - allocations.sum()) / (double)acquires;
+	}
+
+	/**
+	 * Gets the number of released buffers since the last reset.
+	 *
+	 * @return the number of released buffers
+	 */
+	@ManagedAttribute("The number of released buffers")
+	public long getReleased()
+	{
+		return released.sum();
+	}
+
+	/**
+	 * Gets the heap and direct memory in bytes that is retained in the buckets of the pool.
+	 *
+	 * @return the retained memory in bytes
+	 */
+	@ManagedAttribute("The heap and direct memory that is retained in the pool")
+	public long getRetainedMemory()
+	{
+		return getHeapMemory() + getDirectMemory();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ByteBuffer newByteBuffer(final int capacity, final boolean direct)
+	{
+		allocations.increment();
+		allocatedBytes.add(capacity);
+		return super.newByteBuffer(capacity, direct);
+	}
+
+	/**
+	 * Divides the given count through the seconds since the last reset.
+	 *
+	 * @param count
+	 *            the count
+	 * @return the count per second
+	 */
+	private double perSecond(final long count)
+	{
+		final long elapsed = System.nanoTime() - resetTime;
+		if (elapsed <= 0)
+		{
+			return 0;
+		}
+		return count * (double)TimeUnit.SECONDS.toNanos(1) / elapsed;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void release(final ByteBuffer buffer)
+	{
+		if (buffer != null)
+		{
+			released.increment();
+		}
+		super.release(buffer);
+	}
+
+	/**
+	 * Resets the counters, the retained buffers are kept.
+	 */
+	@ManagedOperation(value = "Resets the counters", impact = "ACTION")
+	public void reset()
+	{
+		acquired.reset();
+		allocatedBytes.reset();
+		allocations.reset();
+		released.reset();
+		resetTime = System.nanoTime();
+	}
+
+}
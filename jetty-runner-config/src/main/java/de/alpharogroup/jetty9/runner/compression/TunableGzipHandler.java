@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.compression;
+
+import java.util.zip.Deflater;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+
+/**
+ * The class {@link TunableGzipHandler} is a {@link GzipHandler} whose compression level can be
+ * changed while it is started. The level of jetty's {@link GzipHandler} is fixed in the pooled
+ * deflaters on start, this handler sets the current level on every deflater it hands out, which
+ * takes effect with the first deflate call of the response.
+ */
+public class TunableGzipHandler extends GzipHandler
+{
+
+	/** The current compression level. */
+	private volatile int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getCompressionLevel()
+	{
+		return compressionLevel;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Deflater getDeflater(final Request request, final long contentLength)
+	{
+		final Deflater deflater = super.getDeflater(request, contentLength);
+		if (deflater != null)
+		{
+			deflater.setLevel(compressionLevel);
+		}
+		return deflater;
+	}
+
+	/**
+	 * Sets the compression level, unlike jetty's {@link GzipHandler} also if the handler is
+	 * started.
+	 *
+	 * @param compressionLevel
+	 *            the compression level from -1 for the default level to 9
+	 * @throws IllegalArgumentException
+	 *             if the compression level is out of range
+	 */
+	@Override
+	public void setCompressionLevel(final int compressionLevel)
+	{
+		if (compressionLevel < Deflater.DEFAULT_COMPRESSION
+			|| Deflater.BEST_COMPRESSION < compressionLevel)
+		{
+			throw new IllegalArgumentException(
+				"The compression level must be between -1 and 9 but was " + compressionLevel);
+		}
+		if (!isStarted())
+		{
+			super.setCompressionLevel(compressionLevel);
+		}
+		this.compressionLevel = compressionLevel;
+	}
+
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import java.io.File;
+
+import de.alpharogroup.jetty9.runner.log.AccessLogFormat;
+import de.alpharogroup.jetty9.runner.log.OverflowPolicy;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Access log configuration.
+ * <p>
+ * This class is a holder of the access log configuration. The request threads put the log lines
+ * in a bounded buffer and a background writer writes them in batches to the log file, that is
+ * rotated by time and by size.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class AccessLogConfiguration
+{
+
+	/** The number of log lines the buffer holds, rounded up to a power of two. */
+	@Builder.Default
+	private int bufferCapacity = 8192;
+
+	/** The log file, the rotated files are named after it with a time stamp suffix. */
+	private File file;
+
+	/** The format of the log lines. */
+	@Builder.Default
+	private AccessLogFormat format = AccessLogFormat.NCSA;
+
+	/** The maximum size in bytes of the log file before it is rotated, zero disables it. */
+	private long maxFileSize;
+
+	/** The policy if the buffer is full. */
+	@Builder.Default
+	private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+	/** The number of rotated files that are kept, zero keeps all. */
+	@Builder.Default
+	private int retainFiles = 7;
+
+	/** The time in milliseconds after that the log file is rotated, zero disables it. */
+	@Builder.Default
+	private long rotationPeriod = 24L * 60 * 60 * 1000;
+
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import java.util.Map;
+
+import de.alpharogroup.jetty9.runner.filter.BulkheadFilter;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.Singular;
+import lombok.ToString;
+
+/**
+ * Bulkhead configuration.
+ * <p>
+ * This class is a holder of the configuration of a {@link BulkheadFilter} that limits the
+ * concurrent requests of a context or of a path in a context.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class BulkheadConfiguration
+{
+
+	/** The maximum number of concurrent requests. */
+	@Builder.Default
+	private int maxRequests = BulkheadFilter.DEFAULT_MAX_REQUESTS;
+
+	/** The path spec of the requests that are limited. */
+	@Builder.Default
+	private String pathSpec = "/*";
+
+	/**
+	 * The priorities per path prefix in the context, the waiting requests with the highest
+	 * priority are resumed first. Requests that do not match a prefix have the priority 0.
+	 */
+	@Singular
+	private Map<String, Integer> priorityPaths;
+
+	/** The maximum number of waiting requests, if exceeded the requests are rejected. */
+	@Builder.Default
+	private int queueCapacity = BulkheadFilter.DEFAULT_QUEUE_CAPACITY;
+
+	/** The value in seconds of the Retry-After header of rejected requests. */
+	@Builder.Default
+	private int retryAfter = BulkheadFilter.DEFAULT_RETRY_AFTER;
+
+	/** The maximum wait time in milliseconds of a waiting request. */
+	@Builder.Default
+	private long waitTimeout = BulkheadFilter.DEFAULT_WAIT_TIMEOUT;
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import de.alpharogroup.jetty9.runner.buffer.BufferType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * ByteBufferPool configuration.
+ * <p>
+ * This class is a holder of the configuration of the byte buffer pool that is shared from all
+ * connectors of a server. The pool has one bucket per capacity step of the factor between the min
+ * and the max capacity, larger buffers are not pooled. The defaults are the same as the defaults
+ * of jetty's <code>ArrayByteBufferPool</code>.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class ByteBufferPoolConfiguration
+{
+
+	/** The default capacity factor, the capacity step between two buckets. */
+	public static final int DEFAULT_FACTOR = 1024;
+
+	/** The default capacity of the largest pooled buffers. */
+	public static final int DEFAULT_MAX_CAPACITY = 64 * 1024;
+
+	/** The value for an unbounded queue length or memory. */
+	public static final int UNBOUNDED = -1;
+
+	/** The type of the buffers, direct, heap or as requested from the connections. */
+	@Builder.Default
+	private BufferType bufferType = BufferType.DEFAULT;
+
+	/** The capacity factor, the capacity step between two buckets. */
+	@Builder.Default
+	private int factor = DEFAULT_FACTOR;
+
+	/**
+	 * The capacity of the largest pooled buffers, must be a multiple of the factor greater than
+	 * the factor.
+	 */
+	@Builder.Default
+	private int maxCapacity = DEFAULT_MAX_CAPACITY;
+
+	/**
+	 * The maximum direct memory in bytes that is retained from the pool, released buffers beyond
+	 * it are dropped. A negative value retains the direct buffers without limit.
+	 */
+	@Builder.Default
+	private long maxDirectMemory = UNBOUNDED;
+
+	/**
+	 * The maximum heap memory in bytes that is retained from the pool, released buffers beyond it
+	 * are dropped. A negative value retains the heap buffers without limit.
+	 */
+	@Builder.Default
+	private long maxHeapMemory = UNBOUNDED;
+
+	/** The maximum number of buffers per bucket, a negative value is unbounded. */
+	@Builder.Default
+	private int maxQueueLength = UNBOUNDED;
+
+	/** The capacity of the smallest pooled buffers. */
+	private int minCapacity;
+
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import java.util.List;
+import java.util.zip.Deflater;
+
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.Singular;
+import lombok.ToString;
+
+/**
+ * Compression configuration.
+ * <p>
+ * This class is a holder of the response compression configuration. The defaults are the same as
+ * the defaults of jetty's {@link GzipHandler}.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class CompressionConfiguration
+{
+
+	/** The default precompressed formats, brotli before gzip. */
+	public static final String DEFAULT_PRECOMPRESSED_FORMATS = "br=.br,gzip=.gz";
+
+	/**
+	 * The compression level of the deflater from 0 to 9 or -1 for the default level of the
+	 * deflater.
+	 */
+	@Builder.Default
+	private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+	/** The capacity of the deflater pool, a negative value means an unbounded pool. */
+	@Builder.Default
+	private int deflaterPoolCapacity = -1;
+
+	/** The excluded path specs. */
+	@Singular
+	private List<String> excludedPaths;
+
+	/** The included mime types, if empty all mime types that are not excluded are compressed. */
+	@Singular
+	private List<String> includedMimeTypes;
+
+	/** The included path specs, if empty all paths that are not excluded are compressed. */
+	@Singular
+	private List<String> includedPaths;
+
+	/** The minimum response size in bytes for compression. */
+	@Builder.Default
+	private int minGzipSize = GzipHandler.DEFAULT_MIN_GZIP_SIZE;
+
+	/**
+	 * The precompressed formats of the DefaultServlet, for instance
+	 * {@link #DEFAULT_PRECOMPRESSED_FORMATS}. If set the DefaultServlet serves an existing
+	 * precompressed sibling of a static resource instead of compressing it on the fly.
+	 */
+	private String precompressedFormats;
+
+}
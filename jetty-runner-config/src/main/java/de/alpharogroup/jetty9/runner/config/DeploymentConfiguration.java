@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import java.io.File;
+import java.util.List;
+
+import de.alpharogroup.jetty9.runner.deploy.DeployMode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.Singular;
+import lombok.ToString;
+
+/**
+ * Deployment configuration.
+ * <p>
+ * This class is a holder of the configuration for the webapps that are deployed from the
+ * DeploymentManager. The defaults are the same as the former hardcoded settings of the
+ * DeploymentManagerFactory.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class DeploymentConfiguration
+{
+
+	/** The default scan interval in seconds. */
+	public static final int DEFAULT_SCAN_INTERVAL = 1;
+
+	/** The default quiet time in milliseconds of the watch deploy mode. */
+	public static final long DEFAULT_WATCH_QUIET_TIME = 1000;
+
+	/** The default pattern of the container jars that are scanned. */
+	public static final String DEFAULT_CONTAINER_INCLUDE_JAR_PATTERN =
+		".*/servlet-api-[^/]*\\.jar$";
+
+	/**
+	 * The configuration classes of the deployed webapps. If empty the configuration classes are
+	 * chosen from the fast start and quickstart flags.
+	 */
+	@Singular
+	private List<String> configurationClasses;
+
+	/** The pattern of the container jars that are scanned for fragments and annotations. */
+	@Builder.Default
+	private String containerIncludeJarPattern = DEFAULT_CONTAINER_INCLUDE_JAR_PATTERN;
+
+	/**
+	 * The directory that is monitored for webapps to deploy. Every subdirectory, war and context
+	 * xml in it is deployed, so it has to be separate from the webapp of the application. If null
+	 * no deployer is started for the application.
+	 */
+	private File deployDirectory;
+
+	/** The deploy mode that defines how the monitored directory is checked for changes. */
+	@Builder.Default
+	private DeployMode deployMode = DeployMode.INTERVAL;
+
+	/** The flag if packed wars are extracted. */
+	@Builder.Default
+	private boolean extractWars = true;
+
+	/**
+	 * The flag for the fast start mode. In fast start mode the deployed webapps are configured
+	 * without the configurations that scan the jars for META-INF resources and web fragments.
+	 */
+	private boolean fastStart;
+
+	/**
+	 * The flag if webapps with a pre-generated <code>WEB-INF/quickstart-web.xml</code> are
+	 * configured from this descriptor. Takes only effect if jetty-quickstart is on the classpath
+	 * and only for exploded webapps, packed wars are configured as without quickstart.
+	 */
+	private boolean quickstart;
+
+	/** The scan interval in seconds of the interval deploy mode. */
+	@Builder.Default
+	private int scanInterval = DEFAULT_SCAN_INTERVAL;
+
+	/**
+	 * The quiet time in milliseconds of the watch deploy mode. A change is only deployed if no
+	 * further change occurred in this time, so partially copied wars are not deployed.
+	 */
+	@Builder.Default
+	private long watchQuietTime = DEFAULT_WATCH_QUIET_TIME;
+
+	/**
+	 * The pattern of the jars in <code>WEB-INF/lib</code> that are scanned, if null all jars are
+	 * scanned.
+	 */
+	private String webInfIncludeJarPattern;
+
+}
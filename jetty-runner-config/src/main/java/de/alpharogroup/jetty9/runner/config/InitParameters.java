@@ -24,6 +24,33 @@ public interface InitParameters
 	/** The application factory class name. */
 	String APPLICATION_FACTORY_CLASS_NAME = "applicationFactoryClassName";
 
+	/**
+	 * The prefix of the context init parameters that are taken as init parameters of the jetty
+	 * DefaultServlet.
+	 */
+	String DEFAULT_SERVLET_INIT_PARAMETER_PREFIX = "org.eclipse.jetty.servlet.Default.";
+
+	/** The DefaultServlet init parameter for the Cache-Control header. */
+	String DEFAULT_SERVLET_CACHE_CONTROL = "cacheControl";
+
+	/** The DefaultServlet init parameter for the etags generation. */
+	String DEFAULT_SERVLET_ETAGS = "etags";
+
+	/** The DefaultServlet init parameter for the max cache size. */
+	String DEFAULT_SERVLET_MAX_CACHE_SIZE = "maxCacheSize";
+
+	/** The DefaultServlet init parameter for the max cached file size. */
+	String DEFAULT_SERVLET_MAX_CACHED_FILE_SIZE = "maxCachedFileSize";
+
+	/** The DefaultServlet init parameter for the max cached files. */
+	String DEFAULT_SERVLET_MAX_CACHED_FILES = "maxCachedFiles";
+
+	/** The DefaultServlet init parameter for the precompressed formats. */
+	String DEFAULT_SERVLET_PRECOMPRESSED = "precompressed";
+
+	/** The DefaultServlet init parameter for the usage of memory mapped file buffers. */
+	String DEFAULT_SERVLET_USE_FILE_MAPPED_BUFFER = "useFileMappedBuffer";
+
 	/** The wicket spring web application factory class. */
 	String WICKET_SPRING_WEB_APPLICATION_FACTORY_CLASS = "org.apache.wicket.spring.SpringWebApplicationFactory";
 
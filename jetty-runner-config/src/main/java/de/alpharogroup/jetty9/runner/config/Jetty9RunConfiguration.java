@@ -15,18 +15,24 @@
  */
 package de.alpharogroup.jetty9.runner.config;
 
+import java.util.List;
+
 import org.eclipse.jetty.deploy.DeploymentManager;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.eclipse.jetty.server.handler.HandlerCollection;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 
+import de.alpharogroup.jetty9.runner.connector.ConnectionFactoriesProvider;
+import de.alpharogroup.jetty9.runner.connector.ConnectorProvider;
+import de.alpharogroup.jetty9.runner.metrics.RequestMetrics;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import lombok.Singular;
 import lombok.ToString;
 
 /**
@@ -44,6 +50,37 @@ import lombok.ToString;
 @Builder(toBuilder = true)
 public class Jetty9RunConfiguration
 {
+	/**
+	 * The access log configuration, if set the requests are logged asynchronously in the
+	 * configured log file.
+	 */
+	private AccessLogConfiguration accessLogConfiguration;
+
+	/**
+	 * The provider for the connection factories of the http and https connectors, if null
+	 * http/1.1 is used.
+	 */
+	private ConnectionFactoriesProvider connectionFactoriesProvider;
+
+	/**
+	 * The providers of additional connectors besides the http and https connectors, for instance
+	 * a connector on a unix domain socket.
+	 */
+	@Singular
+	private List<ConnectorProvider> connectorProviders;
+
+	/**
+	 * The compression configuration, if set the handlers of the server are wrapped in a
+	 * GzipHandler.
+	 */
+	private CompressionConfiguration compressionConfiguration;
+
+	/**
+	 * The number of threads that start the contexts of the servlet context handler
+	 * configurations, zero takes the number of available processors.
+	 */
+	private int contextStartThreads;
+
 	/** The contexts. */
 	private ContextHandlerCollection contexts;
 
@@ -68,6 +105,41 @@ public class Jetty9RunConfiguration
 	/** The key store path resource. */
 	private String keyStorePathResource;
 
+	/**
+	 * The performance profile with the buffers, timeouts, thread pool, connectors and compression,
+	 * if null the default profile is taken. The server connector, thread pool and compression
+	 * configurations of this configuration take precedence over the ones of the profile.
+	 */
+	private PerformanceProfile performanceProfile;
+
+	/** The server connector configuration for the http and https connectors. */
+	private ServerConnectorConfiguration serverConnectorConfiguration;
+
+	/**
+	 * The request metrics, if set the handlers of the server are wrapped in a StatisticsHandler
+	 * and the latencies are recorded per connector.
+	 */
+	private RequestMetrics requestMetrics;
+
+	/**
+	 * The graceful shutdown configuration, if set the server drains the requests in flight before
+	 * it stops.
+	 */
+	private ShutdownConfiguration shutdownConfiguration;
+
 	/** The servlet context handler. */
 	private ServletContextHandler servletContextHandler;
+
+	/**
+	 * The configurations of additional servlet context handlers, they are created and started
+	 * concurrently.
+	 */
+	@Singular
+	private List<ServletContextHandlerConfiguration> servletContextHandlerConfigurations;
+
+	/** The thread pool configuration. */
+	private ThreadPoolConfiguration threadPoolConfiguration;
+
+	/** The TLS configuration of the https connectors, if null the defaults are taken. */
+	private TlsConfiguration tlsConfiguration;
 }
@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import java.io.File;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Wicket page store configuration.
+ * <p>
+ * This class is a holder of the configuration of the page store of a wicket application. The
+ * defaults are the same as the defaults of wicket's <code>StoreSettings</code>. The settings are
+ * applied after the <code>init</code> method of the application and override the store settings
+ * that are set there.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class PageStoreConfiguration
+{
+
+	/** The default capacity of the queue of the asynchronous page store. */
+	public static final int DEFAULT_ASYNCHRONOUS_QUEUE_CAPACITY = 100;
+
+	/** The default number of pages per session in the in-memory cache. */
+	public static final int DEFAULT_INMEMORY_CACHE_SIZE = 40;
+
+	/** The default maximum size in bytes of the disk store per session. */
+	public static final long DEFAULT_MAX_SIZE_PER_SESSION = 10L * 1024 * 1024;
+
+	/** The flag if the pages are written asynchronously to the disk store. */
+	@Builder.Default
+	private boolean asynchronous = true;
+
+	/** The capacity of the queue of the asynchronous page store. */
+	@Builder.Default
+	private int asynchronousQueueCapacity = DEFAULT_ASYNCHRONOUS_QUEUE_CAPACITY;
+
+	/** The folder of the disk store, if null the temporary directory of the context is taken. */
+	private File fileStoreFolder;
+
+	/** The number of pages per session in the in-memory cache. */
+	@Builder.Default
+	private int inmemoryCacheSize = DEFAULT_INMEMORY_CACHE_SIZE;
+
+	/** The maximum size in bytes of the disk store per session. */
+	@Builder.Default
+	private long maxSizePerSession = DEFAULT_MAX_SIZE_PER_SESSION;
+
+	/**
+	 * The class of the page serializer, it has to implement
+	 * <code>org.apache.wicket.serialize.ISerializer</code> and to have a constructor with the
+	 * application key as string or a default constructor. If null the serializer of the
+	 * application is kept.
+	 */
+	private Class<?> serializerClass;
+
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Performance profile configuration.
+ * <p>
+ * This class is a holder of the performance relevant settings of the jetty server, that are the
+ * buffers, the connector idle timeouts, the thread pool, the connectors and the compression of the
+ * handlers. The defaults are the values that the runner has always used. Named presets are
+ * provided from the enum <code>PerformancePreset</code>.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class PerformanceProfile
+{
+
+	/** The default http idle timeout in milliseconds. */
+	public static final long DEFAULT_HTTP_IDLE_TIMEOUT = 1000 * 60 * 60;
+
+	/** The default https idle timeout in milliseconds. */
+	public static final long DEFAULT_HTTPS_IDLE_TIMEOUT = 500000;
+
+	/** The default size of the request and response headers. */
+	public static final int DEFAULT_HEADER_SIZE = 8 * 1024;
+
+	/** The default output buffer size. */
+	public static final int DEFAULT_OUTPUT_BUFFER_SIZE = 32768;
+
+	/**
+	 * The compression configuration, if set the handlers of the server are wrapped in a
+	 * GzipHandler.
+	 */
+	private CompressionConfiguration compressionConfiguration;
+
+	/** The idle timeout in milliseconds of the http connectors. */
+	@Builder.Default
+	private long httpIdleTimeout = DEFAULT_HTTP_IDLE_TIMEOUT;
+
+	/** The idle timeout in milliseconds of the https connectors. */
+	@Builder.Default
+	private long httpsIdleTimeout = DEFAULT_HTTPS_IDLE_TIMEOUT;
+
+	/** The name of the profile that is logged on start. */
+	@Builder.Default
+	private String name = "default";
+
+	/** The size of the response buffer, if it is full the response is committed. */
+	@Builder.Default
+	private int outputBufferSize = DEFAULT_OUTPUT_BUFFER_SIZE;
+
+	/** The maximum size of the request header. */
+	@Builder.Default
+	private int requestHeaderSize = DEFAULT_HEADER_SIZE;
+
+	/** The maximum size of the response header. */
+	@Builder.Default
+	private int responseHeaderSize = DEFAULT_HEADER_SIZE;
+
+	/** The server connector configuration, if null the defaults are taken. */
+	private ServerConnectorConfiguration serverConnectorConfiguration;
+
+	/** The thread pool configuration, if null the defaults are taken. */
+	private ThreadPoolConfiguration threadPoolConfiguration;
+
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import de.alpharogroup.jetty9.runner.filter.RateLimitFilter;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Rate limit configuration.
+ * <p>
+ * This class is a holder of the configuration of a {@link RateLimitFilter} that limits the
+ * request rate per client of a context or of a path in a context.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class RateLimitConfiguration
+{
+
+	/** The capacity of the token bucket of a client, that is the number of burst requests. */
+	@Builder.Default
+	private int burst = RateLimitFilter.DEFAULT_BURST;
+
+	/**
+	 * The name of the header that contains the client key, for instance X-Forwarded-For. If null
+	 * or the request has not this header the remote address is the client key. The key is the
+	 * value that the outermost of the trusted proxies appended, see {@link #trustedProxies}.
+	 */
+	private String keyHeader;
+
+	/**
+	 * The maximum number of clients that have an own token bucket, the other clients share an
+	 * overflow bucket.
+	 */
+	@Builder.Default
+	private int maxClients = RateLimitFilter.DEFAULT_MAX_CLIENTS;
+
+	/** The path spec of the requests that are limited. */
+	@Builder.Default
+	private String pathSpec = "/*";
+
+	/** The number of requests per second of a client. */
+	@Builder.Default
+	private double rate = RateLimitFilter.DEFAULT_RATE;
+
+	/** The number of stripes of the token buckets. */
+	@Builder.Default
+	private int stripes = RateLimitFilter.DEFAULT_STRIPES;
+
+	/**
+	 * The number of trusted proxies in front of the server that append a value to the key header.
+	 * The client key is the value at this position counted from the end of the header values,
+	 * the values before it are sent from the client and can not be trusted.
+	 */
+	@Builder.Default
+	private int trustedProxies = RateLimitFilter.DEFAULT_TRUSTED_PROXIES;
+
+}
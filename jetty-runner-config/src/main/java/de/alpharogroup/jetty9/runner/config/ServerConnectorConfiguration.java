@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * ServerConnector configuration.
+ * <p>
+ * This class is a holder of the ServerConnector configuration. The defaults are the same as the
+ * defaults of jetty's <code>ServerConnector</code>.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class ServerConnectorConfiguration
+{
+
+	/** The default count of acceptors and selectors, lets jetty compute it from the cores. */
+	public static final int DEFAULT_COUNT = -1;
+
+	/** The default size of the input buffer of the connections. */
+	public static final int DEFAULT_INPUT_BUFFER_SIZE = 8192;
+
+	/** The accept queue size, the backlog of the server socket. Zero takes the os default. */
+	private int acceptQueueSize;
+
+	/** The number of acceptor threads. */
+	@Builder.Default
+	private int acceptors = DEFAULT_COUNT;
+
+	/**
+	 * The byte buffer pool configuration. One pool is shared from all connectors of the server, if
+	 * null the defaults are taken.
+	 */
+	private ByteBufferPoolConfiguration byteBufferPoolConfiguration;
+
+	/**
+	 * The number of connectors that are bound to the same port. Takes only effect if reuse port is
+	 * enabled, every connector has its own acceptors and selectors.
+	 */
+	@Builder.Default
+	private int connectorCount = 1;
+
+	/** The size of the buffer that the connections read the request bytes into. */
+	@Builder.Default
+	private int inputBufferSize = DEFAULT_INPUT_BUFFER_SIZE;
+
+	/** The flag if the server socket is bound with SO_REUSEADDR. */
+	@Builder.Default
+	private boolean reuseAddress = true;
+
+	/**
+	 * The flag if the server socket is bound with SO_REUSEPORT. Takes only effect if the running
+	 * jdk and os supports this socket option.
+	 */
+	private boolean reusePort;
+
+	/** The number of selector threads. */
+	@Builder.Default
+	private int selectors = DEFAULT_COUNT;
+
+	/** The SO_LINGER time in seconds of the accepted sockets, a negative value disables it. */
+	@Builder.Default
+	private int soLingerTime = -1;
+
+	/** The flag if TCP_NODELAY is set on the accepted sockets. */
+	@Builder.Default
+	private boolean tcpNoDelay = true;
+
+}
@@ -21,6 +21,7 @@ import java.util.Map;
 
 import org.eclipse.jetty.server.HandlerContainer;
 
+import de.alpharogroup.jetty9.runner.metrics.RequestMetrics;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
@@ -49,6 +50,16 @@ public class ServletContextHandlerConfiguration
 	/** The application class for wicket. */
 	private Class<?> applicationClass;
 
+	/**
+	 * The bulkhead configurations that limit the concurrent requests of the context or of paths
+	 * in the context.
+	 */
+	@Singular
+	private List<BulkheadConfiguration> bulkheadConfigurations;
+
+	/** The compression configuration, if null the responses of the context are not compressed. */
+	private CompressionConfiguration compressionConfiguration;
+
 	/** The context path. */
 	private String contextPath;
 
@@ -68,13 +79,42 @@ public class ServletContextHandlerConfiguration
 	 **/
 	private int maxInactiveInterval;
 
+	/**
+	 * The page store configuration of the wicket application, if null the store settings of the
+	 * application are kept.
+	 */
+	private PageStoreConfiguration pageStoreConfiguration;
+
 	/** The parent. */
 	private HandlerContainer parent;
 
+	/**
+	 * The rate limit configuration, if set the request rate per client of the context is
+	 * limited.
+	 */
+	private RateLimitConfiguration rateLimitConfiguration;
+
+	/**
+	 * The request metrics, if set the latencies of the context are recorded per context path.
+	 */
+	private RequestMetrics requestMetrics;
+
 	/** The servlet holder configurations. */
 	@Singular
 	private List<ServletHolderConfiguration> servletHolderConfigurations;
 
+	/**
+	 * The session store configuration, if null the sessions of the context are kept in memory by
+	 * the default session cache of jetty.
+	 */
+	private SessionStoreConfiguration sessionStoreConfiguration;
+
+	/**
+	 * The static resource configuration for the DefaultServlets of the context, if null the
+	 * DefaultServlets are not cached.
+	 */
+	private StaticResourceConfiguration staticResourceConfiguration;
+
 	/** The webapp. */
 	private File webapp;
 }
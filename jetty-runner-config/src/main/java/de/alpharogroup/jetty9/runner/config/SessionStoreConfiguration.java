@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import java.io.File;
+
+import javax.sql.DataSource;
+
+import org.eclipse.jetty.server.session.SessionCache;
+import org.eclipse.jetty.server.session.SessionDataStore;
+
+import de.alpharogroup.jetty9.runner.session.OffHeapSessionDataStore;
+import de.alpharogroup.jetty9.runner.session.SessionStoreType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Session store configuration.
+ * <p>
+ * This class is a holder of the configuration of the session cache and the session data store of
+ * a context. The defaults are the same as the defaults of jetty's <code>DefaultSessionCache</code>
+ * and <code>AbstractSessionDataStore</code>.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class SessionStoreConfiguration
+{
+
+	/** The default grace period in seconds for the expiry of sessions of other nodes. */
+	public static final int DEFAULT_GRACE_PERIOD = 3600;
+
+	/** The default capacity of the write behind queue. */
+	public static final int DEFAULT_WRITE_BEHIND_QUEUE_CAPACITY = 10000;
+
+	/** The default flush timeout in milliseconds of the write behind queue. */
+	public static final long DEFAULT_WRITE_BEHIND_FLUSH_TIMEOUT = 30000;
+
+	/** The data source of the jdbc store, takes precedence over driver class and url. */
+	private DataSource dataSource;
+
+	/** The flag if session files that can not be restored are deleted. */
+	private boolean deleteUnrestorableFiles;
+
+	/**
+	 * The eviction policy of the session cache, -1 never evicts, 0 evicts when the last request
+	 * leaves the session and a positive value evicts after that many seconds of inactivity. The
+	 * off heap store type always evicts when the last request leaves the session.
+	 */
+	@Builder.Default
+	private int evictionPolicy = SessionCache.NEVER_EVICT;
+
+	/**
+	 * The grace period in seconds, the sessions of other nodes are expired after this period.
+	 */
+	@Builder.Default
+	private int gracePeriod = DEFAULT_GRACE_PERIOD;
+
+	/** The connection url of the jdbc store. */
+	private String jdbcConnectionUrl;
+
+	/** The driver class name of the jdbc store. */
+	private String jdbcDriverClassName;
+
+	/**
+	 * The maximum number of sessions in the session cache, the least recently accessed sessions
+	 * are stored and evicted if it is exceeded. Zero or a negative value is unbounded.
+	 */
+	private int maxSessions;
+
+	/** The block size in bytes of the off heap store, a session occupies whole blocks. */
+	@Builder.Default
+	private int offHeapBlockSize = OffHeapSessionDataStore.DEFAULT_BLOCK_SIZE;
+
+	/**
+	 * The capacity in bytes of the off heap store, if it is exhausted the least recently used
+	 * sessions are evicted.
+	 */
+	@Builder.Default
+	private long offHeapCapacity = OffHeapSessionDataStore.DEFAULT_CAPACITY;
+
+	/**
+	 * The directory of the memory mapped file of the off heap store, if null direct buffers are
+	 * allocated.
+	 */
+	private File offHeapDirectory;
+
+	/** The flag if sessions that can not be loaded from the store are removed from it. */
+	private boolean removeUnloadableSessions;
+
+	/** The flag if a new session is stored immediately. */
+	private boolean saveOnCreate;
+
+	/** The flag if a session is stored before it is evicted for inactivity. */
+	private boolean saveOnInactiveEviction;
+
+	/**
+	 * The save period in seconds, an unchanged session is only stored again after this period.
+	 * Zero stores the session every time the last request leaves it.
+	 */
+	private int savePeriod;
+
+	/**
+	 * A custom session data store that is used instead of the store of the store type.
+	 */
+	private SessionDataStore sessionDataStore;
+
+	/** The directory of the file store. */
+	private File storeDirectory;
+
+	/** The store type. */
+	@Builder.Default
+	private SessionStoreType storeType = SessionStoreType.MEMORY;
+
+	/**
+	 * The flag if the sessions are stored asynchronously, so the requests do not wait for the
+	 * persistence. Takes no effect for the off heap store type.
+	 */
+	private boolean writeBehind;
+
+	/** The timeout in milliseconds for flushing the write behind queue on stop. */
+	@Builder.Default
+	private long writeBehindFlushTimeout = DEFAULT_WRITE_BEHIND_FLUSH_TIMEOUT;
+
+	/**
+	 * The capacity of the write behind queue, if it is full the sessions are stored
+	 * synchronously.
+	 */
+	@Builder.Default
+	private int writeBehindQueueCapacity = DEFAULT_WRITE_BEHIND_QUEUE_CAPACITY;
+
+	/** The number of writer threads of the write behind queue. */
+	@Builder.Default
+	private int writeBehindThreads = 1;
+
+}
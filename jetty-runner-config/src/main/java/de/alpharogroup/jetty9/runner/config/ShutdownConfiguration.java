@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Graceful shutdown configuration.
+ * <p>
+ * This class is a holder of the graceful shutdown configuration. On shutdown the server stops
+ * accepting new connections, waits until the requests in flight are finished or the stop timeout
+ * is expired and stops then.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class ShutdownConfiguration
+{
+
+	/** The default stop timeout in milliseconds. */
+	public static final long DEFAULT_STOP_TIMEOUT = 30000;
+
+	/**
+	 * The time in milliseconds the connectors keep accepting after the shutdown is triggered, so a
+	 * load balancer can take the server out of rotation before the connections are refused.
+	 */
+	private long drainDelay;
+
+	/** The flag if a shutdown hook is registered that runs the graceful shutdown on SIGTERM. */
+	@Builder.Default
+	private boolean shutdownHook = true;
+
+	/**
+	 * The maximum time in milliseconds that is waited for the requests in flight before the server
+	 * is stopped.
+	 */
+	@Builder.Default
+	private long stopTimeout = DEFAULT_STOP_TIMEOUT;
+
+}
@@ -16,13 +16,18 @@
 package de.alpharogroup.jetty9.runner.config;
 
 import java.io.File;
+import java.util.List;
 
+import de.alpharogroup.jetty9.runner.connector.ConnectionFactoriesProvider;
+import de.alpharogroup.jetty9.runner.metrics.RequestMetrics;
+import de.alpharogroup.jetty9.runner.profile.PerformancePreset;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import lombok.Singular;
 import lombok.ToString;
 
 /**
@@ -41,12 +46,49 @@ public class StartConfig
 	/** The absolute path from logfile. */
 	private String absolutePathFromLogfile;
 
+	/**
+	 * The access log configuration, if set the requests are logged asynchronously in the
+	 * configured log file.
+	 */
+	private AccessLogConfiguration accessLogConfiguration;
+
 	/** The application name. */
 	private String applicationName;
 
+	/**
+	 * The bulkhead configurations that limit the concurrent requests of the application context
+	 * or of paths in the application context.
+	 */
+	@Singular
+	private List<BulkheadConfiguration> bulkheadConfigurations;
+
+	/**
+	 * The compression configuration, if set the responses of the application context are
+	 * compressed.
+	 */
+	private CompressionConfiguration compressionConfiguration;
+
+	/**
+	 * The provider for the connection factories of the http and https connectors, if null
+	 * http/1.1 is used.
+	 */
+	private ConnectionFactoriesProvider connectionFactoriesProvider;
+
 	/** The context path. */
 	private String contextPath;
 
+	/**
+	 * The number of threads that start the contexts of the servlet context handler
+	 * configurations, zero takes the number of available processors.
+	 */
+	private int contextStartThreads;
+
+	/**
+	 * The deployment configuration for the webapps that are deployed from its deploy directory
+	 * beside the application, if null or without deploy directory no deployer is started.
+	 */
+	private DeploymentConfiguration deploymentConfiguration;
+
 	/** The filter path. */
 	private String filterPath;
 
@@ -65,18 +107,79 @@ public class StartConfig
 	/** The log file. */
 	private File logFile;
 
+	/**
+	 * The page store configuration of the wicket application, if null the store settings of the
+	 * application are kept.
+	 */
+	private PageStoreConfiguration pageStoreConfiguration;
+
+	/**
+	 * The named performance preset of the server, for instance low-latency, if null the default
+	 * profile is taken.
+	 */
+	private PerformancePreset performancePreset;
+
+	/**
+	 * The performance profile of the server, if set it takes precedence over the performance
+	 * preset.
+	 */
+	private PerformanceProfile performanceProfile;
+
 	/** The project directory. */
 	private File projectDirectory;
 
 	/** The project name. */
 	private String projectName;
 
+	/**
+	 * The rate limit configuration, if set the request rate per client of the application context
+	 * is limited.
+	 */
+	private RateLimitConfiguration rateLimitConfiguration;
+
+	/**
+	 * The request metrics, if set the latencies are recorded per connector and for the
+	 * application context.
+	 */
+	private RequestMetrics requestMetrics;
+
 	/** The runtime configuration type. */
 	private String runtimeConfigurationType;
 
+	/** The server connector configuration for the http and https connectors. */
+	private ServerConnectorConfiguration serverConnectorConfiguration;
+
+	/**
+	 * The graceful shutdown configuration, if set the server drains the requests in flight before
+	 * it stops.
+	 */
+	private ShutdownConfiguration shutdownConfiguration;
+
+	/**
+	 * The configurations of additional servlet context handlers beside the application context,
+	 * they are created and started concurrently.
+	 */
+	@Singular
+	private List<ServletContextHandlerConfiguration> servletContextHandlerConfigurations;
+
+	/**
+	 * The session store configuration of the application context, if null the sessions are kept
+	 * in memory.
+	 */
+	private SessionStoreConfiguration sessionStoreConfiguration;
+
 	/** The session timeout. */
 	private int sessionTimeout;
 
+	/** The static resource configuration for the DefaultServlet of the application context. */
+	private StaticResourceConfiguration staticResourceConfiguration;
+
+	/** The thread pool configuration. */
+	private ThreadPoolConfiguration threadPoolConfiguration;
+
+	/** The TLS configuration of the https connectors, if null the defaults are taken. */
+	private TlsConfiguration tlsConfiguration;
+
 	/** The webapp. */
 	private File webapp;
 
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.Singular;
+import lombok.ToString;
+
+/**
+ * StaticResource configuration.
+ * <p>
+ * This class is a holder of the static resource configuration of the DefaultServlet. The cache
+ * defaults are the same as the defaults of jetty's <code>CachedContentFactory</code>.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class StaticResourceConfiguration
+{
+
+	/** The default max cache size in bytes. */
+	public static final int DEFAULT_MAX_CACHE_SIZE = 256 * 1024 * 1024;
+
+	/** The default max cached file size in bytes. */
+	public static final int DEFAULT_MAX_CACHED_FILE_SIZE = 128 * 1024 * 1024;
+
+	/** The default max cached files. */
+	public static final int DEFAULT_MAX_CACHED_FILES = 2048;
+
+	/** The value of the Cache-Control header for static resources. */
+	private String cacheControl;
+
+	/**
+	 * The Cache-Control rules, the key is the servlet url pattern, for instance
+	 * <code>/wicket/resource/*</code> for the fingerprinted wicket resources, and the value is the
+	 * value of the Cache-Control header.
+	 */
+	@Singular
+	private Map<String, String> cacheControlRules;
+
+	/** The flag if etags are generated for static resources. */
+	@Builder.Default
+	private boolean etags = true;
+
+	/** The max cache size in bytes. */
+	@Builder.Default
+	private int maxCacheSize = DEFAULT_MAX_CACHE_SIZE;
+
+	/** The max cached file size in bytes. */
+	@Builder.Default
+	private int maxCachedFileSize = DEFAULT_MAX_CACHED_FILE_SIZE;
+
+	/** The max cached files. */
+	@Builder.Default
+	private int maxCachedFiles = DEFAULT_MAX_CACHED_FILES;
+
+	/**
+	 * The flag if the cached files are held in memory mapped buffers. Memory mapped buffers are
+	 * direct buffers and can be written to the socket without copy, but locks the files on
+	 * windows.
+	 */
+	@Builder.Default
+	private boolean useFileMappedBuffer = true;
+
+}
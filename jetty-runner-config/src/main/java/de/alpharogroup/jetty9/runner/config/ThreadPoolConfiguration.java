@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * ThreadPool configuration.
+ * <p>
+ * This class is a holder of the thread pool configuration of the jetty server. The defaults are
+ * the same as the defaults of jetty's <code>QueuedThreadPool</code>.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class ThreadPoolConfiguration
+{
+
+	/** The default idle timeout in milliseconds. */
+	public static final int DEFAULT_IDLE_TIMEOUT = 60000;
+
+	/** The default max threads. */
+	public static final int DEFAULT_MAX_THREADS = 200;
+
+	/** The default min threads. */
+	public static final int DEFAULT_MIN_THREADS = 8;
+
+	/** The default reserved threads, a negative value lets jetty compute a heuristic value. */
+	public static final int DEFAULT_RESERVED_THREADS = -1;
+
+	/** The daemon flag for the created threads. */
+	private boolean daemon;
+
+	/** The idle timeout in milliseconds after that an idle thread above min threads dies. */
+	@Builder.Default
+	private int idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+	/** The max threads. */
+	@Builder.Default
+	private int maxThreads = DEFAULT_MAX_THREADS;
+
+	/** The min threads. */
+	@Builder.Default
+	private int minThreads = DEFAULT_MIN_THREADS;
+
+	/** The name prefix of the created threads. */
+	private String name;
+
+	/**
+	 * The capacity of the job queue. If the value is greater than zero the queue is bounded and
+	 * jobs that do not fit are rejected instead of queued, otherwise the queue is unbounded.
+	 */
+	private int queueCapacity;
+
+	/** The number of reserved threads for the <code>ReservedThreadExecutor</code>. */
+	@Builder.Default
+	private int reservedThreads = DEFAULT_RESERVED_THREADS;
+
+	/**
+	 * The flag if virtual threads should be used. Takes only effect if the running jdk supports
+	 * virtual threads, otherwise a <code>QueuedThreadPool</code> is created.
+	 */
+	private boolean virtualThreads;
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import java.security.Provider;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.Singular;
+import lombok.ToString;
+
+/**
+ * TLS configuration.
+ * <p>
+ * This class is a holder of the TLS configuration of the https connectors. Values that are not
+ * set keep the defaults of jetty's <code>SslContextFactory</code> and the jdk.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class TlsConfiguration
+{
+
+	/** The default quiet time in milliseconds of the key store watch. */
+	public static final long DEFAULT_KEY_STORE_WATCH_QUIET_TIME = 1000;
+
+	/** The default value for the session cache size and timeout, keeps the jdk default. */
+	public static final int DEFAULT_SESSION_VALUE = -1;
+
+	/**
+	 * The enabled protocols in the order of preference. Protocols that the provider does not
+	 * support are skipped, if empty the defaults of the provider are taken.
+	 */
+	@Singular
+	private List<String> includeProtocols;
+
+	/**
+	 * The flag if the key store file is watched and the TLS context is reloaded in place if it
+	 * changes. Takes only effect if the key store is a file in the file system.
+	 */
+	private boolean keyStoreWatch;
+
+	/**
+	 * The quiet time in milliseconds of the key store watch. A change is only reloaded if no
+	 * further change occurred in this time, so a partially written key store is not loaded.
+	 */
+	@Builder.Default
+	private long keyStoreWatchQuietTime = DEFAULT_KEY_STORE_WATCH_QUIET_TIME;
+
+	/**
+	 * The flag if the server staples the OCSP response of its certificate to the handshake. Sets
+	 * the system property <code>jdk.tls.server.enableStatusRequestExtension</code>, that is
+	 * supported from the jdk providers since java 9 and 8u261. The property is process wide and
+	 * takes only effect if it is set before the first SSLContext of the jvm is initialized, so it
+	 * should rather be set on the command line.
+	 */
+	private boolean ocspStapling;
+
+	/**
+	 * The flag if the cipher suites are ordered for AES-GCM hardware acceleration and the order of
+	 * the server is enforced.
+	 */
+	@Builder.Default
+	private boolean preferAesGcm = true;
+
+	/** The name of the JSSE provider, if null the default provider is taken. */
+	private String provider;
+
+	/**
+	 * The security provider, for instance the provider of Conscrypt, that is used as JSSE provider
+	 * of the https connectors only. It is not registered in the jvm.
+	 */
+	private Provider securityProvider;
+
+	/** The flag if the server side session cache is enabled. */
+	@Builder.Default
+	private boolean sessionCachingEnabled = true;
+
+	/** The maximum number of entries in the session cache. */
+	@Builder.Default
+	private int sessionCacheSize = DEFAULT_SESSION_VALUE;
+
+	/** The timeout in seconds of the cached sessions. */
+	@Builder.Default
+	private int sessionTimeout = DEFAULT_SESSION_VALUE;
+
+	/**
+	 * Factory method for create a new {@link TlsConfiguration} that prefers TLS 1.3 and falls back
+	 * to TLS 1.2.
+	 *
+	 * @return the new {@link TlsConfiguration}.
+	 */
+	public static TlsConfiguration newModernTlsConfiguration()
+	{
+		return TlsConfiguration.builder().includeProtocol("TLSv1.3").includeProtocol("TLSv1.2")
+			.build();
+	}
+
+}
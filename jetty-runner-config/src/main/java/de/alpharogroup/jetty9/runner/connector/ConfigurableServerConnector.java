@@ -0,0 +1,214 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.connector;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.util.logging.Level;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+
+import de.alpharogroup.jetty9.runner.config.ServerConnectorConfiguration;
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link ConfigurableServerConnector} is a {@link ServerConnector} that is tuned from a
+ * {@link ServerConnectorConfiguration}. Additional to the jetty {@link ServerConnector} it
+ * supports the socket option SO_REUSEPORT, so several connectors can be bound to the same port
+ * and the os distributes the accepted connections between them, and honors the TCP_NODELAY and
+ * SO_LINGER settings for the accepted sockets.
+ */
+@Log
+public class ConfigurableServerConnector extends ServerConnector
+{
+
+	/** The socket option SO_REUSEPORT or null if the running jdk does not support it. */
+	private static final SocketOption<Boolean> SO_REUSEPORT = resolveReusePortOption();
+
+	/** The flag if the server socket channels of the running jdk and os support SO_REUSEPORT. */
+	private static final boolean REUSE_PORT_SUPPORTED = resolveReusePortSupported();
+
+	/** The configuration. */
+	private final ServerConnectorConfiguration configuration;
+
+	/**
+	 * Instantiates a new {@link ConfigurableServerConnector}.
+	 *
+	 * @param server
+	 *            the server
+	 * @param configuration
+	 *            the configuration
+	 * @param factories
+	 *            the connection factories
+	 */
+	public ConfigurableServerConnector(final Server server,
+		final ServerConnectorConfiguration configuration, final ConnectionFactory... factories)
+	{
+		this(server, configuration, null, factories);
+	}
+
+	/**
+	 * Instantiates a new {@link ConfigurableServerConnector} that takes its buffers from the given
+	 * {@link ByteBufferPool}.
+	 *
+	 * @param server
+	 *            the server
+	 * @param configuration
+	 *            the configuration
+	 * @param byteBufferPool
+	 *            the byte buffer pool, if null the pool bean of the server or a new pool is taken
+	 * @param factories
+	 *            the connection factories
+	 */
+	public ConfigurableServerConnector(final Server server,
+		final ServerConnectorConfiguration configuration, final ByteBufferPool byteBufferPool,
+		final ConnectionFactory... factories)
+	{
+		super(server, null, null, byteBufferPool, configuration.getAcceptors(),
+			configuration.getSelectors(), factories);
+		this.configuration = configuration;
+		setAcceptQueueSize(configuration.getAcceptQueueSize());
+		setReuseAddress(configuration.isReuseAddress());
+	}
+
+	/**
+	 * Checks if the running jdk and os support the socket option SO_REUSEPORT for server sockets.
+	 *
+	 * @return true, if SO_REUSEPORT is supported
+	 */
+	public static boolean isReusePortSupported()
+	{
+		return REUSE_PORT_SUPPORTED;
+	}
+
+	/**
+	 * Resolves the socket option SO_REUSEPORT over reflection because it is only available since
+	 * java 9.
+	 *
+	 * @return the socket option SO_REUSEPORT or null if not available
+	 */
+	@SuppressWarnings("unchecked")
+	private static SocketOption<Boolean> resolveReusePortOption()
+	{
+		try
+		{
+			return (SocketOption<Boolean>)StandardSocketOptions.class.getField("SO_REUSEPORT")
+				.get(null);
+		}
+		catch (final ReflectiveOperationException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Checks if the server socket channels support the socket option SO_REUSEPORT, the option is
+	 * missing on java 8 and on some os also on newer jdks.
+	 *
+	 * @return true, if SO_REUSEPORT is supported
+	 */
+	private static boolean resolveReusePortSupported()
+	{
+		if (SO_REUSEPORT == null)
+		{
+			return false;
+		}
+		try (ServerSocketChannel channel = ServerSocketChannel.open())
+		{
+			return channel.supportedOptions().contains(SO_REUSEPORT);
+		}
+		catch (final IOException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void configure(final Socket socket)
+	{
+		try
+		{
+			socket.setTcpNoDelay(configuration.isTcpNoDelay());
+			if (0 <= configuration.getSoLingerTime())
+			{
+				socket.setSoLinger(true, configuration.getSoLingerTime());
+			}
+		}
+		catch (final SocketException e)
+		{
+			log.log(Level.FINE, "socket could not be configured.", e);
+		}
+	}
+
+	/**
+	 * Gets the configuration.
+	 *
+	 * @return the configuration
+	 */
+	public ServerConnectorConfiguration getConfiguration()
+	{
+		return configuration;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected ServerSocketChannel openAcceptChannel() throws IOException
+	{
+		if (!configuration.isReusePort() || isInheritChannel())
+		{
+			return super.openAcceptChannel();
+		}
+		final ServerSocketChannel serverChannel = ServerSocketChannel.open();
+		final InetSocketAddress bindAddress = getHost() == null
+			? new InetSocketAddress(getPort())
+			: new InetSocketAddress(getHost(), getPort());
+		try
+		{
+			serverChannel.socket().setReuseAddress(getReuseAddress());
+			if (isReusePortSupported()
+				&& serverChannel.supportedOptions().contains(SO_REUSEPORT))
+			{
+				serverChannel.setOption(SO_REUSEPORT, Boolean.TRUE);
+			}
+			else
+			{
+				log.warning("SO_REUSEPORT is not supported, the port " + getPort()
+					+ " will be bound without it.");
+			}
+			serverChannel.socket().bind(bindAddress, getAcceptQueueSize());
+		}
+		catch (final IOException e)
+		{
+			serverChannel.close();
+			throw new IOException("Failed to bind to " + bindAddress, e);
+		}
+		return serverChannel;
+	}
+
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.connector;
+
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+/**
+ * The interface {@link ConnectionFactoriesProvider} provides the {@link ConnectionFactory} objects
+ * of the http and https connectors. Implement this interface for support other protocols than
+ * http/1.1 without adding dependencies to the core module.
+ */
+public interface ConnectionFactoriesProvider
+{
+
+	/**
+	 * Factory method for creating the {@link ConnectionFactory} objects of one http connector.
+	 *
+	 * @param httpConfiguration
+	 *            the http configuration
+	 * @return the new {@link ConnectionFactory} objects
+	 */
+	ConnectionFactory[] newHttpConnectionFactories(HttpConfiguration httpConfiguration);
+
+	/**
+	 * Factory method for creating the {@link ConnectionFactory} objects of one https connector.
+	 *
+	 * @param sslContextFactory
+	 *            the ssl context factory
+	 * @param httpsConfiguration
+	 *            the https configuration
+	 * @return the new {@link ConnectionFactory} objects
+	 */
+	ConnectionFactory[] newHttpsConnectionFactories(SslContextFactory sslContextFactory,
+		HttpConfiguration httpsConfiguration);
+
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.connector;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.Server;
+
+/**
+ * The interface {@link ConnectorProvider} provides an additional {@link Connector} of the server
+ * besides the http and https connectors, for instance a connector on a unix domain socket.
+ * Implement this interface for support other transports without adding dependencies to the core
+ * module.
+ */
+public interface ConnectorProvider
+{
+
+	/**
+	 * Factory method for creating the additional {@link Connector}. The connector is added to the
+	 * server and started with it.
+	 *
+	 * @param server
+	 *            the server
+	 * @param httpConfiguration
+	 *            the http configuration of the http connectors
+	 * @param byteBufferPool
+	 *            the byte buffer pool that is shared from all connectors of the server
+	 * @param idleTimeout
+	 *            the idle timeout of the http connectors
+	 * @return the new {@link Connector}
+	 */
+	Connector newConnector(Server server, HttpConfiguration httpConfiguration,
+		ByteBufferPool byteBufferPool, long idleTimeout);
+
+}
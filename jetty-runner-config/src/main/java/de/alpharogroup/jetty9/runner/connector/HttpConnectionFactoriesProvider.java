@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.connector;
+
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+/**
+ * The class {@link HttpConnectionFactoriesProvider} is the default
+ * {@link ConnectionFactoriesProvider} that provides http/1.1 for the http and https connectors.
+ */
+public class HttpConnectionFactoriesProvider implements ConnectionFactoriesProvider
+{
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ConnectionFactory[] newHttpConnectionFactories(
+		final HttpConfiguration httpConfiguration)
+	{
+		return new ConnectionFactory[] { new HttpConnectionFactory(httpConfiguration) };
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ConnectionFactory[] newHttpsConnectionFactories(
+		final SslContextFactory sslContextFactory, final HttpConfiguration httpsConfiguration)
+	{
+		return new ConnectionFactory[] {
+				new SslConnectionFactory(sslContextFactory, HttpVersion.HTTP_1_1.asString()),
+				new HttpConnectionFactory(httpsConfiguration) };
+	}
+
+}
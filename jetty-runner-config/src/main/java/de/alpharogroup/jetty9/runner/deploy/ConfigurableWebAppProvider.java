@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.deploy;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.deploy.App;
+import org.eclipse.jetty.deploy.providers.WebAppProvider;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.util.PathWatcher;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.webapp.WebAppContext;
+
+import de.alpharogroup.jetty9.runner.config.DeploymentConfiguration;
+import de.alpharogroup.jetty9.runner.factories.DeploymentManagerFactory;
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link ConfigurableWebAppProvider} is a {@link WebAppProvider} that initializes the
+ * {@link WebAppContext} of every deployed webapp from a {@link DeploymentConfiguration}, for
+ * instance with the reduced configuration classes of the fast start mode or with the quickstart
+ * configuration for webapps with a pre-generated descriptor. The monitored directory is checked
+ * for changes as defined from the {@link DeployMode} of the configuration.
+ */
+@Log
+public class ConfigurableWebAppProvider extends WebAppProvider
+{
+
+	/** The configuration. */
+	private final DeploymentConfiguration configuration;
+
+	/** The path watcher of the watch deploy mode. */
+	private PathWatcher pathWatcher;
+
+	/**
+	 * Instantiates a new {@link ConfigurableWebAppProvider}.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 */
+	public ConfigurableWebAppProvider(final DeploymentConfiguration configuration)
+	{
+		this.configuration = configuration;
+		setExtractWars(configuration.isExtractWars());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ContextHandler createContextHandler(final App app) throws Exception
+	{
+		final ContextHandler contextHandler = super.createContextHandler(app);
+		if (contextHandler instanceof WebAppContext)
+		{
+			DeploymentManagerFactory.initializeWebAppContext(configuration,
+				(WebAppContext)contextHandler);
+		}
+		return contextHandler;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doStart() throws Exception
+	{
+		final DeployMode deployMode = configuration.getDeployMode() == null
+			? DeployMode.INTERVAL
+			: configuration.getDeployMode();
+		setScanInterval(deployMode == DeployMode.INTERVAL ? configuration.getScanInterval() : 0);
+		super.doStart();
+		if (deployMode == DeployMode.WATCH)
+		{
+			pathWatcher = newPathWatcher();
+			pathWatcher.start();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doStop() throws Exception
+	{
+		if (pathWatcher != null)
+		{
+			pathWatcher.stop();
+			pathWatcher = null;
+		}
+		super.doStop();
+	}
+
+	/**
+	 * Factory method for create the {@link PathWatcher} of the watch deploy mode, that scans the
+	 * monitored directories if they changed and no further change occurred in the quiet time.
+	 *
+	 * @return the new {@link PathWatcher}.
+	 * @throws IOException
+	 *             if a monitored directory could not be resolved
+	 */
+	private PathWatcher newPathWatcher() throws IOException
+	{
+		final PathWatcher watcher = new PathWatcher();
+		watcher.setNotifyExistingOnStart(false);
+		watcher.setUpdateQuietTime(configuration.getWatchQuietTime(), TimeUnit.MILLISECONDS);
+		for (final Resource resource : getMonitoredResources())
+		{
+			final File directory = resource.getFile();
+			if (directory != null)
+			{
+				watcher.watch(directory.toPath());
+			}
+		}
+		watcher.addListener((PathWatcher.Listener)event -> {
+			log.fine("Change detected on " + event.getPath() + ", scanning.");
+			// the scanner reports a change only if it is stable over two scans, the quiet time
+			// of the path watcher already ensures that
+			scan();
+			scan();
+		});
+		return watcher;
+	}
+
+	/**
+	 * Gets the configuration.
+	 *
+	 * @return the configuration
+	 */
+	public DeploymentConfiguration getConfiguration()
+	{
+		return configuration;
+	}
+
+}
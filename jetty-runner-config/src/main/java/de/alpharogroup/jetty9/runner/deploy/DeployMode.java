@@ -0,0 +1,37 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.deploy;
+
+/**
+ * The enum {@link DeployMode} defines how the monitored directory of the deployed webapps is
+ * checked for changes.
+ */
+public enum DeployMode
+{
+
+	/** The webapps are deployed once at start and the directory is not scanned anymore. */
+	OFF,
+
+	/** The directory is scanned periodically in the configured scan interval. */
+	INTERVAL,
+
+	/**
+	 * The directory is watched from the file system watch service and scanned only if it has
+	 * changed and no further change occurred in the configured quiet time.
+	 */
+	WATCH
+
+}
@@ -15,6 +15,17 @@
  */
 package de.alpharogroup.jetty9.runner.factories;
 
+import java.io.File;
+import java.security.Provider;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.server.AbstractConnectionFactory;
+import org.eclipse.jetty.server.ConnectionFactory;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.SecureRequestCustomizer;
@@ -24,15 +35,115 @@ import org.eclipse.jetty.server.SslConnectionFactory;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 
+import de.alpharogroup.jetty9.runner.buffer.InstrumentedByteBufferPool;
+import de.alpharogroup.jetty9.runner.config.ByteBufferPoolConfiguration;
+import de.alpharogroup.jetty9.runner.config.PerformanceProfile;
+import de.alpharogroup.jetty9.runner.config.ServerConnectorConfiguration;
+import de.alpharogroup.jetty9.runner.config.TlsConfiguration;
+import de.alpharogroup.jetty9.runner.connector.ConfigurableServerConnector;
+import de.alpharogroup.jetty9.runner.ssl.CipherSuiteComparator;
+import de.alpharogroup.jetty9.runner.ssl.ProviderSslContextFactory;
 import lombok.experimental.UtilityClass;
+import lombok.extern.java.Log;
 
 /**
  * A factory for creating Configuration objects.
  */
 @UtilityClass
+@Log
 public class ConfigurationFactory
 {
 
+	/** The system property that enables the OCSP stapling of the jdk providers. */
+	public static final String OCSP_STAPLING_PROPERTY =
+		"jdk.tls.server.enableStatusRequestExtension";
+
+	/**
+	 * Initializes the given {@link SslContextFactory} from the given {@link TlsConfiguration}.
+	 * <p>
+	 * Note: the OCSP stapling is enabled over the system property
+	 * {@link #OCSP_STAPLING_PROPERTY}, that is process wide and read from the jdk providers only
+	 * once, so it takes only effect if it is set before the first {@link javax.net.ssl.SSLContext}
+	 * of the jvm is initialized. To be safe set it on the command line. A security provider is
+	 * scoped to the given factory if it is a {@link ProviderSslContextFactory}, for any other
+	 * factory the security provider is registered process wide with
+	 * {@link Security#addProvider(Provider)}.
+	 * </p>
+	 *
+	 * @param configuration
+	 *            the TLS configuration
+	 * @param sslContextFactory
+	 *            the ssl context factory
+	 */
+	public static void initializeTls(final TlsConfiguration configuration,
+		final SslContextFactory sslContextFactory)
+	{
+		if (!configuration.getIncludeProtocols().isEmpty())
+		{
+			sslContextFactory.setIncludeProtocols(
+				configuration.getIncludeProtocols().toArray(new String[0]));
+		}
+		if (configuration.isPreferAesGcm())
+		{
+			sslContextFactory.setCipherComparator(new CipherSuiteComparator());
+			sslContextFactory.setUseCipherSuitesOrder(true);
+		}
+		sslContextFactory.setSessionCachingEnabled(configuration.isSessionCachingEnabled());
+		if (TlsConfiguration.DEFAULT_SESSION_VALUE < configuration.getSessionCacheSize())
+		{
+			sslContextFactory.setSslSessionCacheSize(configuration.getSessionCacheSize());
+		}
+		if (TlsConfiguration.DEFAULT_SESSION_VALUE < configuration.getSessionTimeout())
+		{
+			sslContextFactory.setSslSessionTimeout(configuration.getSessionTimeout());
+		}
+		if (configuration.isOcspStapling()
+			&& !Boolean.parseBoolean(System.getProperty(OCSP_STAPLING_PROPERTY)))
+		{
+			log.warning("OCSP stapling sets the process wide system property "
+				+ OCSP_STAPLING_PROPERTY + ", it takes only effect if no SSLContext was "
+				+ "initialized in this jvm before. Set it on the command line to be safe.");
+			System.setProperty(OCSP_STAPLING_PROPERTY, Boolean.TRUE.toString());
+		}
+		final Provider securityProvider = configuration.getSecurityProvider();
+		if (securityProvider == null)
+		{
+			if (StringUtils.isNotEmpty(configuration.getProvider()))
+			{
+				sslContextFactory.setProvider(configuration.getProvider());
+			}
+		}
+		else if (!(sslContextFactory instanceof ProviderSslContextFactory))
+		{
+			// a plain factory finds the provider only by name in the provider list of the jvm
+			if (Security.getProvider(securityProvider.getName()) == null)
+			{
+				log.info("The security provider " + securityProvider.getName()
+					+ " is registered process wide.");
+				Security.addProvider(securityProvider);
+			}
+			sslContextFactory.setProvider(securityProvider.getName());
+		}
+	}
+
+	/**
+	 * Factory method for creating a new {@link InstrumentedByteBufferPool} from the given
+	 * {@link ByteBufferPoolConfiguration}.
+	 *
+	 * @param configuration
+	 *            the byte buffer pool configuration, if null the defaults are taken
+	 * @return the new {@link InstrumentedByteBufferPool}.
+	 */
+	public static InstrumentedByteBufferPool newByteBufferPool(
+		final ByteBufferPoolConfiguration configuration)
+	{
+		if (configuration == null)
+		{
+			return new InstrumentedByteBufferPool();
+		}
+		return new InstrumentedByteBufferPool(configuration);
+	}
+
 	/**
 	 * Factory method for creating a new {@link HttpConfiguration} from the given parameters. The
 	 * default scheme for http is <code>http</code>.
@@ -55,6 +166,28 @@ public class ConfigurationFactory
 		return httpConfiguration;
 	}
 
+	/**
+	 * Factory method for creating a new {@link HttpConfiguration} with the buffer and header sizes
+	 * of the given {@link PerformanceProfile}.
+	 *
+	 * @param secureScheme
+	 *            the secure scheme
+	 * @param securePort
+	 *            the secure port
+	 * @param profile
+	 *            the performance profile
+	 * @return the new {@link HttpConfiguration}.
+	 */
+	public static HttpConfiguration newHttpConfiguration(final String secureScheme,
+		final int securePort, final PerformanceProfile profile)
+	{
+		final HttpConfiguration httpConfiguration = newHttpConfiguration(secureScheme, securePort,
+			profile.getOutputBufferSize());
+		httpConfiguration.setRequestHeaderSize(profile.getRequestHeaderSize());
+		httpConfiguration.setResponseHeaderSize(profile.getResponseHeaderSize());
+		return httpConfiguration;
+	}
+
 	/**
 	 * Factory method for creating a new {@link SecureRequestCustomizer} from the given parameters.
 	 *
@@ -122,6 +255,212 @@ public class ConfigurationFactory
 		return serverConnector;
 	}
 
+	/**
+	 * Factory method for creating a new {@link ServerConnector} from the given parameters.
+	 *
+	 * @param server
+	 *            the server
+	 * @param connectorConfiguration
+	 *            the server connector configuration
+	 * @param port
+	 *            the port
+	 * @param idleTimeout
+	 *            the idle timeout
+	 * @param factories
+	 *            the connection factories
+	 * @return the new {@link ServerConnector}.
+	 */
+	public static ServerConnector newServerConnector(final Server server,
+		final ServerConnectorConfiguration connectorConfiguration, final int port,
+		final long idleTimeout, final ConnectionFactory... factories)
+	{
+		return newServerConnector(server, connectorConfiguration, null, port, idleTimeout,
+			factories);
+	}
+
+	/**
+	 * Factory method for creating a new {@link ServerConnector} from the given parameters that
+	 * takes its buffers from the given {@link ByteBufferPool}. The input buffer size of the
+	 * {@link ServerConnectorConfiguration} is set on the connection factories.
+	 *
+	 * @param server
+	 *            the server
+	 * @param connectorConfiguration
+	 *            the server connector configuration
+	 * @param byteBufferPool
+	 *            the byte buffer pool, if null the pool bean of the server or a new pool is taken
+	 * @param port
+	 *            the port
+	 * @param idleTimeout
+	 *            the idle timeout
+	 * @param factories
+	 *            the connection factories
+	 * @return the new {@link ServerConnector}.
+	 */
+	public static ServerConnector newServerConnector(final Server server,
+		final ServerConnectorConfiguration connectorConfiguration,
+		final ByteBufferPool byteBufferPool, final int port, final long idleTimeout,
+		final ConnectionFactory... factories)
+	{
+		setInputBufferSize(connectorConfiguration.getInputBufferSize(), factories);
+		final ServerConnector serverConnector = new ConfigurableServerConnector(server,
+			connectorConfiguration, byteBufferPool, factories);
+		serverConnector.setPort(port);
+		serverConnector.setIdleTimeout(idleTimeout);
+		return serverConnector;
+	}
+
+	/**
+	 * Factory method for creating a new {@link ServerConnector} from the given parameters.
+	 *
+	 * @param server
+	 *            the server
+	 * @param connectorConfiguration
+	 *            the server connector configuration
+	 * @param httpConfiguration
+	 *            the http configuration
+	 * @param port
+	 *            the port
+	 * @param idleTimeout
+	 *            the idle timeout
+	 * @return the new {@link ServerConnector}.
+	 */
+	public static ServerConnector newServerConnector(final Server server,
+		final ServerConnectorConfiguration connectorConfiguration,
+		final HttpConfiguration httpConfiguration, final int port, final long idleTimeout)
+	{
+		return newServerConnector(server, connectorConfiguration, port, idleTimeout,
+			new HttpConnectionFactory(httpConfiguration));
+	}
+
+	/**
+	 * Factory method for creating the {@link ServerConnector} objects for one port from the given
+	 * parameters. If reuse port is enabled in the given {@link ServerConnectorConfiguration} and
+	 * supported from the running jdk and the port is not 0, as many connectors as the connector
+	 * count are created, every connector with its own connection factories from the given
+	 * supplier, otherwise one connector is created.
+	 *
+	 * @param server
+	 *            the server
+	 * @param connectorConfiguration
+	 *            the server connector configuration
+	 * @param port
+	 *            the port
+	 * @param idleTimeout
+	 *            the idle timeout
+	 * @param factoriesSupplier
+	 *            the supplier for the connection factories of one connector
+	 * @return the new {@link ServerConnector} objects.
+	 */
+	public static List<ServerConnector> newServerConnectors(final Server server,
+		final ServerConnectorConfiguration connectorConfiguration, final int port,
+		final long idleTimeout, final Supplier<ConnectionFactory[]> factoriesSupplier)
+	{
+		return newServerConnectors(server, connectorConfiguration, null, port, idleTimeout,
+			factoriesSupplier);
+	}
+
+	/**
+	 * Factory method for creating the {@link ServerConnector} objects for one port from the given
+	 * parameters that take their buffers from the given {@link ByteBufferPool}. If reuse port is
+	 * enabled in the given {@link ServerConnectorConfiguration} and supported from the running
+	 * jdk and the port is not 0, as many connectors as the connector count are created, every
+	 * connector with its own connection factories from the given supplier, otherwise one
+	 * connector is created.
+	 *
+	 * @param server
+	 *            the server
+	 * @param connectorConfiguration
+	 *            the server connector configuration
+	 * @param byteBufferPool
+	 *            the byte buffer pool, if null the pool bean of the server or a new pool is taken
+	 * @param port
+	 *            the port
+	 * @param idleTimeout
+	 *            the idle timeout
+	 * @param factoriesSupplier
+	 *            the supplier for the connection factories of one connector
+	 * @return the new {@link ServerConnector} objects.
+	 */
+	public static List<ServerConnector> newServerConnectors(final Server server,
+		final ServerConnectorConfiguration connectorConfiguration,
+		final ByteBufferPool byteBufferPool, final int port, final long idleTimeout,
+		final Supplier<ConnectionFactory[]> factoriesSupplier)
+	{
+		final int connectorCount = getConnectorCount(connectorConfiguration, port);
+		final List<ServerConnector> serverConnectors = new ArrayList<>(connectorCount);
+		for (int i = 0; i < connectorCount; i++)
+		{
+			serverConnectors.add(newServerConnector(server, connectorConfiguration, byteBufferPool,
+				port, idleTimeout, factoriesSupplier.get()));
+		}
+		return serverConnectors;
+	}
+
+	/**
+	 * Gets the number of connectors that can be bound to the given port. Several connectors need
+	 * SO_REUSEPORT and a fixed port, with port 0 every connector would be bound to its own
+	 * ephemeral port. If the connector count can not be honored it is clamped to 1 and a warning
+	 * is logged.
+	 *
+	 * @param connectorConfiguration
+	 *            the server connector configuration
+	 * @param port
+	 *            the port
+	 * @return the number of connectors
+	 */
+	private static int getConnectorCount(final ServerConnectorConfiguration connectorConfiguration,
+		final int port)
+	{
+		final int connectorCount = Math.max(1, connectorConfiguration.getConnectorCount());
+		if (connectorCount == 1)
+		{
+			return 1;
+		}
+		String reason = null;
+		if (!connectorConfiguration.isReusePort())
+		{
+			reason = "reuse port is not enabled";
+		}
+		else if (!ConfigurableServerConnector.isReusePortSupported())
+		{
+			reason = "SO_REUSEPORT is not supported from the running jdk";
+		}
+		else if (port == 0)
+		{
+			reason = "the port is 0 and every connector would get its own ephemeral port";
+		}
+		if (reason == null)
+		{
+			return connectorCount;
+		}
+		log.warning("Connector count " + connectorCount + " is clamped to 1 for port " + port
+			+ " because " + reason + ".");
+		return 1;
+	}
+
+	/**
+	 * Sets the given input buffer size on the given connection factories. The ssl connection
+	 * factories are skipped because their buffers are sized from the ssl session.
+	 *
+	 * @param inputBufferSize
+	 *            the input buffer size
+	 * @param factories
+	 *            the connection factories
+	 */
+	public static void setInputBufferSize(final int inputBufferSize,
+		final ConnectionFactory... factories)
+	{
+		for (final ConnectionFactory factory : factories)
+		{
+			if (factory instanceof AbstractConnectionFactory
+				&& !(factory instanceof SslConnectionFactory))
+			{
+				((AbstractConnectionFactory)factory).setInputBufferSize(inputBufferSize);
+			}
+		}
+	}
+
 	/**
 	 * Factory method for creating a new {@link SslContextFactory} from the given parameters.
 	 *
@@ -143,6 +482,59 @@ public class ConfigurationFactory
 		return sslContextFactory;
 	}
 
+	/**
+	 * Factory method for creating the {@link Resource} of a key store from the given path. The
+	 * path is resolved as classpath resource and if it does not exist there as file system path.
+	 *
+	 * @param keyStorePath
+	 *            the key store path
+	 * @return the key store resource or null if the key store does not exist
+	 */
+	public static Resource newKeyStoreResource(final String keyStorePath)
+	{
+		final Resource classPathResource = Resource.newClassPathResource(keyStorePath);
+		if (classPathResource != null && classPathResource.exists())
+		{
+			return classPathResource;
+		}
+		final Resource fileResource = Resource.newResource(new File(keyStorePath));
+		return fileResource.exists() ? fileResource : null;
+	}
+
+	/**
+	 * Factory method for creating a new {@link SslContextFactory} from the given parameters that
+	 * is initialized from the given {@link TlsConfiguration}. If the TLS configuration contains a
+	 * security provider a {@link ProviderSslContextFactory} is created, so the provider is used
+	 * only from this factory and not registered in the jvm.
+	 *
+	 * @param keyStoreResource
+	 *            the key store resource
+	 * @param keyStorePassword
+	 *            the key store password
+	 * @param keyManagerPassword
+	 *            the key manager password
+	 * @param tlsConfiguration
+	 *            the TLS configuration, if null the defaults are taken
+	 * @return the new {@link SslContextFactory}.
+	 */
+	public static SslContextFactory newSslContextFactory(final Resource keyStoreResource,
+		final String keyStorePassword, final String keyManagerPassword,
+		final TlsConfiguration tlsConfiguration)
+	{
+		if (tlsConfiguration == null)
+		{
+			return newSslContextFactory(keyStoreResource, keyStorePassword, keyManagerPassword);
+		}
+		final SslContextFactory sslContextFactory = tlsConfiguration.getSecurityProvider() == null
+			? new SslContextFactory()
+			: new ProviderSslContextFactory(tlsConfiguration.getSecurityProvider());
+		sslContextFactory.setKeyStoreResource(keyStoreResource);
+		sslContextFactory.setKeyStorePassword(keyStorePassword);
+		sslContextFactory.setKeyManagerPassword(keyManagerPassword);
+		initializeTls(tlsConfiguration, sslContextFactory);
+		return sslContextFactory;
+	}
+
 	/**
 	 * Factory method for creating a new {@link SslContextFactory} from the given parameters.
 	 *
@@ -15,20 +15,133 @@
  */
 package de.alpharogroup.jetty9.runner.factories;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.apache.commons.lang3.StringUtils;
 import org.eclipse.jetty.deploy.DeploymentManager;
 import org.eclipse.jetty.deploy.PropertiesConfigurationManager;
 import org.eclipse.jetty.deploy.providers.WebAppProvider;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.eclipse.jetty.webapp.JettyWebXmlConfiguration;
+import org.eclipse.jetty.webapp.WebAppContext;
+import org.eclipse.jetty.webapp.WebInfConfiguration;
+import org.eclipse.jetty.webapp.WebXmlConfiguration;
 
+import de.alpharogroup.jetty9.runner.config.DeploymentConfiguration;
+import de.alpharogroup.jetty9.runner.deploy.ConfigurableWebAppProvider;
 import lombok.experimental.UtilityClass;
+import lombok.extern.java.Log;
 
 /**
  * A factory for creating DeploymentManager objects.
  */
 @UtilityClass
+@Log
 public class DeploymentManagerFactory
 {
 
+	/**
+	 * The configuration classes of the fast start mode, without the configurations that scan the
+	 * jars for META-INF resources and web fragments.
+	 */
+	public static final String[] FAST_START_CONFIGURATION_CLASSES = {
+			WebInfConfiguration.class.getName(), WebXmlConfiguration.class.getName(),
+			JettyWebXmlConfiguration.class.getName() };
+
+	/** The class name of the quickstart configuration from jetty-quickstart. */
+	public static final String QUICKSTART_CONFIGURATION_CLASS =
+		"org.eclipse.jetty.quickstart.QuickStartConfiguration";
+
+	/** The path of the pre-generated quickstart descriptor in a webapp. */
+	public static final String QUICKSTART_WEB_XML = "WEB-INF/quickstart-web.xml";
+
+	/**
+	 * The configuration classes for webapps with a pre-generated quickstart descriptor.
+	 */
+	public static final String[] QUICKSTART_CONFIGURATION_CLASSES = {
+			QUICKSTART_CONFIGURATION_CLASS, JettyWebXmlConfiguration.class.getName() };
+
+	/**
+	 * Checks if the given {@link WebAppContext} is an exploded webapp with a pre-generated
+	 * quickstart descriptor. A packed war is never considered, also if it is extracted, because
+	 * the quickstart configuration rejects a war that is not a directory before it is extracted.
+	 *
+	 * @param webAppContext
+	 *            the web app context
+	 * @return true, if the webapp is a directory with the quickstart descriptor
+	 */
+	private static boolean hasQuickStartWebXml(final WebAppContext webAppContext)
+	{
+		final String war = webAppContext.getWar();
+		if (war == null)
+		{
+			return false;
+		}
+		final File directory = new File(war);
+		return directory.isDirectory() && new File(directory, QUICKSTART_WEB_XML).isFile();
+	}
+
+	/**
+	 * Initializes the given {@link WebAppContext} from the given {@link DeploymentConfiguration}.
+	 * Explicit configuration classes are taken as they are, otherwise an exploded webapp with a
+	 * pre-generated quickstart descriptor is configured from it if quickstart is enabled, and in
+	 * the fast start mode the configurations that scan the jars are skipped.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @param webAppContext
+	 *            the web app context
+	 */
+	public static void initializeWebAppContext(final DeploymentConfiguration configuration,
+		final WebAppContext webAppContext)
+	{
+		if (!configuration.getConfigurationClasses().isEmpty())
+		{
+			webAppContext.setConfigurationClasses(configuration.getConfigurationClasses());
+		}
+		else if (configuration.isQuickstart() && isQuickStartAvailable()
+			&& hasQuickStartWebXml(webAppContext))
+		{
+			webAppContext.setConfigurationClasses(QUICKSTART_CONFIGURATION_CLASSES);
+		}
+		else if (configuration.isFastStart())
+		{
+			webAppContext.setConfigurationClasses(FAST_START_CONFIGURATION_CLASSES);
+		}
+		if (StringUtils.isNotEmpty(configuration.getContainerIncludeJarPattern()))
+		{
+			webAppContext.setAttribute(WebInfConfiguration.CONTAINER_JAR_PATTERN,
+				configuration.getContainerIncludeJarPattern());
+		}
+		if (StringUtils.isNotEmpty(configuration.getWebInfIncludeJarPattern()))
+		{
+			webAppContext.setAttribute(WebInfConfiguration.WEBINF_JAR_PATTERN,
+				configuration.getWebInfIncludeJarPattern());
+		}
+	}
+
+	/**
+	 * Checks if jetty-quickstart is on the classpath.
+	 *
+	 * @return true, if the quickstart configuration is available
+	 */
+	public static boolean isQuickStartAvailable()
+	{
+		try
+		{
+			Class.forName(QUICKSTART_CONFIGURATION_CLASS, false,
+				DeploymentManagerFactory.class.getClassLoader());
+			return true;
+		}
+		catch (final ClassNotFoundException | LinkageError e)
+		{
+			log.fine("jetty-quickstart is not on the classpath.");
+			return false;
+		}
+	}
+
 	/**
 	 * New deployment manager.
 	 *
@@ -40,25 +153,103 @@ public class DeploymentManagerFactory
 	 *            the defaults descriptor
 	 * @return the deployment manager
 	 */
-	// see:http://git.eclipse.org/c/jetty/org.eclipse.jetty.project.git/tree/examples/embedded/src/main/java/org/eclipse/jetty/embedded/LikeJettyXml.java
 	public static DeploymentManager newDeploymentManager(final ContextHandlerCollection contexts,
 		final String monitoredDirName, final String defaultsDescriptor)
+	{
+		return newDeploymentManager(contexts, monitoredDirName, defaultsDescriptor,
+			DeploymentConfiguration.builder().build());
+	}
+
+	/**
+	 * Factory method for create the {@link DeploymentManager} that deploys the webapps of the
+	 * deploy directory of the given {@link DeploymentConfiguration} beside the given webapp of an
+	 * application. The deploy directory must neither be the webapp nor contain it or be inside it,
+	 * because every subdirectory and context xml of the deploy directory is deployed.
+	 *
+	 * @param contexts
+	 *            the contexts
+	 * @param webapp
+	 *            the webapp of the application
+	 * @param configuration
+	 *            the deployment configuration
+	 * @return the deployment manager or null if the configuration is null or has no deploy
+	 *         directory
+	 * @throws IllegalArgumentException
+	 *             if the deploy directory overlaps the webapp
+	 */
+	public static DeploymentManager newDeploymentManager(final ContextHandlerCollection contexts,
+		final File webapp, final DeploymentConfiguration configuration)
+	{
+		if (configuration == null || configuration.getDeployDirectory() == null)
+		{
+			return null;
+		}
+		final Path deployDirectory = toCanonicalPath(configuration.getDeployDirectory());
+		if (webapp != null)
+		{
+			final Path webappDirectory = toCanonicalPath(webapp);
+			if (webappDirectory.startsWith(deployDirectory)
+				|| deployDirectory.startsWith(webappDirectory))
+			{
+				throw new IllegalArgumentException("The deploy directory " + deployDirectory
+					+ " overlaps the webapp " + webappDirectory + ".");
+			}
+		}
+		return newDeploymentManager(contexts, deployDirectory.toString(), null, configuration);
+	}
+
+	/**
+	 * New deployment manager with a {@link WebAppProvider} that is initialized from the given
+	 * {@link DeploymentConfiguration}, the deploy mode of the configuration defines if the
+	 * monitored directory is scanned periodically, watched for changes or not scanned at all.
+	 *
+	 * @param contexts
+	 *            the contexts
+	 * @param monitoredDirName
+	 *            the monitored dir name
+	 * @param defaultsDescriptor
+	 *            the defaults descriptor
+	 * @param configuration
+	 *            the deployment configuration
+	 * @return the deployment manager
+	 */
+	// see:http://git.eclipse.org/c/jetty/org.eclipse.jetty.project.git/tree/examples/embedded/src/main/java/org/eclipse/jetty/embedded/LikeJettyXml.java
+	public static DeploymentManager newDeploymentManager(final ContextHandlerCollection contexts,
+		final String monitoredDirName, final String defaultsDescriptor,
+		final DeploymentConfiguration configuration)
 	{
 		final DeploymentManager deployer = new DeploymentManager();
 		deployer.setContexts(contexts);
-		deployer.setContextAttribute("org.eclipse.jetty.server.webapp.ContainerIncludeJarPattern",
-			".*/servlet-api-[^/]*\\.jar$");
-		final WebAppProvider webAppProvider = new WebAppProvider();
+		final WebAppProvider webAppProvider = new ConfigurableWebAppProvider(configuration);
 		webAppProvider.setMonitoredDirName(monitoredDirName);
 		if (defaultsDescriptor != null)
 		{
 			webAppProvider.setDefaultsDescriptor(defaultsDescriptor);
 		}
-		webAppProvider.setScanInterval(1);
-		webAppProvider.setExtractWars(true);
 		webAppProvider.setConfigurationManager(new PropertiesConfigurationManager());
 
 		deployer.addAppProvider(webAppProvider);
 		return deployer;
 	}
+
+	/**
+	 * Resolves the canonical path of the given file, so symbolic links can not hide an overlap.
+	 *
+	 * @param file
+	 *            the file
+	 * @return the canonical path
+	 * @throws IllegalArgumentException
+	 *             if the canonical path could not be resolved
+	 */
+	private static Path toCanonicalPath(final File file)
+	{
+		try
+		{
+			return file.getCanonicalFile().toPath();
+		}
+		catch (final IOException e)
+		{
+			throw new IllegalArgumentException("The path " + file + " could not be resolved.", e);
+		}
+	}
 }
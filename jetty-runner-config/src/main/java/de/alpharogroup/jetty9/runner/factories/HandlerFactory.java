@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.factories;
+
+import java.util.List;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.handler.StatisticsHandler;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+
+import de.alpharogroup.jetty9.runner.compression.TunableGzipHandler;
+import de.alpharogroup.jetty9.runner.config.CompressionConfiguration;
+import de.alpharogroup.jetty9.runner.metrics.MetricsHandler;
+import de.alpharogroup.jetty9.runner.metrics.RequestMetrics;
+import lombok.experimental.UtilityClass;
+
+/**
+ * A factory for creating {@link Handler} objects that wraps other handlers.
+ */
+@UtilityClass
+public class HandlerFactory
+{
+
+	/**
+	 * Factory method for creating a new {@link GzipHandler} from the given
+	 * {@link CompressionConfiguration}. The compression level of the created
+	 * {@link TunableGzipHandler} can be changed while it is started.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @return the new {@link GzipHandler}.
+	 */
+	public static GzipHandler newGzipHandler(final CompressionConfiguration configuration)
+	{
+		final GzipHandler gzipHandler = new TunableGzipHandler();
+		gzipHandler.setMinGzipSize(configuration.getMinGzipSize());
+		gzipHandler.setCompressionLevel(configuration.getCompressionLevel());
+		gzipHandler.setDeflaterPoolCapacity(configuration.getDeflaterPoolCapacity());
+		if (CollectionUtils.isNotEmpty(configuration.getIncludedMimeTypes()))
+		{
+			gzipHandler.setIncludedMimeTypes(toArray(configuration.getIncludedMimeTypes()));
+		}
+		if (CollectionUtils.isNotEmpty(configuration.getIncludedPaths()))
+		{
+			gzipHandler.setIncludedPaths(toArray(configuration.getIncludedPaths()));
+		}
+		if (CollectionUtils.isNotEmpty(configuration.getExcludedPaths()))
+		{
+			gzipHandler.setExcludedPaths(toArray(configuration.getExcludedPaths()));
+		}
+		return gzipHandler;
+	}
+
+	/**
+	 * Factory method for creating a new {@link GzipHandler} from the given
+	 * {@link CompressionConfiguration} that wraps the given {@link Handler}.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @param handler
+	 *            the handler to wrap
+	 * @return the new {@link GzipHandler}.
+	 */
+	public static GzipHandler newGzipHandler(final CompressionConfiguration configuration,
+		final Handler handler)
+	{
+		final GzipHandler gzipHandler = newGzipHandler(configuration);
+		gzipHandler.setHandler(handler);
+		return gzipHandler;
+	}
+
+	/**
+	 * Factory method for creating a new {@link StatisticsHandler} that wraps a
+	 * {@link MetricsHandler} that wraps the given {@link Handler}. The {@link StatisticsHandler} is
+	 * set to the given {@link RequestMetrics} and the latencies are recorded per connector.
+	 *
+	 * @param requestMetrics
+	 *            the request metrics
+	 * @param handler
+	 *            the handler to wrap
+	 * @return the new {@link StatisticsHandler}.
+	 */
+	public static StatisticsHandler newInstrumentedHandler(final RequestMetrics requestMetrics,
+		final Handler handler)
+	{
+		final MetricsHandler metricsHandler = new MetricsHandler(requestMetrics);
+		metricsHandler.setHandler(handler);
+		final StatisticsHandler statisticsHandler = new StatisticsHandler();
+		statisticsHandler.setHandler(metricsHandler);
+		requestMetrics.setStatisticsHandler(statisticsHandler);
+		return statisticsHandler;
+	}
+
+	/**
+	 * Converts the given list to an array.
+	 *
+	 * @param list
+	 *            the list
+	 * @return the array
+	 */
+	private static String[] toArray(final List<String> list)
+	{
+		return list.toArray(new String[list.size()]);
+	}
+
+}
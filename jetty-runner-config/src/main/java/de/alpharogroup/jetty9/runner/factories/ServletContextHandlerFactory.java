@@ -15,22 +15,41 @@
  */
 package de.alpharogroup.jetty9.runner.factories;
 
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.stream.Collectors;
 
 import javax.servlet.DispatcherType;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jetty.server.HandlerContainer;
+import org.eclipse.jetty.server.handler.HandlerCollection;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.eclipse.jetty.server.session.SessionHandler;
+import org.eclipse.jetty.servlet.DefaultServlet;
 import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
 
+import de.alpharogroup.jetty9.runner.config.BulkheadConfiguration;
+import de.alpharogroup.jetty9.runner.config.CompressionConfiguration;
 import de.alpharogroup.jetty9.runner.config.FilterHolderConfiguration;
+import de.alpharogroup.jetty9.runner.config.InitParameters;
+import de.alpharogroup.jetty9.runner.config.RateLimitConfiguration;
 import de.alpharogroup.jetty9.runner.config.ServletContextHandlerConfiguration;
 import de.alpharogroup.jetty9.runner.config.ServletHolderConfiguration;
+import de.alpharogroup.jetty9.runner.config.SessionStoreConfiguration;
+import de.alpharogroup.jetty9.runner.config.StaticResourceConfiguration;
+import de.alpharogroup.jetty9.runner.filter.BulkheadFilter;
+import de.alpharogroup.jetty9.runner.filter.CacheControlFilter;
+import de.alpharogroup.jetty9.runner.filter.RateLimitFilter;
+import de.alpharogroup.jetty9.runner.metrics.MetricsHandler;
+import de.alpharogroup.jetty9.runner.metrics.MetricsServlet;
+import de.alpharogroup.jetty9.runner.metrics.RequestMetrics;
 import lombok.experimental.UtilityClass;
 
 /**
@@ -41,6 +60,35 @@ import lombok.experimental.UtilityClass;
 public class ServletContextHandlerFactory
 {
 
+	/**
+	 * Gets the dispatcher types of a filter that is added to the given
+	 * {@link ServletContextHandler} after its bulkheads. If the context has a
+	 * {@link BulkheadFilter}, the dispatcher type ASYNC is added to the given dispatcher types,
+	 * because the bulkhead resumes a queued request with an ASYNC dispatch and the request would
+	 * skip the filter otherwise.
+	 *
+	 * @param context
+	 *            the context
+	 * @param dispatcherTypes
+	 *            the dispatcher types of the filter
+	 * @return the dispatcher types of the filter in the given context
+	 */
+	public static EnumSet<DispatcherType> getDispatcherTypes(final ServletContextHandler context,
+		final DispatcherType... dispatcherTypes)
+	{
+		final EnumSet<DispatcherType> types = EnumSet.noneOf(DispatcherType.class);
+		Collections.addAll(types, dispatcherTypes);
+		for (final FilterHolder filter : context.getServletHandler().getFilters())
+		{
+			if (filter.getHeldClass() != null
+				&& BulkheadFilter.class.isAssignableFrom(filter.getHeldClass()))
+			{
+				types.add(DispatcherType.ASYNC);
+			}
+		}
+		return types;
+	}
+
 	/**
 	 * Gets the new servlet context handler.
 	 *
@@ -59,10 +107,22 @@ public class ServletContextHandlerFactory
 
 		context.getSessionHandler().setMaxInactiveInterval(configuration.getMaxInactiveInterval());
 
+		initializeSessions(configuration.getSessionStoreConfiguration(), context);
+
+		initializeRateLimit(configuration.getRateLimitConfiguration(), context);
+
+		initializeBulkheads(configuration.getBulkheadConfigurations(), context);
+
+		initializeCacheControlRules(configuration.getStaticResourceConfiguration(), context);
+
 		initializeFilterHolder(configuration, context);
 
 		initializeServletHolder(configuration, context);
 
+		initializeCompression(configuration.getCompressionConfiguration(), context);
+
+		initializeMetrics(configuration.getRequestMetrics(), context);
+
 		for (final Entry<String, String> initParameter : configuration.getInitParameters()
 			.entrySet())
 		{
@@ -71,6 +131,265 @@ public class ServletContextHandlerFactory
 		return context;
 	}
 
+	/**
+	 * Factory method for creating the {@link ServletContextHandler} objects of the given
+	 * configurations concurrently. The order of the created handlers is the order of the given
+	 * configurations. The handlers are created without a parent and are added afterwards one by
+	 * one to the parent of their configuration, if set, because the handler collections are not
+	 * thread safe.
+	 *
+	 * @param configurations
+	 *            the configurations
+	 * @return the new servlet context handlers
+	 */
+	public static List<ServletContextHandler> newServletContextHandlers(
+		final List<ServletContextHandlerConfiguration> configurations)
+	{
+		final List<ServletContextHandler> contexts = configurations.parallelStream()
+			.map(ServletContextHandlerFactory::getNewServletContextHandler)
+			.collect(Collectors.toList());
+		for (int i = 0; i < contexts.size(); i++)
+		{
+			final HandlerContainer parent = configurations.get(i).getParent();
+			if (parent instanceof HandlerWrapper)
+			{
+				((HandlerWrapper)parent).setHandler(contexts.get(i));
+			}
+			else if (parent instanceof HandlerCollection)
+			{
+				((HandlerCollection)parent).addHandler(contexts.get(i));
+			}
+		}
+		return contexts;
+	}
+
+	/**
+	 * Initialize the response compression of the given {@link ServletContextHandler} from the
+	 * given {@link CompressionConfiguration}. If the precompressed formats are set, the
+	 * DefaultServlets of the context serves the precompressed siblings of the static resources.
+	 *
+	 * @param compressionConfiguration
+	 *            the compression configuration, can be null
+	 * @param context
+	 *            the context
+	 */
+	public static void initializeCompression(
+		final CompressionConfiguration compressionConfiguration,
+		final ServletContextHandler context)
+	{
+		if (compressionConfiguration != null)
+		{
+			context.setGzipHandler(HandlerFactory.newGzipHandler(compressionConfiguration));
+			if (StringUtils.isNotEmpty(compressionConfiguration.getPrecompressedFormats()))
+			{
+				context.setInitParameter(
+					InitParameters.DEFAULT_SERVLET_INIT_PARAMETER_PREFIX
+						+ InitParameters.DEFAULT_SERVLET_PRECOMPRESSED,
+					compressionConfiguration.getPrecompressedFormats());
+			}
+		}
+	}
+
+	/**
+	 * Initialize the rate limit of the given {@link ServletContextHandler}. If the given
+	 * {@link RateLimitConfiguration} is set a {@link RateLimitFilter} is added. This method have to
+	 * be called before the bulkheads and other filters are added, so the requests over the limit
+	 * are rejected before they take a pass of a bulkhead.
+	 *
+	 * @param rateLimitConfiguration
+	 *            the rate limit configuration, can be null
+	 * @param context
+	 *            the context
+	 */
+	public static void initializeRateLimit(final RateLimitConfiguration rateLimitConfiguration,
+		final ServletContextHandler context)
+	{
+		if (rateLimitConfiguration != null)
+		{
+			final FilterHolder filter = new FilterHolder(RateLimitFilter.class);
+			filter.setAsyncSupported(true);
+			filter.setInitParameter(RateLimitFilter.BURST,
+				String.valueOf(rateLimitConfiguration.getBurst()));
+			filter.setInitParameter(RateLimitFilter.MAX_CLIENTS,
+				String.valueOf(rateLimitConfiguration.getMaxClients()));
+			filter.setInitParameter(RateLimitFilter.RATE,
+				String.valueOf(rateLimitConfiguration.getRate()));
+			filter.setInitParameter(RateLimitFilter.STRIPES,
+				String.valueOf(rateLimitConfiguration.getStripes()));
+			filter.setInitParameter(RateLimitFilter.TRUSTED_PROXIES,
+				String.valueOf(rateLimitConfiguration.getTrustedProxies()));
+			if (StringUtils.isNotEmpty(rateLimitConfiguration.getKeyHeader()))
+			{
+				filter.setInitParameter(RateLimitFilter.KEY_HEADER,
+					rateLimitConfiguration.getKeyHeader());
+			}
+			context.addFilter(filter, rateLimitConfiguration.getPathSpec(),
+				EnumSet.of(DispatcherType.REQUEST));
+		}
+	}
+
+	/**
+	 * Initialize the bulkheads of the given {@link ServletContextHandler}. For every
+	 * {@link BulkheadConfiguration} a {@link BulkheadFilter} with async support is added for the
+	 * dispatcher types REQUEST and ASYNC. This method have to be called before other filters are
+	 * added, so the requests are limited before other filters handle them. A queued request is
+	 * resumed with an ASYNC dispatch, so the filters that are added afterwards have to take their
+	 * dispatcher types from {@link #getDispatcherTypes(ServletContextHandler, DispatcherType...)}.
+	 *
+	 * @param bulkheadConfigurations
+	 *            the bulkhead configurations, can be null
+	 * @param context
+	 *            the context
+	 */
+	public static void initializeBulkheads(
+		final List<BulkheadConfiguration> bulkheadConfigurations,
+		final ServletContextHandler context)
+	{
+		if (CollectionUtils.isNotEmpty(bulkheadConfigurations))
+		{
+			for (final BulkheadConfiguration bulkheadConfiguration : bulkheadConfigurations)
+			{
+				final FilterHolder filter = new FilterHolder(BulkheadFilter.class);
+				filter.setAsyncSupported(true);
+				filter.setInitParameter(BulkheadFilter.MAX_REQUESTS,
+					String.valueOf(bulkheadConfiguration.getMaxRequests()));
+				filter.setInitParameter(BulkheadFilter.QUEUE_CAPACITY,
+					String.valueOf(bulkheadConfiguration.getQueueCapacity()));
+				filter.setInitParameter(BulkheadFilter.RETRY_AFTER,
+					String.valueOf(bulkheadConfiguration.getRetryAfter()));
+				filter.setInitParameter(BulkheadFilter.WAIT_TIMEOUT,
+					String.valueOf(bulkheadConfiguration.getWaitTimeout()));
+				if (MapUtils.isNotEmpty(bulkheadConfiguration.getPriorityPaths()))
+				{
+					final StringBuilder priorityPaths = new StringBuilder();
+					for (final Entry<String, Integer> priorityPath : bulkheadConfiguration
+						.getPriorityPaths().entrySet())
+					{
+						if (0 < priorityPaths.length())
+						{
+							priorityPaths.append(',');
+						}
+						priorityPaths.append(priorityPath.getKey()).append('=')
+							.append(priorityPath.getValue());
+					}
+					filter.setInitParameter(BulkheadFilter.PRIORITY_PATHS,
+						priorityPaths.toString());
+				}
+				context.addFilter(filter, bulkheadConfiguration.getPathSpec(),
+					EnumSet.of(DispatcherType.REQUEST, DispatcherType.ASYNC));
+			}
+		}
+	}
+
+	/**
+	 * Initialize the Cache-Control rules of the given {@link StaticResourceConfiguration}. For
+	 * every rule a {@link CacheControlFilter} is added to the given {@link ServletContextHandler}.
+	 * This method have to be called before other filters are added, so the rules are applied
+	 * before other filters like the WicketFilter handle the request.
+	 *
+	 * @param staticResourceConfiguration
+	 *            the static resource configuration, can be null
+	 * @param context
+	 *            the context
+	 */
+	public static void initializeCacheControlRules(
+		final StaticResourceConfiguration staticResourceConfiguration,
+		final ServletContextHandler context)
+	{
+		if (staticResourceConfiguration != null
+			&& MapUtils.isNotEmpty(staticResourceConfiguration.getCacheControlRules()))
+		{
+			for (final Entry<String, String> rule : staticResourceConfiguration
+				.getCacheControlRules().entrySet())
+			{
+				final FilterHolder filter = new FilterHolder(CacheControlFilter.class);
+				filter.setInitParameter(CacheControlFilter.CACHE_CONTROL, rule.getValue());
+				context.addFilter(filter, rule.getKey(),
+					getDispatcherTypes(context, DispatcherType.REQUEST));
+			}
+		}
+	}
+
+	/**
+	 * Initialize the request metrics of the given {@link ServletContextHandler}. A
+	 * {@link MetricsHandler} is inserted in the context that records the latencies of the context
+	 * path in the given {@link RequestMetrics}, and the {@link RequestMetrics} are set as context
+	 * attribute for the {@link MetricsServlet}.
+	 *
+	 * @param requestMetrics
+	 *            the request metrics, can be null
+	 * @param context
+	 *            the context
+	 */
+	public static void initializeMetrics(final RequestMetrics requestMetrics,
+		final ServletContextHandler context)
+	{
+		if (requestMetrics != null)
+		{
+			context.insertHandler(new MetricsHandler(requestMetrics, context.getContextPath()));
+			context.setAttribute(RequestMetrics.ATTRIBUTE, requestMetrics);
+		}
+	}
+
+	/**
+	 * Initialize the session cache and the session data store of the given
+	 * {@link ServletContextHandler} from the given {@link SessionStoreConfiguration}.
+	 *
+	 * @param sessionStoreConfiguration
+	 *            the session store configuration, can be null
+	 * @param context
+	 *            the context
+	 */
+	public static void initializeSessions(
+		final SessionStoreConfiguration sessionStoreConfiguration,
+		final ServletContextHandler context)
+	{
+		if (sessionStoreConfiguration != null)
+		{
+			final SessionHandler sessionHandler = context.getSessionHandler();
+			sessionHandler.setSessionCache(
+				SessionStoreFactory.newSessionCache(sessionStoreConfiguration, sessionHandler));
+		}
+	}
+
+	/**
+	 * Initialize the resource cache and the caching headers of the given {@link ServletHolder} of a
+	 * {@link DefaultServlet} from the given {@link StaticResourceConfiguration}. Init parameters
+	 * that are already set in the given {@link ServletHolder} are not overwritten.
+	 *
+	 * @param staticResourceConfiguration
+	 *            the static resource configuration, can be null
+	 * @param servletHolder
+	 *            the servlet holder of the DefaultServlet
+	 */
+	public static void initializeStaticResources(
+		final StaticResourceConfiguration staticResourceConfiguration,
+		final ServletHolder servletHolder)
+	{
+		if (staticResourceConfiguration != null)
+		{
+			setInitParameterIfAbsent(servletHolder, InitParameters.DEFAULT_SERVLET_MAX_CACHE_SIZE,
+				String.valueOf(staticResourceConfiguration.getMaxCacheSize()));
+			setInitParameterIfAbsent(servletHolder,
+				InitParameters.DEFAULT_SERVLET_MAX_CACHED_FILE_SIZE,
+				String.valueOf(staticResourceConfiguration.getMaxCachedFileSize()));
+			setInitParameterIfAbsent(servletHolder,
+				InitParameters.DEFAULT_SERVLET_MAX_CACHED_FILES,
+				String.valueOf(staticResourceConfiguration.getMaxCachedFiles()));
+			setInitParameterIfAbsent(servletHolder,
+				InitParameters.DEFAULT_SERVLET_USE_FILE_MAPPED_BUFFER,
+				String.valueOf(staticResourceConfiguration.isUseFileMappedBuffer()));
+			setInitParameterIfAbsent(servletHolder, InitParameters.DEFAULT_SERVLET_ETAGS,
+				String.valueOf(staticResourceConfiguration.isEtags()));
+			if (StringUtils.isNotEmpty(staticResourceConfiguration.getCacheControl()))
+			{
+				setInitParameterIfAbsent(servletHolder,
+					InitParameters.DEFAULT_SERVLET_CACHE_CONTROL,
+					staticResourceConfiguration.getCacheControl());
+			}
+		}
+	}
+
 	/**
 	 * Initialize filter holder.
 	 *
@@ -105,12 +424,31 @@ public class ServletContextHandlerFactory
 				if (StringUtils.isNotEmpty(filterHolderConfiguration.getFilterPath()))
 				{
 					context.addFilter(filter, filterHolderConfiguration.getFilterPath(),
-						EnumSet.of(DispatcherType.REQUEST, DispatcherType.ERROR));
+						getDispatcherTypes(context, DispatcherType.REQUEST, DispatcherType.ERROR));
 				}
 			}
 		}
 	}
 
+	/**
+	 * Sets the given init parameter to the given {@link ServletHolder} if it is not already set.
+	 *
+	 * @param servletHolder
+	 *            the servlet holder
+	 * @param name
+	 *            the name of the init parameter
+	 * @param value
+	 *            the value of the init parameter
+	 */
+	private static void setInitParameterIfAbsent(final ServletHolder servletHolder,
+		final String name, final String value)
+	{
+		if (servletHolder.getInitParameter(name) == null)
+		{
+			servletHolder.setInitParameter(name, value);
+		}
+	}
+
 	/**
 	 * Initialize servlet holder.
 	 *
@@ -144,6 +482,12 @@ public class ServletContextHandlerFactory
 							initParameter.getValue());
 					}
 				}
+				if (DefaultServlet.class
+					.isAssignableFrom(servletHolderConfiguration.getServletClass()))
+				{
+					initializeStaticResources(configuration.getStaticResourceConfiguration(),
+						servletHolder);
+				}
 				if (StringUtils.isNotEmpty(servletHolderConfiguration.getPathSpec()))
 				{
 					context.addServlet(servletHolder, servletHolderConfiguration.getPathSpec());
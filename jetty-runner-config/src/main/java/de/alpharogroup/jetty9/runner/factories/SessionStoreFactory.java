@@ -0,0 +1,212 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.factories;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jetty.server.session.AbstractSessionDataStore;
+import org.eclipse.jetty.server.session.DatabaseAdaptor;
+import org.eclipse.jetty.server.session.DefaultSessionCache;
+import org.eclipse.jetty.server.session.FileSessionDataStore;
+import org.eclipse.jetty.server.session.JDBCSessionDataStore;
+import org.eclipse.jetty.server.session.NullSessionDataStore;
+import org.eclipse.jetty.server.session.SessionCache;
+import org.eclipse.jetty.server.session.SessionDataStore;
+import org.eclipse.jetty.server.session.SessionHandler;
+
+import de.alpharogroup.jetty9.runner.config.SessionStoreConfiguration;
+import de.alpharogroup.jetty9.runner.session.BoundedSessionCache;
+import de.alpharogroup.jetty9.runner.session.OffHeapSessionCache;
+import de.alpharogroup.jetty9.runner.session.OffHeapSessionDataStore;
+import de.alpharogroup.jetty9.runner.session.SessionStoreType;
+import de.alpharogroup.jetty9.runner.session.WriteBehindSessionDataStore;
+import lombok.experimental.UtilityClass;
+
+/**
+ * A factory for creating {@link SessionCache} and {@link SessionDataStore} objects.
+ */
+@UtilityClass
+public class SessionStoreFactory
+{
+
+	/**
+	 * Initialize the save period and the grace period of the given
+	 * {@link AbstractSessionDataStore} from the given {@link SessionStoreConfiguration}.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @param sessionDataStore
+	 *            the session data store
+	 */
+	private static void initializePeriods(final SessionStoreConfiguration configuration,
+		final AbstractSessionDataStore sessionDataStore)
+	{
+		sessionDataStore.setSavePeriodSec(configuration.getSavePeriod());
+		sessionDataStore.setGracePeriodSec(configuration.getGracePeriod());
+	}
+
+	/**
+	 * Factory method for creating a new {@link DatabaseAdaptor} from the given
+	 * {@link SessionStoreConfiguration}. The data source takes precedence over the driver class
+	 * name and the connection url.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @return the new {@link DatabaseAdaptor}
+	 */
+	public static DatabaseAdaptor newDatabaseAdaptor(final SessionStoreConfiguration configuration)
+	{
+		final DatabaseAdaptor databaseAdaptor = new DatabaseAdaptor();
+		if (configuration.getDataSource() != null)
+		{
+			databaseAdaptor.setDatasource(configuration.getDataSource());
+		}
+		else if (StringUtils.isNotEmpty(configuration.getJdbcDriverClassName())
+			&& StringUtils.isNotEmpty(configuration.getJdbcConnectionUrl()))
+		{
+			databaseAdaptor.setDriverInfo(configuration.getJdbcDriverClassName(),
+				configuration.getJdbcConnectionUrl());
+		}
+		else
+		{
+			throw new IllegalArgumentException("The jdbc session store needs a data source "
+				+ "or a driver class name and a connection url.");
+		}
+		return databaseAdaptor;
+	}
+
+	/**
+	 * Factory method for creating a new {@link OffHeapSessionDataStore} from the given
+	 * {@link SessionStoreConfiguration}.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @return the new {@link OffHeapSessionDataStore}
+	 */
+	public static OffHeapSessionDataStore newOffHeapSessionDataStore(
+		final SessionStoreConfiguration configuration)
+	{
+		final OffHeapSessionDataStore sessionDataStore = new OffHeapSessionDataStore(
+			configuration.getOffHeapCapacity(), configuration.getOffHeapBlockSize(),
+			configuration.getOffHeapDirectory());
+		initializePeriods(configuration, sessionDataStore);
+		return sessionDataStore;
+	}
+
+	/**
+	 * Factory method for creating a new {@link SessionCache} for the given {@link SessionHandler}
+	 * from the given {@link SessionStoreConfiguration}. For the off heap store type an
+	 * {@link OffHeapSessionCache} is created. If the maximum number of sessions is set a
+	 * {@link BoundedSessionCache} is created, otherwise a {@link DefaultSessionCache}.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @param sessionHandler
+	 *            the session handler
+	 * @return the new {@link SessionCache}
+	 */
+	public static SessionCache newSessionCache(final SessionStoreConfiguration configuration,
+		final SessionHandler sessionHandler)
+	{
+		final DefaultSessionCache sessionCache;
+		if (configuration.getSessionDataStore() == null
+			&& configuration.getStoreType() == SessionStoreType.OFF_HEAP)
+		{
+			sessionCache = new OffHeapSessionCache(sessionHandler,
+				newOffHeapSessionDataStore(configuration));
+		}
+		else
+		{
+			sessionCache = 0 < configuration.getMaxSessions()
+				? new BoundedSessionCache(sessionHandler, configuration.getMaxSessions())
+				: new DefaultSessionCache(sessionHandler);
+			sessionCache.setEvictionPolicy(configuration.getEvictionPolicy());
+			sessionCache.setSessionDataStore(newSessionDataStore(configuration));
+		}
+		sessionCache.setSaveOnCreate(configuration.isSaveOnCreate());
+		sessionCache.setSaveOnInactiveEviction(configuration.isSaveOnInactiveEviction());
+		sessionCache.setRemoveUnloadableSessions(configuration.isRemoveUnloadableSessions());
+		return sessionCache;
+	}
+
+	/**
+	 * Factory method for creating a new {@link SessionDataStore} from the given
+	 * {@link SessionStoreConfiguration}. A custom session data store of the configuration takes
+	 * precedence over the store type. If write behind is enabled the store is wrapped in a
+	 * {@link WriteBehindSessionDataStore}.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @return the new {@link SessionDataStore}
+	 */
+	public static SessionDataStore newSessionDataStore(
+		final SessionStoreConfiguration configuration)
+	{
+		SessionDataStore sessionDataStore = configuration.getSessionDataStore();
+		if (sessionDataStore == null)
+		{
+			sessionDataStore = newSessionDataStore(configuration.getStoreType(), configuration);
+		}
+		if (sessionDataStore instanceof AbstractSessionDataStore)
+		{
+			initializePeriods(configuration, (AbstractSessionDataStore)sessionDataStore);
+		}
+		if (configuration.isWriteBehind())
+		{
+			sessionDataStore = new WriteBehindSessionDataStore(sessionDataStore,
+				configuration.getWriteBehindThreads(), configuration.getWriteBehindQueueCapacity(),
+				configuration.getWriteBehindFlushTimeout());
+		}
+		return sessionDataStore;
+	}
+
+	/**
+	 * Factory method for creating a new {@link SessionDataStore} of the given
+	 * {@link SessionStoreType}.
+	 *
+	 * @param storeType
+	 *            the store type
+	 * @param configuration
+	 *            the configuration
+	 * @return the new {@link SessionDataStore}
+	 */
+	private static SessionDataStore newSessionDataStore(final SessionStoreType storeType,
+		final SessionStoreConfiguration configuration)
+	{
+		switch (storeType)
+		{
+			case FILE :
+				if (configuration.getStoreDirectory() == null)
+				{
+					throw new IllegalArgumentException(
+						"The file session store needs a store directory.");
+				}
+				final FileSessionDataStore fileSessionDataStore = new FileSessionDataStore();
+				fileSessionDataStore.setStoreDir(configuration.getStoreDirectory());
+				fileSessionDataStore
+					.setDeleteUnrestorableFiles(configuration.isDeleteUnrestorableFiles());
+				return fileSessionDataStore;
+			case JDBC :
+				final JDBCSessionDataStore jdbcSessionDataStore = new JDBCSessionDataStore();
+				jdbcSessionDataStore.setDatabaseAdaptor(newDatabaseAdaptor(configuration));
+				return jdbcSessionDataStore;
+			case OFF_HEAP :
+				return newOffHeapSessionDataStore(configuration);
+			default :
+				return new NullSessionDataStore();
+		}
+	}
+
+}
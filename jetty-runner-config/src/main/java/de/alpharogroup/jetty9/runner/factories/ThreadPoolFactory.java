@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.factories;
+
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import de.alpharogroup.jetty9.runner.config.ThreadPoolConfiguration;
+import de.alpharogroup.jetty9.runner.threadpool.VirtualThreadPool;
+import lombok.experimental.UtilityClass;
+import lombok.extern.java.Log;
+
+/**
+ * A factory for creating {@link ThreadPool} objects.
+ */
+@UtilityClass
+@Log
+public class ThreadPoolFactory
+{
+
+	/**
+	 * Factory method for creating a new {@link ThreadPool} from the given
+	 * {@link ThreadPoolConfiguration}. If the configuration requests virtual threads and the
+	 * running jdk supports them a {@link VirtualThreadPool} is created, otherwise a
+	 * {@link QueuedThreadPool}.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @return the new {@link ThreadPool}.
+	 */
+	public static ThreadPool newThreadPool(final ThreadPoolConfiguration configuration)
+	{
+		if (configuration.isVirtualThreads())
+		{
+			if (VirtualThreadPool.isSupported())
+			{
+				return new VirtualThreadPool(configuration.getName());
+			}
+			log.warning("Virtual threads are not supported from the running jdk, "
+				+ "a QueuedThreadPool will be used instead.");
+		}
+		return newQueuedThreadPool(configuration);
+	}
+
+	/**
+	 * Factory method for creating a new {@link QueuedThreadPool} from the given
+	 * {@link ThreadPoolConfiguration}.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @return the new {@link QueuedThreadPool}.
+	 */
+	public static QueuedThreadPool newQueuedThreadPool(final ThreadPoolConfiguration configuration)
+	{
+		final QueuedThreadPool threadPool = new QueuedThreadPool(configuration.getMaxThreads(),
+			configuration.getMinThreads(), configuration.getIdleTimeout(),
+			configuration.getReservedThreads(), newQueue(configuration), null);
+		if (StringUtils.isNotEmpty(configuration.getName()))
+		{
+			threadPool.setName(configuration.getName());
+		}
+		threadPool.setDaemon(configuration.isDaemon());
+		return threadPool;
+	}
+
+	/**
+	 * Factory method for creating the job queue of a {@link QueuedThreadPool}. A queue capacity
+	 * greater than zero creates a bounded queue that rejects jobs if it is full.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @return the new job queue
+	 */
+	private static BlockingQueue<Runnable> newQueue(final ThreadPoolConfiguration configuration)
+	{
+		final int capacity = configuration.getQueueCapacity();
+		if (0 < capacity)
+		{
+			return new BlockingArrayQueue<>(capacity, 0, capacity);
+		}
+		final int minThreads = Math.max(configuration.getMinThreads(), 8);
+		return new BlockingArrayQueue<>(minThreads, minThreads);
+	}
+
+}
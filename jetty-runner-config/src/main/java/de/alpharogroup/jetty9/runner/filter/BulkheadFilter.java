@@ -0,0 +1,549 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.filter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+import lombok.extern.java.Log;
+
+/**
+ * The filter class {@link BulkheadFilter} limits the number of concurrent requests that are
+ * mapped to this filter, so a slow context or path can not take all threads of the shared thread
+ * pool. If all passes are taken a request waits suspended in a bounded queue without holding a
+ * thread, and is resumed when a pass is free. The queue is divided in priority classes, the
+ * waiting requests with the highest priority are resumed first. If the queue is full or the wait
+ * timeout expires the request is answered immediately with 503 and a Retry-After header.
+ * <p>
+ * The filter has to be mapped with async support for the dispatcher types REQUEST and ASYNC. If a
+ * request does not support async, it is rejected instead of queued. A queued request is resumed
+ * with an ASYNC dispatch, so the filters behind the bulkhead have to be mapped for the dispatcher
+ * type ASYNC too. The filter registers itself as bean of its context, so the counters are exported
+ * over JMX.
+ * </p>
+ */
+@ManagedObject("Bulkhead that limits the concurrent requests")
+@Log
+public class BulkheadFilter implements Filter
+{
+
+	/** The init parameter for the maximum number of concurrent requests. */
+	public static final String MAX_REQUESTS = "maxRequests";
+
+	/**
+	 * The init parameter for the priorities per path prefix, for instance
+	 * <code>/api=1,/health=2</code>. Requests that do not match a prefix have the priority 0.
+	 */
+	public static final String PRIORITY_PATHS = "priorityPaths";
+
+	/** The init parameter for the maximum number of waiting requests. */
+	public static final String QUEUE_CAPACITY = "queueCapacity";
+
+	/** The init parameter for the value in seconds of the Retry-After header. */
+	public static final String RETRY_AFTER = "retryAfter";
+
+	/** The init parameter for the maximum wait time in milliseconds of a queued request. */
+	public static final String WAIT_TIMEOUT = "waitTimeout";
+
+	/** The default maximum number of concurrent requests. */
+	public static final int DEFAULT_MAX_REQUESTS = 50;
+
+	/** The default maximum number of waiting requests. */
+	public static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+	/** The default value in seconds of the Retry-After header. */
+	public static final int DEFAULT_RETRY_AFTER = 1;
+
+	/** The default maximum wait time in milliseconds of a queued request. */
+	public static final long DEFAULT_WAIT_TIMEOUT = 10000;
+
+	/** The request attribute that marks a request that is queued or resumed with a pass. */
+	private final String resumedAttribute = BulkheadFilter.class.getName() + "." + hashCode();
+
+	/** The number of accepted requests. */
+	private final AtomicLong accepted = new AtomicLong();
+
+	/** The number of queued requests. */
+	private final AtomicLong queued = new AtomicLong();
+
+	/** The number of rejected requests. */
+	private final AtomicLong rejected = new AtomicLong();
+
+	/** The number of requests whose wait timeout expired. */
+	private final AtomicLong timeouts = new AtomicLong();
+
+	/** The number of waiting requests. */
+	private final AtomicInteger waiting = new AtomicInteger();
+
+	/** The context handler the filter is registered in as bean. */
+	private ContextHandler contextHandler;
+
+	/** The maximum number of concurrent requests. */
+	private int maxRequests;
+
+	/** The passes for the concurrent requests. */
+	private Semaphore passes;
+
+	/**
+	 * The distinct priorities in ascending order, the index of a priority is the index of its
+	 * queue, so the number of queues does not depend on the priority values.
+	 */
+	private int[] priorities;
+
+	/** The priorities per path prefix. */
+	private Map<String, Integer> priorityPaths;
+
+	/** The queue capacity. */
+	private int queueCapacity;
+
+	/** The queues of the waiting requests per priority index. */
+	private Queue<AsyncContext>[] queues;
+
+	/** The value in seconds of the Retry-After header. */
+	private int retryAfter;
+
+	/** The wait timeout in milliseconds. */
+	private long waitTimeout;
+
+	/**
+	 * Gets the long value of the given init parameter or the given default value if not set.
+	 *
+	 * @param filterConfig
+	 *            the filter config
+	 * @param name
+	 *            the name of the init parameter
+	 * @param defaultValue
+	 *            the default value
+	 * @return the value
+	 */
+	private static long getInitParameter(final FilterConfig filterConfig, final String name,
+		final long defaultValue)
+	{
+		final String value = filterConfig.getInitParameter(name);
+		return StringUtils.isBlank(value) ? defaultValue : Long.parseLong(value.trim());
+	}
+
+	/**
+	 * Parses the priorities per path prefix from the given init parameter value.
+	 *
+	 * @param value
+	 *            the init parameter value
+	 * @return the priorities per path prefix
+	 */
+	private static Map<String, Integer> parsePriorityPaths(final String value)
+	{
+		final Map<String, Integer> priorities = new TreeMap<>();
+		if (StringUtils.isNotBlank(value))
+		{
+			for (final String entry : value.split(","))
+			{
+				final String[] pathAndPriority = entry.split("=");
+				if (pathAndPriority.length != 2)
+				{
+					throw new IllegalArgumentException(
+						"The priority path " + entry + " is not in the form path=priority");
+				}
+				final int priority = Integer.parseInt(pathAndPriority[1].trim());
+				if (priority < 0)
+				{
+					throw new IllegalArgumentException(
+						"The priority of the path " + entry + " is negative");
+				}
+				priorities.put(pathAndPriority[0].trim(), priority);
+			}
+		}
+		return priorities;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void destroy()
+	{
+		if (contextHandler != null)
+		{
+			contextHandler.removeBean(this);
+		}
+		for (final Queue<AsyncContext> queue : queues)
+		{
+			AsyncContext asyncContext;
+			while ((asyncContext = queue.poll()) != null)
+			{
+				waiting.decrementAndGet();
+				reject(asyncContext);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void doFilter(final ServletRequest request, final ServletResponse response,
+		final FilterChain chain) throws IOException, ServletException
+	{
+		final Object resumed = request.getAttribute(resumedAttribute);
+		if (resumed == null)
+		{
+			if (!passes.tryAcquire())
+			{
+				if (request.isAsyncSupported() && queue(request, response))
+				{
+					return;
+				}
+				rejected.incrementAndGet();
+				sendServiceUnavailable(response);
+				return;
+			}
+		}
+		else if (!Boolean.TRUE.equals(resumed))
+		{
+			// the request is dispatched while it is still queued, for instance from an error
+			return;
+		}
+		request.removeAttribute(resumedAttribute);
+		accepted.incrementAndGet();
+		try
+		{
+			chain.doFilter(request, response);
+		}
+		finally
+		{
+			resumeNext();
+		}
+	}
+
+	/**
+	 * Gets the number of accepted requests.
+	 *
+	 * @return the number of accepted requests
+	 */
+	@ManagedAttribute("The number of accepted requests")
+	public long getAccepted()
+	{
+		return accepted.get();
+	}
+
+	/**
+	 * Gets the number of active requests.
+	 *
+	 * @return the number of active requests
+	 */
+	@ManagedAttribute("The number of active requests")
+	public int getActive()
+	{
+		return maxRequests - passes.availablePermits();
+	}
+
+	/**
+	 * Gets the maximum number of concurrent requests.
+	 *
+	 * @return the maximum number of concurrent requests
+	 */
+	@ManagedAttribute("The maximum number of concurrent requests")
+	public int getMaxRequests()
+	{
+		return maxRequests;
+	}
+
+	/**
+	 * Gets the priority of the given request, that is the priority of the longest path prefix
+	 * that matches the path of the request in the context.
+	 *
+	 * @param request
+	 *            the request
+	 * @return the priority
+	 */
+	protected int getPriority(final ServletRequest request)
+	{
+		if (priorityPaths.isEmpty() || !(request instanceof HttpServletRequest))
+		{
+			return 0;
+		}
+		final HttpServletRequest httpServletRequest = (HttpServletRequest)request;
+		final String path = httpServletRequest.getPathInfo() == null
+			? httpServletRequest.getServletPath()
+			: httpServletRequest.getServletPath() + httpServletRequest.getPathInfo();
+		int priority = 0;
+		int length = -1;
+		for (final Map.Entry<String, Integer> entry : priorityPaths.entrySet())
+		{
+			if (path.startsWith(entry.getKey()) && length < entry.getKey().length())
+			{
+				priority = entry.getValue();
+				length = entry.getKey().length();
+			}
+		}
+		return priority;
+	}
+
+	/**
+	 * Gets the index of the queue of the given priority. A priority that is not configured, for
+	 * instance from an overridden {@link #getPriority(ServletRequest)}, is queued with the next
+	 * lower configured priority.
+	 *
+	 * @param priority
+	 *            the priority
+	 * @return the index of the queue
+	 */
+	private int getQueueIndex(final int priority)
+	{
+		final int index = Arrays.binarySearch(priorities, priority);
+		return 0 <= index ? index : Math.max(0, -index - 2);
+	}
+
+	/**
+	 * Gets the number of queued requests.
+	 *
+	 * @return the number of queued requests
+	 */
+	@ManagedAttribute("The number of queued requests")
+	public long getQueued()
+	{
+		return queued.get();
+	}
+
+	/**
+	 * Gets the number of rejected requests.
+	 *
+	 * @return the number of rejected requests
+	 */
+	@ManagedAttribute("The number of rejected requests")
+	public long getRejected()
+	{
+		return rejected.get();
+	}
+
+	/**
+	 * Gets the number of requests whose wait timeout expired.
+	 *
+	 * @return the number of requests whose wait timeout expired
+	 */
+	@ManagedAttribute("The number of requests whose wait timeout expired")
+	public long getTimeouts()
+	{
+		return timeouts.get();
+	}
+
+	/**
+	 * Gets the number of waiting requests.
+	 *
+	 * @return the number of waiting requests
+	 */
+	@ManagedAttribute("The number of waiting requests")
+	public int getWaiting()
+	{
+		return waiting.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public void init(final FilterConfig filterConfig) throws ServletException
+	{
+		maxRequests = (int)getInitParameter(filterConfig, MAX_REQUESTS, DEFAULT_MAX_REQUESTS);
+		queueCapacity = (int)getInitParameter(filterConfig, QUEUE_CAPACITY,
+			DEFAULT_QUEUE_CAPACITY);
+		retryAfter = (int)getInitParameter(filterConfig, RETRY_AFTER, DEFAULT_RETRY_AFTER);
+		waitTimeout = getInitParameter(filterConfig, WAIT_TIMEOUT, DEFAULT_WAIT_TIMEOUT);
+		priorityPaths = parsePriorityPaths(filterConfig.getInitParameter(PRIORITY_PATHS));
+		if (maxRequests <= 0)
+		{
+			throw new ServletException("The maximum number of requests must be positive");
+		}
+		passes = new Semaphore(maxRequests, true);
+		final SortedSet<Integer> distinctPriorities = new TreeSet<>(priorityPaths.values());
+		distinctPriorities.add(0);
+		priorities = new int[distinctPriorities.size()];
+		queues = new Queue[priorities.length];
+		int index = 0;
+		for (final Integer priority : distinctPriorities)
+		{
+			priorities[index] = priority;
+			queues[index] = new ConcurrentLinkedQueue<>();
+			index++;
+		}
+		contextHandler = ContextHandler.getContextHandler(filterConfig.getServletContext());
+		if (contextHandler != null)
+		{
+			contextHandler.addBean(this);
+		}
+	}
+
+	/**
+	 * Queues the given request suspended until a pass is free or the wait timeout expires.
+	 *
+	 * @param request
+	 *            the request
+	 * @param response
+	 *            the response
+	 * @return true, if the request is queued and false if the queue is full
+	 */
+	private boolean queue(final ServletRequest request, final ServletResponse response)
+	{
+		if (queueCapacity < waiting.incrementAndGet())
+		{
+			waiting.decrementAndGet();
+			return false;
+		}
+		final Queue<AsyncContext> queue = queues[getQueueIndex(getPriority(request))];
+		request.setAttribute(resumedAttribute, Boolean.FALSE);
+		final AsyncContext asyncContext = request.startAsync(request, response);
+		asyncContext.setTimeout(waitTimeout);
+		asyncContext.addListener(new AsyncListener()
+		{
+			@Override
+			public void onComplete(final AsyncEvent event)
+			{
+			}
+
+			@Override
+			public void onError(final AsyncEvent event)
+			{
+				if (queue.remove(asyncContext))
+				{
+					waiting.decrementAndGet();
+				}
+			}
+
+			@Override
+			public void onStartAsync(final AsyncEvent event)
+			{
+			}
+
+			@Override
+			public void onTimeout(final AsyncEvent event)
+			{
+				if (queue.remove(asyncContext))
+				{
+					waiting.decrementAndGet();
+					timeouts.incrementAndGet();
+					reject(asyncContext);
+				}
+			}
+		});
+		queued.incrementAndGet();
+		queue.add(asyncContext);
+		// a pass can be released between the failed acquire and the queuing
+		if (passes.tryAcquire())
+		{
+			resumeNext();
+		}
+		return true;
+	}
+
+	/**
+	 * Rejects the request of the given {@link AsyncContext} with 503 and completes it.
+	 *
+	 * @param asyncContext
+	 *            the async context
+	 */
+	private void reject(final AsyncContext asyncContext)
+	{
+		rejected.incrementAndGet();
+		try
+		{
+			sendServiceUnavailable(asyncContext.getResponse());
+		}
+		catch (final IOException e)
+		{
+			log.log(Level.FINE, "The rejection could not be sent.", e);
+		}
+		finally
+		{
+			asyncContext.complete();
+		}
+	}
+
+	/**
+	 * Hands the pass of the current request over to the waiting request with the highest priority
+	 * or releases it if no request is waiting.
+	 */
+	private void resumeNext()
+	{
+		for (int i = queues.length - 1; 0 <= i; i--)
+		{
+			AsyncContext asyncContext;
+			while ((asyncContext = queues[i].poll()) != null)
+			{
+				waiting.decrementAndGet();
+				try
+				{
+					asyncContext.getRequest().setAttribute(resumedAttribute, Boolean.TRUE);
+					asyncContext.dispatch();
+					return;
+				}
+				catch (final IllegalStateException e)
+				{
+					// the request is already completed, the pass goes to the next one
+					log.log(Level.FINE, "A waiting request could not be resumed.", e);
+				}
+			}
+		}
+		passes.release();
+	}
+
+	/**
+	 * Sends 503 with the Retry-After header to the given response.
+	 *
+	 * @param response
+	 *            the response
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void sendServiceUnavailable(final ServletResponse response) throws IOException
+	{
+		if (response instanceof HttpServletResponse && !response.isCommitted())
+		{
+			final HttpServletResponse httpServletResponse = (HttpServletResponse)response;
+			httpServletResponse.setHeader(HttpHeader.RETRY_AFTER.asString(),
+				String.valueOf(retryAfter));
+			httpServletResponse.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+		}
+	}
+
+}
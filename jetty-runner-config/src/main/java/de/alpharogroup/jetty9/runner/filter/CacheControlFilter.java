@@ -0,0 +1,250 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.filter;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.eclipse.jetty.http.HttpHeader;
+
+/**
+ * The filter class {@link CacheControlFilter} sets the Cache-Control header from the init
+ * parameter {@link #CACHE_CONTROL} for all requests that are mapped to this filter and are answered
+ * with a status 2xx or 304. Error pages and redirects are not cached, the header is removed as soon
+ * as the status of the response is set to another value while the response is not committed.
+ * Later changes of the Cache-Control, Expires and Pragma headers from the filter chain are
+ * ignored.
+ */
+public class CacheControlFilter implements Filter
+{
+
+	/** The init parameter for the value of the Cache-Control header. */
+	public static final String CACHE_CONTROL = "cacheControl";
+
+	/** The value of the Cache-Control header. */
+	private String cacheControl;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void destroy()
+	{
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void doFilter(final ServletRequest request, final ServletResponse response,
+		final FilterChain chain) throws IOException, ServletException
+	{
+		if (cacheControl != null && response instanceof HttpServletResponse)
+		{
+			final CacheControlResponseWrapper wrapper = new CacheControlResponseWrapper(
+				(HttpServletResponse)response, cacheControl);
+			wrapper.applyCacheControl(wrapper.getStatus());
+			chain.doFilter(request, wrapper);
+			wrapper.applyCacheControl(wrapper.getStatus());
+			return;
+		}
+		chain.doFilter(request, response);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void init(final FilterConfig filterConfig) throws ServletException
+	{
+		cacheControl = filterConfig.getInitParameter(CACHE_CONTROL);
+	}
+
+	/**
+	 * Checks if a response with the given status can be cached.
+	 *
+	 * @param status
+	 *            the status
+	 * @return true, if the status is 2xx or 304
+	 */
+	private static boolean isCacheable(final int status)
+	{
+		return (200 <= status && status < 300) || status == HttpServletResponse.SC_NOT_MODIFIED;
+	}
+
+	/**
+	 * The response wrapper that ignores all changes of the caching headers and sets or removes the
+	 * Cache-Control header on every status change.
+	 */
+	private static class CacheControlResponseWrapper extends HttpServletResponseWrapper
+	{
+
+		/** The value of the Cache-Control header. */
+		private final String cacheControl;
+
+		/**
+		 * Instantiates a new {@link CacheControlResponseWrapper}.
+		 *
+		 * @param response
+		 *            the response
+		 * @param cacheControl
+		 *            the value of the Cache-Control header
+		 */
+		CacheControlResponseWrapper(final HttpServletResponse response, final String cacheControl)
+		{
+			super(response);
+			this.cacheControl = cacheControl;
+		}
+
+		/**
+		 * Sets the Cache-Control header if the given status is cacheable, otherwise removes it.
+		 * Nothing is changed if the response is already committed.
+		 *
+		 * @param status
+		 *            the status
+		 */
+		void applyCacheControl(final int status)
+		{
+			if (!isCommitted())
+			{
+				((HttpServletResponse)getResponse()).setHeader(
+					HttpHeader.CACHE_CONTROL.asString(), isCacheable(status) ? cacheControl : null);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void addDateHeader(final String name, final long date)
+		{
+			if (!isCachingHeader(name))
+			{
+				super.addDateHeader(name, date);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void addHeader(final String name, final String value)
+		{
+			if (!isCachingHeader(name))
+			{
+				super.addHeader(name, value);
+			}
+		}
+
+		/**
+		 * Checks if the given header name is a caching header.
+		 *
+		 * @param name
+		 *            the header name
+		 * @return true, if the given header name is a caching header
+		 */
+		private boolean isCachingHeader(final String name)
+		{
+			return HttpHeader.CACHE_CONTROL.is(name) || HttpHeader.EXPIRES.is(name)
+				|| HttpHeader.PRAGMA.is(name);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void sendError(final int sc) throws IOException
+		{
+			applyCacheControl(sc);
+			super.sendError(sc);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void sendError(final int sc, final String msg) throws IOException
+		{
+			applyCacheControl(sc);
+			super.sendError(sc, msg);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void sendRedirect(final String location) throws IOException
+		{
+			applyCacheControl(HttpServletResponse.SC_FOUND);
+			super.sendRedirect(location);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setDateHeader(final String name, final long date)
+		{
+			if (!isCachingHeader(name))
+			{
+				super.setDateHeader(name, date);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setHeader(final String name, final String value)
+		{
+			if (!isCachingHeader(name))
+			{
+				super.setHeader(name, value);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setStatus(final int sc)
+		{
+			super.setStatus(sc);
+			applyCacheControl(sc);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings("deprecation")
+		public void setStatus(final int sc, final String sm)
+		{
+			super.setStatus(sc, sm);
+			applyCacheControl(sc);
+		}
+
+	}
+
+}
@@ -0,0 +1,431 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.filter;
+
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
+
+import de.alpharogroup.jetty9.runner.ratelimit.TokenBucket;
+import de.alpharogroup.jetty9.runner.ratelimit.TokenBuckets;
+
+/**
+ * The filter class {@link RateLimitFilter} limits the request rate per client with a
+ * {@link TokenBucket} per client key. The client key is the remote address or, if the init
+ * parameter {@link #KEY_HEADER} is set and the request has this header, a value of the header,
+ * for instance of X-Forwarded-For or of an api key header. The values of a header like
+ * X-Forwarded-For that the client sends itself can not be trusted, so the key is the value that
+ * the outermost trusted proxy appended, that is the value at the position
+ * {@link #TRUSTED_PROXIES} counted from the end. If the header has fewer values the request did
+ * not pass all trusted proxies and the remote address is the client key. The buckets are held in
+ * {@link TokenBuckets} that are bounded by the maximum number of clients, so the memory stays
+ * flat under a scan of many addresses. An accepted request of a known client does not lock, and
+ * the client key is cut out of the key header without copying the other values. A limited
+ * request is answered with 429 and a Retry-After header.
+ * <p>
+ * The filter registers itself as bean of its context, so the counters are exported over JMX.
+ * </p>
+ */
+@ManagedObject("Rate limit per client")
+public class RateLimitFilter implements Filter
+{
+
+	/** The init parameter for the capacity of a bucket, that is the number of burst requests. */
+	public static final String BURST = "burst";
+
+	/** The init parameter for the name of the header that contains the client key. */
+	public static final String KEY_HEADER = "keyHeader";
+
+	/** The init parameter for the maximum number of clients that have an own bucket. */
+	public static final String MAX_CLIENTS = "maxClients";
+
+	/** The init parameter for the number of requests per second of a client. */
+	public static final String RATE = "rate";
+
+	/** The init parameter for the number of stripes of the buckets. */
+	public static final String STRIPES = "stripes";
+
+	/**
+	 * The init parameter for the number of trusted proxies that append a value to the key header.
+	 */
+	public static final String TRUSTED_PROXIES = "trustedProxies";
+
+	/** The default capacity of a bucket. */
+	public static final int DEFAULT_BURST = 20;
+
+	/** The default maximum number of clients that have an own bucket. */
+	public static final int DEFAULT_MAX_CLIENTS = 100000;
+
+	/** The default number of requests per second of a client. */
+	public static final double DEFAULT_RATE = 10;
+
+	/** The default number of stripes of the buckets. */
+	public static final int DEFAULT_STRIPES = 16;
+
+	/** The default number of trusted proxies. */
+	public static final int DEFAULT_TRUSTED_PROXIES = 1;
+
+	/** The status code too many requests. */
+	private static final int SC_TOO_MANY_REQUESTS = 429;
+
+	/** The number of accepted requests. */
+	private final LongAdder accepted = new LongAdder();
+
+	/** The number of limited requests. */
+	private final LongAdder limited = new LongAdder();
+
+	/** The buckets per client key, they are replaced if the limit is changed. */
+	private volatile TokenBuckets buckets;
+
+	/** The burst, the maximum number of requests that a client can send at once. */
+	private volatile int burst;
+
+	/** The context handler the filter is registered in as bean. */
+	private ContextHandler contextHandler;
+
+	/** The name of the header that contains the client key. */
+	private String keyHeader;
+
+	/** The maximum number of clients that have an own bucket. */
+	private int maxClients;
+
+	/** The rate, the sustained number of requests per second and client. */
+	private volatile double rate;
+
+	/** The number of stripes of the buckets. */
+	private int stripes;
+
+	/** The number of trusted proxies that append a value to the key header. */
+	private int trustedProxies;
+
+	/**
+	 * Counts the values of the given comma separated header value that are not blank.
+	 *
+	 * @param header
+	 *            the header value
+	 * @return the number of values
+	 */
+	private static int countValues(final String header)
+	{
+		int count = 0;
+		boolean value = false;
+		for (int i = 0; i < header.length(); i++)
+		{
+			final char c = header.charAt(i);
+			if (c == ',')
+			{
+				if (value)
+				{
+					count++;
+				}
+				value = false;
+			}
+			else if (!Character.isWhitespace(c))
+			{
+				value = true;
+			}
+		}
+		return value ? count + 1 : count;
+	}
+
+	/**
+	 * Gets the value of the given init parameter or the given default value if not set.
+	 *
+	 * @param filterConfig
+	 *            the filter config
+	 * @param name
+	 *            the name of the init parameter
+	 * @param defaultValue
+	 *            the default value
+	 * @return the value
+	 */
+	private static double getInitParameter(final FilterConfig filterConfig, final String name,
+		final double defaultValue)
+	{
+		final String value = filterConfig.getInitParameter(name);
+		return StringUtils.isBlank(value) ? defaultValue : Double.parseDouble(value.trim());
+	}
+
+	/**
+	 * Gets the trimmed value of the given comma separated header value at the given position
+	 * counted from the end, blank values are not counted. The header value is scanned backwards
+	 * and the scan stops at the position.
+	 *
+	 * @param header
+	 *            the header value
+	 * @param position
+	 *            the position counted from the end, 1 is the last value
+	 * @return the value or null if the header value has fewer values
+	 */
+	private static String getValue(final String header, final int position)
+	{
+		int count = 0;
+		int end = header.length();
+		for (int i = end - 1; -1 <= i; i--)
+		{
+			if (i < 0 || header.charAt(i) == ',')
+			{
+				int start = i + 1;
+				int stop = end;
+				while (start < stop && Character.isWhitespace(header.charAt(start)))
+				{
+					start++;
+				}
+				while (start < stop && Character.isWhitespace(header.charAt(stop - 1)))
+				{
+					stop--;
+				}
+				if (start < stop && ++count == position)
+				{
+					return header.substring(start, stop);
+				}
+				end = i;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void destroy()
+	{
+		if (contextHandler != null)
+		{
+			contextHandler.removeBean(this);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void doFilter(final ServletRequest request, final ServletResponse response,
+		final FilterChain chain) throws IOException, ServletException
+	{
+		final long wait = buckets.tryAcquire(getClientKey(request), System.nanoTime());
+		if (wait == 0)
+		{
+			accepted.increment();
+			chain.doFilter(request, response);
+			return;
+		}
+		limited.increment();
+		if (response instanceof HttpServletResponse && !response.isCommitted())
+		{
+			final HttpServletResponse httpServletResponse = (HttpServletResponse)response;
+			httpServletResponse.setHeader(HttpHeader.RETRY_AFTER.asString(),
+				String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait - 1) + 1)));
+			httpServletResponse.sendError(SC_TOO_MANY_REQUESTS);
+		}
+	}
+
+	/**
+	 * Gets the number of accepted requests.
+	 *
+	 * @return the number of accepted requests
+	 */
+	@ManagedAttribute("The number of accepted requests")
+	public long getAccepted()
+	{
+		return accepted.sum();
+	}
+
+	/**
+	 * Gets the burst.
+	 *
+	 * @return the burst
+	 */
+	@ManagedAttribute("The maximum number of requests that a client can send at once")
+	public int getBurst()
+	{
+		return burst;
+	}
+
+	/**
+	 * Gets the number of clients that have an own bucket.
+	 *
+	 * @return the number of clients
+	 */
+	@ManagedAttribute("The number of clients that have an own bucket")
+	public int getClients()
+	{
+		return buckets.getClients();
+	}
+
+	/**
+	 * Gets the client key of the given request, that is the value of the key header at the
+	 * position of the trusted proxies counted from the end or the remote address. The values are
+	 * scanned from the end of the last header backwards up to this position, so only the key
+	 * itself is allocated. The values of the headers before the last one are only scanned if the
+	 * last header has fewer values than trusted proxies.
+	 *
+	 * @param request
+	 *            the request
+	 * @return the client key
+	 */
+	protected String getClientKey(final ServletRequest request)
+	{
+		if (keyHeader != null && request instanceof HttpServletRequest)
+		{
+			final HttpServletRequest httpRequest = (HttpServletRequest)request;
+			final Enumeration<String> headers = httpRequest.getHeaders(keyHeader);
+			String last = null;
+			int previous = 0;
+			while (headers != null && headers.hasMoreElements())
+			{
+				if (last != null)
+				{
+					previous += countValues(last);
+				}
+				last = headers.nextElement();
+			}
+			if (last != null)
+			{
+				final String key = getValue(last, trustedProxies);
+				if (key != null)
+				{
+					return key;
+				}
+				int index = previous + countValues(last) - trustedProxies;
+				if (0 <= index)
+				{
+					final Enumeration<String> values = httpRequest.getHeaders(keyHeader);
+					while (true)
+					{
+						final String value = values.nextElement();
+						final int count = countValues(value);
+						if (index < count)
+						{
+							return getValue(value, count - index);
+						}
+						index -= count;
+					}
+				}
+			}
+		}
+		return request.getRemoteAddr();
+	}
+
+	/**
+	 * Gets the number of limited requests.
+	 *
+	 * @return the number of limited requests
+	 */
+	@ManagedAttribute("The number of limited requests")
+	public long getLimited()
+	{
+		return limited.sum();
+	}
+
+	/**
+	 * Gets the number of requests of clients that share the overflow bucket because the maximum
+	 * number of clients is reached.
+	 *
+	 * @return the number of overflows
+	 */
+	@ManagedAttribute("The number of requests of clients without an own bucket")
+	public long getOverflows()
+	{
+		return buckets.getOverflows();
+	}
+
+	/**
+	 * Gets the rate.
+	 *
+	 * @return the rate
+	 */
+	@ManagedAttribute("The sustained number of requests per second and client")
+	public double getRate()
+	{
+		return rate;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void init(final FilterConfig filterConfig) throws ServletException
+	{
+		maxClients = (int)getInitParameter(filterConfig, MAX_CLIENTS, DEFAULT_MAX_CLIENTS);
+		stripes = (int)getInitParameter(filterConfig, STRIPES, DEFAULT_STRIPES);
+		try
+		{
+			setLimit(getInitParameter(filterConfig, RATE, DEFAULT_RATE),
+				Math.max(1, (int)getInitParameter(filterConfig, BURST, DEFAULT_BURST)));
+		}
+		catch (final IllegalArgumentException e)
+		{
+			throw new ServletException(e.getMessage(), e);
+		}
+		keyHeader = StringUtils.trimToNull(filterConfig.getInitParameter(KEY_HEADER));
+		trustedProxies = Math.max(1,
+			(int)getInitParameter(filterConfig, TRUSTED_PROXIES, DEFAULT_TRUSTED_PROXIES));
+		contextHandler = ContextHandler.getContextHandler(filterConfig.getServletContext());
+		if (contextHandler != null)
+		{
+			contextHandler.addBean(this);
+		}
+	}
+
+	/**
+	 * Sets the rate and the burst. The buckets are replaced in one atomic swap, so the clients
+	 * start with a full bucket of the new burst and the requests in flight keep the old buckets.
+	 *
+	 * @param rate
+	 *            the sustained number of requests per second and client
+	 * @param burst
+	 *            the maximum number of requests that a client can send at once
+	 * @throws IllegalArgumentException
+	 *             if the rate is not positive or the burst is less than 1
+	 */
+	@ManagedOperation(value = "Sets the rate and the burst", impact = "ACTION")
+	public synchronized void setLimit(@Name("rate") final double rate,
+		@Name("burst") final int burst)
+	{
+		if (!(0 < rate))
+		{
+			throw new IllegalArgumentException("The rate must be positive");
+		}
+		if (burst < 1)
+		{
+			throw new IllegalArgumentException("The burst must be at least 1");
+		}
+		buckets = new TokenBuckets(rate, burst, maxClients, stripes);
+		this.rate = rate;
+		this.burst = burst;
+	}
+
+}
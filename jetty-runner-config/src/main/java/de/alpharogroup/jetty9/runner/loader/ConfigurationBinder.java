@@ -0,0 +1,643 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.loader;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.alpharogroup.jetty9.runner.config.Jetty9RunConfiguration;
+
+/**
+ * The class {@link ConfigurationBinder} binds flat properties to the configuration classes of the
+ * package <code>de.alpharogroup.jetty9.runner.config</code>. The property keys are the field
+ * names, nested configurations are joined with a dot, list elements have an index in brackets and
+ * map entries are appended with a dot, for instance
+ * <code>threadPoolConfiguration.maxThreads</code>,
+ * <code>servletContextHandlerConfigurations[0].initParameters.foo</code>. Lists of scalars can also
+ * be given comma separated. The properties are bound with ascending list indices, an index must
+ * not skip an element. The fields of a configuration class are resolved once and cached, so
+ * binding costs no more than a map lookup and a conversion per property.
+ */
+public class ConfigurationBinder
+{
+
+	/** The package of the configuration classes that are bound as nested configurations. */
+	private static final String CONFIG_PACKAGE = Jetty9RunConfiguration.class.getPackage()
+		.getName();
+
+	/** The cached bindable fields per configuration class. */
+	private static final Map<Class<?>, Map<String, Field>> FIELDS = new ConcurrentHashMap<>();
+
+	/** The violations of the binding. */
+	private final List<String> violations = new ArrayList<>();
+
+	/**
+	 * Gets the bindable fields of the given configuration class, they are resolved once and
+	 * cached.
+	 *
+	 * @param type
+	 *            the configuration class
+	 * @return the bindable fields by name
+	 */
+	private static Map<String, Field> getFields(final Class<?> type)
+	{
+		return FIELDS.computeIfAbsent(type, ConfigurationBinder::resolveFields);
+	}
+
+	/**
+	 * Gets the paths of the scalar properties of the given configuration class and of its nested
+	 * configurations, without the properties of lists and maps.
+	 *
+	 * @param type
+	 *            the configuration class
+	 * @return the property paths
+	 */
+	public static List<String> getPropertyPaths(final Class<?> type)
+	{
+		final List<String> paths = new ArrayList<>();
+		addPropertyPaths(paths, "", type);
+		return paths;
+	}
+
+	/**
+	 * Adds the paths of the scalar properties of the given configuration class with the given
+	 * prefix to the given list.
+	 *
+	 * @param paths
+	 *            the paths
+	 * @param prefix
+	 *            the prefix
+	 * @param type
+	 *            the configuration class
+	 */
+	private static void addPropertyPaths(final List<String> paths, final String prefix,
+		final Class<?> type)
+	{
+		for (final Field field : getFields(type).values())
+		{
+			final Class<?> fieldType = field.getType();
+			if (isConfiguration(fieldType))
+			{
+				addPropertyPaths(paths, prefix + field.getName() + ".", fieldType);
+			}
+			else if (!Map.class.isAssignableFrom(fieldType))
+			{
+				paths.add(prefix + field.getName());
+			}
+		}
+	}
+
+	/**
+	 * Checks if the given type is a configuration class that is bound as nested configuration.
+	 *
+	 * @param type
+	 *            the type
+	 * @return true, if the type is a configuration class
+	 */
+	public static boolean isConfiguration(final Class<?> type)
+	{
+		return !type.isEnum() && type.getPackage() != null
+			&& CONFIG_PACKAGE.equals(type.getPackage().getName());
+	}
+
+	/**
+	 * Compares the given property keys in the natural order, except that numbers are compared by
+	 * their value, so <code>list[2]</code> is ordered before <code>list[10]</code>.
+	 *
+	 * @param key
+	 *            the key
+	 * @param other
+	 *            the other key
+	 * @return the comparison result
+	 */
+	static int compareKeys(final String key, final String other)
+	{
+		int i = 0;
+		int j = 0;
+		while (i < key.length() && j < other.length())
+		{
+			if (Character.isDigit(key.charAt(i)) && Character.isDigit(other.charAt(j)))
+			{
+				final int start = i;
+				final int otherStart = j;
+				while (i < key.length() && Character.isDigit(key.charAt(i)))
+				{
+					i++;
+				}
+				while (j < other.length() && Character.isDigit(other.charAt(j)))
+				{
+					j++;
+				}
+				final String number = stripLeadingZeros(key.substring(start, i));
+				final String otherNumber = stripLeadingZeros(other.substring(otherStart, j));
+				final int result = number.length() != otherNumber.length()
+					? Integer.compare(number.length(), otherNumber.length())
+					: number.compareTo(otherNumber);
+				if (result != 0)
+				{
+					return result;
+				}
+			}
+			else
+			{
+				final int result = Character.compare(key.charAt(i), other.charAt(j));
+				if (result != 0)
+				{
+					return result;
+				}
+				i++;
+				j++;
+			}
+		}
+		final int result = Integer.compare(key.length() - i, other.length() - j);
+		return result != 0 ? result : key.compareTo(other);
+	}
+
+	/**
+	 * Strips the leading zeros of the given number.
+	 *
+	 * @param number
+	 *            the number
+	 * @return the number without leading zeros
+	 */
+	private static String stripLeadingZeros(final String number)
+	{
+		int start = 0;
+		while (start < number.length() - 1 && number.charAt(start) == '0')
+		{
+			start++;
+		}
+		return number.substring(start);
+	}
+
+	/**
+	 * Factory method for creating a new instance of the given configuration class with the
+	 * defaults of its builder.
+	 *
+	 * @param type
+	 *            the configuration class
+	 * @return the new instance
+	 */
+	private static Object newConfiguration(final Class<?> type)
+	{
+		try
+		{
+			final Object builder = type.getMethod("builder").invoke(null);
+			return builder.getClass().getMethod("build").invoke(builder);
+		}
+		catch (final NoSuchMethodException e)
+		{
+			return newInstance(type);
+		}
+		catch (final ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Could not create " + type.getName(), e);
+		}
+	}
+
+	/**
+	 * Factory method for creating a new instance of the given class with its no-arg constructor.
+	 *
+	 * @param type
+	 *            the class
+	 * @return the new instance
+	 */
+	private static Object newInstance(final Class<?> type)
+	{
+		try
+		{
+			return type.getDeclaredConstructor().newInstance();
+		}
+		catch (final ReflectiveOperationException e)
+		{
+			throw new IllegalArgumentException("Could not create " + type.getName(), e);
+		}
+	}
+
+	/**
+	 * Resolves the bindable fields of the given configuration class, that are all fields that are
+	 * neither static nor transient.
+	 *
+	 * @param type
+	 *            the configuration class
+	 * @return the bindable fields by name
+	 */
+	private static Map<String, Field> resolveFields(final Class<?> type)
+	{
+		final Map<String, Field> fields = new LinkedHashMap<>();
+		for (final Field field : type.getDeclaredFields())
+		{
+			final int modifiers = field.getModifiers();
+			if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)
+				&& !field.isSynthetic())
+			{
+				field.setAccessible(true);
+				fields.put(field.getName(), field);
+			}
+		}
+		return Collections.unmodifiableMap(fields);
+	}
+
+	/**
+	 * Binds the given properties to a new instance of the given configuration class.
+	 *
+	 * @param <T>
+	 *            the generic type of the configuration
+	 * @param properties
+	 *            the properties
+	 * @param type
+	 *            the configuration class
+	 * @return the bound configuration
+	 */
+	public <T> T bind(final Map<String, String> properties, final Class<T> type)
+	{
+		final T configuration = type.cast(newConfiguration(type));
+		// the order of a properties file is lost, so the keys are sorted with numeric indices
+		final List<Map.Entry<String, String>> entries = new ArrayList<>(properties.entrySet());
+		entries.sort(Map.Entry.comparingByKey(ConfigurationBinder::compareKeys));
+		for (final Map.Entry<String, String> entry : entries)
+		{
+			try
+			{
+				bind(configuration, entry.getKey(), entry.getKey(), entry.getValue());
+			}
+			catch (final IllegalArgumentException e)
+			{
+				violations.add(entry.getKey() + ": " + e.getMessage());
+			}
+		}
+		return configuration;
+	}
+
+	/**
+	 * Binds the given value to the property with the given path of the given configuration.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @param key
+	 *            the full property key
+	 * @param path
+	 *            the remaining property path
+	 * @param value
+	 *            the value
+	 */
+	private void bind(final Object configuration, final String key, final String path,
+		final String value)
+	{
+		int end = 0;
+		while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[')
+		{
+			end++;
+		}
+		final String name = path.substring(0, end);
+		final String rest = path.substring(end);
+		final Field field = getFields(configuration.getClass()).get(name);
+		if (field == null)
+		{
+			throw new IllegalArgumentException("unknown property '" + name + "' of "
+				+ configuration.getClass().getSimpleName());
+		}
+		final Class<?> type = field.getType();
+		if (List.class.isAssignableFrom(type))
+		{
+			bindList(configuration, field, key, rest, value);
+		}
+		else if (Map.class.isAssignableFrom(type))
+		{
+			if (!rest.startsWith(".") || rest.length() == 1)
+			{
+				throw new IllegalArgumentException("expected '" + name + ".<key>'");
+			}
+			bindMap(configuration, field).put(rest.substring(1), value);
+		}
+		else if (isConfiguration(type))
+		{
+			if (!rest.startsWith(".") || rest.length() == 1)
+			{
+				throw new IllegalArgumentException("expected '" + name + ".<property>'");
+			}
+			Object nested = get(configuration, field);
+			if (nested == null)
+			{
+				nested = newConfiguration(type);
+				set(configuration, field, nested);
+			}
+			bind(nested, key, rest.substring(1), value);
+		}
+		else
+		{
+			if (!rest.isEmpty())
+			{
+				throw new IllegalArgumentException("'" + name + "' has no nested properties");
+			}
+			set(configuration, field, convert(value, type));
+		}
+	}
+
+	/**
+	 * Binds the given value to the list of the given field.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @param field
+	 *            the list field
+	 * @param key
+	 *            the full property key
+	 * @param rest
+	 *            the property path after the field name
+	 * @param value
+	 *            the value
+	 */
+	@SuppressWarnings("unchecked")
+	private void bindList(final Object configuration, final Field field, final String key,
+		final String rest, final String value)
+	{
+		final Class<?> elementType = getTypeArgument(field, 0);
+		final List<Object> current = (List<Object>)get(configuration, field);
+		final List<Object> list = current instanceof ArrayList
+			? current
+			: new ArrayList<>(current == null ? Collections.emptyList() : current);
+		set(configuration, field, list);
+		if (rest.isEmpty())
+		{
+			if (isConfiguration(elementType))
+			{
+				throw new IllegalArgumentException("expected '" + field.getName() + "[<index>]'");
+			}
+			list.clear();
+			for (final String element : value.split(","))
+			{
+				if (!element.trim().isEmpty())
+				{
+					list.add(convert(element.trim(), elementType));
+				}
+			}
+			return;
+		}
+		final int close = rest.indexOf(']');
+		if (!rest.startsWith("[") || close < 0)
+		{
+			throw new IllegalArgumentException("expected '" + field.getName() + "[<index>]'");
+		}
+		final int index;
+		try
+		{
+			index = Integer.parseInt(rest.substring(1, close));
+		}
+		catch (final NumberFormatException e)
+		{
+			throw new IllegalArgumentException("invalid index '" + rest.substring(1, close) + "'");
+		}
+		if (index < 0 || list.size() < index)
+		{
+			throw new IllegalArgumentException("index " + index
+				+ " is out of range, the next index of '" + field.getName() + "' is "
+				+ list.size());
+		}
+		if (index == list.size())
+		{
+			list.add(isConfiguration(elementType) ? newConfiguration(elementType) : null);
+		}
+		final String elementPath = rest.substring(close + 1);
+		if (isConfiguration(elementType))
+		{
+			if (!elementPath.startsWith(".") || elementPath.length() == 1)
+			{
+				throw new IllegalArgumentException(
+					"expected '" + field.getName() + "[" + index + "].<property>'");
+			}
+			bind(list.get(index), key, elementPath.substring(1), value);
+		}
+		else
+		{
+			list.set(index, convert(value, elementType));
+		}
+	}
+
+	/**
+	 * Gets the mutable map of the given field, an immutable map is replaced with a copy.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @param field
+	 *            the map field
+	 * @return the mutable map
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> bindMap(final Object configuration, final Field field)
+	{
+		final Map<String, Object> current = (Map<String, Object>)get(configuration, field);
+		if (current instanceof LinkedHashMap)
+		{
+			return current;
+		}
+		final Map<String, Object> map = current == null
+			? new LinkedHashMap<>()
+			: new LinkedHashMap<>(current);
+		set(configuration, field, map);
+		return map;
+	}
+
+	/**
+	 * Converts the given value to the given type.
+	 *
+	 * @param value
+	 *            the value
+	 * @param type
+	 *            the type
+	 * @return the converted value
+	 */
+	private Object convert(final String value, final Class<?> type)
+	{
+		final String trimmed = value.trim();
+		try
+		{
+			if (type == String.class || type == Object.class)
+			{
+				return value;
+			}
+			if (type == int.class || type == Integer.class)
+			{
+				return Integer.valueOf(trimmed);
+			}
+			if (type == long.class || type == Long.class)
+			{
+				return Long.valueOf(trimmed);
+			}
+			if (type == double.class || type == Double.class)
+			{
+				return Double.valueOf(trimmed);
+			}
+			if (type == boolean.class || type == Boolean.class)
+			{
+				if ("true".equalsIgnoreCase(trimmed) || "false".equalsIgnoreCase(trimmed))
+				{
+					return Boolean.valueOf(trimmed);
+				}
+				throw new IllegalArgumentException("'" + value + "' is not a boolean");
+			}
+			if (type == File.class)
+			{
+				return new File(trimmed);
+			}
+			if (type.isEnum())
+			{
+				return convertEnum(trimmed, type);
+			}
+			final Class<?> valueClass = Class.forName(trimmed, true,
+				Thread.currentThread().getContextClassLoader());
+			if (type == Class.class)
+			{
+				return valueClass;
+			}
+			if (!type.isAssignableFrom(valueClass))
+			{
+				throw new IllegalArgumentException(
+					valueClass.getName() + " is not a " + type.getName());
+			}
+			return newInstance(valueClass);
+		}
+		catch (final NumberFormatException e)
+		{
+			throw new IllegalArgumentException(
+				"'" + value + "' is not a valid " + type.getSimpleName());
+		}
+		catch (final ClassNotFoundException e)
+		{
+			throw new IllegalArgumentException("class '" + value + "' not found");
+		}
+	}
+
+	/**
+	 * Converts the given value to the constant of the given enum, the case and dashes instead of
+	 * underscores are ignored so <code>low-latency</code> is converted to <code>LOW_LATENCY</code>.
+	 *
+	 * @param value
+	 *            the value
+	 * @param type
+	 *            the enum type
+	 * @return the enum constant
+	 */
+	private Object convertEnum(final String value, final Class<?> type)
+	{
+		final String name = value.replace('-', '_').toUpperCase(Locale.ENGLISH);
+		for (final Object constant : type.getEnumConstants())
+		{
+			if (((Enum<?>)constant).name().equals(name))
+			{
+				return constant;
+			}
+		}
+		final List<String> names = new ArrayList<>();
+		for (final Object constant : type.getEnumConstants())
+		{
+			names.add(((Enum<?>)constant).name());
+		}
+		throw new IllegalArgumentException(
+			"'" + value + "' is not one of " + type.getSimpleName() + names);
+	}
+
+	/**
+	 * Gets the value of the given field.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @param field
+	 *            the field
+	 * @return the value
+	 */
+	private Object get(final Object configuration, final Field field)
+	{
+		try
+		{
+			return field.get(configuration);
+		}
+		catch (final IllegalAccessException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Gets the class of the type argument with the given index of the given generic field.
+	 *
+	 * @param field
+	 *            the field
+	 * @param index
+	 *            the index of the type argument
+	 * @return the class of the type argument or {@link String} if it can not be resolved
+	 */
+	private Class<?> getTypeArgument(final Field field, final int index)
+	{
+		final Type genericType = field.getGenericType();
+		if (genericType instanceof ParameterizedType)
+		{
+			final Type argument = ((ParameterizedType)genericType).getActualTypeArguments()[index];
+			if (argument instanceof Class)
+			{
+				return (Class<?>)argument;
+			}
+			if (argument instanceof ParameterizedType)
+			{
+				return (Class<?>)((ParameterizedType)argument).getRawType();
+			}
+		}
+		return String.class;
+	}
+
+	/**
+	 * Gets the violations of the binding.
+	 *
+	 * @return the violations
+	 */
+	public List<String> getViolations()
+	{
+		return Collections.unmodifiableList(violations);
+	}
+
+	/**
+	 * Sets the value of the given field.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @param field
+	 *            the field
+	 * @param value
+	 *            the value
+	 */
+	private void set(final Object configuration, final Field field, final Object value)
+	{
+		try
+		{
+			field.set(configuration, value);
+		}
+		catch (final IllegalAccessException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
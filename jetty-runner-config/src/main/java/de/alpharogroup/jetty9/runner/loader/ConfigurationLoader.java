@@ -0,0 +1,317 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import de.alpharogroup.jetty9.runner.config.Jetty9RunConfiguration;
+import de.alpharogroup.jetty9.runner.config.ServletContextHandlerConfiguration;
+import de.alpharogroup.jetty9.runner.config.StartConfig;
+import de.alpharogroup.jetty9.runner.validation.ConfigurationValidator;
+import lombok.experimental.UtilityClass;
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link ConfigurationLoader} loads the {@link StartConfig}, the
+ * {@link Jetty9RunConfiguration} and the {@link ServletContextHandlerConfiguration} from a
+ * properties or YAML file, so thread pools, buffers and timeouts can be tuned per environment
+ * without a new build. The properties of the file can be overridden from environment variables
+ * with the prefix {@link #ENVIRONMENT_PREFIX} and from system properties with the prefix
+ * {@link #SYSTEM_PROPERTY_PREFIX}, the system properties take precedence. The names of the
+ * overrides are matched without case and separators, so the environment variable
+ * <code>JETTY_RUNNER_THREAD_POOL_CONFIGURATION_MAX_THREADS</code> and the system property
+ * <code>jetty.runner.threadPoolConfiguration.maxThreads</code> both override the property
+ * <code>threadPoolConfiguration.maxThreads</code>. Overrides that match neither a property of the
+ * configuration class nor a property of the file are ignored and logged at FINE, so overrides for
+ * another configuration class in the same environment do not fail the load. Unknown properties
+ * of the file, values that can not be converted and values out of range are reported together
+ * with an {@link IllegalArgumentException}.
+ */
+@UtilityClass
+@Log
+public class ConfigurationLoader
+{
+
+	/** The prefix of the environment variables that override properties. */
+	public static final String ENVIRONMENT_PREFIX = "JETTY_RUNNER_";
+
+	/** The prefix of the system properties that override properties. */
+	public static final String SYSTEM_PROPERTY_PREFIX = "jetty.runner.";
+
+	/**
+	 * Applies the given overrides to the given properties. The keys of the overrides are matched
+	 * against the known property paths and the keys of the given properties without case and
+	 * separators, overrides that match no property are ignored.
+	 *
+	 * @param properties
+	 *            the properties
+	 * @param overrides
+	 *            the overrides without prefix
+	 * @param propertyPaths
+	 *            the known property paths
+	 * @param prefix
+	 *            the prefix of the overrides for the log
+	 * @return the number of applied overrides
+	 */
+	private static int applyOverrides(final Map<String, String> properties,
+		final Map<String, String> overrides, final List<String> propertyPaths,
+		final String prefix)
+	{
+		final Map<String, String> keys = new HashMap<>();
+		for (final String path : propertyPaths)
+		{
+			keys.put(normalize(path), path);
+		}
+		for (final String key : properties.keySet())
+		{
+			keys.put(normalize(key), key);
+		}
+		int applied = 0;
+		for (final Map.Entry<String, String> override : overrides.entrySet())
+		{
+			final String key = keys.get(normalize(override.getKey()));
+			if (key == null)
+			{
+				log.fine("The override " + prefix + override.getKey()
+					+ " matches no property and is ignored.");
+				continue;
+			}
+			properties.put(key, override.getValue());
+			applied++;
+		}
+		return applied;
+	}
+
+	/**
+	 * Gets the entries of the given map whose key starts with the given prefix, without the
+	 * prefix.
+	 *
+	 * @param map
+	 *            the map
+	 * @param prefix
+	 *            the prefix
+	 * @return the entries with the prefix
+	 */
+	private static Map<String, String> getPrefixed(final Map<?, ?> map, final String prefix)
+	{
+		final Map<String, String> prefixed = new LinkedHashMap<>();
+		for (final Map.Entry<?, ?> entry : map.entrySet())
+		{
+			final String key = String.valueOf(entry.getKey());
+			if (key.startsWith(prefix) && prefix.length() < key.length())
+			{
+				prefixed.put(key.substring(prefix.length()), String.valueOf(entry.getValue()));
+			}
+		}
+		return prefixed;
+	}
+
+	/**
+	 * Loads a new instance of the given configuration class from the given file with the
+	 * overrides from the environment and the system properties.
+	 *
+	 * @param <T>
+	 *            the generic type of the configuration
+	 * @param file
+	 *            the properties or YAML file
+	 * @param type
+	 *            the configuration class
+	 * @param validator
+	 *            the validator of the loaded configuration
+	 * @return the loaded configuration
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 * @throws IllegalArgumentException
+	 *             with all violations if the configuration is not valid
+	 */
+	public static <T> T load(final File file, final Class<T> type,
+		final Function<T, List<String>> validator) throws IOException
+	{
+		return load(readProperties(file), type, validator, System.getenv(),
+			System.getProperties(), file.getName());
+	}
+
+	/**
+	 * Loads a new instance of the given configuration class from the given properties with the
+	 * overrides from the given environment and system properties.
+	 *
+	 * @param <T>
+	 *            the generic type of the configuration
+	 * @param properties
+	 *            the properties
+	 * @param type
+	 *            the configuration class
+	 * @param validator
+	 *            the validator of the loaded configuration
+	 * @param environment
+	 *            the environment variables
+	 * @param systemProperties
+	 *            the system properties
+	 * @param source
+	 *            the name of the source for the log and error messages
+	 * @return the loaded configuration
+	 * @throws IllegalArgumentException
+	 *             with all violations if the configuration is not valid
+	 */
+	public static <T> T load(final Map<String, String> properties, final Class<T> type,
+		final Function<T, List<String>> validator, final Map<String, String> environment,
+		final Properties systemProperties, final String source)
+	{
+		final long start = System.nanoTime();
+		final Map<String, String> merged = new LinkedHashMap<>(properties);
+		final List<String> propertyPaths = ConfigurationBinder.getPropertyPaths(type);
+		final int overrides = applyOverrides(merged,
+			getPrefixed(environment, ENVIRONMENT_PREFIX), propertyPaths, ENVIRONMENT_PREFIX)
+			+ applyOverrides(merged, getPrefixed(systemProperties, SYSTEM_PROPERTY_PREFIX),
+				propertyPaths, SYSTEM_PROPERTY_PREFIX);
+		final ConfigurationBinder binder = new ConfigurationBinder();
+		final T configuration = binder.bind(merged, type);
+		final List<String> violations = new ArrayList<>(binder.getViolations());
+		violations.addAll(validator.apply(configuration));
+		if (!violations.isEmpty())
+		{
+			throw new IllegalArgumentException(
+				"Invalid " + type.getSimpleName() + " from " + source + ": " + violations);
+		}
+		log.info(type.getSimpleName() + " loaded from " + source + " with " + merged.size()
+			+ " properties and " + overrides + " overrides in "
+			+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+		return configuration;
+	}
+
+	/**
+	 * Loads a new {@link Jetty9RunConfiguration} from the given properties or YAML file with the
+	 * overrides from the environment and the system properties.
+	 *
+	 * @param file
+	 *            the properties or YAML file
+	 * @return the loaded {@link Jetty9RunConfiguration}
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 * @throws IllegalArgumentException
+	 *             with all violations if the configuration is not valid
+	 */
+	public static Jetty9RunConfiguration loadJetty9RunConfiguration(final File file)
+		throws IOException
+	{
+		return load(file, Jetty9RunConfiguration.class, ConfigurationValidator::validate);
+	}
+
+	/**
+	 * Loads a new {@link ServletContextHandlerConfiguration} from the given properties or YAML
+	 * file with the overrides from the environment and the system properties.
+	 *
+	 * @param file
+	 *            the properties or YAML file
+	 * @return the loaded {@link ServletContextHandlerConfiguration}
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 * @throws IllegalArgumentException
+	 *             with all violations if the configuration is not valid
+	 */
+	public static ServletContextHandlerConfiguration loadServletContextHandlerConfiguration(
+		final File file) throws IOException
+	{
+		return load(file, ServletContextHandlerConfiguration.class,
+			ConfigurationValidator::validate);
+	}
+
+	/**
+	 * Loads a new {@link StartConfig} from the given properties or YAML file with the overrides
+	 * from the environment and the system properties.
+	 *
+	 * @param file
+	 *            the properties or YAML file
+	 * @return the loaded {@link StartConfig}
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 * @throws IllegalArgumentException
+	 *             with all violations if the configuration is not valid
+	 */
+	public static StartConfig loadStartConfig(final File file) throws IOException
+	{
+		return load(file, StartConfig.class, ConfigurationValidator::validate);
+	}
+
+	/**
+	 * Normalizes the given property key for matching overrides, that is lower case without
+	 * separators.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the normalized key
+	 */
+	private static String normalize(final String key)
+	{
+		final StringBuilder builder = new StringBuilder(key.length());
+		for (int i = 0; i < key.length(); i++)
+		{
+			final char c = key.charAt(i);
+			if (Character.isLetterOrDigit(c))
+			{
+				builder.append(Character.toLowerCase(c));
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Reads the given properties or YAML file into flat properties. Files with the extension
+	 * <code>yml</code> or <code>yaml</code> are read with the {@link YamlReader}, all other files
+	 * as properties in UTF-8.
+	 *
+	 * @param file
+	 *            the file
+	 * @return the properties
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public static Map<String, String> readProperties(final File file) throws IOException
+	{
+		final String name = file.getName().toLowerCase(Locale.ENGLISH);
+		try (Reader reader = new InputStreamReader(Files.newInputStream(file.toPath()),
+			StandardCharsets.UTF_8))
+		{
+			if (name.endsWith(".yml") || name.endsWith(".yaml"))
+			{
+				return YamlReader.read(reader);
+			}
+			final Properties properties = new Properties();
+			properties.load(reader);
+			final Map<String, String> map = new LinkedHashMap<>();
+			for (final String key : properties.stringPropertyNames())
+			{
+				map.put(key, properties.getProperty(key));
+			}
+			return map;
+		}
+	}
+
+}
@@ -0,0 +1,303 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.loader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * The class {@link YamlReader} reads the block style subset of YAML that is needed for runner
+ * configuration files into flat properties. Nested mappings are joined with a dot and sequence
+ * items get an index in brackets, for instance <code>servletContextHandlerConfigurations[0]
+ * .contextPath</code>. Supported are mappings, sequences of scalars and of mappings, flow
+ * sequences like <code>[a, b]</code>, quoted scalars and comments. Anchors, multi line scalars and
+ * flow mappings are not supported.
+ */
+@UtilityClass
+public class YamlReader
+{
+
+	/**
+	 * A mapping or sequence item that is open while its indented lines are read.
+	 */
+	private static final class Frame
+	{
+
+		/** The indentation of the line that opened the frame. */
+		private final int indent;
+
+		/** The flag if the frame was opened from a key without value. */
+		private final boolean key;
+
+		/** The index of the next sequence item. */
+		private int nextIndex;
+
+		/** The property path of the frame. */
+		private final String path;
+
+		/**
+		 * Instantiates a new {@link Frame}.
+		 *
+		 * @param indent
+		 *            the indentation
+		 * @param path
+		 *            the property path
+		 * @param key
+		 *            the flag if the frame was opened from a key without value
+		 */
+		private Frame(final int indent, final String path, final boolean key)
+		{
+			this.indent = indent;
+			this.path = path;
+			this.key = key;
+		}
+
+	}
+
+	/**
+	 * Reads the YAML document of the given {@link Reader} into flat properties.
+	 *
+	 * @param reader
+	 *            the reader
+	 * @return the properties in document order
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 * @throws IllegalArgumentException
+	 *             if a line can not be parsed
+	 */
+	public static Map<String, String> read(final Reader reader) throws IOException
+	{
+		final Map<String, String> properties = new LinkedHashMap<>();
+		final Deque<Frame> frames = new ArrayDeque<>();
+		frames.push(new Frame(-1, "", false));
+		final BufferedReader lines = new BufferedReader(reader);
+		String line;
+		int lineNumber = 0;
+		while ((line = lines.readLine()) != null)
+		{
+			lineNumber++;
+			final String content = stripComment(line);
+			final String text = content.trim();
+			if (text.isEmpty() || "---".equals(text))
+			{
+				continue;
+			}
+			int indent = 0;
+			while (content.charAt(indent) == ' ')
+			{
+				indent++;
+			}
+			if (content.charAt(indent) == '\t')
+			{
+				throw new IllegalArgumentException(
+					"Tabs are not allowed for indentation at line " + lineNumber);
+			}
+			final boolean item = text.equals("-") || text.startsWith("- ");
+			while (frames.peek().indent > indent || (frames.peek().indent == indent
+				&& !(item && frames.peek().key)))
+			{
+				frames.pop();
+			}
+			final Frame parent = frames.peek();
+			if (item)
+			{
+				final String path = parent.path + "[" + parent.nextIndex++ + "]";
+				final String value = text.substring(1).trim();
+				if (value.isEmpty() || indexOfSeparator(value) >= 0)
+				{
+					final Frame itemFrame = new Frame(indent, path, false);
+					frames.push(itemFrame);
+					if (!value.isEmpty())
+					{
+						readEntry(properties, frames, itemFrame, value,
+							indent + text.indexOf(value), lineNumber);
+					}
+				}
+				else
+				{
+					readValue(properties, path, value);
+				}
+			}
+			else
+			{
+				readEntry(properties, frames, parent, text, indent, lineNumber);
+			}
+		}
+		return properties;
+	}
+
+	/**
+	 * Gets the index of the colon that separates the key from the value or -1 if the given text
+	 * is no key value pair.
+	 *
+	 * @param text
+	 *            the text
+	 * @return the index of the separator
+	 */
+	private static int indexOfSeparator(final String text)
+	{
+		char quote = 0;
+		for (int i = 0; i < text.length(); i++)
+		{
+			final char c = text.charAt(i);
+			if (quote != 0)
+			{
+				if (c == quote)
+				{
+					quote = 0;
+				}
+			}
+			else if (c == '"' || c == '\'')
+			{
+				quote = c;
+			}
+			else if (c == ':' && (i + 1 == text.length() || text.charAt(i + 1) == ' '))
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Reads the given key value pair into the given properties. A key without value opens a new
+	 * frame for the following indented lines.
+	 *
+	 * @param properties
+	 *            the properties
+	 * @param frames
+	 *            the open frames
+	 * @param parent
+	 *            the parent frame
+	 * @param text
+	 *            the key value pair
+	 * @param indent
+	 *            the indentation of the key
+	 * @param lineNumber
+	 *            the line number
+	 */
+	private static void readEntry(final Map<String, String> properties, final Deque<Frame> frames,
+		final Frame parent, final String text, final int indent, final int lineNumber)
+	{
+		final int separator = indexOfSeparator(text);
+		if (separator <= 0)
+		{
+			throw new IllegalArgumentException(
+				"Expected 'key: value' at line " + lineNumber + " but was '" + text + "'");
+		}
+		final String key = unquote(text.substring(0, separator).trim());
+		final String value = text.substring(separator + 1).trim();
+		final String path = parent.path.isEmpty() ? key : parent.path + "." + key;
+		if (value.isEmpty())
+		{
+			frames.push(new Frame(indent, path, true));
+		}
+		else
+		{
+			readValue(properties, path, value);
+		}
+	}
+
+	/**
+	 * Reads the given scalar or flow sequence into the given properties.
+	 *
+	 * @param properties
+	 *            the properties
+	 * @param path
+	 *            the property path
+	 * @param value
+	 *            the value
+	 */
+	private static void readValue(final Map<String, String> properties, final String path,
+		final String value)
+	{
+		if (value.startsWith("[") && value.endsWith("]"))
+		{
+			final String items = value.substring(1, value.length() - 1).trim();
+			if (!items.isEmpty())
+			{
+				final String[] values = items.split(",");
+				for (int i = 0; i < values.length; i++)
+				{
+					properties.put(path + "[" + i + "]", unquote(values[i].trim()));
+				}
+			}
+			return;
+		}
+		properties.put(path, unquote(value));
+	}
+
+	/**
+	 * Strips the comment of the given line, a comment starts with a hash at the beginning of the
+	 * line or after a whitespace outside of quotes.
+	 *
+	 * @param line
+	 *            the line
+	 * @return the line without comment
+	 */
+	private static String stripComment(final String line)
+	{
+		char quote = 0;
+		for (int i = 0; i < line.length(); i++)
+		{
+			final char c = line.charAt(i);
+			if (quote != 0)
+			{
+				if (c == quote)
+				{
+					quote = 0;
+				}
+			}
+			else if (c == '"' || c == '\'')
+			{
+				quote = c;
+			}
+			else if (c == '#' && (i == 0 || Character.isWhitespace(line.charAt(i - 1))))
+			{
+				return line.substring(0, i);
+			}
+		}
+		return line;
+	}
+
+	/**
+	 * Removes the enclosing single or double quotes of the given value.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the unquoted value
+	 */
+	private static String unquote(final String value)
+	{
+		if (value.length() >= 2)
+		{
+			final char first = value.charAt(0);
+			if ((first == '"' || first == '\'') && value.charAt(value.length() - 1) == first)
+			{
+				return value.substring(1, value.length() - 1);
+			}
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.log;
+
+/**
+ * The enum {@link AccessLogFormat} defines the format of the lines of the access log.
+ */
+public enum AccessLogFormat
+{
+
+	/**
+	 * The NCSA combined log format with the request duration in milliseconds as additional last
+	 * field.
+	 */
+	NCSA,
+
+	/** One json object per line. */
+	JSON
+
+}
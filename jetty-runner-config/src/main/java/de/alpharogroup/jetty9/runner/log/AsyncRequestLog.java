@@ -0,0 +1,604 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.RequestLog;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.DateCache;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+
+import de.alpharogroup.jetty9.runner.config.AccessLogConfiguration;
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link AsyncRequestLog} is a {@link RequestLog} that does not write on the request
+ * threads. A request thread formats the log line and puts it in a lock-free {@link RingBuffer},
+ * a background writer takes the lines in batches and writes them with a {@link FileChannel}. If
+ * the buffer is full the line is dropped or the request thread waits, depending on the
+ * {@link OverflowPolicy}. The log file is rotated after the rotation period and if it exceeds the
+ * maximum file size, the rotated files get a time stamp suffix and only the configured number of
+ * rotated files is kept.
+ */
+@ManagedObject("Asynchronous access log")
+@Log
+public class AsyncRequestLog extends AbstractLifeCycle implements RequestLog
+{
+
+	/** The maximum number of lines that are written in one batch. */
+	private static final int BATCH_LINES = 512;
+
+	/** The size in bytes of the write buffer. */
+	private static final int BATCH_SIZE = 64 * 1024;
+
+	/** The time in nanoseconds the writer waits if the buffer is empty. */
+	private static final long IDLE_WAIT = 10_000_000L;
+
+	/** The time in nanoseconds a request thread waits if the buffer is full and it blocks. */
+	private static final long OVERFLOW_WAIT = 100_000L;
+
+	/** The maximum capacity of the reused line builders. */
+	private static final int MAX_LINE_CAPACITY = 8192;
+
+	/**
+	 * The time in milliseconds between two warnings of the writer and until a failed rotation is
+	 * tried again.
+	 */
+	private static final long FAILURE_INTERVAL = 60_000L;
+
+	/** The format of the suffix of the rotated files. */
+	private static final DateTimeFormatter ROTATION_SUFFIX = DateTimeFormatter
+		.ofPattern("yyyy-MM-dd-HHmmss-SSS");
+
+	/** The line builders of the request threads. */
+	private static final ThreadLocal<StringBuilder> LINES = ThreadLocal
+		.withInitial(() -> new StringBuilder(256));
+
+	/** The buffer of the log lines. */
+	private final RingBuffer<String> buffer;
+
+	/** The configuration. */
+	private final AccessLogConfiguration configuration;
+
+	/** The cache of the formatted request time. */
+	private final DateCache dateCache;
+
+	/** The number of dropped lines. */
+	private final LongAdder dropped = new LongAdder();
+
+	/** The number of buffered lines. */
+	private final LongAdder logged = new LongAdder();
+
+	/** The write buffer of the writer. */
+	private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_SIZE);
+
+	/** The channel of the current log file or null if the log file could not be opened. */
+	private FileChannel channel;
+
+	/** The time in milliseconds of the last logged warning of the writer. */
+	private long lastWarning;
+
+	/** The size in bytes of the current log file. */
+	private long fileSize;
+
+	/** The time in milliseconds of the next time based rotation. */
+	private long nextRotation;
+
+	/** The time in milliseconds before a failed rotation is not tried again. */
+	private long rotationRetry;
+
+	/** The number of rotations. */
+	private volatile long rotations;
+
+	/** The number of warnings of the writer that were not logged since the last warning. */
+	private int suppressedWarnings;
+
+	/** The flag if the writer is running. */
+	private volatile boolean running;
+
+	/** The number of written bytes. */
+	private volatile long writtenBytes;
+
+	/** The writer thread. */
+	private Thread writer;
+
+	/**
+	 * Instantiates a new {@link AsyncRequestLog}.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 */
+	public AsyncRequestLog(final AccessLogConfiguration configuration)
+	{
+		if (configuration.getFile() == null)
+		{
+			throw new IllegalArgumentException("The access log file is not set");
+		}
+		this.configuration = configuration;
+		this.buffer = new RingBuffer<>(configuration.getBufferCapacity());
+		this.dateCache = configuration.getFormat() == AccessLogFormat.JSON
+			? new DateCache("yyyy-MM-dd'T'HH:mm:ssZ", Locale.US)
+			: new DateCache("dd/MMM/yyyy:HH:mm:ss Z", Locale.US);
+	}
+
+	/**
+	 * Appends the given value as quoted string with escaped quotes, backslashes and control
+	 * characters or the given default value if the value is null.
+	 *
+	 * @param builder
+	 *            the builder
+	 * @param value
+	 *            the value
+	 * @param defaultValue
+	 *            the default value
+	 */
+	private static void appendQuoted(final StringBuilder builder, final String value,
+		final String defaultValue)
+	{
+		if (value == null)
+		{
+			builder.append(defaultValue);
+			return;
+		}
+		builder.append('"');
+		for (int i = 0; i < value.length(); i++)
+		{
+			final char c = value.charAt(i);
+			if (c == '"' || c == '\\')
+			{
+				builder.append('\\').append(c);
+			}
+			else if (c < ' ')
+			{
+				builder.append(String.format("\\u%04x", (int)c));
+			}
+			else
+			{
+				builder.append(c);
+			}
+		}
+		builder.append('"');
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doStart() throws Exception
+	{
+		open();
+		scheduleRotation();
+		running = true;
+		writer = new Thread(this::write, "access-log-writer");
+		writer.setDaemon(true);
+		writer.start();
+		super.doStart();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doStop() throws Exception
+	{
+		running = false;
+		if (writer != null)
+		{
+			LockSupport.unpark(writer);
+			writer.join();
+			writer = null;
+		}
+		super.doStop();
+	}
+
+	/**
+	 * Writes the lines of the buffer to the write buffer and the write buffer to the log file.
+	 *
+	 * @return the number of written lines
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private int drain() throws IOException
+	{
+		int count = 0;
+		String line;
+		while (count < BATCH_LINES && (line = buffer.poll()) != null)
+		{
+			final byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+			if (batch.remaining() < bytes.length)
+			{
+				flush();
+			}
+			if (batch.remaining() < bytes.length)
+			{
+				writeFully(ByteBuffer.wrap(bytes));
+			}
+			else
+			{
+				batch.put(bytes);
+			}
+			count++;
+		}
+		flush();
+		return count;
+	}
+
+	/**
+	 * Writes the write buffer to the log file.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void flush() throws IOException
+	{
+		if (batch.position() == 0)
+		{
+			return;
+		}
+		batch.flip();
+		writeFully(batch);
+		batch.clear();
+	}
+
+	/**
+	 * Formats the log line of the given request and response.
+	 *
+	 * @param request
+	 *            the request
+	 * @param response
+	 *            the response
+	 * @return the log line
+	 */
+	protected String format(final Request request, final Response response)
+	{
+		StringBuilder builder = LINES.get();
+		if (MAX_LINE_CAPACITY < builder.capacity())
+		{
+			builder = new StringBuilder(256);
+			LINES.set(builder);
+		}
+		builder.setLength(0);
+		final String time = dateCache.format(request.getTimeStamp());
+		final int status = response.getCommittedMetaData().getStatus();
+		final long bytes = response.getHttpChannel().getBytesWritten();
+		final long duration = System.currentTimeMillis() - request.getTimeStamp();
+		final String referer = request.getHeader("Referer");
+		final String userAgent = request.getHeader("User-Agent");
+		if (configuration.getFormat() == AccessLogFormat.JSON)
+		{
+			builder.append("{\"time\":\"").append(time).append("\",\"remote\":");
+			appendQuoted(builder, request.getRemoteAddr(), "null");
+			builder.append(",\"user\":");
+			appendQuoted(builder, request.getRemoteUser(), "null");
+			builder.append(",\"method\":");
+			appendQuoted(builder, request.getMethod(), "null");
+			builder.append(",\"uri\":");
+			appendQuoted(builder, request.getOriginalURI(), "null");
+			builder.append(",\"protocol\":");
+			appendQuoted(builder, request.getProtocol(), "null");
+			builder.append(",\"status\":").append(status).append(",\"bytes\":").append(bytes)
+				.append(",\"referer\":");
+			appendQuoted(builder, referer, "null");
+			builder.append(",\"userAgent\":");
+			appendQuoted(builder, userAgent, "null");
+			builder.append(",\"duration\":").append(duration).append("}\n");
+		}
+		else
+		{
+			final String user = request.getRemoteUser();
+			builder.append(request.getRemoteAddr()).append(" - ")
+				.append(user == null ? "-" : user).append(" [").append(time).append("] \"")
+				.append(request.getMethod()).append(' ').append(request.getOriginalURI())
+				.append(' ').append(request.getProtocol()).append("\" ").append(status)
+				.append(' ').append(bytes).append(' ');
+			appendQuoted(builder, referer, "\"-\"");
+			builder.append(' ');
+			appendQuoted(builder, userAgent, "\"-\"");
+			builder.append(' ').append(duration).append('\n');
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Gets the number of dropped lines.
+	 *
+	 * @return the number of dropped lines
+	 */
+	@ManagedAttribute("The number of dropped lines")
+	public long getDropped()
+	{
+		return dropped.sum();
+	}
+
+	/**
+	 * Gets the number of buffered lines.
+	 *
+	 * @return the number of buffered lines
+	 */
+	@ManagedAttribute("The number of buffered lines")
+	public long getLogged()
+	{
+		return logged.sum();
+	}
+
+	/**
+	 * Gets the number of lines that wait in the buffer.
+	 *
+	 * @return the number of pending lines
+	 */
+	@ManagedAttribute("The number of lines that wait in the buffer")
+	public int getPending()
+	{
+		return buffer.size();
+	}
+
+	/**
+	 * Gets the number of rotations.
+	 *
+	 * @return the number of rotations
+	 */
+	@ManagedAttribute("The number of rotations")
+	public long getRotations()
+	{
+		return rotations;
+	}
+
+	/**
+	 * Gets the number of written bytes.
+	 *
+	 * @return the number of written bytes
+	 */
+	@ManagedAttribute("The number of written bytes")
+	public long getWrittenBytes()
+	{
+		return writtenBytes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void log(final Request request, final Response response)
+	{
+		if (!running)
+		{
+			return;
+		}
+		final String line = format(request, response);
+		while (!buffer.offer(line))
+		{
+			if (configuration.getOverflowPolicy() != OverflowPolicy.BLOCK || !running)
+			{
+				dropped.increment();
+				return;
+			}
+			LockSupport.parkNanos(OVERFLOW_WAIT);
+		}
+		logged.increment();
+	}
+
+	/**
+	 * Opens the log file for append.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void open() throws IOException
+	{
+		final File file = configuration.getFile().getAbsoluteFile();
+		final File directory = file.getParentFile();
+		if (directory != null && !directory.isDirectory() && !directory.mkdirs())
+		{
+			throw new IOException("The directory " + directory + " could not be created");
+		}
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+			StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		fileSize = channel.size();
+	}
+
+	/**
+	 * Deletes the oldest rotated files if more than the files to retain exist.
+	 */
+	private void purge()
+	{
+		final int retainFiles = configuration.getRetainFiles();
+		final File file = configuration.getFile().getAbsoluteFile();
+		final String prefix = file.getName() + ".";
+		final File[] rotated = file.getParentFile()
+			.listFiles((directory, name) -> name.startsWith(prefix));
+		if (retainFiles <= 0 || rotated == null || rotated.length <= retainFiles)
+		{
+			return;
+		}
+		Arrays.sort(rotated);
+		for (int i = 0; i < rotated.length - retainFiles; i++)
+		{
+			if (!rotated[i].delete())
+			{
+				log.warning("The rotated access log " + rotated[i] + " could not be deleted.");
+			}
+		}
+	}
+
+	/**
+	 * Renames the log file with a time stamp suffix, opens a new log file and deletes the oldest
+	 * rotated files. If the log file could not be renamed, the log file is opened again and the
+	 * rotation is tried again after the failure interval, so the log is not lost until a restart.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void rotate() throws IOException
+	{
+		final File file = configuration.getFile().getAbsoluteFile();
+		final String name = file.getName() + "." + LocalDateTime.now().format(ROTATION_SUFFIX);
+		File target = new File(file.getParentFile(), name);
+		for (int i = 1; target.exists(); i++)
+		{
+			target = new File(file.getParentFile(), name + "-" + i);
+		}
+		channel.close();
+		channel = null;
+		try
+		{
+			Files.move(file.toPath(), target.toPath());
+		}
+		catch (final IOException e)
+		{
+			rotationRetry = System.currentTimeMillis() + FAILURE_INTERVAL;
+			warn("The access log could not be rotated to " + target + ".", e);
+			open();
+			return;
+		}
+		rotations++;
+		scheduleRotation();
+		open();
+		purge();
+	}
+
+	/**
+	 * Sets the time of the next time based rotation from the rotation period.
+	 */
+	private void scheduleRotation()
+	{
+		nextRotation = 0 < configuration.getRotationPeriod()
+			? System.currentTimeMillis() + configuration.getRotationPeriod()
+			: Long.MAX_VALUE;
+	}
+
+	/**
+	 * Logs the given warning of the writer, at most one warning per failure interval. The
+	 * warnings in between are logged at FINE and counted in the next warning.
+	 *
+	 * @param message
+	 *            the message
+	 * @param cause
+	 *            the cause
+	 */
+	private void warn(final String message, final Throwable cause)
+	{
+		final long now = System.currentTimeMillis();
+		if (now - lastWarning < FAILURE_INTERVAL)
+		{
+			suppressedWarnings++;
+			log.log(Level.FINE, message, cause);
+			return;
+		}
+		lastWarning = now;
+		log.log(Level.WARNING, suppressedWarnings == 0
+			? message
+			: message + " " + suppressedWarnings + " warnings were suppressed before.", cause);
+		suppressedWarnings = 0;
+	}
+
+	/**
+	 * Writes the lines from the buffer until the log is stopped and the buffer is empty.
+	 */
+	private void write()
+	{
+		try
+		{
+			while (true)
+			{
+				try
+				{
+					if (drain() == 0)
+					{
+						if (!running && buffer.size() == 0)
+						{
+							break;
+						}
+						LockSupport.parkNanos(this, IDLE_WAIT);
+					}
+				}
+				catch (final IOException e)
+				{
+					batch.clear();
+					warn("The access log could not be written.", e);
+				}
+			}
+		}
+		finally
+		{
+			try
+			{
+				if (channel != null)
+				{
+					channel.close();
+				}
+			}
+			catch (final IOException e)
+			{
+				log.log(Level.FINE, "The access log could not be closed.", e);
+			}
+		}
+	}
+
+	/**
+	 * Writes the given bytes to the log file and rotates the log file before if the rotation
+	 * period is expired or the maximum file size would be exceeded. If the log file could not be
+	 * opened before, it is opened again.
+	 *
+	 * @param bytes
+	 *            the bytes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private void writeFully(final ByteBuffer bytes) throws IOException
+	{
+		if (channel == null)
+		{
+			open();
+		}
+		final long maxFileSize = configuration.getMaxFileSize();
+		final long now = System.currentTimeMillis();
+		if (0 < fileSize && rotationRetry <= now && (nextRotation <= now
+			|| (0 < maxFileSize && maxFileSize < fileSize + bytes.remaining())))
+		{
+			rotate();
+		}
+		else if (fileSize == 0 && nextRotation <= now)
+		{
+			// an empty log file is not rotated, the period starts again
+			nextRotation = now + configuration.getRotationPeriod();
+		}
+		final int length = bytes.remaining();
+		while (bytes.hasRemaining())
+		{
+			channel.write(bytes);
+		}
+		fileSize += length;
+		writtenBytes += length;
+	}
+
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.log;
+
+/**
+ * The enum {@link OverflowPolicy} defines what happens with an access log line if the buffer of
+ * the access log is full.
+ */
+public enum OverflowPolicy
+{
+
+	/** The line is dropped and counted, the request thread never waits. */
+	DROP,
+
+	/** The request thread waits until the writer has freed a slot of the buffer. */
+	BLOCK
+
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The class {@link RingBuffer} is a bounded lock-free queue for many producers and one consumer.
+ * Every slot has a sequence number that tells the producers and the consumer whose turn it is, so
+ * the producers only compete for the tail with compare and set and never wait for each other. The
+ * capacity is rounded up to a power of two.
+ *
+ * @param <E>
+ *            the type of the elements
+ */
+public class RingBuffer<E>
+{
+
+	/** The index of the next slot the consumer reads, only written from the consumer. */
+	private volatile long head;
+
+	/** The elements. */
+	private final Object[] elements;
+
+	/** The mask of the slot index. */
+	private final int mask;
+
+	/** The sequence numbers of the slots. */
+	private final AtomicLongArray sequences;
+
+	/** The index of the next slot a producer writes. */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * Instantiates a new {@link RingBuffer}.
+	 *
+	 * @param capacity
+	 *            the capacity, rounded up to a power of two
+	 */
+	public RingBuffer(final int capacity)
+	{
+		if (capacity <= 0 || (1 << 30) < capacity)
+		{
+			throw new IllegalArgumentException("The capacity must be between 1 and 2^30");
+		}
+		final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		elements = new Object[size];
+		sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++)
+		{
+			sequences.set(i, i);
+		}
+		mask = size - 1;
+	}
+
+	/**
+	 * Gets the capacity.
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity()
+	{
+		return elements.length;
+	}
+
+	/**
+	 * Adds the given element if the buffer is not full. Can be called from any thread.
+	 *
+	 * @param element
+	 *            the element
+	 * @return true, if the element is added and false if the buffer is full
+	 */
+	public boolean offer(final E element)
+	{
+		while (true)
+		{
+			final long position = tail.get();
+			final int index = (int)position & mask;
+			final long difference = sequences.get(index) - position;
+			if (difference == 0)
+			{
+				if (tail.compareAndSet(position, position + 1))
+				{
+					elements[index] = element;
+					sequences.lazySet(index, position + 1);
+					return true;
+				}
+			}
+			else if (difference < 0)
+			{
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Removes the oldest element. Must only be called from the consumer thread.
+	 *
+	 * @return the oldest element or null if the buffer is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public E poll()
+	{
+		final long position = head;
+		final int index = (int)position & mask;
+		if (sequences.get(index) != position + 1)
+		{
+			return null;
+		}
+		final E element = (E)elements[index];
+		elements[index] = null;
+		sequences.lazySet(index, position + elements.length);
+		head = position + 1;
+		return element;
+	}
+
+	/**
+	 * Gets the number of elements.
+	 *
+	 * @return the number of elements
+	 */
+	public int size()
+	{
+		return (int)Math.max(0, Math.min(elements.length, tail.get() - head));
+	}
+
+}
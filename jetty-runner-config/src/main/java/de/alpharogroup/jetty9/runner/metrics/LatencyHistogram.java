@@ -0,0 +1,267 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+
+/**
+ * The class {@link LatencyHistogram} is a lock-free histogram for latencies in microseconds. The
+ * buckets are laid out like in HdrHistogram: every power of two range is divided into 32 linear
+ * sub buckets, so every recorded value is kept with a relative precision of about 3% and
+ * recording is one atomic increment without allocation.
+ */
+@ManagedObject("Lock-free latency histogram in microseconds")
+public class LatencyHistogram
+{
+
+	/** The number of bits of the sub bucket index. */
+	private static final int SUB_BUCKET_BITS = 5;
+
+	/** The number of sub buckets per power of two range. */
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	/** The number of buckets that covers all positive long values. */
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	/** The bucket counts. */
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+	/** The max recorded value. */
+	private final AtomicLong max = new AtomicLong();
+
+	/** The name. */
+	private final String name;
+
+	/** The total count of the recorded values. */
+	private final LongAdder totalCount = new LongAdder();
+
+	/** The total sum of the recorded values. */
+	private final LongAdder totalSum = new LongAdder();
+
+	/**
+	 * Instantiates a new {@link LatencyHistogram}.
+	 *
+	 * @param name
+	 *            the name
+	 */
+	public LatencyHistogram(final String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * Gets the bucket index of the given value.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the bucket index
+	 */
+	static int bucketIndex(final long value)
+	{
+		final int msb = Long.SIZE - 1 - Long.numberOfLeadingZeros(value | 1);
+		final int shift = Math.max(0, msb - SUB_BUCKET_BITS);
+		return (shift * SUB_BUCKET_COUNT) + (int)(value >>> shift);
+	}
+
+	/**
+	 * Gets the highest value that is recorded in the bucket with the given index.
+	 *
+	 * @param index
+	 *            the bucket index
+	 * @return the highest value of the bucket
+	 */
+	static long highestValueOfBucket(final int index)
+	{
+		final int shift = Math.max(0, (index / SUB_BUCKET_COUNT) - 1);
+		final long lowest = ((long)index - ((long)shift * SUB_BUCKET_COUNT)) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	/**
+	 * Gets the count of the recorded values.
+	 *
+	 * @return the count of the recorded values
+	 */
+	@ManagedAttribute("The count of the recorded values")
+	public long getCount()
+	{
+		return totalCount.sum();
+	}
+
+	/**
+	 * Gets the max recorded value.
+	 *
+	 * @return the max recorded value
+	 */
+	@ManagedAttribute("The max recorded latency")
+	public long getMax()
+	{
+		return max.get();
+	}
+
+	/**
+	 * Gets the mean of the recorded values.
+	 *
+	 * @return the mean of the recorded values
+	 */
+	@ManagedAttribute("The mean latency")
+	public double getMean()
+	{
+		final long count = totalCount.sum();
+		return count == 0 ? 0 : (double)totalSum.sum() / count;
+	}
+
+	/**
+	 * Gets the name.
+	 *
+	 * @return the name
+	 */
+	@ManagedAttribute("The name of the histogram")
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Gets the median of the recorded values.
+	 *
+	 * @return the median
+	 */
+	@ManagedAttribute("The 50th percentile latency")
+	public long getP50()
+	{
+		return getValueAtPercentile(50);
+	}
+
+	/**
+	 * Gets the 90th percentile of the recorded values.
+	 *
+	 * @return the 90th percentile
+	 */
+	@ManagedAttribute("The 90th percentile latency")
+	public long getP90()
+	{
+		return getValueAtPercentile(90);
+	}
+
+	/**
+	 * Gets the 99th percentile of the recorded values.
+	 *
+	 * @return the 99th percentile
+	 */
+	@ManagedAttribute("The 99th percentile latency")
+	public long getP99()
+	{
+		return getValueAtPercentile(99);
+	}
+
+	/**
+	 * Gets the 99.9th percentile of the recorded values.
+	 *
+	 * @return the 99.9th percentile
+	 */
+	@ManagedAttribute("The 99.9th percentile latency")
+	public long getP999()
+	{
+		return getValueAtPercentile(99.9);
+	}
+
+	/**
+	 * Gets the value at the given percentile. The returned value is the highest value of the
+	 * bucket that contains the percentile, but not greater than the max recorded value.
+	 *
+	 * @param percentile
+	 *            the percentile between 0 and 100
+	 * @return the value at the given percentile
+	 */
+	public long getValueAtPercentile(final double percentile)
+	{
+		long total = 0;
+		final long[] snapshot = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0)
+		{
+			return 0;
+		}
+		final double boundedPercentile = Math.min(Math.max(percentile, 0), 100);
+		final long target = Math.max(1, (long)Math.ceil((boundedPercentile / 100) * total));
+		long cumulative = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			cumulative += snapshot[i];
+			if (target <= cumulative)
+			{
+				return Math.min(highestValueOfBucket(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Records the given value.
+	 *
+	 * @param value
+	 *            the value, negative values are recorded as zero
+	 */
+	public void record(final long value)
+	{
+		final long boundedValue = Math.max(0, value);
+		counts.incrementAndGet(bucketIndex(boundedValue));
+		totalCount.increment();
+		totalSum.add(boundedValue);
+		long currentMax = max.get();
+		while (currentMax < boundedValue && !max.compareAndSet(currentMax, boundedValue))
+		{
+			currentMax = max.get();
+		}
+	}
+
+	/**
+	 * Resets all recorded values. Values that are recorded while resetting can be lost.
+	 */
+	@ManagedOperation(value = "Resets the histogram", impact = "ACTION")
+	public void reset()
+	{
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			counts.set(i, 0);
+		}
+		totalCount.reset();
+		totalSum.reset();
+		max.set(0);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("%s{count=%d,mean=%.1f,p50=%d,p99=%d,max=%d}", name, getCount(),
+			getMean(), getP50(), getP99(), getMax());
+	}
+
+}
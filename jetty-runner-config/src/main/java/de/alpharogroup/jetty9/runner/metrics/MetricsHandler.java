@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.HttpChannelState;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+/**
+ * The class {@link MetricsHandler} records the latency of every request in a
+ * {@link LatencyHistogram} of the given {@link RequestMetrics}. If a context path is given the
+ * latency is recorded per context path, this is the case if the handler is inserted in a context,
+ * otherwise the latency is recorded per connector. Asynchronous requests are recorded when they
+ * are completed.
+ */
+public class MetricsHandler extends HandlerWrapper
+{
+
+	/** The context path or null if the latency is recorded per connector. */
+	private final String contextPath;
+
+	/** The request metrics. */
+	private final RequestMetrics requestMetrics;
+
+	/**
+	 * Instantiates a new {@link MetricsHandler} that records the latencies per connector.
+	 *
+	 * @param requestMetrics
+	 *            the request metrics
+	 */
+	public MetricsHandler(final RequestMetrics requestMetrics)
+	{
+		this(requestMetrics, null);
+	}
+
+	/**
+	 * Instantiates a new {@link MetricsHandler} that records the latencies of the given context
+	 * path.
+	 *
+	 * @param requestMetrics
+	 *            the request metrics
+	 * @param contextPath
+	 *            the context path
+	 */
+	public MetricsHandler(final RequestMetrics requestMetrics, final String contextPath)
+	{
+		this.requestMetrics = requestMetrics;
+		this.contextPath = contextPath;
+	}
+
+	/**
+	 * Gets the request metrics.
+	 *
+	 * @return the request metrics
+	 */
+	public RequestMetrics getRequestMetrics()
+	{
+		return requestMetrics;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handle(final String target, final Request baseRequest,
+		final HttpServletRequest request, final HttpServletResponse response)
+		throws IOException, ServletException
+	{
+		baseRequest.setAttribute(RequestMetrics.ATTRIBUTE, requestMetrics);
+		final HttpChannelState state = baseRequest.getHttpChannelState();
+		if (!state.isInitial() || baseRequest.getDispatcherType() != DispatcherType.REQUEST)
+		{
+			super.handle(target, baseRequest, request, response);
+			return;
+		}
+		final LatencyHistogram histogram = contextPath != null
+			? requestMetrics.getContextHistogram(contextPath)
+			: requestMetrics.getConnectorHistogram(baseRequest.getHttpChannel().getConnector());
+		final long start = System.nanoTime();
+		try
+		{
+			super.handle(target, baseRequest, request, response);
+		}
+		finally
+		{
+			if (state.isSuspended())
+			{
+				state.addListener(new CompletionListener(histogram, start));
+			}
+			else
+			{
+				histogram.record((System.nanoTime() - start) / 1000);
+			}
+		}
+	}
+
+	/**
+	 * The {@link AsyncListener} that records the latency of an asynchronous request on completion.
+	 */
+	private static class CompletionListener implements AsyncListener
+	{
+
+		/** The histogram. */
+		private final LatencyHistogram histogram;
+
+		/** The start time in nanoseconds. */
+		private final long start;
+
+		/**
+		 * Instantiates a new {@link CompletionListener}.
+		 *
+		 * @param histogram
+		 *            the histogram
+		 * @param start
+		 *            the start time in nanoseconds
+		 */
+		CompletionListener(final LatencyHistogram histogram, final long start)
+		{
+			this.histogram = histogram;
+			this.start = start;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void onComplete(final AsyncEvent event)
+		{
+			histogram.record((System.nanoTime() - start) / 1000);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void onError(final AsyncEvent event)
+		{
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void onStartAsync(final AsyncEvent event)
+		{
+			event.getAsyncContext().addListener(this);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void onTimeout(final AsyncEvent event)
+		{
+		}
+
+	}
+
+}
@@ -0,0 +1,314 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.handler.StatisticsHandler;
+
+import de.alpharogroup.jetty9.runner.buffer.InstrumentedByteBufferPool;
+
+/**
+ * The servlet class {@link MetricsServlet} writes the {@link RequestMetrics} as plain text or as
+ * json if the request parameter <code>format=json</code> is given or the Accept header contains
+ * <code>application/json</code>. Mount it with a <code>ServletHolderConfiguration</code>, the
+ * {@link RequestMetrics} are taken from the request attribute that the {@link MetricsHandler}
+ * sets or from the servlet context attribute {@link RequestMetrics#ATTRIBUTE}.
+ */
+public class MetricsServlet extends HttpServlet
+{
+
+	/** The serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The percentiles that are written for every histogram. */
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+	/**
+	 * Appends the given string as json string to the given builder.
+	 *
+	 * @param builder
+	 *            the builder
+	 * @param value
+	 *            the value
+	 */
+	private static void appendJsonString(final StringBuilder builder, final String value)
+	{
+		builder.append('"');
+		for (int i = 0; i < value.length(); i++)
+		{
+			final char c = value.charAt(i);
+			if (c == '"' || c == '\\')
+			{
+				builder.append('\\');
+			}
+			if (c < ' ')
+			{
+				builder.append(String.format("\\u%04x", (int)c));
+			}
+			else
+			{
+				builder.append(c);
+			}
+		}
+		builder.append('"');
+	}
+
+	/**
+	 * Gets the label value of the given histogram, that is the name without the type prefix.
+	 *
+	 * @param histogram
+	 *            the histogram
+	 * @return the label value
+	 */
+	private static String getLabel(final LatencyHistogram histogram)
+	{
+		final String name = histogram.getName();
+		final int index = name.indexOf(' ');
+		return index < 0 ? name : name.substring(index + 1);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doGet(final HttpServletRequest request, final HttpServletResponse response)
+		throws ServletException, IOException
+	{
+		RequestMetrics requestMetrics = (RequestMetrics)request
+			.getAttribute(RequestMetrics.ATTRIBUTE);
+		if (requestMetrics == null)
+		{
+			requestMetrics = (RequestMetrics)getServletContext()
+				.getAttribute(RequestMetrics.ATTRIBUTE);
+		}
+		if (requestMetrics == null)
+		{
+			response.sendError(HttpServletResponse.SC_NOT_FOUND, "No request metrics available");
+			return;
+		}
+		response.setHeader(HttpHeader.CACHE_CONTROL.asString(), "no-cache");
+		final String accept = request.getHeader(HttpHeader.ACCEPT.asString());
+		final boolean json = "json".equalsIgnoreCase(request.getParameter("format"))
+			|| (accept != null && accept.toLowerCase(Locale.ENGLISH).contains("application/json"));
+		final PrintWriter writer = response.getWriter();
+		if (json)
+		{
+			response.setContentType("application/json;charset=utf-8");
+			writer.write(toJson(requestMetrics));
+		}
+		else
+		{
+			response.setContentType("text/plain;charset=utf-8");
+			writer.write(toText(requestMetrics));
+		}
+	}
+
+	/**
+	 * Converts the given histograms to a json object.
+	 *
+	 * @param builder
+	 *            the builder
+	 * @param histograms
+	 *            the histograms
+	 */
+	private void histogramsToJson(final StringBuilder builder,
+		final List<LatencyHistogram> histograms)
+	{
+		builder.append('{');
+		for (int i = 0; i < histograms.size(); i++)
+		{
+			final LatencyHistogram histogram = histograms.get(i);
+			if (0 < i)
+			{
+				builder.append(',');
+			}
+			appendJsonString(builder, getLabel(histogram));
+			builder.append(":{\"count\":").append(histogram.getCount()).append(",\"mean\":")
+				.append(String.format(Locale.ENGLISH, "%.1f", histogram.getMean()))
+				.append(",\"max\":").append(histogram.getMax());
+			for (final double percentile : PERCENTILES)
+			{
+				builder.append(",\"p").append(toPercentileKey(percentile)).append("\":")
+					.append(histogram.getValueAtPercentile(percentile));
+			}
+			builder.append('}');
+		}
+		builder.append('}');
+	}
+
+	/**
+	 * Converts the given histograms to plain text lines.
+	 *
+	 * @param builder
+	 *            the builder
+	 * @param label
+	 *            the label name
+	 * @param histograms
+	 *            the histograms
+	 */
+	private void histogramsToText(final StringBuilder builder, final String label,
+		final List<LatencyHistogram> histograms)
+	{
+		for (final LatencyHistogram histogram : histograms)
+		{
+			final String labels = label + "=\"" + getLabel(histogram) + "\"";
+			for (final double percentile : PERCENTILES)
+			{
+				builder.append("request_latency_microseconds{").append(labels)
+					.append(",quantile=\"")
+					.append(BigDecimal.valueOf(percentile).movePointLeft(2).stripTrailingZeros()
+						.toPlainString())
+					.append("\"} ")
+					.append(histogram.getValueAtPercentile(percentile)).append('\n');
+			}
+			builder.append("request_latency_microseconds_max{").append(labels).append("} ")
+				.append(histogram.getMax()).append('\n');
+			builder.append("request_latency_microseconds_count{").append(labels).append("} ")
+				.append(histogram.getCount()).append('\n');
+		}
+	}
+
+	/**
+	 * Converts the given {@link RequestMetrics} to json.
+	 *
+	 * @param requestMetrics
+	 *            the request metrics
+	 * @return the json string
+	 */
+	private String toJson(final RequestMetrics requestMetrics)
+	{
+		final StringBuilder builder = new StringBuilder(512);
+		builder.append('{');
+		final StatisticsHandler statistics = requestMetrics.getStatisticsHandler();
+		if (statistics != null)
+		{
+			builder.append("\"requests\":").append(statistics.getRequests())
+				.append(",\"requestsActive\":").append(statistics.getRequestsActive())
+				.append(",\"requestsActiveMax\":").append(statistics.getRequestsActiveMax())
+				.append(",\"responses\":{\"1xx\":").append(statistics.getResponses1xx())
+				.append(",\"2xx\":").append(statistics.getResponses2xx()).append(",\"3xx\":")
+				.append(statistics.getResponses3xx()).append(",\"4xx\":")
+				.append(statistics.getResponses4xx()).append(",\"5xx\":")
+				.append(statistics.getResponses5xx()).append("},\"responsesBytesTotal\":")
+				.append(statistics.getResponsesBytesTotal()).append(',');
+		}
+		final InstrumentedByteBufferPool byteBufferPool = requestMetrics.getByteBufferPool();
+		if (byteBufferPool != null)
+		{
+			builder.append("\"bufferPool\":{\"type\":\"").append(byteBufferPool.getBufferType())
+				.append("\",\"acquired\":").append(byteBufferPool.getAcquired())
+				.append(",\"allocations\":").append(byteBufferPool.getAllocations())
+				.append(",\"allocatedBytes\":").append(byteBufferPool.getAllocatedBytes())
+				.append(",\"allocationRate\":")
+				.append(String.format(Locale.ENGLISH, "%.1f", byteBufferPool.getAllocationRate()))
+				.append(",\"heapBuffers\":").append(byteBufferPool.getHeapByteBufferCount())
+				.append(",\"heapMemory\":").append(byteBufferPool.getHeapMemory())
+				.append(",\"directBuffers\":").append(byteBufferPool.getDirectByteBufferCount())
+				.append(",\"directMemory\":").append(byteBufferPool.getDirectMemory())
+				.append("},");
+		}
+		builder.append("\"contexts\":");
+		histogramsToJson(builder, requestMetrics.getContextHistograms());
+		builder.append(",\"connectors\":");
+		histogramsToJson(builder, requestMetrics.getConnectorHistograms());
+		builder.append('}');
+		return builder.toString();
+	}
+
+	/**
+	 * Converts the given percentile to the key of the json object, for instance 99.9 to 999.
+	 *
+	 * @param percentile
+	 *            the percentile
+	 * @return the key
+	 */
+	private String toPercentileKey(final double percentile)
+	{
+		final String value = String.valueOf(percentile);
+		return value.endsWith(".0")
+			? value.substring(0, value.length() - 2)
+			: value.replace(".", "");
+	}
+
+	/**
+	 * Converts the given {@link RequestMetrics} to plain text.
+	 *
+	 * @param requestMetrics
+	 *            the request metrics
+	 * @return the plain text
+	 */
+	private String toText(final RequestMetrics requestMetrics)
+	{
+		final StringBuilder builder = new StringBuilder(1024);
+		final StatisticsHandler statistics = requestMetrics.getStatisticsHandler();
+		if (statistics != null)
+		{
+			builder.append("requests_total ").append(statistics.getRequests()).append('\n');
+			builder.append("requests_active ").append(statistics.getRequestsActive())
+				.append('\n');
+			builder.append("requests_active_max ").append(statistics.getRequestsActiveMax())
+				.append('\n');
+			builder.append("responses_total{code=\"1xx\"} ")
+				.append(statistics.getResponses1xx()).append('\n');
+			builder.append("responses_total{code=\"2xx\"} ")
+				.append(statistics.getResponses2xx()).append('\n');
+			builder.append("responses_total{code=\"3xx\"} ")
+				.append(statistics.getResponses3xx()).append('\n');
+			builder.append("responses_total{code=\"4xx\"} ")
+				.append(statistics.getResponses4xx()).append('\n');
+			builder.append("responses_total{code=\"5xx\"} ")
+				.append(statistics.getResponses5xx()).append('\n');
+			builder.append("responses_bytes_total ").append(statistics.getResponsesBytesTotal())
+				.append('\n');
+		}
+		final InstrumentedByteBufferPool byteBufferPool = requestMetrics.getByteBufferPool();
+		if (byteBufferPool != null)
+		{
+			builder.append("buffer_pool_acquired_total ").append(byteBufferPool.getAcquired())
+				.append('\n');
+			builder.append("buffer_pool_allocations_total ")
+				.append(byteBufferPool.getAllocations()).append('\n');
+			builder.append("buffer_pool_allocated_bytes_total ")
+				.append(byteBufferPool.getAllocatedBytes()).append('\n');
+			builder.append("buffer_pool_allocation_rate ")
+				.append(String.format(Locale.ENGLISH, "%.1f", byteBufferPool.getAllocationRate()))
+				.append('\n');
+			builder.append("buffer_pool_buffers{type=\"heap\"} ")
+				.append(byteBufferPool.getHeapByteBufferCount()).append('\n');
+			builder.append("buffer_pool_buffers{type=\"direct\"} ")
+				.append(byteBufferPool.getDirectByteBufferCount()).append('\n');
+			builder.append("buffer_pool_memory_bytes{type=\"heap\"} ")
+				.append(byteBufferPool.getHeapMemory()).append('\n');
+			builder.append("buffer_pool_memory_bytes{type=\"direct\"} ")
+				.append(byteBufferPool.getDirectMemory()).append('\n');
+		}
+		histogramsToText(builder, "context", requestMetrics.getContextHistograms());
+		histogramsToText(builder, "connector", requestMetrics.getConnectorHistograms());
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,271 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.NetworkConnector;
+import org.eclipse.jetty.server.handler.StatisticsHandler;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+
+import de.alpharogroup.jetty9.runner.buffer.InstrumentedByteBufferPool;
+
+/**
+ * The class {@link RequestMetrics} holds the request metrics of a server. The request counts and
+ * response codes are taken from a {@link StatisticsHandler} and the latencies are recorded in a
+ * {@link LatencyHistogram} per context path and per connector. Add an instance as bean to the
+ * server and the histograms are exposed over JMX with the MBeanContainer of the server. If the
+ * byte buffer pool of the connectors is set its counters are written from the metrics servlet.
+ */
+@ManagedObject("Request metrics of the runner")
+public class RequestMetrics extends ContainerLifeCycle
+{
+
+	/**
+	 * The name of the request and context attribute under that the {@link RequestMetrics} are
+	 * available for the metrics servlet.
+	 */
+	public static final String ATTRIBUTE = RequestMetrics.class.getName();
+
+	/** The byte buffer pool of the connectors. */
+	private volatile InstrumentedByteBufferPool byteBufferPool;
+
+	/** The latency histograms per connector. */
+	private final ConcurrentMap<Connector, LatencyHistogram> connectorHistograms = new ConcurrentHashMap<>();
+
+	/** The latency histograms per context path. */
+	private final ConcurrentMap<String, LatencyHistogram> contextHistograms = new ConcurrentHashMap<>();
+
+	/** The statistics handler. */
+	private volatile StatisticsHandler statisticsHandler;
+
+	/**
+	 * Gets the name of the given connector.
+	 *
+	 * @param connector
+	 *            the connector
+	 * @return the name of the given connector
+	 */
+	private static String getConnectorName(final Connector connector)
+	{
+		if (connector.getName() != null)
+		{
+			return connector.getName();
+		}
+		if (connector instanceof NetworkConnector)
+		{
+			final NetworkConnector networkConnector = (NetworkConnector)connector;
+			return (networkConnector.getHost() == null ? "0.0.0.0" : networkConnector.getHost())
+				+ ":" + networkConnector.getPort();
+		}
+		return connector.getClass().getSimpleName() + "@"
+			+ Integer.toHexString(connector.hashCode());
+	}
+
+	/**
+	 * Gets the byte buffer pool of the connectors.
+	 *
+	 * @return the byte buffer pool or null if not set
+	 */
+	public InstrumentedByteBufferPool getByteBufferPool()
+	{
+		return byteBufferPool;
+	}
+
+	/**
+	 * Gets the latency histogram of the given connector, the histogram is created on the first
+	 * call.
+	 *
+	 * @param connector
+	 *            the connector
+	 * @return the latency histogram of the given connector
+	 */
+	public LatencyHistogram getConnectorHistogram(final Connector connector)
+	{
+		final LatencyHistogram histogram = connectorHistograms.get(connector);
+		if (histogram != null)
+		{
+			return histogram;
+		}
+		return putIfAbsent(connectorHistograms, connector,
+			new LatencyHistogram("connector " + getConnectorName(connector)));
+	}
+
+	/**
+	 * Gets the latency histograms of all connectors sorted by name.
+	 *
+	 * @return the latency histograms of all connectors
+	 */
+	public List<LatencyHistogram> getConnectorHistograms()
+	{
+		return sorted(connectorHistograms.values());
+	}
+
+	/**
+	 * Gets the latency histogram of the given context path, the histogram is created on the first
+	 * call.
+	 *
+	 * @param contextPath
+	 *            the context path
+	 * @return the latency histogram of the given context path
+	 */
+	public LatencyHistogram getContextHistogram(final String contextPath)
+	{
+		final LatencyHistogram histogram = contextHistograms.get(contextPath);
+		if (histogram != null)
+		{
+			return histogram;
+		}
+		return putIfAbsent(contextHistograms, contextPath,
+			new LatencyHistogram("context " + contextPath));
+	}
+
+	/**
+	 * Gets the latency histograms of all context paths sorted by name.
+	 *
+	 * @return the latency histograms of all context paths
+	 */
+	public List<LatencyHistogram> getContextHistograms()
+	{
+		return sorted(contextHistograms.values());
+	}
+
+	/**
+	 * Gets the number of active requests.
+	 *
+	 * @return the number of active requests or -1 if no statistics handler is set
+	 */
+	@ManagedAttribute("The number of active requests")
+	public int getRequestsActive()
+	{
+		final StatisticsHandler statistics = statisticsHandler;
+		return statistics == null ? -1 : statistics.getRequestsActive();
+	}
+
+	/**
+	 * Gets the number of requests.
+	 *
+	 * @return the number of requests or -1 if no statistics handler is set
+	 */
+	@ManagedAttribute("The number of requests")
+	public int getRequests()
+	{
+		final StatisticsHandler statistics = statisticsHandler;
+		return statistics == null ? -1 : statistics.getRequests();
+	}
+
+	/**
+	 * Gets the statistics handler.
+	 *
+	 * @return the statistics handler
+	 */
+	public StatisticsHandler getStatisticsHandler()
+	{
+		return statisticsHandler;
+	}
+
+	/**
+	 * Puts the given histogram into the given map if no histogram exists for the given key.
+	 *
+	 * @param <K>
+	 *            the generic type of the key
+	 * @param histograms
+	 *            the histograms
+	 * @param key
+	 *            the key
+	 * @param histogram
+	 *            the new histogram
+	 * @return the histogram that is mapped to the given key
+	 */
+	private <K> LatencyHistogram putIfAbsent(final ConcurrentMap<K, LatencyHistogram> histograms,
+		final K key, final LatencyHistogram histogram)
+	{
+		final LatencyHistogram existing = histograms.putIfAbsent(key, histogram);
+		if (existing != null)
+		{
+			return existing;
+		}
+		addBean(histogram, true);
+		return histogram;
+	}
+
+	/**
+	 * Resets the statistics handler and all latency histograms.
+	 */
+	@ManagedOperation(value = "Resets all request metrics", impact = "ACTION")
+	public void reset()
+	{
+		final StatisticsHandler statistics = statisticsHandler;
+		if (statistics != null)
+		{
+			statistics.statsReset();
+		}
+		for (final LatencyHistogram histogram : contextHistograms.values())
+		{
+			histogram.reset();
+		}
+		for (final LatencyHistogram histogram : connectorHistograms.values())
+		{
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * Sets the byte buffer pool of the connectors.
+	 *
+	 * @param byteBufferPool
+	 *            the new byte buffer pool
+	 */
+	public void setByteBufferPool(final InstrumentedByteBufferPool byteBufferPool)
+	{
+		this.byteBufferPool = byteBufferPool;
+	}
+
+	/**
+	 * Sets the statistics handler.
+	 *
+	 * @param statisticsHandler
+	 *            the new statistics handler
+	 */
+	public void setStatisticsHandler(final StatisticsHandler statisticsHandler)
+	{
+		this.statisticsHandler = statisticsHandler;
+	}
+
+	/**
+	 * Sorts the given histograms by name.
+	 *
+	 * @param histograms
+	 *            the histograms
+	 * @return the sorted histograms
+	 */
+	private List<LatencyHistogram> sorted(final Collection<LatencyHistogram> histograms)
+	{
+		final List<LatencyHistogram> list = new ArrayList<>(histograms);
+		list.sort(Comparator.comparing(LatencyHistogram::getName));
+		return list;
+	}
+
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.profile;
+
+import java.util.zip.Deflater;
+
+import de.alpharogroup.jetty9.runner.config.CompressionConfiguration;
+import de.alpharogroup.jetty9.runner.config.PerformanceProfile;
+import de.alpharogroup.jetty9.runner.config.ServerConnectorConfiguration;
+import de.alpharogroup.jetty9.runner.config.ThreadPoolConfiguration;
+
+/**
+ * The enum {@link PerformancePreset} defines named {@link PerformanceProfile} objects that can be
+ * selected from the <code>StartConfig</code>.
+ */
+public enum PerformancePreset
+{
+
+	/** The values that the runner has always used. */
+	DEFAULT("default"),
+
+	/**
+	 * Small output buffers that are flushed early, short idle timeouts, reserved threads and warm
+	 * pooled threads so requests are dispatched without starting threads.
+	 */
+	LOW_LATENCY("low-latency"),
+
+	/**
+	 * Large output buffers, a large accept queue, a large thread pool without reserved threads and
+	 * fast compression to get the most responses through the available bandwidth.
+	 */
+	HIGH_THROUGHPUT("high-throughput"),
+
+	/**
+	 * A small thread pool and long idle timeouts so connections survive while the application is
+	 * halted in a debugger.
+	 */
+	DEV("dev");
+
+	/** The key of the preset. */
+	private final String key;
+
+	/**
+	 * Instantiates a new {@link PerformancePreset}.
+	 *
+	 * @param key
+	 *            the key
+	 */
+	PerformancePreset(final String key)
+	{
+		this.key = key;
+	}
+
+	/**
+	 * Gets the {@link PerformancePreset} with the given key, for instance
+	 * <code>low-latency</code>. The constant name is also accepted.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the {@link PerformancePreset}
+	 * @throws IllegalArgumentException
+	 *             if no preset with the given key exists
+	 */
+	public static PerformancePreset of(final String key)
+	{
+		for (final PerformancePreset preset : values())
+		{
+			if (preset.key.equalsIgnoreCase(key) || preset.name().equalsIgnoreCase(key))
+			{
+				return preset;
+			}
+		}
+		throw new IllegalArgumentException("Unknown performance preset '" + key
+			+ "', known presets are default, low-latency, high-throughput and dev.");
+	}
+
+	/**
+	 * Gets the key.
+	 *
+	 * @return the key
+	 */
+	public String getKey()
+	{
+		return key;
+	}
+
+	/**
+	 * Factory method for creating a new {@link PerformanceProfile} with the values of this preset.
+	 *
+	 * @return the new {@link PerformanceProfile}.
+	 */
+	public PerformanceProfile newPerformanceProfile()
+	{
+		final PerformanceProfile.PerformanceProfileBuilder builder = PerformanceProfile.builder()
+			.name(key);
+		switch (this)
+		{
+			case LOW_LATENCY :
+				return builder.outputBufferSize(8192).httpIdleTimeout(30000)
+					.httpsIdleTimeout(30000)
+					.serverConnectorConfiguration(ServerConnectorConfiguration.builder()
+						.acceptQueueSize(256).tcpNoDelay(true).build())
+					.threadPoolConfiguration(ThreadPoolConfiguration.builder().minThreads(32)
+						.maxThreads(200).reservedThreads(16).idleTimeout(300000).build())
+					.build();
+			case HIGH_THROUGHPUT :
+				return builder.outputBufferSize(65536).httpIdleTimeout(60000)
+					.httpsIdleTimeout(60000)
+					.serverConnectorConfiguration(
+						ServerConnectorConfiguration.builder().acceptQueueSize(1024).build())
+					.threadPoolConfiguration(ThreadPoolConfiguration.builder().minThreads(16)
+						.maxThreads(400).reservedThreads(0).build())
+					.compressionConfiguration(CompressionConfiguration.builder()
+						.compressionLevel(Deflater.BEST_SPEED).build())
+					.build();
+			case DEV :
+				return builder
+					.httpIdleTimeout(PerformanceProfile.DEFAULT_HTTP_IDLE_TIMEOUT)
+					.httpsIdleTimeout(PerformanceProfile.DEFAULT_HTTP_IDLE_TIMEOUT)
+					.threadPoolConfiguration(
+						ThreadPoolConfiguration.builder().minThreads(2).maxThreads(50).build())
+					.build();
+			default :
+				return builder.build();
+		}
+	}
+
+}
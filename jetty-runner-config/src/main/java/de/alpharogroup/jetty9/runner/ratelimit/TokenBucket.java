@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * The class {@link TokenBucket} is a lock-free token bucket. The state is a single long, the
+ * theoretical arrival time of the next request in nanoseconds, that is updated with compare and
+ * set, so acquiring a token does not lock and does not allocate. A bucket whose theoretical
+ * arrival time is in the past is full and can be dropped without changing the limits.
+ */
+public class TokenBucket
+{
+
+	/** The updater of the theoretical arrival time. */
+	private static final AtomicLongFieldUpdater<TokenBucket> TAT = AtomicLongFieldUpdater
+		.newUpdater(TokenBucket.class, "tat");
+
+	/** The interval in nanoseconds in that one token is added to the bucket. */
+	private final long interval;
+
+	/** The maximum time in nanoseconds the theoretical arrival time can be ahead. */
+	private final long tolerance;
+
+	/** The theoretical arrival time in nanoseconds of the next request. */
+	private volatile long tat;
+
+	/**
+	 * Instantiates a new {@link TokenBucket}.
+	 *
+	 * @param interval
+	 *            the interval in nanoseconds in that one token is added to the bucket
+	 * @param burst
+	 *            the capacity of the bucket
+	 * @param now
+	 *            the current time in nanoseconds
+	 */
+	public TokenBucket(final long interval, final int burst, final long now)
+	{
+		this.interval = interval;
+		this.tolerance = interval * Math.max(1, burst);
+		this.tat = now;
+	}
+
+	/**
+	 * Checks if the bucket is full at the given time, that is the bucket can be dropped.
+	 *
+	 * @param now
+	 *            the current time in nanoseconds
+	 * @return true, if the bucket is full
+	 */
+	public boolean isFull(final long now)
+	{
+		return tat - now <= 0;
+	}
+
+	/**
+	 * Tries to take a token from the bucket.
+	 *
+	 * @param now
+	 *            the current time in nanoseconds
+	 * @return zero if a token is taken, otherwise the time in nanoseconds until a token is
+	 *         available
+	 */
+	public long tryAcquire(final long now)
+	{
+		while (true)
+		{
+			final long current = tat;
+			final long next = (current - now < 0 ? now : current) + interval;
+			final long ahead = next - now - tolerance;
+			if (0 < ahead)
+			{
+				return ahead;
+			}
+			if (TAT.compareAndSet(this, current, next))
+			{
+				return 0;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.ratelimit;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class {@link TokenBuckets} holds a {@link TokenBucket} per client key in a striped and
+ * bounded concurrent map. Every stripe holds at most its share of the maximum number of clients.
+ * If a stripe is full the full buckets, that is the buckets of clients that were idle long enough
+ * to refill, are dropped at most once per refill time. If the stripe is still full, for instance
+ * under a scan of many addresses, the new clients of the stripe share an overflow bucket, so the
+ * memory stays flat and the new clients are still limited.
+ */
+public class TokenBuckets
+{
+
+	/** The capacity of a bucket. */
+	private final int burst;
+
+	/** The number of clients that share an overflow bucket. */
+	private final AtomicLong overflows = new AtomicLong();
+
+	/** The interval in nanoseconds in that one token is added to a bucket. */
+	private final long interval;
+
+	/** The stripes. */
+	private final Stripe[] stripes;
+
+	/**
+	 * Instantiates a new {@link TokenBuckets}.
+	 *
+	 * @param rate
+	 *            the number of tokens per second that are added to a bucket
+	 * @param burst
+	 *            the capacity of a bucket
+	 * @param maxClients
+	 *            the maximum number of buckets
+	 * @param stripeCount
+	 *            the number of stripes
+	 */
+	public TokenBuckets(final double rate, final int burst, final int maxClients,
+		final int stripeCount)
+	{
+		if (rate <= 0)
+		{
+			throw new IllegalArgumentException("The rate must be positive");
+		}
+		this.interval = Math.max(1, (long)(TimeUnit.SECONDS.toNanos(1) / rate));
+		this.burst = Math.max(1, burst);
+		final int count = Math.max(1, stripeCount);
+		final int perStripe = Math.max(1, maxClients / count);
+		final long now = System.nanoTime();
+		stripes = new Stripe[count];
+		for (int i = 0; i < count; i++)
+		{
+			stripes[i] = new Stripe(perStripe, new TokenBucket(interval, this.burst, now));
+		}
+	}
+
+	/**
+	 * Gets the number of buckets.
+	 *
+	 * @return the number of buckets
+	 */
+	public int getClients()
+	{
+		int clients = 0;
+		for (final Stripe stripe : stripes)
+		{
+			clients += stripe.buckets.size();
+		}
+		return clients;
+	}
+
+	/**
+	 * Gets the number of requests of clients that got no own bucket and used the overflow bucket.
+	 *
+	 * @return the number of overflows
+	 */
+	public long getOverflows()
+	{
+		return overflows.get();
+	}
+
+	/**
+	 * Tries to take a token from the bucket of the given client key.
+	 *
+	 * @param key
+	 *            the client key
+	 * @param now
+	 *            the current time in nanoseconds
+	 * @return zero if a token is taken, otherwise the time in nanoseconds until a token is
+	 *         available
+	 */
+	public long tryAcquire(final String key, final long now)
+	{
+		final int hash = key.hashCode();
+		final Stripe stripe = stripes[((hash ^ (hash >>> 16)) & 0x7fffffff) % stripes.length];
+		TokenBucket bucket = stripe.buckets.get(key);
+		if (bucket == null)
+		{
+			bucket = stripe.newBucket(key, now);
+		}
+		return bucket.tryAcquire(now);
+	}
+
+	/**
+	 * The stripe of the buckets.
+	 */
+	private final class Stripe
+	{
+
+		/** The buckets per client key. */
+		private final ConcurrentHashMap<String, TokenBucket> buckets;
+
+		/** The time in nanoseconds of the last purge. */
+		private final AtomicLong lastPurge;
+
+		/** The maximum number of buckets. */
+		private final int maxBuckets;
+
+		/** The bucket of the clients that got no own bucket. */
+		private final TokenBucket overflow;
+
+		/**
+		 * Instantiates a new {@link Stripe}.
+		 *
+		 * @param maxBuckets
+		 *            the maximum number of buckets
+		 * @param overflow
+		 *            the overflow bucket
+		 */
+		private Stripe(final int maxBuckets, final TokenBucket overflow)
+		{
+			this.maxBuckets = maxBuckets;
+			this.overflow = overflow;
+			this.buckets = new ConcurrentHashMap<>(Math.min(maxBuckets, 1024));
+			this.lastPurge = new AtomicLong(System.nanoTime());
+		}
+
+		/**
+		 * Creates the bucket of the given client key or returns the overflow bucket if the stripe
+		 * is full.
+		 *
+		 * @param key
+		 *            the client key
+		 * @param now
+		 *            the current time in nanoseconds
+		 * @return the bucket
+		 */
+		private TokenBucket newBucket(final String key, final long now)
+		{
+			if (maxBuckets <= buckets.size())
+			{
+				purge(now);
+				if (maxBuckets <= buckets.size())
+				{
+					overflows.incrementAndGet();
+					return overflow;
+				}
+			}
+			final TokenBucket bucket = new TokenBucket(interval, burst, now);
+			final TokenBucket previous = buckets.putIfAbsent(key, bucket);
+			return previous == null ? bucket : previous;
+		}
+
+		/**
+		 * Drops the full buckets, at most once per refill time of a bucket.
+		 *
+		 * @param now
+		 *            the current time in nanoseconds
+		 */
+		private void purge(final long now)
+		{
+			final long last = lastPurge.get();
+			if (now - last < interval * burst || !lastPurge.compareAndSet(last, now))
+			{
+				return;
+			}
+			final Iterator<TokenBucket> iterator = buckets.values().iterator();
+			while (iterator.hasNext())
+			{
+				if (iterator.next().isFull(now))
+				{
+					iterator.remove();
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,252 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.session;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.eclipse.jetty.server.session.DefaultSessionCache;
+import org.eclipse.jetty.server.session.Session;
+import org.eclipse.jetty.server.session.SessionData;
+import org.eclipse.jetty.server.session.SessionDataStore;
+import org.eclipse.jetty.server.session.SessionHandler;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.thread.Locker.Lock;
+
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link BoundedSessionCache} is a {@link DefaultSessionCache} with a maximum number of
+ * sessions. If the maximum is exceeded the least recently accessed sessions that are not used
+ * from a request are stored in the {@link SessionDataStore} and evicted until the cache is at 90
+ * percent of the maximum, so the eviction does not run on every new session. Evicted sessions are
+ * loaded again from the {@link SessionDataStore} on the next access, without a persistent store
+ * they are lost.
+ */
+@ManagedObject("Session cache with a maximum number of sessions")
+@Log
+public class BoundedSessionCache extends DefaultSessionCache
+{
+
+	/**
+	 * The class {@link BoundedSession} is a {@link Session} that gives the cache access to its
+	 * {@link SessionData}, so an evicted session is stored with its last saved time.
+	 */
+	private static class BoundedSession extends Session
+	{
+
+		/**
+		 * Instantiates a new {@link BoundedSession} for a new session of the given request.
+		 *
+		 * @param handler
+		 *            the session handler
+		 * @param request
+		 *            the request
+		 * @param data
+		 *            the session data
+		 */
+		BoundedSession(final SessionHandler handler, final HttpServletRequest request,
+			final SessionData data)
+		{
+			super(handler, request, data);
+		}
+
+		/**
+		 * Instantiates a new {@link BoundedSession} for a session that is loaded from the
+		 * session data store.
+		 *
+		 * @param handler
+		 *            the session handler
+		 * @param data
+		 *            the session data
+		 */
+		BoundedSession(final SessionHandler handler, final SessionData data)
+		{
+			super(handler, data);
+		}
+
+		/**
+		 * Gets the session data.
+		 *
+		 * @return the session data
+		 */
+		SessionData getData()
+		{
+			return getSessionData();
+		}
+
+	}
+
+	/** The flag if an eviction is running. */
+	private final AtomicBoolean evicting = new AtomicBoolean();
+
+	/** The maximum number of sessions. */
+	private final int maxSessions;
+
+	/**
+	 * Instantiates a new {@link BoundedSessionCache}.
+	 *
+	 * @param handler
+	 *            the session handler
+	 * @param maxSessions
+	 *            the maximum number of sessions
+	 */
+	public BoundedSessionCache(final SessionHandler handler, final int maxSessions)
+	{
+		super(handler);
+		this.maxSessions = maxSessions;
+	}
+
+	/**
+	 * Gets the last accessed time of the given session or zero if the session is invalid.
+	 *
+	 * @param session
+	 *            the session
+	 * @return the last accessed time
+	 */
+	private static long getLastAccessedTime(final Session session)
+	{
+		try
+		{
+			return session.getLastAccessedTime();
+		}
+		catch (final IllegalStateException e)
+		{
+			return 0;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Session newSession(final HttpServletRequest request, final SessionData data)
+	{
+		return new BoundedSession(getSessionHandler(), request, data);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Session newSession(final SessionData data)
+	{
+		return new BoundedSession(getSessionHandler(), data);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Session doPutIfAbsent(final String id, final Session session)
+	{
+		final Session existing = super.doPutIfAbsent(id, session);
+		if (existing == null && maxSessions < _sessions.size())
+		{
+			evictOverflow();
+		}
+		return existing;
+	}
+
+	/**
+	 * Evicts the given session if it is not used from a request.
+	 *
+	 * @param session
+	 *            the session
+	 */
+	private void evict(final Session session)
+	{
+		try (Lock lock = session.lock())
+		{
+			if (0 < session.getRequests() || !session.isResident())
+			{
+				return;
+			}
+			if (session.isValid() && getSessionDataStore() != null)
+			{
+				if (getSessionDataStore().isPassivating())
+				{
+					session.willPassivate();
+				}
+				// the data of the session carries the last saved time, so a session that was
+				// saved before is updated and not inserted again
+				final SessionData data = ((BoundedSession)session).getData();
+				data.setDirty(true);
+				getSessionDataStore().store(session.getId(), data);
+			}
+			doDelete(session.getId());
+			session.setResident(false);
+		}
+		catch (final Exception e)
+		{
+			log.log(Level.WARNING, "session " + session.getId() + " could not be evicted.", e);
+		}
+	}
+
+	/**
+	 * Evicts the least recently accessed sessions until the cache is at 90 percent of the maximum
+	 * number of sessions.
+	 */
+	private void evictOverflow()
+	{
+		if (!evicting.compareAndSet(false, true))
+		{
+			return;
+		}
+		try
+		{
+			final int target = maxSessions - maxSessions / 10;
+			// the access times are taken once, they change while the sessions are sorted
+			final List<Entry<Long, Session>> candidates = new ArrayList<>(_sessions.size());
+			for (final Session session : _sessions.values())
+			{
+				candidates.add(new SimpleImmutableEntry<>(getLastAccessedTime(session), session));
+			}
+			candidates.sort(Entry.comparingByKey());
+			for (final Entry<Long, Session> candidate : candidates)
+			{
+				if (_sessions.size() <= target)
+				{
+					break;
+				}
+				evict(candidate.getValue());
+			}
+		}
+		finally
+		{
+			evicting.set(false);
+		}
+	}
+
+	/**
+	 * Gets the maximum number of sessions.
+	 *
+	 * @return the maximum number of sessions
+	 */
+	@ManagedAttribute("The maximum number of sessions")
+	public int getMaxSessions()
+	{
+		return maxSessions;
+	}
+
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.session;
+
+import org.eclipse.jetty.server.session.DefaultSessionCache;
+import org.eclipse.jetty.server.session.SessionCache;
+import org.eclipse.jetty.server.session.SessionHandler;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+/**
+ * The class {@link OffHeapSessionCache} is a {@link DefaultSessionCache} that holds only the
+ * sessions on the heap that are used from a request. A session is stored in the
+ * {@link OffHeapSessionDataStore} and evicted from the cache when the last request leaves it, so
+ * the heap holds a small index and the serialized sessions are outside of the reach of the
+ * garbage collector. The price is the serialization of the session attributes on every request.
+ */
+@ManagedObject("Session cache with the sessions outside of the heap")
+public class OffHeapSessionCache extends DefaultSessionCache
+{
+
+	/**
+	 * Instantiates a new {@link OffHeapSessionCache}.
+	 *
+	 * @param handler
+	 *            the session handler
+	 * @param sessionDataStore
+	 *            the off heap session data store
+	 */
+	public OffHeapSessionCache(final SessionHandler handler,
+		final OffHeapSessionDataStore sessionDataStore)
+	{
+		super(handler);
+		setEvictionPolicy(SessionCache.EVICT_ON_SESSION_EXIT);
+		setSessionDataStore(sessionDataStore);
+	}
+
+}
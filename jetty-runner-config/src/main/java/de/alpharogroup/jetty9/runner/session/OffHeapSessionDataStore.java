@@ -0,0 +1,557 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.server.session.AbstractSessionDataStore;
+import org.eclipse.jetty.server.session.SessionData;
+import org.eclipse.jetty.util.ClassLoadingObjectInputStream;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link OffHeapSessionDataStore} is a session data store that holds the serialized
+ * sessions outside of the heap. The memory is divided in slabs of direct buffers or, if a
+ * directory is given, of memory mapped buffers of a temporary file. The slabs are divided in
+ * blocks of a fixed size and a session occupies as many blocks as it needs. The heap holds only
+ * the index from the session id to the blocks of the session. If the capacity is exhausted the
+ * least recently used sessions are evicted and lost.
+ * <p>
+ * The sessions are serialized in a compact form, the times and the last node as primitive values
+ * and only the attributes with java serialization.
+ * </p>
+ */
+@ManagedObject("Session data store outside of the heap")
+@Log
+public class OffHeapSessionDataStore extends AbstractSessionDataStore
+{
+
+	/** The default block size in bytes. */
+	public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+	/** The default capacity in bytes. */
+	public static final long DEFAULT_CAPACITY = 64L * 1024 * 1024;
+
+	/** The maximum size of a slab in bytes. */
+	private static final int SLAB_SIZE = 64 * 1024 * 1024;
+
+	/** The block size in bytes. */
+	private final int blockSize;
+
+	/** The number of blocks per slab. */
+	private final int blocksPerSlab;
+
+	/** The capacity in bytes. */
+	private final long capacity;
+
+	/** The directory of the memory mapped file or null for direct buffers. */
+	private final File directory;
+
+	/** The number of evicted sessions. */
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * The index from the session id to the entry in least recently used order. The map is in
+	 * insertion order, so lookups do not reorder it, load and store move the entry to the end.
+	 */
+	private final LinkedHashMap<String, IndexEntry> index = new LinkedHashMap<>();
+
+	/** The stack of free blocks. */
+	private int[] freeBlocks;
+
+	/** The number of free blocks. */
+	private int freeCount;
+
+	/** The memory mapped file or null for direct buffers. */
+	private File mappedFile;
+
+	/** The slabs. */
+	private ByteBuffer[] slabs;
+
+	/**
+	 * Instantiates a new {@link OffHeapSessionDataStore}.
+	 *
+	 * @param capacity
+	 *            the capacity in bytes
+	 * @param blockSize
+	 *            the block size in bytes
+	 * @param directory
+	 *            the directory of the memory mapped file or null for direct buffers
+	 */
+	public OffHeapSessionDataStore(final long capacity, final int blockSize, final File directory)
+	{
+		if (blockSize <= 0 || SLAB_SIZE < blockSize)
+		{
+			throw new IllegalArgumentException("The block size must be between 1 and " + SLAB_SIZE);
+		}
+		if (capacity < blockSize)
+		{
+			throw new IllegalArgumentException("The capacity must be at least the block size");
+		}
+		this.capacity = capacity;
+		this.blockSize = blockSize;
+		this.blocksPerSlab = SLAB_SIZE / blockSize;
+		this.directory = directory;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean delete(final String id) throws Exception
+	{
+		synchronized (index)
+		{
+			final IndexEntry entry = index.remove(id);
+			if (entry == null)
+			{
+				return false;
+			}
+			release(entry);
+			return true;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Set<String> doGetExpired(final Set<String> candidates)
+	{
+		final long now = System.currentTimeMillis();
+		final Set<String> expired = new HashSet<>();
+		synchronized (index)
+		{
+			for (final String candidate : candidates)
+			{
+				final IndexEntry entry = index.get(candidate);
+				if (entry == null || entry.isExpired(now))
+				{
+					expired.add(candidate);
+				}
+			}
+			for (final Map.Entry<String, IndexEntry> entry : index.entrySet())
+			{
+				if (entry.getValue().isExpired(now))
+				{
+					expired.add(entry.getKey());
+				}
+			}
+		}
+		return expired;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public SessionData doLoad(final String id) throws Exception
+	{
+		final byte[] bytes;
+		synchronized (index)
+		{
+			final IndexEntry entry = index.remove(id);
+			if (entry == null)
+			{
+				return null;
+			}
+			index.put(id, entry);
+			bytes = read(entry);
+		}
+		return deserialize(id, bytes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doStart() throws Exception
+	{
+		final long blocks = capacity / blockSize;
+		if (Integer.MAX_VALUE < blocks)
+		{
+			throw new IllegalStateException("The capacity " + capacity
+				+ " has too many blocks of the size " + blockSize);
+		}
+		final int blockCount = (int)blocks;
+		slabs = new ByteBuffer[(blockCount + blocksPerSlab - 1) / blocksPerSlab];
+		if (directory != null)
+		{
+			mappedFile = File.createTempFile("sessions", ".slab", directory);
+			mappedFile.deleteOnExit();
+			try (RandomAccessFile file = new RandomAccessFile(mappedFile, "rw");
+				FileChannel channel = file.getChannel())
+			{
+				for (int i = 0; i < slabs.length; i++)
+				{
+					slabs[i] = channel.map(MapMode.READ_WRITE, (long)i * blocksPerSlab * blockSize,
+						(long)getSlabBlocks(i, blockCount) * blockSize);
+				}
+			}
+		}
+		else
+		{
+			for (int i = 0; i < slabs.length; i++)
+			{
+				slabs[i] = ByteBuffer.allocateDirect(getSlabBlocks(i, blockCount) * blockSize);
+			}
+		}
+		freeBlocks = new int[blockCount];
+		for (int i = 0; i < blockCount; i++)
+		{
+			freeBlocks[i] = blockCount - 1 - i;
+		}
+		freeCount = blockCount;
+		super.doStart();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doStop() throws Exception
+	{
+		super.doStop();
+		synchronized (index)
+		{
+			index.clear();
+			slabs = null;
+			freeBlocks = null;
+			freeCount = 0;
+		}
+		if (mappedFile != null && !mappedFile.delete())
+		{
+			log.fine("The file " + mappedFile + " could not be deleted.");
+		}
+		mappedFile = null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void doStore(final String id, final SessionData data, final long lastSaveTime)
+		throws Exception
+	{
+		final byte[] bytes = serialize(data);
+		final int blocks = (bytes.length + blockSize - 1) / blockSize;
+		synchronized (index)
+		{
+			// checked before the previous entry is released, so a session that grew too large
+			// keeps its last stored state
+			if (freeBlocks.length < blocks)
+			{
+				throw new IllegalStateException("The session " + id + " with " + bytes.length
+					+ " bytes does not fit in the capacity of " + capacity + " bytes");
+			}
+			final IndexEntry previous = index.remove(id);
+			if (previous != null)
+			{
+				release(previous);
+			}
+			final Iterator<Map.Entry<String, IndexEntry>> eldest = index.entrySet().iterator();
+			while (freeCount < blocks)
+			{
+				final Map.Entry<String, IndexEntry> evicted = eldest.next();
+				eldest.remove();
+				release(evicted.getValue());
+				evictions.incrementAndGet();
+				log.fine("The session " + evicted.getKey() + " is evicted.");
+			}
+			final IndexEntry entry = new IndexEntry(new int[blocks], bytes.length,
+				data.getExpiry());
+			for (int i = 0; i < blocks; i++)
+			{
+				entry.blocks[i] = freeBlocks[--freeCount];
+			}
+			write(entry, bytes);
+			index.put(id, entry);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean exists(final String id) throws Exception
+	{
+		synchronized (index)
+		{
+			final IndexEntry entry = index.get(id);
+			return entry != null && !entry.isExpired(System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Gets the capacity in bytes.
+	 *
+	 * @return the capacity
+	 */
+	@ManagedAttribute("The capacity in bytes")
+	public long getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * Gets the number of evicted sessions.
+	 *
+	 * @return the number of evicted sessions
+	 */
+	@ManagedAttribute("The number of evicted sessions")
+	public long getEvictions()
+	{
+		return evictions.get();
+	}
+
+	/**
+	 * Gets the number of stored sessions.
+	 *
+	 * @return the number of stored sessions
+	 */
+	@ManagedAttribute("The number of stored sessions")
+	public int getSessions()
+	{
+		synchronized (index)
+		{
+			return index.size();
+		}
+	}
+
+	/**
+	 * Gets the number of bytes of the used blocks.
+	 *
+	 * @return the number of used bytes
+	 */
+	@ManagedAttribute("The number of bytes of the used blocks")
+	public long getUsedBytes()
+	{
+		synchronized (index)
+		{
+			return freeBlocks == null ? 0 : (long)(freeBlocks.length - freeCount) * blockSize;
+		}
+	}
+
+	/**
+	 * Gets the number of blocks of the slab with the given index.
+	 *
+	 * @param slab
+	 *            the index of the slab
+	 * @param blockCount
+	 *            the number of all blocks
+	 * @return the number of blocks of the slab
+	 */
+	private int getSlabBlocks(final int slab, final int blockCount)
+	{
+		return Math.min(blocksPerSlab, blockCount - slab * blocksPerSlab);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isPassivating()
+	{
+		return true;
+	}
+
+	/**
+	 * Deserializes the session data from the given bytes.
+	 *
+	 * @param id
+	 *            the session id
+	 * @param bytes
+	 *            the serialized session data
+	 * @return the session data
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 * @throws ClassNotFoundException
+	 *             if the class of an attribute is not found
+	 */
+	private SessionData deserialize(final String id, final byte[] bytes)
+		throws IOException, ClassNotFoundException
+	{
+		final ByteArrayInputStream input = new ByteArrayInputStream(bytes);
+		final DataInputStream in = new DataInputStream(input);
+		final long created = in.readLong();
+		final long accessed = in.readLong();
+		final long lastAccessed = in.readLong();
+		final long maxInactiveMs = in.readLong();
+		final SessionData data = newSessionData(id, created, accessed, lastAccessed,
+			maxInactiveMs);
+		data.setCookieSet(in.readLong());
+		data.setExpiry(in.readLong());
+		data.setLastSaved(in.readLong());
+		data.setLastNode(in.readUTF());
+		try (ClassLoadingObjectInputStream attributes = new ClassLoadingObjectInputStream(input))
+		{
+			SessionData.deserializeAttributes(data, attributes);
+		}
+		return data;
+	}
+
+	/**
+	 * Reads the bytes of the given entry from the slabs.
+	 *
+	 * @param entry
+	 *            the entry
+	 * @return the bytes
+	 */
+	private byte[] read(final IndexEntry entry)
+	{
+		final byte[] bytes = new byte[entry.length];
+		int offset = 0;
+		for (final int block : entry.blocks)
+		{
+			final int length = Math.min(blockSize, bytes.length - offset);
+			final ByteBuffer slab = slabs[block / blocksPerSlab];
+			slab.position((block % blocksPerSlab) * blockSize);
+			slab.get(bytes, offset, length);
+			offset += length;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Releases the blocks of the given entry.
+	 *
+	 * @param entry
+	 *            the entry
+	 */
+	private void release(final IndexEntry entry)
+	{
+		for (final int block : entry.blocks)
+		{
+			freeBlocks[freeCount++] = block;
+		}
+	}
+
+	/**
+	 * Serializes the given session data.
+	 *
+	 * @param data
+	 *            the session data
+	 * @return the serialized session data
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred
+	 */
+	private byte[] serialize(final SessionData data) throws IOException
+	{
+		final ByteArrayOutputStream output = new ByteArrayOutputStream(blockSize);
+		final DataOutputStream out = new DataOutputStream(output);
+		out.writeLong(data.getCreated());
+		out.writeLong(data.getAccessed());
+		out.writeLong(data.getLastAccessed());
+		out.writeLong(data.getMaxInactiveMs());
+		out.writeLong(data.getCookieSet());
+		out.writeLong(data.getExpiry());
+		out.writeLong(data.getLastSaved());
+		out.writeUTF(data.getLastNode() == null ? "" : data.getLastNode());
+		out.flush();
+		try (ObjectOutputStream attributes = new ObjectOutputStream(output))
+		{
+			SessionData.serializeAttributes(data, attributes);
+		}
+		return output.toByteArray();
+	}
+
+	/**
+	 * Writes the given bytes in the blocks of the given entry.
+	 *
+	 * @param entry
+	 *            the entry
+	 * @param bytes
+	 *            the bytes
+	 */
+	private void write(final IndexEntry entry, final byte[] bytes)
+	{
+		int offset = 0;
+		for (final int block : entry.blocks)
+		{
+			final int length = Math.min(blockSize, bytes.length - offset);
+			final ByteBuffer slab = slabs[block / blocksPerSlab];
+			slab.position((block % blocksPerSlab) * blockSize);
+			slab.put(bytes, offset, length);
+			offset += length;
+		}
+	}
+
+	/**
+	 * The entry of the index with the blocks, the length and the expiry of a session.
+	 */
+	private static final class IndexEntry
+	{
+
+		/** The blocks. */
+		private final int[] blocks;
+
+		/** The expiry time or zero or less if the session does not expire. */
+		private final long expiry;
+
+		/** The length in bytes. */
+		private final int length;
+
+		/**
+		 * Instantiates a new {@link IndexEntry}.
+		 *
+		 * @param blocks
+		 *            the blocks
+		 * @param length
+		 *            the length in bytes
+		 * @param expiry
+		 *            the expiry time
+		 */
+		private IndexEntry(final int[] blocks, final int length, final long expiry)
+		{
+			this.blocks = blocks;
+			this.length = length;
+			this.expiry = expiry;
+		}
+
+		/**
+		 * Checks if the session is expired at the given time.
+		 *
+		 * @param now
+		 *            the time
+		 * @return true, if the session is expired
+		 */
+		private boolean isExpired(final long now)
+		{
+			return 0 < expiry && expiry <= now;
+		}
+
+	}
+
+}
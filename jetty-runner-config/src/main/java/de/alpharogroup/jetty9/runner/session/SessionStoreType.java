@@ -0,0 +1,39 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.session;
+
+/**
+ * The enum {@link SessionStoreType} defines where the session data of a context is persisted.
+ */
+public enum SessionStoreType
+{
+
+	/** The sessions are only held in the session cache and are lost on restart. */
+	MEMORY,
+
+	/** The sessions are persisted as files in a store directory. */
+	FILE,
+
+	/** The sessions are persisted in a database table over jdbc. */
+	JDBC,
+
+	/**
+	 * The sessions are held serialized outside of the heap in direct or memory mapped buffers and
+	 * are lost on restart.
+	 */
+	OFF_HEAP
+
+}
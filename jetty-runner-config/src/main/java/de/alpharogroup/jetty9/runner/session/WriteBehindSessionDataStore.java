@@ -0,0 +1,457 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.session;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.eclipse.jetty.server.session.AbstractSessionDataStore;
+import org.eclipse.jetty.server.session.SessionContext;
+import org.eclipse.jetty.server.session.SessionData;
+import org.eclipse.jetty.server.session.SessionDataStore;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link WriteBehindSessionDataStore} is a {@link SessionDataStore} that stores the
+ * sessions asynchronously in a delegate {@link SessionDataStore}, so the request that leaves a
+ * session does not wait for the persistence. A snapshot of the session data is queued per
+ * session id, a newer snapshot replaces a queued one and loads see the queued snapshot before it
+ * is written. If the queue is full the session is stored synchronously. If a write fails, the
+ * next store of the session writes it again also if the session is not changed since. The queue
+ * is flushed when the store is stopped.
+ * <p>
+ * Note: the snapshot copies the attribute map, the attribute values are serialized when the
+ * snapshot is written. A value that is changed in the meantime is written in its newer state.
+ * </p>
+ */
+@ManagedObject("Asynchronous session data store")
+@Log
+public class WriteBehindSessionDataStore extends ContainerLifeCycle implements SessionDataStore
+{
+
+	/** The delegate store. */
+	private final SessionDataStore delegate;
+
+	/** The session ids whose last write failed, their next store is written in any case. */
+	private final Set<String> failed = ConcurrentHashMap.newKeySet();
+
+	/** The flush timeout in milliseconds. */
+	private final long flushTimeout;
+
+	/** The queued snapshots per session id. */
+	private final ConcurrentMap<String, SessionData> pending = new ConcurrentHashMap<>();
+
+	/** The capacity of the write queue. */
+	private final int queueCapacity;
+
+	/** The number of synchronous stores because the queue was full. */
+	private final AtomicLong synchronousStores = new AtomicLong();
+
+	/** The number of writer threads. */
+	private final int threads;
+
+	/** The session ids whose first write failed, their next snapshot is inserted again. */
+	private final Set<String> unsaved = ConcurrentHashMap.newKeySet();
+
+	/** The number of failed writes. */
+	private final AtomicLong writeFailures = new AtomicLong();
+
+	/** The executor of the writer threads. */
+	private volatile ThreadPoolExecutor executor;
+
+	/**
+	 * Instantiates a new {@link WriteBehindSessionDataStore}.
+	 *
+	 * @param delegate
+	 *            the delegate store
+	 * @param threads
+	 *            the number of writer threads
+	 * @param queueCapacity
+	 *            the capacity of the write queue
+	 * @param flushTimeout
+	 *            the timeout in milliseconds for flushing the queue on stop
+	 */
+	public WriteBehindSessionDataStore(final SessionDataStore delegate, final int threads,
+		final int queueCapacity, final long flushTimeout)
+	{
+		this.delegate = delegate;
+		this.threads = Math.max(1, threads);
+		this.queueCapacity = Math.max(1, queueCapacity);
+		this.flushTimeout = flushTimeout;
+		addBean(delegate, true);
+	}
+
+	/**
+	 * Checks if the given session data has to be saved, that is the same rule as in jetty's
+	 * {@link AbstractSessionDataStore}.
+	 *
+	 * @param data
+	 *            the session data
+	 * @return true, if the session data has to be saved
+	 */
+	private boolean isSaveRequired(final SessionData data)
+	{
+		final long lastSave = data.getLastSaved();
+		final long savePeriod = delegate instanceof AbstractSessionDataStore
+			? TimeUnit.SECONDS.toMillis(
+				Math.max(0, ((AbstractSessionDataStore)delegate).getSavePeriodSec()))
+			: 0;
+		return data.isDirty() || lastSave <= 0
+			|| savePeriod < System.currentTimeMillis() - lastSave;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean delete(final String id) throws Exception
+	{
+		pending.remove(id);
+		failed.remove(id);
+		unsaved.remove(id);
+		return delegate.delete(id);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doStart() throws Exception
+	{
+		final AtomicInteger counter = new AtomicInteger();
+		executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+			new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+				final Thread thread = new Thread(runnable,
+					"session-write-behind-" + counter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		super.doStart();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doStop() throws Exception
+	{
+		final ThreadPoolExecutor current = executor;
+		if (current != null)
+		{
+			current.shutdown();
+			if (!current.awaitTermination(flushTimeout, TimeUnit.MILLISECONDS))
+			{
+				log.warning(pending.size() + " sessions could not be written before stop.");
+				current.shutdownNow();
+			}
+			executor = null;
+		}
+		super.doStop();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean exists(final String id) throws Exception
+	{
+		return pending.containsKey(id) || delegate.exists(id);
+	}
+
+	/**
+	 * Gets the delegate store.
+	 *
+	 * @return the delegate store
+	 */
+	public SessionDataStore getDelegate()
+	{
+		return delegate;
+	}
+
+	/**
+	 * {@inheritDoc} The queued snapshots take precedence over the delegate store, that does not
+	 * know the sessions or their last access times that are not written yet.
+	 */
+	@Override
+	public Set<String> getExpired(final Set<String> candidates)
+	{
+		final Set<String> expired = new HashSet<>(delegate.getExpired(candidates));
+		final long now = System.currentTimeMillis();
+		for (final SessionData queued : pending.values())
+		{
+			if (queued.isExpiredAt(now))
+			{
+				expired.add(queued.getId());
+			}
+			else
+			{
+				expired.remove(queued.getId());
+			}
+		}
+		return expired;
+	}
+
+	/**
+	 * Gets the number of queued sessions.
+	 *
+	 * @return the number of queued sessions
+	 */
+	@ManagedAttribute("The number of queued sessions")
+	public int getPending()
+	{
+		return pending.size();
+	}
+
+	/**
+	 * Gets the number of synchronous stores because the queue was full.
+	 *
+	 * @return the number of synchronous stores
+	 */
+	@ManagedAttribute("The number of synchronous stores because the queue was full")
+	public long getSynchronousStores()
+	{
+		return synchronousStores.get();
+	}
+
+	/**
+	 * Gets the number of failed writes.
+	 *
+	 * @return the number of failed writes
+	 */
+	@ManagedAttribute("The number of failed writes")
+	public long getWriteFailures()
+	{
+		return writeFailures.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void initialize(final SessionContext context) throws Exception
+	{
+		delegate.initialize(context);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isPassivating()
+	{
+		return delegate.isPassivating();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public SessionData load(final String id) throws Exception
+	{
+		final SessionData queued = pending.get(id);
+		if (queued != null)
+		{
+			// a copy, so the caller can not change the snapshot that is written
+			final SessionData snapshot = snapshot(queued);
+			snapshot.setDirty(false);
+			return snapshot;
+		}
+		return delegate.load(id);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public SessionData newSessionData(final String id, final long created, final long accessed,
+		final long lastAccessed, final long maxInactiveMs)
+	{
+		return delegate.newSessionData(id, created, accessed, lastAccessed, maxInactiveMs);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void store(final String id, final SessionData data) throws Exception
+	{
+		if (data == null)
+		{
+			return;
+		}
+		// a session whose last write failed is written again, also if it is not dirty
+		final boolean retry = failed.remove(id);
+		if (!retry && !isSaveRequired(data))
+		{
+			return;
+		}
+		final SessionData snapshot = snapshot(data);
+		final ThreadPoolExecutor current = executor;
+		if (current == null)
+		{
+			if (unsaved.remove(id))
+			{
+				snapshot.setLastSaved(0);
+			}
+			try
+			{
+				delegate.store(id, snapshot);
+			}
+			catch (final Exception e)
+			{
+				failed.add(id);
+				if (snapshot.getLastSaved() <= 0)
+				{
+					unsaved.add(id);
+				}
+				throw e;
+			}
+			data.setLastSaved(System.currentTimeMillis());
+			data.setDirty(false);
+			return;
+		}
+		data.setLastSaved(System.currentTimeMillis());
+		data.setDirty(false);
+		final boolean[] queued = new boolean[1];
+		pending.compute(id, (key, previous) -> {
+			if (previous == null && unsaved.remove(id))
+			{
+				// the first write failed, so the session is inserted with this snapshot
+				snapshot.setLastSaved(0);
+			}
+			if (previous != null)
+			{
+				// keep the earliest last saved time, so a queued first snapshot that is not
+				// saved yet is still inserted and not updated
+				snapshot.setLastSaved(Math.min(previous.getLastSaved(), snapshot.getLastSaved()));
+				queued[0] = true;
+			}
+			return snapshot;
+		});
+		if (queued[0])
+		{
+			// a write for this session id is already queued and picks up the new snapshot
+			return;
+		}
+		try
+		{
+			current.execute(() -> write(id));
+		}
+		catch (final RejectedExecutionException e)
+		{
+			synchronousStores.incrementAndGet();
+			write(id);
+		}
+	}
+
+	/**
+	 * Factory method for creating a dirty copy of the given {@link SessionData}.
+	 *
+	 * @param data
+	 *            the session data
+	 * @return the copy
+	 */
+	private static SessionData snapshot(final SessionData data)
+	{
+		final SessionData snapshot = new SessionData(data.getId(), data.getContextPath(),
+			data.getVhost(), data.getCreated(), data.getAccessed(), data.getLastAccessed(),
+			data.getMaxInactiveMs());
+		snapshot.copy(data);
+		snapshot.setDirty(true);
+		return snapshot;
+	}
+
+	/**
+	 * Stores the given {@link SessionData} in the delegate store and counts and logs a failure.
+	 *
+	 * @param id
+	 *            the session id
+	 * @param data
+	 *            the session data
+	 * @return true, if the session data is stored
+	 */
+	private boolean tryStore(final String id, final SessionData data)
+	{
+		try
+		{
+			delegate.store(id, data);
+			return true;
+		}
+		catch (final Exception e)
+		{
+			writeFailures.incrementAndGet();
+			log.log(Level.WARNING, "session " + id + " could not be stored.", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the queued snapshots of the given session id to the delegate store. A copy of the
+	 * queued snapshot is stored, so the last saved time of the queued snapshot is not changed
+	 * from the delegate while a newer snapshot replaces it. If the copy is stored, a newer
+	 * snapshot that was never saved is updated and not inserted again. If the write of the last
+	 * snapshot fails, the next store of the session is written in any case and if it was the first
+	 * write of the session, the next snapshot is inserted.
+	 *
+	 * @param id
+	 *            the session id
+	 */
+	private void write(final String id)
+	{
+		SessionData snapshot = pending.get(id);
+		while (snapshot != null)
+		{
+			final SessionData written = snapshot;
+			final SessionData stored = snapshot(written);
+			final boolean saved = tryStore(id, stored);
+			final boolean insertFailed = !saved && written.getLastSaved() <= 0;
+			final boolean rowSaved = saved && 0 < stored.getLastSaved();
+			snapshot = pending.computeIfPresent(id, (key, next) -> {
+				if (next == written)
+				{
+					if (!saved)
+					{
+						failed.add(id);
+					}
+					if (insertFailed)
+					{
+						unsaved.add(id);
+					}
+					return null;
+				}
+				if (rowSaved && next.getLastSaved() <= 0)
+				{
+					next.setLastSaved(stored.getLastSaved());
+				}
+				return next;
+			});
+		}
+	}
+
+}
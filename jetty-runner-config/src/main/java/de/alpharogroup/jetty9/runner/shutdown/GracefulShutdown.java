@@ -0,0 +1,275 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.shutdown;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.StatisticsHandler;
+
+import de.alpharogroup.jetty9.runner.config.ShutdownConfiguration;
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link GracefulShutdown} stops a {@link Server} in the order stop accepting, finish the
+ * requests in flight and then stop. The requests in flight are counted from the
+ * {@link StatisticsHandler} of the server, without it the server is stopped after the connectors
+ * are shut down. Registered as shutdown hook the sequence runs on SIGTERM.
+ */
+@Log
+public class GracefulShutdown implements Runnable
+{
+
+	/** The configuration. */
+	private final ShutdownConfiguration configuration;
+
+	/** The registered shutdown hook or null if none is registered. */
+	private volatile Thread hook;
+
+	/** The result of the shutdown sequence, completed when the server is stopped. */
+	private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+	/** The server. */
+	private final Server server;
+
+	/** The flag if the shutdown is already triggered. */
+	private final AtomicBoolean triggered = new AtomicBoolean();
+
+	/**
+	 * Instantiates a new {@link GracefulShutdown}.
+	 *
+	 * @param server
+	 *            the server
+	 * @param configuration
+	 *            the configuration
+	 */
+	public GracefulShutdown(final Server server, final ShutdownConfiguration configuration)
+	{
+		this.server = server;
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Factory method for create a new {@link GracefulShutdown} for the given {@link Server}. The
+	 * stop timeout of the server is set from the given {@link ShutdownConfiguration} and if
+	 * configured a shutdown hook is registered.
+	 *
+	 * @param server
+	 *            the server
+	 * @param configuration
+	 *            the configuration
+	 * @return the new {@link GracefulShutdown}.
+	 */
+	public static GracefulShutdown install(final Server server,
+		final ShutdownConfiguration configuration)
+	{
+		final GracefulShutdown gracefulShutdown = new GracefulShutdown(server, configuration);
+		server.setStopTimeout(configuration.getStopTimeout());
+		server.setStopAtShutdown(false);
+		if (configuration.isShutdownHook())
+		{
+			final Thread hook = new Thread(gracefulShutdown, "jetty-graceful-shutdown");
+			Runtime.getRuntime().addShutdownHook(hook);
+			gracefulShutdown.hook = hook;
+		}
+		return gracefulShutdown;
+	}
+
+	/**
+	 * Waits for the given {@link Future} until the given deadline.
+	 *
+	 * @param future
+	 *            the future
+	 * @param deadline
+	 *            the deadline in nanoseconds
+	 * @return true, if the future is done before the deadline
+	 * @throws InterruptedException
+	 *             if the current thread was interrupted
+	 */
+	private static boolean await(final Future<Void> future, final long deadline)
+		throws InterruptedException
+	{
+		try
+		{
+			future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			return true;
+		}
+		catch (final ExecutionException e)
+		{
+			log.log(Level.FINE, "graceful shutdown failed.", e);
+			return true;
+		}
+		catch (final TimeoutException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Checks if the shutdown is already triggered.
+	 *
+	 * @return true, if the shutdown is already triggered
+	 */
+	public boolean isTriggered()
+	{
+		return triggered.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void run()
+	{
+		shutdown();
+	}
+
+	/**
+	 * Removes the registered shutdown hook if the shutdown is not triggered from the hook itself,
+	 * so a server that is stopped in a running jvm is not referenced from the hook anymore.
+	 */
+	private void removeHook()
+	{
+		final Thread registered = hook;
+		if (registered == null || registered == Thread.currentThread())
+		{
+			return;
+		}
+		try
+		{
+			Runtime.getRuntime().removeShutdownHook(registered);
+		}
+		catch (final IllegalStateException e)
+		{
+			// the jvm is already shutting down
+		}
+	}
+
+	/**
+	 * Shuts the server gracefully down. Only the first call runs the sequence, further calls
+	 * wait until the first call is finished and return its result. A running server is drained
+	 * before it is stopped, a server that is not running but not stopped either, for instance
+	 * because its start failed, is stopped directly so its thread pool and bound connectors are
+	 * released.
+	 *
+	 * @return true, if all requests in flight are finished before the server was stopped
+	 */
+	public boolean shutdown()
+	{
+		if (!triggered.compareAndSet(false, true))
+		{
+			return result.join();
+		}
+		boolean drained = true;
+		try
+		{
+			removeHook();
+			if (server.isRunning())
+			{
+				drained = drainAndStop();
+			}
+			else if (!server.isStopped())
+			{
+				stop(server);
+			}
+		}
+		finally
+		{
+			result.complete(drained);
+		}
+		return drained;
+	}
+
+	/**
+	 * Runs the shutdown sequence of stop accepting, finish the requests in flight and stop. The
+	 * stop timeout of the server is reduced to the rest of the deadline, so a server that is not
+	 * drained in time is not waited for a second time on stop.
+	 *
+	 * @return true, if all requests in flight are finished before the server was stopped
+	 */
+	private boolean drainAndStop()
+	{
+		final long start = System.nanoTime();
+		boolean drained = true;
+		long deadline = start;
+		try
+		{
+			if (0 < configuration.getDrainDelay())
+			{
+				log.info("Graceful shutdown triggered, accepting for further "
+					+ configuration.getDrainDelay() + " ms.");
+				Thread.sleep(configuration.getDrainDelay());
+			}
+			deadline = System.nanoTime()
+				+ TimeUnit.MILLISECONDS.toNanos(configuration.getStopTimeout());
+			for (final Connector connector : server.getConnectors())
+			{
+				connector.shutdown();
+			}
+			final StatisticsHandler statisticsHandler = server
+				.getChildHandlerByClass(StatisticsHandler.class);
+			if (statisticsHandler != null)
+			{
+				log.info("Waiting for " + statisticsHandler.getRequestsActive()
+					+ " requests in flight.");
+				drained = await(statisticsHandler.shutdown(), deadline);
+				if (!drained)
+				{
+					log.warning("Stop timeout expired, " + statisticsHandler.getRequestsActive()
+						+ " requests in flight will be cut.");
+				}
+			}
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			drained = false;
+		}
+		server.setStopTimeout(drained
+			? TimeUnit.NANOSECONDS.toMillis(Math.max(0, deadline - System.nanoTime()))
+			: 0);
+		stop(server);
+		log.info("Server stopped in "
+			+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+		return drained;
+	}
+
+	/**
+	 * Stops the given {@link Server} and logs a failure.
+	 *
+	 * @param server
+	 *            the server
+	 */
+	public static void stop(final Server server)
+	{
+		try
+		{
+			server.stop();
+		}
+		catch (final Exception e)
+		{
+			log.log(Level.SEVERE, "jetty server could not be stopped.", e);
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.ssl;
+
+import java.util.Comparator;
+
+/**
+ * The class {@link CipherSuiteComparator} orders the cipher suites so that the AEAD cipher suites
+ * that profit from AES-NI and carry-less multiplication come first. The order is TLS 1.3 suites,
+ * ECDHE with AES-GCM, ECDHE with ChaCha20, DHE with AES-GCM, other AES-GCM suites and then the
+ * rest. Cipher suites in the same group keep the order of the provider. An optional primary
+ * comparator, for instance the HTTP/2 cipher blacklist comparator, takes precedence.
+ */
+public class CipherSuiteComparator implements Comparator<String>
+{
+
+	/** The primary comparator or null. */
+	private final Comparator<String> primary;
+
+	/**
+	 * Instantiates a new {@link CipherSuiteComparator}.
+	 */
+	public CipherSuiteComparator()
+	{
+		this(null);
+	}
+
+	/**
+	 * Instantiates a new {@link CipherSuiteComparator} with the given primary comparator.
+	 *
+	 * @param primary
+	 *            the primary comparator or null
+	 */
+	public CipherSuiteComparator(final Comparator<String> primary)
+	{
+		this.primary = primary;
+	}
+
+	/**
+	 * Gets the rank of the given cipher suite, a lower rank is preferred.
+	 *
+	 * @param cipherSuite
+	 *            the cipher suite
+	 * @return the rank
+	 */
+	static int rank(final String cipherSuite)
+	{
+		if (cipherSuite.startsWith("TLS_AES_") || cipherSuite.startsWith("TLS_CHACHA20_"))
+		{
+			return 0;
+		}
+		final boolean gcm = cipherSuite.contains("_GCM_");
+		if (cipherSuite.startsWith("TLS_ECDHE_"))
+		{
+			if (gcm)
+			{
+				return 1;
+			}
+			if (cipherSuite.contains("_CHACHA20_"))
+			{
+				return 2;
+			}
+		}
+		if (gcm)
+		{
+			return cipherSuite.startsWith("TLS_DHE_") ? 3 : 4;
+		}
+		return 5;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int compare(final String first, final String second)
+	{
+		if (primary != null)
+		{
+			final int result = primary.compare(first, second);
+			if (result != 0)
+			{
+				return result;
+			}
+		}
+		return Integer.compare(rank(first), rank(second));
+	}
+
+	/**
+	 * Factory method for create a new {@link CipherSuiteComparator} with the given primary
+	 * comparator instead of the primary comparator of this instance.
+	 *
+	 * @param primary
+	 *            the primary comparator
+	 * @return the new {@link CipherSuiteComparator}.
+	 */
+	public CipherSuiteComparator withPrimary(final Comparator<String> primary)
+	{
+		return new CipherSuiteComparator(primary);
+	}
+
+}
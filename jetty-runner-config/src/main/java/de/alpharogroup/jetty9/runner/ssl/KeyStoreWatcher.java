@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.ssl;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.eclipse.jetty.util.PathWatcher;
+import org.eclipse.jetty.util.PathWatcher.PathWatchEvent;
+import org.eclipse.jetty.util.PathWatcher.PathWatchEventType;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link KeyStoreWatcher} watches the key store file of a {@link SslContextFactory} and
+ * reloads the {@link SslContextFactory} in place if the file has changed and no further change
+ * occurred in the quiet time. The connectors are not restarted, so open connections are kept,
+ * only new handshakes use the new certificate. If the reload fails the former key store stays in
+ * use. Add it as bean to the server so it is started and stopped with the server.
+ */
+@ManagedObject("Reloads the key store of a SslContextFactory on changes")
+@Log
+public class KeyStoreWatcher extends AbstractLifeCycle implements PathWatcher.Listener
+{
+
+	/** The key store file. */
+	private final Path keyStorePath;
+
+	/** The quiet time in milliseconds. */
+	private final long quietTime;
+
+	/** The number of successful reloads. */
+	private final AtomicLong reloads = new AtomicLong();
+
+	/** The ssl context factory. */
+	private final SslContextFactory sslContextFactory;
+
+	/** The path watcher. */
+	private PathWatcher pathWatcher;
+
+	/**
+	 * Instantiates a new {@link KeyStoreWatcher}.
+	 *
+	 * @param sslContextFactory
+	 *            the ssl context factory
+	 * @param keyStoreFile
+	 *            the key store file
+	 * @param quietTime
+	 *            the quiet time in milliseconds
+	 */
+	public KeyStoreWatcher(final SslContextFactory sslContextFactory, final File keyStoreFile,
+		final long quietTime)
+	{
+		this.sslContextFactory = sslContextFactory;
+		this.keyStorePath = keyStoreFile.toPath().toAbsolutePath().normalize();
+		this.quietTime = quietTime;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doStart() throws Exception
+	{
+		pathWatcher = new PathWatcher();
+		pathWatcher.setNotifyExistingOnStart(false);
+		pathWatcher.setUpdateQuietTime(quietTime, TimeUnit.MILLISECONDS);
+		pathWatcher.watch(keyStorePath);
+		pathWatcher.addListener(this);
+		pathWatcher.start();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doStop() throws Exception
+	{
+		if (pathWatcher != null)
+		{
+			pathWatcher.stop();
+			pathWatcher = null;
+		}
+	}
+
+	/**
+	 * Gets the key store file.
+	 *
+	 * @return the key store file
+	 */
+	@ManagedAttribute("The watched key store file")
+	public String getKeyStoreFile()
+	{
+		return keyStorePath.toString();
+	}
+
+	/**
+	 * Gets the number of successful reloads.
+	 *
+	 * @return the number of reloads
+	 */
+	@ManagedAttribute("The number of successful reloads")
+	public long getReloads()
+	{
+		return reloads.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onPathWatchEvent(final PathWatchEvent event)
+	{
+		if (event.getType() != PathWatchEventType.DELETED
+			&& keyStorePath.equals(event.getPath().toAbsolutePath().normalize()))
+		{
+			reload();
+		}
+	}
+
+	/**
+	 * Reloads the {@link SslContextFactory} from the key store file.
+	 *
+	 * @return true, if the reload was successful
+	 */
+	@ManagedOperation(value = "Reloads the key store", impact = "ACTION")
+	public boolean reload()
+	{
+		try
+		{
+			sslContextFactory.reload(factory -> {
+			});
+			reloads.incrementAndGet();
+			log.info("Key store " + keyStorePath + " reloaded.");
+			return true;
+		}
+		catch (final Exception e)
+		{
+			log.log(Level.SEVERE,
+				"Key store " + keyStorePath + " could not be reloaded, the former is kept.", e);
+			return false;
+		}
+	}
+
+}
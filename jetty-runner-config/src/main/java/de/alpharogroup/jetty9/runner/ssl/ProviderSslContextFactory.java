@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.ssl;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+
+import javax.net.ssl.SSLContext;
+
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+/**
+ * The class {@link ProviderSslContextFactory} is a {@link SslContextFactory} that creates its
+ * {@link SSLContext} from the given security provider instance, for instance the provider of
+ * Conscrypt. Unlike {@link SslContextFactory#setProvider(String)} the provider does not have to be
+ * registered with {@link java.security.Security#addProvider(Provider)}, so the provider list of
+ * the jvm is not changed and only this factory uses the provider.
+ */
+public class ProviderSslContextFactory extends SslContextFactory
+{
+
+	/** The security provider. */
+	private final Provider securityProvider;
+
+	/**
+	 * Instantiates a new {@link ProviderSslContextFactory}.
+	 *
+	 * @param securityProvider
+	 *            the security provider
+	 */
+	public ProviderSslContextFactory(final Provider securityProvider)
+	{
+		this.securityProvider = securityProvider;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected SSLContext getSSLContextInstance() throws NoSuchAlgorithmException
+	{
+		return SSLContext.getInstance(getProtocol(), securityProvider);
+	}
+
+	/**
+	 * Gets the security provider.
+	 *
+	 * @return the security provider
+	 */
+	public Provider getSecurityProvider()
+	{
+		return securityProvider;
+	}
+
+}
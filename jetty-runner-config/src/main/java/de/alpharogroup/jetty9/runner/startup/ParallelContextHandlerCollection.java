@@ -0,0 +1,218 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.startup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.eclipse.jetty.util.MultiException;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link ParallelContextHandlerCollection} is a {@link ContextHandlerCollection} that
+ * starts its contexts concurrently, so the start time of many small applications is bounded by
+ * the slowest context instead of the sum of all contexts. The requests are routed over the context
+ * path index of the {@link ContextHandlerCollection}, so the routing cost does not grow with the
+ * number of contexts. The start time of every context is recorded.
+ */
+@ManagedObject("Context handler collection that starts its contexts concurrently")
+@Log
+public class ParallelContextHandlerCollection extends ContextHandlerCollection
+{
+
+	/** The start times in milliseconds per context path in the order the contexts started. */
+	private final Map<String, Long> startTimes = Collections.synchronizedMap(new LinkedHashMap<>());
+
+	/** The number of threads that start the contexts. */
+	private final int threads;
+
+	/**
+	 * Instantiates a new {@link ParallelContextHandlerCollection}.
+	 *
+	 * @param threads
+	 *            the number of threads that start the contexts, zero or a negative value takes the
+	 *            number of available processors
+	 */
+	public ParallelContextHandlerCollection(final int threads)
+	{
+		this.threads = 0 < threads ? threads : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Gets the context path of the given context for the start times.
+	 *
+	 * @param context
+	 *            the context
+	 * @return the context path
+	 */
+	private static String getContextPath(final ContextHandler context)
+	{
+		return StringUtils.isEmpty(context.getContextPath()) ? "/" : context.getContextPath();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doStart() throws Exception
+	{
+		final List<ContextHandler> contexts = new ArrayList<>();
+		final Handler[] handlers = getHandlers();
+		if (handlers != null)
+		{
+			for (final Handler handler : handlers)
+			{
+				if (handler instanceof ContextHandler && !handler.isRunning())
+				{
+					contexts.add((ContextHandler)handler);
+				}
+			}
+		}
+		if (1 < contexts.size() && 1 < threads)
+		{
+			startContexts(contexts);
+		}
+		else
+		{
+			for (final ContextHandler context : contexts)
+			{
+				startContext(context);
+			}
+		}
+		// the contexts that are started are skipped, the remaining handlers are started in order
+		super.doStart();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doStop() throws Exception
+	{
+		super.doStop();
+		startTimes.clear();
+	}
+
+	/**
+	 * Gets the start times in milliseconds per context path in the order the contexts started.
+	 *
+	 * @return the start times
+	 */
+	@ManagedAttribute("The start times in milliseconds per context path")
+	public Map<String, Long> getStartTimes()
+	{
+		synchronized (startTimes)
+		{
+			return Collections.unmodifiableMap(new LinkedHashMap<>(startTimes));
+		}
+	}
+
+	/**
+	 * Gets the number of threads that start the contexts.
+	 *
+	 * @return the number of threads
+	 */
+	@ManagedAttribute("The number of threads that start the contexts")
+	public int getThreads()
+	{
+		return threads;
+	}
+
+	/**
+	 * Starts the given context in the current thread and records its start time.
+	 *
+	 * @param context
+	 *            the context
+	 * @throws Exception
+	 *             if the context could not be started
+	 */
+	private void startContext(final ContextHandler context) throws Exception
+	{
+		final long start = System.nanoTime();
+		start(context);
+		startTimes.put(getContextPath(context),
+			TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	/**
+	 * Starts the given contexts concurrently and waits until all are started.
+	 *
+	 * @param contexts
+	 *            the contexts
+	 * @throws Exception
+	 *             if a context could not be started
+	 */
+	private void startContexts(final List<ContextHandler> contexts) throws Exception
+	{
+		final long start = System.nanoTime();
+		final AtomicInteger threadCount = new AtomicInteger();
+		final ExecutorService executor = Executors
+			.newFixedThreadPool(Math.min(threads, contexts.size()), runnable -> {
+				final Thread thread = new Thread(runnable,
+					"context-start-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		final List<Future<?>> futures = new ArrayList<>(contexts.size());
+		try
+		{
+			for (final ContextHandler context : contexts)
+			{
+				futures.add(executor.submit(() -> {
+					startContext(context);
+					return null;
+				}));
+			}
+			final MultiException failures = new MultiException();
+			for (final Future<?> future : futures)
+			{
+				try
+				{
+					future.get();
+				}
+				catch (final ExecutionException e)
+				{
+					failures.add(e.getCause());
+				}
+			}
+			failures.ifExceptionThrow();
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		log.info("Started " + contexts.size() + " contexts with "
+			+ Math.min(threads, contexts.size()) + " threads in "
+			+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+	}
+
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.startup;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jetty.deploy.DeploymentManager;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.NetworkConnector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.util.component.AbstractLifeCycle.AbstractLifeCycleListener;
+import org.eclipse.jetty.util.component.Container;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link StartupProfiler} measures the start of a {@link Server} per phase, that is the
+ * thread pool, the deployment manager, every context including the deployed webapps and every
+ * connector, and logs the breakdown when the server is started. It is registered as inherited
+ * container listener so it follows the beans that are added while the server is starting.
+ */
+@Log
+public class StartupProfiler extends AbstractLifeCycleListener
+	implements Container.InheritedListener
+{
+
+	/** The durations in milliseconds of the finished phases in the order they finished. */
+	private final Map<String, Long> phases = new LinkedHashMap<>();
+
+	/** The start time in nanoseconds of the starting components. */
+	private final Map<LifeCycle, Long> starting = new ConcurrentHashMap<>();
+
+	/**
+	 * Factory method for create a new {@link StartupProfiler} that is registered on the given
+	 * {@link Server}.
+	 *
+	 * @param server
+	 *            the server
+	 * @return the new {@link StartupProfiler}.
+	 */
+	public static StartupProfiler install(final Server server)
+	{
+		final StartupProfiler startupProfiler = new StartupProfiler();
+		server.addLifeCycleListener(startupProfiler);
+		server.addEventListener(startupProfiler);
+		return startupProfiler;
+	}
+
+	/**
+	 * Gets the phase name of the given component or null if the component is not profiled.
+	 *
+	 * @param component
+	 *            the component
+	 * @return the phase name
+	 */
+	private static String getPhase(final LifeCycle component)
+	{
+		if (component instanceof Server)
+		{
+			return "server";
+		}
+		if (component instanceof ThreadPool)
+		{
+			return "thread pool";
+		}
+		if (component instanceof DeploymentManager)
+		{
+			return "deployment manager";
+		}
+		if (component instanceof ContextHandler)
+		{
+			final String contextPath = ((ContextHandler)component).getContextPath();
+			return "context " + (StringUtils.isEmpty(contextPath) ? "/" : contextPath);
+		}
+		if (component instanceof NetworkConnector)
+		{
+			final NetworkConnector connector = (NetworkConnector)component;
+			return "connector " + connector.getProtocols() + " on port "
+				+ connector.getLocalPort();
+		}
+		if (component instanceof Connector)
+		{
+			return "connector " + ((Connector)component).getProtocols();
+		}
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void beanAdded(final Container parent, final Object child)
+	{
+		if (child instanceof LifeCycle && getPhase((LifeCycle)child) != null)
+		{
+			((LifeCycle)child).addLifeCycleListener(this);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void beanRemoved(final Container parent, final Object child)
+	{
+		if (child instanceof LifeCycle)
+		{
+			((LifeCycle)child).removeLifeCycleListener(this);
+		}
+	}
+
+	/**
+	 * Gets the durations in milliseconds of the finished phases in the order they finished.
+	 *
+	 * @return the phases
+	 */
+	public Map<String, Long> getPhases()
+	{
+		synchronized (phases)
+		{
+			return Collections.unmodifiableMap(new LinkedHashMap<>(phases));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void lifeCycleStarted(final LifeCycle event)
+	{
+		final Long start = starting.remove(event);
+		final String phase = getPhase(event);
+		if (start == null || phase == null)
+		{
+			return;
+		}
+		final long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		synchronized (phases)
+		{
+			String key = phase;
+			for (int i = 2; phases.containsKey(key); i++)
+			{
+				key = phase + " #" + i;
+			}
+			phases.put(key, duration);
+		}
+		if (event instanceof Server)
+		{
+			log.info(toString());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void lifeCycleStarting(final LifeCycle event)
+	{
+		starting.put(event, System.nanoTime());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		final StringBuilder builder = new StringBuilder("Startup time per phase:");
+		for (final Map.Entry<String, Long> entry : getPhases().entrySet())
+		{
+			builder.append("\n  ").append(entry.getKey()).append(": ").append(entry.getValue())
+				.append(" ms");
+		}
+		return builder.toString();
+	}
+
+}
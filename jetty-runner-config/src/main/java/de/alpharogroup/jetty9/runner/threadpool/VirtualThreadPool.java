@@ -0,0 +1,212 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.threadpool;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+/**
+ * The class {@link VirtualThreadPool} is a jetty {@link ThreadPool} that runs every job in a new
+ * virtual thread. The virtual thread api is resolved over reflection so this class can be
+ * compiled and loaded on jdks without virtual threads, use {@link #isSupported()} before creating
+ * an instance.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool
+{
+
+	/** The active threads. */
+	private final AtomicInteger activeThreads = new AtomicInteger();
+
+	/** The executor service. */
+	private volatile ExecutorService executorService;
+
+	/** The name prefix of the created threads. */
+	private final String name;
+
+	/**
+	 * Instantiates a new {@link VirtualThreadPool}.
+	 *
+	 * @param name
+	 *            the name prefix of the created threads
+	 */
+	public VirtualThreadPool(final String name)
+	{
+		this.name = name != null ? name : "vtp" + hashCode();
+	}
+
+	/**
+	 * Checks if the running jdk supports virtual threads.
+	 *
+	 * @return true, if virtual threads are supported
+	 */
+	public static boolean isSupported()
+	{
+		try
+		{
+			Thread.class.getMethod("ofVirtual");
+			return true;
+		}
+		catch (final NoSuchMethodException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Factory method for creating a new virtual thread per task {@link ExecutorService} over
+	 * reflection.
+	 *
+	 * @param name
+	 *            the name prefix of the created threads
+	 * @return the new {@link ExecutorService}
+	 * @throws Exception
+	 *             is thrown if the virtual thread api is not available
+	 */
+	private static ExecutorService newVirtualThreadPerTaskExecutor(final String name)
+		throws Exception
+	{
+		final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+		final Class<?> ofVirtualClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+		final Object namedBuilder = ofVirtualClass
+			.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+		final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+		final ThreadFactory threadFactory = (ThreadFactory)builderClass.getMethod("factory")
+			.invoke(namedBuilder);
+		final Method newThreadPerTaskExecutor = Executors.class
+			.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+		return (ExecutorService)newThreadPerTaskExecutor.invoke(null, threadFactory);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doStart() throws Exception
+	{
+		executorService = newVirtualThreadPerTaskExecutor(name);
+		super.doStart();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doStop() throws Exception
+	{
+		super.doStop();
+		final ExecutorService executor = executorService;
+		if (executor != null)
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void execute(final Runnable job)
+	{
+		final ExecutorService executor = executorService;
+		if (executor == null)
+		{
+			throw new RejectedExecutionException(name + " is not started");
+		}
+		executor.execute(() -> {
+			activeThreads.incrementAndGet();
+			try
+			{
+				job.run();
+			}
+			finally
+			{
+				activeThreads.decrementAndGet();
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getIdleThreads()
+	{
+		return 0;
+	}
+
+	/**
+	 * Gets the name prefix of the created threads.
+	 *
+	 * @return the name prefix of the created threads
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getThreads()
+	{
+		return activeThreads.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isLowOnThreads()
+	{
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void join() throws InterruptedException
+	{
+		final ExecutorService executor = executorService;
+		if (executor != null)
+		{
+			while (!executor.awaitTermination(1, TimeUnit.MINUTES))
+			{
+				// wait until the executor service is terminated
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("%s[%s]@%x{%s,active=%d}", getClass().getSimpleName(), name,
+			hashCode(), getState(), getThreads());
+	}
+
+}
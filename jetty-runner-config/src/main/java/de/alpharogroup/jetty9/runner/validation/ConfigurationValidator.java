@@ -0,0 +1,367 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import de.alpharogroup.jetty9.runner.config.ByteBufferPoolConfiguration;
+import de.alpharogroup.jetty9.runner.config.CompressionConfiguration;
+import de.alpharogroup.jetty9.runner.config.Jetty9RunConfiguration;
+import de.alpharogroup.jetty9.runner.config.PerformanceProfile;
+import de.alpharogroup.jetty9.runner.config.ServerConnectorConfiguration;
+import de.alpharogroup.jetty9.runner.config.ServletContextHandlerConfiguration;
+import de.alpharogroup.jetty9.runner.config.StartConfig;
+import de.alpharogroup.jetty9.runner.config.ThreadPoolConfiguration;
+import lombok.experimental.UtilityClass;
+
+/**
+ * The class {@link ConfigurationValidator} checks the value ranges of the configuration classes
+ * and returns the violations with the property path, so all errors of a configuration can be
+ * reported at once before the server is built.
+ */
+@UtilityClass
+public class ConfigurationValidator
+{
+
+	/** The highest valid port. */
+	private static final int MAX_PORT = 65535;
+
+	/**
+	 * Validates the given {@link Jetty9RunConfiguration}.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @return the violations, empty if the configuration is valid
+	 */
+	public static List<String> validate(final Jetty9RunConfiguration configuration)
+	{
+		final List<String> violations = new ArrayList<>();
+		validatePort(violations, "httpPort", configuration.getHttpPort());
+		validatePort(violations, "httpsPort", configuration.getHttpsPort());
+		if (configuration.getContextStartThreads() < 0)
+		{
+			violations.add("contextStartThreads must not be negative");
+		}
+		validate(violations, "serverConnectorConfiguration.",
+			configuration.getServerConnectorConfiguration());
+		validate(violations, "threadPoolConfiguration.",
+			configuration.getThreadPoolConfiguration());
+		validate(violations, "compressionConfiguration.",
+			configuration.getCompressionConfiguration());
+		if (configuration.getPerformanceProfile() != null)
+		{
+			validate(violations, "performanceProfile.", configuration.getPerformanceProfile());
+		}
+		if (configuration.getServletContextHandlerConfigurations() != null)
+		{
+			validate(violations, "servletContextHandlerConfigurations",
+				configuration.getServletContextHandlerConfigurations());
+		}
+		return violations;
+	}
+
+	/**
+	 * Validates the given {@link PerformanceProfile}.
+	 *
+	 * @param profile
+	 *            the profile
+	 * @return the violations, empty if the profile is valid
+	 */
+	public static List<String> validate(final PerformanceProfile profile)
+	{
+		final List<String> violations = new ArrayList<>();
+		validate(violations, "", profile);
+		return violations;
+	}
+
+	/**
+	 * Validates the given {@link ServletContextHandlerConfiguration}.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 * @return the violations, empty if the configuration is valid
+	 */
+	public static List<String> validate(final ServletContextHandlerConfiguration configuration)
+	{
+		final List<String> violations = new ArrayList<>();
+		validate(violations, "", configuration);
+		return violations;
+	}
+
+	/**
+	 * Validates the given {@link StartConfig}.
+	 *
+	 * @param startConfig
+	 *            the start config
+	 * @return the violations, empty if the start config is valid
+	 */
+	public static List<String> validate(final StartConfig startConfig)
+	{
+		final List<String> violations = new ArrayList<>();
+		validatePort(violations, "httpPort", startConfig.getHttpPort());
+		validatePort(violations, "httpsPort", startConfig.getHttpsPort());
+		if (startConfig.getContextStartThreads() < 0)
+		{
+			violations.add("contextStartThreads must not be negative");
+		}
+		if (startConfig.getSessionTimeout() < 0)
+		{
+			violations.add("sessionTimeout must not be negative");
+		}
+		validate(violations, "serverConnectorConfiguration.",
+			startConfig.getServerConnectorConfiguration());
+		validate(violations, "threadPoolConfiguration.", startConfig.getThreadPoolConfiguration());
+		validate(violations, "compressionConfiguration.",
+			startConfig.getCompressionConfiguration());
+		if (startConfig.getPerformanceProfile() != null)
+		{
+			validate(violations, "performanceProfile.", startConfig.getPerformanceProfile());
+		}
+		if (startConfig.getServletContextHandlerConfigurations() != null)
+		{
+			validate(violations, "servletContextHandlerConfigurations",
+				startConfig.getServletContextHandlerConfigurations());
+		}
+		return violations;
+	}
+
+	/**
+	 * Validates the given {@link CompressionConfiguration} if not null.
+	 *
+	 * @param violations
+	 *            the violations
+	 * @param prefix
+	 *            the property path prefix
+	 * @param compression
+	 *            the compression configuration
+	 */
+	private static void validate(final List<String> violations, final String prefix,
+		final CompressionConfiguration compression)
+	{
+		if (compression == null)
+		{
+			return;
+		}
+		if (compression.getMinGzipSize() < 0)
+		{
+			violations.add(prefix + "minGzipSize must not be negative");
+		}
+		if (compression.getCompressionLevel() < Deflater.DEFAULT_COMPRESSION
+			|| Deflater.BEST_COMPRESSION < compression.getCompressionLevel())
+		{
+			violations.add(prefix + "compressionLevel must be between -1 and 9");
+		}
+	}
+
+	/**
+	 * Validates the given servlet context handler configurations.
+	 *
+	 * @param violations
+	 *            the violations
+	 * @param name
+	 *            the property name of the list
+	 * @param configurations
+	 *            the servlet context handler configurations
+	 */
+	private static void validate(final List<String> violations, final String name,
+		final List<ServletContextHandlerConfiguration> configurations)
+	{
+		for (int i = 0; i < configurations.size(); i++)
+		{
+			validate(violations, name + "[" + i + "].", configurations.get(i));
+		}
+	}
+
+	/**
+	 * Validates the given {@link PerformanceProfile}.
+	 *
+	 * @param violations
+	 *            the violations
+	 * @param prefix
+	 *            the property path prefix
+	 * @param profile
+	 *            the profile
+	 */
+	private static void validate(final List<String> violations, final String prefix,
+		final PerformanceProfile profile)
+	{
+		if (profile.getOutputBufferSize() <= 0)
+		{
+			violations.add(prefix + "outputBufferSize must be greater than 0");
+		}
+		if (profile.getRequestHeaderSize() <= 0)
+		{
+			violations.add(prefix + "requestHeaderSize must be greater than 0");
+		}
+		if (profile.getResponseHeaderSize() <= 0)
+		{
+			violations.add(prefix + "responseHeaderSize must be greater than 0");
+		}
+		if (profile.getHttpIdleTimeout() <= 0)
+		{
+			violations.add(prefix + "httpIdleTimeout must be greater than 0");
+		}
+		if (profile.getHttpsIdleTimeout() <= 0)
+		{
+			violations.add(prefix + "httpsIdleTimeout must be greater than 0");
+		}
+		validate(violations, prefix + "threadPoolConfiguration.",
+			profile.getThreadPoolConfiguration());
+		validate(violations, prefix + "serverConnectorConfiguration.",
+			profile.getServerConnectorConfiguration());
+		validate(violations, prefix + "compressionConfiguration.",
+			profile.getCompressionConfiguration());
+	}
+
+	/**
+	 * Validates the given {@link ServerConnectorConfiguration} if not null.
+	 *
+	 * @param violations
+	 *            the violations
+	 * @param prefix
+	 *            the property path prefix
+	 * @param connector
+	 *            the server connector configuration
+	 */
+	private static void validate(final List<String> violations, final String prefix,
+		final ServerConnectorConfiguration connector)
+	{
+		if (connector == null)
+		{
+			return;
+		}
+		if (connector.getConnectorCount() < 1)
+		{
+			violations.add(prefix + "connectorCount must be greater than 0");
+		}
+		if (connector.getAcceptQueueSize() < 0)
+		{
+			violations.add(prefix + "acceptQueueSize must not be negative");
+		}
+		if (connector.getInputBufferSize() <= 0)
+		{
+			violations.add(prefix + "inputBufferSize must be greater than 0");
+		}
+		validate(violations, prefix + "byteBufferPoolConfiguration.",
+			connector.getByteBufferPoolConfiguration());
+	}
+
+	/**
+	 * Validates the given {@link ByteBufferPoolConfiguration} if not null.
+	 *
+	 * @param violations
+	 *            the violations
+	 * @param prefix
+	 *            the property path prefix
+	 * @param byteBufferPool
+	 *            the byte buffer pool configuration
+	 */
+	private static void validate(final List<String> violations, final String prefix,
+		final ByteBufferPoolConfiguration byteBufferPool)
+	{
+		if (byteBufferPool == null)
+		{
+			return;
+		}
+		if (byteBufferPool.getFactor() <= 0)
+		{
+			violations.add(prefix + "factor must be greater than 0");
+			return;
+		}
+		if (byteBufferPool.getMaxCapacity() <= byteBufferPool.getFactor()
+			|| byteBufferPool.getMaxCapacity() % byteBufferPool.getFactor() != 0)
+		{
+			violations.add(prefix + "maxCapacity must be a multiple of factor greater than factor");
+		}
+		if (byteBufferPool.getMinCapacity() < 0
+			|| byteBufferPool.getMaxCapacity() < byteBufferPool.getMinCapacity())
+		{
+			violations.add(prefix + "minCapacity must be between 0 and maxCapacity");
+		}
+	}
+
+	/**
+	 * Validates the given {@link ServletContextHandlerConfiguration}.
+	 *
+	 * @param violations
+	 *            the violations
+	 * @param prefix
+	 *            the property path prefix
+	 * @param configuration
+	 *            the configuration
+	 */
+	private static void validate(final List<String> violations, final String prefix,
+		final ServletContextHandlerConfiguration configuration)
+	{
+		if (configuration.getContextPath() != null && !configuration.getContextPath().isEmpty()
+			&& !configuration.getContextPath().startsWith("/"))
+		{
+			violations.add(prefix + "contextPath must start with '/'");
+		}
+		validate(violations, prefix + "compressionConfiguration.",
+			configuration.getCompressionConfiguration());
+	}
+
+	/**
+	 * Validates the given {@link ThreadPoolConfiguration} if not null.
+	 *
+	 * @param violations
+	 *            the violations
+	 * @param prefix
+	 *            the property path prefix
+	 * @param threadPool
+	 *            the thread pool configuration
+	 */
+	private static void validate(final List<String> violations, final String prefix,
+		final ThreadPoolConfiguration threadPool)
+	{
+		if (threadPool == null || threadPool.isVirtualThreads())
+		{
+			return;
+		}
+		if (threadPool.getMaxThreads() <= 0)
+		{
+			violations.add(prefix + "maxThreads must be greater than 0");
+		}
+		if (threadPool.getMinThreads() < 0
+			|| threadPool.getMaxThreads() < threadPool.getMinThreads())
+		{
+			violations.add(prefix + "minThreads must be between 0 and maxThreads");
+		}
+	}
+
+	/**
+	 * Validates the given port.
+	 *
+	 * @param violations
+	 *            the violations
+	 * @param name
+	 *            the property name
+	 * @param port
+	 *            the port
+	 */
+	private static void validatePort(final List<String> violations, final String name,
+		final int port)
+	{
+		if (port < 0 || MAX_PORT < port)
+		{
+			violations.add(name + " must be between 0 and " + MAX_PORT);
+		}
+	}
+
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.factories;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.eclipse.jetty.webapp.WebAppContext;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.jetty9.runner.config.DeploymentConfiguration;
+
+/**
+ * The unit test class for the class {@link DeploymentManagerFactory}.
+ */
+public class DeploymentManagerFactoryTest
+{
+
+	/** The quickstart descriptor of the test webapps. */
+	private static final String QUICKSTART_WEB_XML_CONTENT = "<web-app version=\"3.1\"/>";
+
+	/** The temporary directory of a test. */
+	private Path directory;
+
+	/**
+	 * Deletes the given file and, if it is a directory, its content.
+	 *
+	 * @param file
+	 *            the file
+	 */
+	private static void delete(final File file)
+	{
+		final File[] children = file.listFiles();
+		if (children != null)
+		{
+			for (final File child : children)
+			{
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	/**
+	 * Creates the temporary directory of a test.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@BeforeMethod
+	public void setUp() throws IOException
+	{
+		directory = Files.createTempDirectory("deployment-manager-factory-test");
+	}
+
+	/**
+	 * Deletes the temporary directory of a test.
+	 */
+	@AfterMethod
+	public void tearDown()
+	{
+		delete(directory.toFile());
+	}
+
+	/**
+	 * Test method for
+	 * {@link DeploymentManagerFactory#initializeWebAppContext(DeploymentConfiguration, WebAppContext)}
+	 * with an exploded webapp that has a quickstart descriptor.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Test
+	public void testInitializeWebAppContextExplodedWebapp() throws IOException
+	{
+		final Path webapp = directory.resolve("exploded");
+		final Path descriptor = webapp.resolve(DeploymentManagerFactory.QUICKSTART_WEB_XML);
+		Files.createDirectories(descriptor.getParent());
+		Files.write(descriptor, QUICKSTART_WEB_XML_CONTENT.getBytes(StandardCharsets.UTF_8));
+		final WebAppContext webAppContext = new WebAppContext();
+		webAppContext.setWar(webapp.toString());
+
+		DeploymentManagerFactory.initializeWebAppContext(
+			DeploymentConfiguration.builder().quickstart(true).fastStart(true).build(),
+			webAppContext);
+
+		assertTrue(DeploymentManagerFactory.isQuickStartAvailable());
+		assertEquals(webAppContext.getConfigurationClasses(),
+			DeploymentManagerFactory.QUICKSTART_CONFIGURATION_CLASSES);
+	}
+
+	/**
+	 * Test method for
+	 * {@link DeploymentManagerFactory#initializeWebAppContext(DeploymentConfiguration, WebAppContext)}
+	 * with a packed war that has a quickstart descriptor and is extracted, the quickstart
+	 * configuration is not taken.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Test
+	public void testInitializeWebAppContextPackedWar() throws IOException
+	{
+		final Path war = directory.resolve("packed.war");
+		try (OutputStream outputStream = Files.newOutputStream(war);
+			ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream))
+		{
+			zipOutputStream.putNextEntry(new ZipEntry(DeploymentManagerFactory.QUICKSTART_WEB_XML));
+			zipOutputStream.write(QUICKSTART_WEB_XML_CONTENT.getBytes(StandardCharsets.UTF_8));
+			zipOutputStream.closeEntry();
+		}
+		final WebAppContext webAppContext = new WebAppContext();
+		webAppContext.setWar(war.toString());
+
+		DeploymentManagerFactory.initializeWebAppContext(DeploymentConfiguration.builder()
+			.quickstart(true).fastStart(true).extractWars(true).build(), webAppContext);
+
+		assertEquals(webAppContext.getConfigurationClasses(),
+			DeploymentManagerFactory.FAST_START_CONFIGURATION_CLASSES);
+	}
+
+	/**
+	 * Test method for
+	 * {@link DeploymentManagerFactory#newDeploymentManager(ContextHandlerCollection, File, DeploymentConfiguration)}
+	 * without a deploy directory, no deployer is created.
+	 */
+	@Test
+	public void testNewDeploymentManagerWithoutDeployDirectory()
+	{
+		assertNull(DeploymentManagerFactory.newDeploymentManager(new ContextHandlerCollection(),
+			directory.toFile(), DeploymentConfiguration.builder().build()));
+		assertNull(DeploymentManagerFactory.newDeploymentManager(new ContextHandlerCollection(),
+			directory.toFile(), null));
+	}
+
+	/**
+	 * Test method for
+	 * {@link DeploymentManagerFactory#newDeploymentManager(ContextHandlerCollection, File, DeploymentConfiguration)}
+	 * with the webapp as deploy directory.
+	 */
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testNewDeploymentManagerWebappAsDeployDirectory()
+	{
+		DeploymentManagerFactory.newDeploymentManager(new ContextHandlerCollection(),
+			directory.toFile(),
+			DeploymentConfiguration.builder().deployDirectory(directory.toFile()).build());
+	}
+
+}
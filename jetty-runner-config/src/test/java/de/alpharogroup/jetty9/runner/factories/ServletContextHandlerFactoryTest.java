@@ -0,0 +1,233 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.factories;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.FilterHolder;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.jetty9.runner.config.BulkheadConfiguration;
+import de.alpharogroup.jetty9.runner.config.FilterHolderConfiguration;
+import de.alpharogroup.jetty9.runner.config.ServletContextHandlerConfiguration;
+import de.alpharogroup.jetty9.runner.filter.BulkheadFilter;
+
+/**
+ * The unit test class for the class {@link ServletContextHandlerFactory}.
+ */
+public class ServletContextHandlerFactoryTest
+{
+
+	/**
+	 * The class {@link ApplicationFilter} answers every request itself like the filter of a web
+	 * framework. A request to the path <code>/slow</code> blocks until it is released.
+	 */
+	public static class ApplicationFilter implements Filter
+	{
+
+		/** The latch that is counted down when the slow request entered the filter. */
+		static volatile CountDownLatch entered;
+
+		/** The latch that the slow request waits for. */
+		static volatile CountDownLatch release;
+
+		@Override
+		public void destroy()
+		{
+		}
+
+		@Override
+		public void doFilter(final ServletRequest request, final ServletResponse response,
+			final FilterChain chain) throws IOException
+		{
+			if ("/slow".equals(((HttpServletRequest)request).getRequestURI()))
+			{
+				entered.countDown();
+				try
+				{
+					release.await(10, TimeUnit.SECONDS);
+				}
+				catch (final InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+			response.setContentType("text/plain");
+			response.getWriter().print("application " + request.getDispatcherType());
+		}
+
+		@Override
+		public void init(final FilterConfig filterConfig)
+		{
+		}
+
+	}
+
+	/** The temporary webapp directory of a test. */
+	private Path directory;
+
+	/** The executor of the client requests. */
+	private ExecutorService executor;
+
+	/** The server of a test. */
+	private Server server;
+
+	/**
+	 * Sends a GET request to the given url and returns the status code and the body.
+	 *
+	 * @param url
+	 *            the url
+	 * @return the status code and the body separated by a space
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static String get(final String url) throws IOException
+	{
+		final HttpURLConnection connection = (HttpURLConnection)new URL(url).openConnection();
+		try
+		{
+			final int status = connection.getResponseCode();
+			final ByteArrayOutputStream body = new ByteArrayOutputStream();
+			try (InputStream inputStream = status < 400
+				? connection.getInputStream()
+				: connection.getErrorStream())
+			{
+				if (inputStream != null)
+				{
+					final byte[] buffer = new byte[1024];
+					int read;
+					while (0 <= (read = inputStream.read(buffer)))
+					{
+						body.write(buffer, 0, read);
+					}
+				}
+			}
+			return status + " " + new String(body.toByteArray(), StandardCharsets.UTF_8);
+		}
+		finally
+		{
+			connection.disconnect();
+		}
+	}
+
+	/**
+	 * Stops the server and deletes the webapp directory of a test.
+	 *
+	 * @throws Exception
+	 *             is thrown if the server could not be stopped
+	 */
+	@AfterMethod
+	public void tearDown() throws Exception
+	{
+		if (ApplicationFilter.release != null)
+		{
+			ApplicationFilter.release.countDown();
+		}
+		if (executor != null)
+		{
+			executor.shutdownNow();
+		}
+		if (server != null)
+		{
+			server.stop();
+		}
+		if (directory != null)
+		{
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link ServletContextHandlerFactory#getNewServletContextHandler(ServletContextHandlerConfiguration)}
+	 * with a bulkhead of one pass, the queued request is resumed with an ASYNC dispatch and has to
+	 * reach the application filter.
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testGetNewServletContextHandlerQueuedRequestReachesApplicationFilter()
+		throws Exception
+	{
+		ApplicationFilter.entered = new CountDownLatch(1);
+		ApplicationFilter.release = new CountDownLatch(1);
+		directory = Files.createTempDirectory("servlet-context-handler-factory-test");
+		final ServletContextHandler context = ServletContextHandlerFactory
+			.getNewServletContextHandler(ServletContextHandlerConfiguration.builder()
+				.contextPath("/").webapp(directory.toFile()).maxInactiveInterval(60)
+				.bulkheadConfiguration(
+					BulkheadConfiguration.builder().maxRequests(1).queueCapacity(1).build())
+				.filterHolderConfiguration(FilterHolderConfiguration.builder()
+					.filterClass(ApplicationFilter.class).filterPath("/*").build())
+				.build());
+		server = new Server(0);
+		server.setHandler(context);
+		server.start();
+		final String url = "http://localhost:"
+			+ ((ServerConnector)server.getConnectors()[0]).getLocalPort();
+		BulkheadFilter bulkhead = null;
+		for (final FilterHolder filter : context.getServletHandler().getFilters())
+		{
+			if (filter.getFilter() instanceof BulkheadFilter)
+			{
+				bulkhead = (BulkheadFilter)filter.getFilter();
+			}
+		}
+		executor = Executors.newFixedThreadPool(2);
+
+		final Future<String> slow = executor.submit(() -> get(url + "/slow"));
+		assertTrue(ApplicationFilter.entered.await(5, TimeUnit.SECONDS));
+		final Future<String> queued = executor.submit(() -> get(url + "/queued"));
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (bulkhead.getQueued() == 0 && System.nanoTime() < deadline)
+		{
+			Thread.sleep(10);
+		}
+		assertEquals(bulkhead.getQueued(), 1);
+		ApplicationFilter.release.countDown();
+
+		assertEquals(slow.get(5, TimeUnit.SECONDS), "200 application REQUEST");
+		assertEquals(queued.get(5, TimeUnit.SECONDS), "200 application ASYNC");
+	}
+
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.filter;
+
+import static org.testng.Assert.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link RateLimitFilter}.
+ */
+public class RateLimitFilterTest
+{
+
+	/** The remote address of the test requests. */
+	private static final String REMOTE_ADDR = "10.0.0.1";
+
+	/**
+	 * Factory method for creating a new {@link RateLimitFilter} with the key header
+	 * X-Forwarded-For and the given number of trusted proxies.
+	 *
+	 * @param trustedProxies
+	 *            the number of trusted proxies
+	 * @return the new {@link RateLimitFilter}
+	 * @throws ServletException
+	 *             is thrown if the filter could not be initialized
+	 */
+	private static RateLimitFilter newRateLimitFilter(final int trustedProxies)
+		throws ServletException
+	{
+		final Map<String, String> initParameters = new HashMap<>();
+		initParameters.put(RateLimitFilter.KEY_HEADER, "X-Forwarded-For");
+		initParameters.put(RateLimitFilter.TRUSTED_PROXIES, String.valueOf(trustedProxies));
+		final RateLimitFilter filter = new RateLimitFilter();
+		filter.init((FilterConfig)Proxy.newProxyInstance(FilterConfig.class.getClassLoader(),
+			new Class<?>[] { FilterConfig.class }, (proxy, method, args) -> "getInitParameter"
+				.equals(method.getName()) ? initParameters.get(args[0]) : null));
+		return filter;
+	}
+
+	/**
+	 * Factory method for creating a new {@link HttpServletRequest} with the given values of the
+	 * header X-Forwarded-For, every value is a header of its own.
+	 *
+	 * @param headers
+	 *            the values of the header X-Forwarded-For
+	 * @return the new {@link HttpServletRequest}
+	 */
+	private static HttpServletRequest newRequest(final String... headers)
+	{
+		return (HttpServletRequest)Proxy.newProxyInstance(
+			HttpServletRequest.class.getClassLoader(), new Class<?>[] { HttpServletRequest.class },
+			(proxy, method, args) -> {
+				switch (method.getName())
+				{
+					case "getHeaders" :
+						return Collections.enumeration(Arrays.asList(headers));
+					case "getRemoteAddr" :
+						return REMOTE_ADDR;
+					default :
+						return null;
+				}
+			});
+	}
+
+	/**
+	 * Test method for {@link RateLimitFilter#getClientKey(javax.servlet.ServletRequest)} with one
+	 * header, the key is the value at the position of the trusted proxies counted from the end.
+	 *
+	 * @throws ServletException
+	 *             is thrown if the filter could not be initialized
+	 */
+	@Test
+	public void testGetClientKeyOneHeader() throws ServletException
+	{
+		assertEquals(newRateLimitFilter(1).getClientKey(newRequest("1.1.1.1, 2.2.2.2 ,3.3.3.3 ")),
+			"3.3.3.3");
+		assertEquals(newRateLimitFilter(2).getClientKey(newRequest("1.1.1.1, 2.2.2.2 ,3.3.3.3 ")),
+			"2.2.2.2");
+		assertEquals(newRateLimitFilter(3).getClientKey(newRequest("1.1.1.1,, 2.2.2.2,3.3.3.3,")),
+			"1.1.1.1");
+		assertEquals(newRateLimitFilter(4).getClientKey(newRequest("1.1.1.1, 2.2.2.2 ,3.3.3.3")),
+			REMOTE_ADDR);
+		assertEquals(newRateLimitFilter(1).getClientKey(newRequest(" , ")), REMOTE_ADDR);
+		assertEquals(newRateLimitFilter(1).getClientKey(newRequest()), REMOTE_ADDR);
+	}
+
+	/**
+	 * Test method for {@link RateLimitFilter#getClientKey(javax.servlet.ServletRequest)} with
+	 * several headers, the values of the headers are counted in the order of the headers.
+	 *
+	 * @throws ServletException
+	 *             is thrown if the filter could not be initialized
+	 */
+	@Test
+	public void testGetClientKeySeveralHeaders() throws ServletException
+	{
+		final String[] headers = { "1.1.1.1, 2.2.2.2", "", "3.3.3.3", "4.4.4.4, 5.5.5.5" };
+		assertEquals(newRateLimitFilter(1).getClientKey(newRequest(headers)), "5.5.5.5");
+		assertEquals(newRateLimitFilter(2).getClientKey(newRequest(headers)), "4.4.4.4");
+		assertEquals(newRateLimitFilter(3).getClientKey(newRequest(headers)), "3.3.3.3");
+		assertEquals(newRateLimitFilter(4).getClientKey(newRequest(headers)), "2.2.2.2");
+		assertEquals(newRateLimitFilter(5).getClientKey(newRequest(headers)), "1.1.1.1");
+		assertEquals(newRateLimitFilter(6).getClientKey(newRequest(headers)), REMOTE_ADDR);
+	}
+
+}
@@ -0,0 +1,306 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.session;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.server.session.AbstractSessionDataStore;
+import org.eclipse.jetty.server.session.SessionContext;
+import org.eclipse.jetty.server.session.SessionData;
+import org.eclipse.jetty.server.session.SessionDataStore;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link WriteBehindSessionDataStore}.
+ */
+public class WriteBehindSessionDataStoreTest
+{
+
+	/**
+	 * The class {@link TestSessionDataStore} is a {@link SessionDataStore} in memory that can fail
+	 * and block writes. Like a database store it reports every candidate that it does not know as
+	 * expired. The save period is one hour, so a session that is not dirty is only written again
+	 * if its last write failed.
+	 */
+	private static class TestSessionDataStore extends AbstractSessionDataStore
+	{
+
+		/** The number of writes that fail. */
+		private final AtomicInteger failures = new AtomicInteger();
+
+		/** The number of inserts, that are writes of session data that was never saved. */
+		private final AtomicInteger inserts = new AtomicInteger();
+
+		/** The latch that the writes wait for. */
+		private volatile CountDownLatch release = new CountDownLatch(0);
+
+		/** The stored session data per session id. */
+		private final Map<String, SessionData> sessions = new ConcurrentHashMap<>();
+
+		/** The number of successful writes. */
+		private final AtomicInteger writes = new AtomicInteger();
+
+		/**
+		 * Instantiates a new {@link TestSessionDataStore}.
+		 */
+		TestSessionDataStore()
+		{
+			setSavePeriodSec(3600);
+		}
+
+		@Override
+		public boolean delete(final String id)
+		{
+			return sessions.remove(id) != null;
+		}
+
+		@Override
+		public Set<String> doGetExpired(final Set<String> candidates)
+		{
+			return getExpired(candidates);
+		}
+
+		@Override
+		public SessionData doLoad(final String id)
+		{
+			return load(id);
+		}
+
+		@Override
+		protected void doStart()
+		{
+			// no session context is needed, the methods that use it are overridden
+		}
+
+		@Override
+		public void doStore(final String id, final SessionData data, final long lastSaveTime)
+			throws Exception
+		{
+			store(id, data);
+		}
+
+		@Override
+		public boolean exists(final String id)
+		{
+			return sessions.containsKey(id);
+		}
+
+		@Override
+		public Set<String> getExpired(final Set<String> candidates)
+		{
+			final Set<String> expired = new HashSet<>();
+			final long now = System.currentTimeMillis();
+			for (final String candidate : candidates)
+			{
+				final SessionData data = sessions.get(candidate);
+				if (data == null || data.isExpiredAt(now))
+				{
+					expired.add(candidate);
+				}
+			}
+			return expired;
+		}
+
+		@Override
+		public void initialize(final SessionContext context)
+		{
+		}
+
+		@Override
+		public boolean isPassivating()
+		{
+			return false;
+		}
+
+		@Override
+		public SessionData load(final String id)
+		{
+			return sessions.get(id);
+		}
+
+		@Override
+		public SessionData newSessionData(final String id, final long created, final long accessed,
+			final long lastAccessed, final long maxInactiveMs)
+		{
+			return new SessionData(id, "/", "0.0.0.0", created, accessed, lastAccessed,
+				maxInactiveMs);
+		}
+
+		@Override
+		public void store(final String id, final SessionData data) throws Exception
+		{
+			release.await();
+			if (0 <= failures.decrementAndGet())
+			{
+				throw new IOException("The session " + id + " could not be written.");
+			}
+			if (data.getLastSaved() <= 0)
+			{
+				inserts.incrementAndGet();
+			}
+			data.setLastSaved(System.currentTimeMillis());
+			sessions.put(id, data);
+			writes.incrementAndGet();
+		}
+
+	}
+
+	/** The delegate store. */
+	private TestSessionDataStore delegate;
+
+	/** The write behind store. */
+	private WriteBehindSessionDataStore store;
+
+	/**
+	 * Waits until the given store has no queued sessions.
+	 *
+	 * @param store
+	 *            the store
+	 * @throws InterruptedException
+	 *             if the current thread was interrupted
+	 */
+	private static void awaitWritten(final WriteBehindSessionDataStore store)
+		throws InterruptedException
+	{
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (0 < store.getPending() && System.nanoTime() < deadline)
+		{
+			Thread.sleep(10);
+		}
+		assertEquals(store.getPending(), 0);
+	}
+
+	/**
+	 * Factory method for creating a new {@link SessionData} with the given id and maximum inactive
+	 * time that is accessed now.
+	 *
+	 * @param id
+	 *            the session id
+	 * @param maxInactiveMs
+	 *            the maximum inactive time in milliseconds
+	 * @return the new {@link SessionData}
+	 */
+	private SessionData newSessionData(final String id, final long maxInactiveMs)
+	{
+		final long now = System.currentTimeMillis();
+		final SessionData data = delegate.newSessionData(id, now, now, now, maxInactiveMs);
+		data.calcAndSetExpiry(now);
+		return data;
+	}
+
+	/**
+	 * Starts a new {@link WriteBehindSessionDataStore} with one writer thread.
+	 *
+	 * @throws Exception
+	 *             is thrown if the store could not be started
+	 */
+	private void start() throws Exception
+	{
+		delegate = new TestSessionDataStore();
+		store = new WriteBehindSessionDataStore(delegate, 1, 10, 1000);
+		store.start();
+	}
+
+	/**
+	 * Stops the store of a test.
+	 *
+	 * @throws Exception
+	 *             is thrown if the store could not be stopped
+	 */
+	@AfterMethod
+	public void tearDown() throws Exception
+	{
+		if (store != null)
+		{
+			delegate.release.countDown();
+			store.stop();
+		}
+	}
+
+	/**
+	 * Test method for {@link WriteBehindSessionDataStore#store(String, SessionData)} with a
+	 * delegate whose first write fails, the unchanged session is written again on its next store
+	 * and inserted.
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testStoreRetriesFailedInsert() throws Exception
+	{
+		start();
+		delegate.failures.set(1);
+		final SessionData data = newSessionData("failed-once", 60000);
+
+		store.store(data.getId(), data);
+		awaitWritten(store);
+
+		assertEquals(store.getWriteFailures(), 1);
+		assertFalse(delegate.exists(data.getId()));
+		assertFalse(data.isDirty());
+
+		store.store(data.getId(), data);
+		awaitWritten(store);
+
+		assertTrue(delegate.exists(data.getId()));
+		assertEquals(delegate.inserts.get(), 1);
+		assertEquals(delegate.writes.get(), 1);
+	}
+
+	/**
+	 * Test method for {@link WriteBehindSessionDataStore#getExpired(Set)} with sessions that are
+	 * queued and not written to the delegate yet.
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testGetExpiredWithQueuedSessions() throws Exception
+	{
+		start();
+		delegate.release = new CountDownLatch(1);
+		final SessionData active = newSessionData("active", 60000);
+		final SessionData expired = newSessionData("expired", 1000);
+		expired.setExpiry(System.currentTimeMillis() - 1);
+
+		store.store(active.getId(), active);
+		store.store(expired.getId(), expired);
+
+		assertEquals(store.getPending(), 2);
+		assertEquals(
+			store.getExpired(new HashSet<>(Arrays.asList(active.getId(), expired.getId()))),
+			new HashSet<>(Arrays.asList(expired.getId())));
+
+		delegate.release.countDown();
+		awaitWritten(store);
+
+		assertTrue(delegate.exists(active.getId()));
+	}
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.startup;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * The unit test class for the class {@link ParallelContextHandlerCollection}.
+ */
+public class ParallelContextHandlerCollectionTest
+{
+
+	/** The server of a test. */
+	private Server server;
+
+	/**
+	 * Starts a server with a new {@link ParallelContextHandlerCollection} with the given number of
+	 * threads and a context for every given context path.
+	 *
+	 * @param threads
+	 *            the number of threads that start the contexts
+	 * @param contextPaths
+	 *            the context paths
+	 * @return the started {@link ParallelContextHandlerCollection}
+	 * @throws Exception
+	 *             is thrown if the server could not be started
+	 */
+	private ParallelContextHandlerCollection start(final int threads,
+		final String... contextPaths) throws Exception
+	{
+		final ParallelContextHandlerCollection contexts = new ParallelContextHandlerCollection(
+			threads);
+		for (final String contextPath : contextPaths)
+		{
+			contexts.addHandler(new ContextHandler(contextPath));
+		}
+		server = new Server();
+		server.setHandler(contexts);
+		server.start();
+		return contexts;
+	}
+
+	/**
+	 * Stops the server of a test.
+	 *
+	 * @throws Exception
+	 *             is thrown if the server could not be stopped
+	 */
+	@AfterMethod
+	public void tearDown() throws Exception
+	{
+		if (server != null)
+		{
+			server.stop();
+		}
+	}
+
+	/**
+	 * Test method for {@link ParallelContextHandlerCollection#getStartTimes()} with several
+	 * contexts that are started concurrently.
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testGetStartTimesConcurrent() throws Exception
+	{
+		final ParallelContextHandlerCollection contexts = start(2, "/a", "/b", "/c");
+
+		assertEquals(contexts.getStartTimes().keySet(),
+			new HashSet<>(Arrays.asList("/a", "/b", "/c")));
+	}
+
+	/**
+	 * Test method for {@link ParallelContextHandlerCollection#getStartTimes()} with a single
+	 * context, it is started in the current thread.
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testGetStartTimesSingleContext() throws Exception
+	{
+		final ParallelContextHandlerCollection contexts = start(4, "/");
+
+		assertEquals(contexts.getStartTimes().keySet(), new HashSet<>(Arrays.asList("/")));
+		assertTrue(0 <= contexts.getStartTimes().get("/"));
+	}
+
+	/**
+	 * Test method for {@link ParallelContextHandlerCollection#getStartTimes()} with one thread, the
+	 * contexts are started in the current thread in their order.
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testGetStartTimesOneThread() throws Exception
+	{
+		final ParallelContextHandlerCollection contexts = start(1, "/a", "/b");
+
+		assertEquals(contexts.getStartTimes().keySet().toArray(), new Object[] { "/a", "/b" });
+	}
+
+}
@@ -18,34 +18,24 @@ package de.alpharogroup.jetty9.runner;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
-import javax.management.MBeanServer;
-
 import org.eclipse.jetty.deploy.DeploymentManager;
-import org.eclipse.jetty.http.HttpVersion;
-import org.eclipse.jetty.jmx.MBeanContainer;
-import org.eclipse.jetty.server.Handler;
-import org.eclipse.jetty.server.HttpConfiguration;
-import org.eclipse.jetty.server.HttpConnectionFactory;
-import org.eclipse.jetty.server.SecureRequestCustomizer;
 import org.eclipse.jetty.server.Server;
-import org.eclipse.jetty.server.ServerConnector;
-import org.eclipse.jetty.server.SslConnectionFactory;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
-import org.eclipse.jetty.server.handler.DefaultHandler;
-import org.eclipse.jetty.server.handler.HandlerCollection;
 import org.eclipse.jetty.servlet.ServletContextHandler;
-import org.eclipse.jetty.util.resource.Resource;
-import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.webapp.WebAppContext;
 
 import de.alpharogroup.file.delete.DeleteFileExtensions;
 import de.alpharogroup.file.search.PathFinder;
 import de.alpharogroup.jetty9.runner.config.Jetty9RunConfiguration;
+import de.alpharogroup.jetty9.runner.config.PerformanceProfile;
 import de.alpharogroup.jetty9.runner.config.StartConfig;
-import de.alpharogroup.jetty9.runner.factories.ConfigurationFactory;
+import de.alpharogroup.jetty9.runner.config.ThreadPoolConfiguration;
+import de.alpharogroup.jetty9.runner.factories.ThreadPoolFactory;
+import de.alpharogroup.jetty9.runner.shutdown.GracefulShutdown;
 import lombok.experimental.UtilityClass;
 import lombok.extern.java.Log;
 
@@ -58,6 +48,9 @@ public class Jetty9Runner
 {
 	public static final String HTTPS = "https";
 
+	/** The exit code of the jvm if the server of a blocking run method could not be started. */
+	public static final int EXIT_CODE_START_FAILED = 100;
+
 	/**
 	 * Gets the log file.
 	 *
@@ -84,6 +77,25 @@ public class Jetty9Runner
 		return logfile;
 	}
 
+	/**
+	 * Gets the performance profile of the given {@link StartConfig}, that is the performance
+	 * profile if set or else the profile of the performance preset.
+	 *
+	 * @param startConfig
+	 *            the start config
+	 * @return the performance profile or null if neither a profile nor a preset is set
+	 */
+	private static PerformanceProfile getPerformanceProfile(final StartConfig startConfig)
+	{
+		if (startConfig.getPerformanceProfile() != null)
+		{
+			return startConfig.getPerformanceProfile();
+		}
+		return startConfig.getPerformancePreset() == null
+			? null
+			: startConfig.getPerformancePreset().newPerformanceProfile();
+	}
+
 	/**
 	 * Gets the web app context.
 	 *
@@ -148,126 +160,158 @@ public class Jetty9Runner
 	{
 		final Jetty9RunConfiguration configuration = Jetty9RunConfiguration.builder()
 			.servletContextHandler(servletContextHandler).contexts(contexts).deployer(deployer)
+			.accessLogConfiguration(startConfig.getAccessLogConfiguration())
+			.contextStartThreads(startConfig.getContextStartThreads())
+			.servletContextHandlerConfigurations(
+				startConfig.getServletContextHandlerConfigurations() == null
+					? Collections.emptyList()
+					: startConfig.getServletContextHandlerConfigurations())
+			.connectionFactoriesProvider(startConfig.getConnectionFactoriesProvider())
 			.httpPort(startConfig.getHttpPort()).httpsPort(startConfig.getHttpsPort())
 			.keyStorePassword(startConfig.getKeyStorePassword())
-			.keyStorePathResource(startConfig.getKeyStorePathResource()).build();
+			.keyStorePathResource(startConfig.getKeyStorePathResource())
+			.performanceProfile(getPerformanceProfile(startConfig))
+			.requestMetrics(startConfig.getRequestMetrics())
+			.serverConnectorConfiguration(startConfig.getServerConnectorConfiguration())
+			.shutdownConfiguration(startConfig.getShutdownConfiguration())
+			.threadPoolConfiguration(startConfig.getThreadPoolConfiguration())
+			.tlsConfiguration(startConfig.getTlsConfiguration()).build();
 		return configuration;
 	}
 
 	/**
-	 * Run a jetty server with the given parameters.
+	 * Factory method for create a new {@link Server} with a thread pool from the given
+	 * {@link ThreadPoolConfiguration}. If the given {@link ThreadPoolConfiguration} is null the
+	 * default thread pool configuration will be taken.
 	 *
-	 * @param config
-	 *            the config
+	 * @param threadPoolConfiguration
+	 *            the thread pool configuration
+	 * @return the new {@link Server}.
 	 */
-	public static void run(final Jetty9RunConfiguration config)
+	public static Server newServer(final ThreadPoolConfiguration threadPoolConfiguration)
 	{
-		final Server server = new Server();
-		run(server, config);
+		if (threadPoolConfiguration == null)
+		{
+			return new Server(
+				ThreadPoolFactory.newThreadPool(ThreadPoolConfiguration.builder().build()));
+		}
+		return new Server(ThreadPoolFactory.newThreadPool(threadPoolConfiguration));
 	}
 
 	/**
-	 * Run a jetty server with the given parameters.
+	 * Waits until the server of the given {@link ServerHandle} is stopped. If the current thread
+	 * is interrupted the server is stopped.
+	 *
+	 * @param serverHandle
+	 *            the server handle
+	 */
+	private static void join(final ServerHandle serverHandle)
+	{
+		try
+		{
+			serverHandle.await();
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			log.info("Interrupted while waiting for the jetty server, stopping it.");
+			serverHandle.stop();
+		}
+	}
+
+	/**
+	 * Starts the given initialized {@link Server} without blocking. If the given
+	 * {@link Jetty9RunConfiguration} contains a shutdown configuration the server is stopped
+	 * gracefully from a {@link GracefulShutdown}.
 	 *
 	 * @param server
 	 *            the server
 	 * @param config
 	 *            the config
+	 * @return the {@link ServerHandle} of the started server
+	 * @throws IllegalStateException
+	 *             if the server could not be started, in this case the server is stopped
 	 */
-	public static void run(final Server server, final Jetty9RunConfiguration config)
+	private static ServerHandle startServer(final Server server,
+		final Jetty9RunConfiguration config)
 	{
-		final HttpConfiguration httpsConfiguration = ConfigurationFactory
-			.newHttpConfiguration(HTTPS, config.getHttpsPort(), 32768);
-
-		final ServerConnector http = ConfigurationFactory.newServerConnector(server,
-			httpsConfiguration, config.getHttpPort(), (1000 * 60 * 60));
-
-		server.addConnector(http);
-		if ((config.getKeyStorePathResource() != null)
-			&& !config.getKeyStorePathResource().isEmpty())
+		final GracefulShutdown gracefulShutdown = config.getShutdownConfiguration() == null
+			? null
+			: GracefulShutdown.install(server, config.getShutdownConfiguration());
+		final ServerHandle serverHandle = new ServerHandle(server, gracefulShutdown);
+		try
 		{
-			final Resource keystore = Resource
-				.newClassPathResource(config.getKeyStorePathResource());
-			if ((keystore != null) && keystore.exists())
-			{
-				// if a keystore for a SSL certificate is available, start a SSL
-				// connector on port 'httpsPort'.
-				// By default, the quickstart comes with a Apache Wicket Quickstart
-				// Certificate that expires about half way september 2021. Do not
-				// use this certificate anywhere important as the passwords are
-				// available in the source.
-
-				final SslContextFactory sslContextFactory = ConfigurationFactory
-					.newSslContextFactory(keystore, config.getKeyStorePassword(),
-						config.getKeyStorePassword());
-
-
-				final HttpConfiguration httpsConfig = new HttpConfiguration(httpsConfiguration);
-				httpsConfig.addCustomizer(new SecureRequestCustomizer());
-
-				final ServerConnector https = ConfigurationFactory.newServerConnector(server,
-					new SslConnectionFactory(sslContextFactory, HttpVersion.HTTP_1_1.asString()),
-					httpsConfig, config.getHttpsPort(), 500000);
-
-				server.addConnector(https);
-
-				log.info(
-					"***************************************************************************");
-				log.info("**  SSL access to the application has been enabled on port "
-					+ config.getHttpsPort() + ".         **");
-				log.info("**  You can access the application using SSL on https://localhost:"
-					+ config.getHttpsPort() + ".  **");
-				log.info(
-					"***************************************************************************");
-
-			}
-			else
-			{
-				log.severe("*****************************************************");
-				log.severe("**  Keystore is null. Provide a keystore for ssh.  **");
-				log.severe("*****************************************************");
-			}
+			serverHandle.start();
 		}
-		else
+		catch (final Exception e)
 		{
-			log.info("***************************************************");
-			log.info("**  Keystore path is null. You can not use ssh.  **");
-			log.info("***************************************************");
+			log.log(Level.SEVERE, "jetty server could not be started.", e);
+			serverHandle.stop();
+			throw new IllegalStateException("jetty server could not be started", e);
 		}
+		log.info("jetty server started in " + serverHandle.getStartupTime() + " ms on the ports "
+			+ serverHandle.getLocalPorts() + ".");
+		return serverHandle;
+	}
 
-		if (config.getHandlers() == null)
+	/**
+	 * Builds the {@link Server} from the given {@link Supplier}, starts it and blocks until it is
+	 * stopped. If the configuration is invalid or the server could not be started the jvm exits
+	 * with the exit code {@link #EXIT_CODE_START_FAILED}.
+	 *
+	 * @param serverBuilder
+	 *            the supplier that builds the initialized server
+	 * @param config
+	 *            the config
+	 */
+	private static void runServer(final Supplier<Server> serverBuilder,
+		final Jetty9RunConfiguration config)
+	{
+		final ServerHandle serverHandle;
+		try
 		{
-			config.setHandlers(new HandlerCollection());
+			serverHandle = startServer(serverBuilder.get(), config);
 		}
-		if (config.getContexts() == null)
+		catch (final IllegalArgumentException e)
 		{
-			config.setContexts(new ContextHandlerCollection());
+			log.log(Level.SEVERE, "jetty server configuration is invalid.", e);
+			System.exit(EXIT_CODE_START_FAILED);
+			return;
 		}
-		config.getHandlers()
-			.setHandlers(new Handler[] { config.getContexts(), new DefaultHandler() });
-
-		server.setHandler(config.getHandlers());
-
-		if (config.getDeployer() != null)
+		catch (final IllegalStateException e)
 		{
-			server.addBean(config.getDeployer());
+			System.exit(EXIT_CODE_START_FAILED);
+			return;
 		}
+		join(serverHandle);
+	}
 
-		final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
-		final MBeanContainer mBeanContainer = new MBeanContainer(mBeanServer);
-		server.addEventListener(mBeanContainer);
-		server.addBean(mBeanContainer);
+	/**
+	 * Run a jetty server with the given parameters. This method blocks until the server is
+	 * stopped. If the server could not be started the jvm exits with the exit code
+	 * {@link #EXIT_CODE_START_FAILED}.
+	 *
+	 * @param config
+	 *            the config
+	 */
+	public static void run(final Jetty9RunConfiguration config)
+	{
+		runServer(() -> ServerBuilder.forContexts(config).build(), config);
+	}
 
-		try
-		{
-			server.start();
-			server.join();
-		}
-		catch (final Exception e)
-		{
-			e.printStackTrace();
-			System.exit(100);
-		}
+	/**
+	 * Run a jetty server with the given parameters. This method blocks until the server is
+	 * stopped. If the server could not be started the jvm exits with the exit code
+	 * {@link #EXIT_CODE_START_FAILED}.
+	 *
+	 * @param server
+	 *            the server
+	 * @param config
+	 *            the config
+	 */
+	public static void run(final Server server, final Jetty9RunConfiguration config)
+	{
+		runServer(() -> ServerBuilder.forContexts(config).server(server).build(), config);
 	}
 
 	/**
@@ -311,7 +355,7 @@ public class Jetty9Runner
 	public static void run(final ServletContextHandler servletContextHandler, final int httpPort,
 		final int httpsPort, final String keyStorePassword)
 	{
-		final Server server = new Server();
+		final Server server = newServer(null);
 		run(server, servletContextHandler, httpPort, httpsPort, keyStorePassword, "/keystore");
 	}
 
@@ -340,7 +384,23 @@ public class Jetty9Runner
 	}
 
 	/**
-	 * Run a jetty server with the given parameters.
+	 * Run a jetty server with the servlet context handler of the given
+	 * {@link Jetty9RunConfiguration} on a new server with the thread pool of the performance
+	 * profile. This method blocks until the server is stopped. If the server could not be started
+	 * the jvm exits with the exit code {@link #EXIT_CODE_START_FAILED}.
+	 *
+	 * @param config
+	 *            the config
+	 */
+	public static void runServletContextHandler(final Jetty9RunConfiguration config)
+	{
+		runServer(() -> ServerBuilder.forServletContextHandler(config).build(), config);
+	}
+
+	/**
+	 * Run a jetty server with the servlet context handler of the given
+	 * {@link Jetty9RunConfiguration}. This method blocks until the server is stopped. If the server
+	 * could not be started the jvm exits with the exit code {@link #EXIT_CODE_START_FAILED}.
 	 *
 	 * @param server
 	 *            the server
@@ -350,92 +410,83 @@ public class Jetty9Runner
 	public static void runServletContextHandler(final Server server,
 		final Jetty9RunConfiguration config)
 	{
-		final HttpConfiguration http_config = new HttpConfiguration();
-		http_config.setSecureScheme(HTTPS);
-		http_config.setSecurePort(config.getHttpsPort());
-		http_config.setOutputBufferSize(32768);
-
-		final ServerConnector http = new ServerConnector(server,
-			new HttpConnectionFactory(http_config));
-		http.setPort(config.getHttpPort());
-		http.setIdleTimeout(1000 * 60 * 60);
-
-		server.addConnector(http);
-		if ((config.getKeyStorePathResource() != null)
-			&& !config.getKeyStorePathResource().isEmpty())
-		{
-			final Resource keystore = Resource
-				.newClassPathResource(config.getKeyStorePathResource());
-			if ((keystore != null) && keystore.exists())
-			{
-				// if a keystore for a SSL certificate is available, start a SSL
-				// connector on port 'httpsPort'.
-				// By default, the quickstart comes with a Apache Wicket Quickstart
-				// Certificate that expires about half way september 2021. Do not
-				// use this certificate anywhere important as the passwords are
-				// available in the source.
-
-				final SslContextFactory sslContextFactory = new SslContextFactory();
-				sslContextFactory.setKeyStoreResource(keystore);
-				sslContextFactory.setKeyStorePassword(config.getKeyStorePassword());
-				sslContextFactory.setKeyManagerPassword(config.getKeyStorePassword());
-
-				final HttpConfiguration https_config = new HttpConfiguration(http_config);
-				https_config.addCustomizer(new SecureRequestCustomizer());
-
-				final ServerConnector https = new ServerConnector(server,
-					new SslConnectionFactory(sslContextFactory, "http/1.1"),
-					new HttpConnectionFactory(https_config))
-				{
-
-				};
-				https.setPort(config.getHttpsPort());
-				https.setIdleTimeout(500000);
-
-				server.addConnector(https);
-
-				log.info(
-					"***************************************************************************");
-				log.info("**  SSL access to the application has been enabled on port "
-					+ config.getHttpsPort() + ".         **");
-				log.info("**  You can access the application using SSL on https://localhost:"
-					+ config.getHttpsPort() + ".  **");
-				log.info(
-					"***************************************************************************");
-
-			}
-			else
-			{
-				log.severe("*****************************************************");
-				log.severe("**  Keystore is null. Provide a keystore for ssh.  **");
-				log.severe("*****************************************************");
-			}
-		}
-		else
-		{
-			log.info("***************************************************");
-			log.info("**  Keystore path is null. You can not use ssh.  **");
-			log.info("***************************************************");
-		}
+		runServer(() -> ServerBuilder.forServletContextHandler(config).server(server).build(),
+			config);
+	}
 
+	/**
+	 * Starts a jetty server with the given parameters without blocking. The http and https ports
+	 * can be 0 for ephemeral ports, the bound ports are provided from the returned
+	 * {@link ServerHandle}.
+	 *
+	 * @param config
+	 *            the config
+	 * @return the {@link ServerHandle} of the started server
+	 * @throws IllegalStateException
+	 *             if the server could not be started, see
+	 *             {@link #startServer(Server, Jetty9RunConfiguration)}
+	 */
+	public static ServerHandle start(final Jetty9RunConfiguration config)
+	{
+		return startServer(ServerBuilder.forContexts(config).build(), config);
+	}
 
-		server.setHandler(config.getServletContextHandler());
+	/**
+	 * Starts a jetty server with the given parameters without blocking. The http and https ports
+	 * can be 0 for ephemeral ports, the bound ports are provided from the returned
+	 * {@link ServerHandle}.
+	 *
+	 * @param server
+	 *            the server
+	 * @param config
+	 *            the config
+	 * @return the {@link ServerHandle} of the started server
+	 * @throws IllegalStateException
+	 *             if the server could not be started, see
+	 *             {@link #startServer(Server, Jetty9RunConfiguration)}
+	 */
+	public static ServerHandle start(final Server server, final Jetty9RunConfiguration config)
+	{
+		return startServer(ServerBuilder.forContexts(config).server(server).build(), config);
+	}
 
-		final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
-		final MBeanContainer mBeanContainer = new MBeanContainer(mBeanServer);
-		server.addEventListener(mBeanContainer);
-		server.addBean(mBeanContainer);
+	/**
+	 * Starts a jetty server with the servlet context handler of the given
+	 * {@link Jetty9RunConfiguration} on a new server with the thread pool of the performance
+	 * profile without blocking. The http and https ports can be 0 for ephemeral ports, the bound
+	 * ports are provided from the returned {@link ServerHandle}.
+	 *
+	 * @param config
+	 *            the config
+	 * @return the {@link ServerHandle} of the started server
+	 * @throws IllegalStateException
+	 *             if the server could not be started, see
+	 *             {@link #startServer(Server, Jetty9RunConfiguration)}
+	 */
+	public static ServerHandle startServletContextHandler(final Jetty9RunConfiguration config)
+	{
+		return startServer(ServerBuilder.forServletContextHandler(config).build(), config);
+	}
 
-		try
-		{
-			server.start();
-			server.join();
-		}
-		catch (final Exception e)
-		{
-			e.printStackTrace();
-			System.exit(100);
-		}
+	/**
+	 * Starts a jetty server with the servlet context handler of the given
+	 * {@link Jetty9RunConfiguration} without blocking. The http and https ports can be 0 for
+	 * ephemeral ports, the bound ports are provided from the returned {@link ServerHandle}.
+	 *
+	 * @param server
+	 *            the server
+	 * @param config
+	 *            the config
+	 * @return the {@link ServerHandle} of the started server
+	 * @throws IllegalStateException
+	 *             if the server could not be started, see
+	 *             {@link #startServer(Server, Jetty9RunConfiguration)}
+	 */
+	public static ServerHandle startServletContextHandler(final Server server,
+		final Jetty9RunConfiguration config)
+	{
+		return startServer(
+			ServerBuilder.forServletContextHandler(config).server(server).build(), config);
 	}
 
 	/**
@@ -470,7 +521,7 @@ public class Jetty9Runner
 	public static void runWithNewServer(final ServletContextHandler servletContextHandler,
 		final int httpPort, final int httpsPort, final String keyStorePassword)
 	{
-		final Server server = new Server();
+		final Server server = newServer(null);
 		run(server, servletContextHandler, httpPort, httpsPort, keyStorePassword, "/keystore");
 	}
 }
@@ -0,0 +1,586 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+
+import javax.management.MBeanServer;
+
+import org.eclipse.jetty.deploy.DeploymentManager;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.jmx.MBeanContainer;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.SecureRequestCustomizer;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.eclipse.jetty.server.handler.DefaultHandler;
+import org.eclipse.jetty.server.handler.HandlerCollection;
+import org.eclipse.jetty.server.handler.StatisticsHandler;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+import de.alpharogroup.jetty9.runner.admin.RunnerControl;
+import de.alpharogroup.jetty9.runner.buffer.InstrumentedByteBufferPool;
+import de.alpharogroup.jetty9.runner.config.Jetty9RunConfiguration;
+import de.alpharogroup.jetty9.runner.config.PerformanceProfile;
+import de.alpharogroup.jetty9.runner.config.ServerConnectorConfiguration;
+import de.alpharogroup.jetty9.runner.config.ServletContextHandlerConfiguration;
+import de.alpharogroup.jetty9.runner.config.TlsConfiguration;
+import de.alpharogroup.jetty9.runner.connector.ConnectionFactoriesProvider;
+import de.alpharogroup.jetty9.runner.connector.ConnectorProvider;
+import de.alpharogroup.jetty9.runner.connector.HttpConnectionFactoriesProvider;
+import de.alpharogroup.jetty9.runner.factories.ConfigurationFactory;
+import de.alpharogroup.jetty9.runner.factories.HandlerFactory;
+import de.alpharogroup.jetty9.runner.factories.ServletContextHandlerFactory;
+import de.alpharogroup.jetty9.runner.log.AsyncRequestLog;
+import de.alpharogroup.jetty9.runner.profile.PerformancePreset;
+import de.alpharogroup.jetty9.runner.ssl.KeyStoreWatcher;
+import de.alpharogroup.jetty9.runner.startup.ParallelContextHandlerCollection;
+import de.alpharogroup.jetty9.runner.validation.ConfigurationValidator;
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link ServerBuilder} builds a {@link Server} from a {@link Jetty9RunConfiguration}
+ * and a validated {@link PerformanceProfile}. The connectors with one shared
+ * {@link InstrumentedByteBufferPool}, the TLS setup, the instrumentation, the access log, the
+ * {@link RunnerControl} for the live tuning and the JMX registration are the same for all
+ * servers, only the handler tree differs:
+ * {@link #forContexts(Jetty9RunConfiguration)} serves the contexts of the configuration with a
+ * fallback {@link DefaultHandler} and the deployer, while
+ * {@link #forServletContextHandler(Jetty9RunConfiguration)} serves the servlet context handler of
+ * the configuration directly or, only if the configuration has a deployer, together with the
+ * deployed contexts in the {@link ContextHandlerCollection} of the deployer.
+ */
+@Log
+public class ServerBuilder
+{
+
+	/** The config. */
+	private final Jetty9RunConfiguration config;
+
+	/** The flag if only the servlet context handler of the config is served. */
+	private final boolean servletContextHandlerOnly;
+
+	/** The performance profile, if null the profile of the config is taken. */
+	private PerformanceProfile profile;
+
+	/** The server, if null a new server is created with the thread pool of the profile. */
+	private Server server;
+
+	/**
+	 * Instantiates a new {@link ServerBuilder}.
+	 *
+	 * @param config
+	 *            the config
+	 * @param servletContextHandlerOnly
+	 *            the flag if only the servlet context handler of the config is served
+	 */
+	private ServerBuilder(final Jetty9RunConfiguration config,
+		final boolean servletContextHandlerOnly)
+	{
+		this.config = config;
+		this.servletContextHandlerOnly = servletContextHandlerOnly;
+	}
+
+	/**
+	 * Factory method for creating a new {@link ServerBuilder} that serves the contexts, the
+	 * handlers and the deployer of the given {@link Jetty9RunConfiguration}.
+	 *
+	 * @param config
+	 *            the config
+	 * @return the new {@link ServerBuilder}.
+	 */
+	public static ServerBuilder forContexts(final Jetty9RunConfiguration config)
+	{
+		return new ServerBuilder(config, false);
+	}
+
+	/**
+	 * Factory method for creating a new {@link ServerBuilder} that serves the servlet context
+	 * handler, the servlet context handler configurations and the deployer of the given
+	 * {@link Jetty9RunConfiguration}.
+	 *
+	 * @param config
+	 *            the config
+	 * @return the new {@link ServerBuilder}.
+	 */
+	public static ServerBuilder forServletContextHandler(final Jetty9RunConfiguration config)
+	{
+		return new ServerBuilder(config, true);
+	}
+
+	/**
+	 * Validates the given {@link PerformanceProfile}.
+	 *
+	 * @param profile
+	 *            the profile
+	 * @throws IllegalArgumentException
+	 *             with all violations if the profile is not valid
+	 */
+	public static void validate(final PerformanceProfile profile)
+	{
+		final List<String> violations = ConfigurationValidator.validate(profile);
+		if (!violations.isEmpty())
+		{
+			throw new IllegalArgumentException(
+				"Invalid performance profile " + profile.getName() + ": " + violations);
+		}
+	}
+
+	/**
+	 * Adds the given {@link ServerConnector} objects to the given {@link Server}.
+	 *
+	 * @param server
+	 *            the server
+	 * @param serverConnectors
+	 *            the server connectors
+	 */
+	private static void addServerConnectors(final Server server,
+		final List<ServerConnector> serverConnectors)
+	{
+		for (final ServerConnector serverConnector : serverConnectors)
+		{
+			server.addConnector(serverConnector);
+		}
+	}
+
+	/**
+	 * Gets the {@link ServerConnectorConfiguration} of the given {@link PerformanceProfile} or the
+	 * defaults if not set.
+	 *
+	 * @param resolved
+	 *            the resolved profile
+	 * @return the server connector configuration
+	 */
+	private static ServerConnectorConfiguration getConnectorConfiguration(
+		final PerformanceProfile resolved)
+	{
+		return resolved.getServerConnectorConfiguration() == null
+			? ServerConnectorConfiguration.builder().build()
+			: resolved.getServerConnectorConfiguration();
+	}
+
+	/**
+	 * Builds the {@link Server} with the connectors and handlers from the config and the resolved
+	 * profile.
+	 *
+	 * @return the server
+	 * @throws IllegalArgumentException
+	 *             if the resolved profile is not valid
+	 */
+	public Server build()
+	{
+		final PerformanceProfile resolved = resolveProfile();
+		validate(resolved);
+		final Server target = server == null
+			? Jetty9Runner.newServer(resolved.getThreadPoolConfiguration())
+			: server;
+		log.info("jetty server is built with the performance profile " + resolved.getName() + ".");
+
+		final InstrumentedByteBufferPool byteBufferPool = ConfigurationFactory.newByteBufferPool(
+			getConnectorConfiguration(resolved).getByteBufferPoolConfiguration());
+		target.addBean(byteBufferPool);
+		initializeConnectors(target, resolved, byteBufferPool);
+
+		final Handler handler = servletContextHandlerOnly
+			? newServletContextHandler(resolved)
+			: newContextsHandler(resolved);
+		target.setHandler(instrument(target, handler));
+
+		if (config.getAccessLogConfiguration() != null)
+		{
+			target.setRequestLog(new AsyncRequestLog(config.getAccessLogConfiguration()));
+		}
+
+		if (config.getDeployer() != null)
+		{
+			target.addBean(config.getDeployer());
+		}
+
+		target.addBean(new RunnerControl(target));
+
+		final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		final MBeanContainer mBeanContainer = new MBeanContainer(mBeanServer);
+		target.addEventListener(mBeanContainer);
+		target.addBean(mBeanContainer);
+		return target;
+	}
+
+	/**
+	 * Creates the servlet context handlers of the servlet context handler configurations of the
+	 * config and adds the ones without a parent to the given {@link ContextHandlerCollection}.
+	 *
+	 * @param contexts
+	 *            the contexts
+	 */
+	private void addServletContextHandlers(final ContextHandlerCollection contexts)
+	{
+		if (hasServletContextHandlerConfigurations())
+		{
+			final List<ServletContextHandlerConfiguration> configurations = config
+				.getServletContextHandlerConfigurations();
+			final List<ServletContextHandler> servletContextHandlers = ServletContextHandlerFactory
+				.newServletContextHandlers(configurations);
+			for (int i = 0; i < servletContextHandlers.size(); i++)
+			{
+				if (configurations.get(i).getParent() == null)
+				{
+					contexts.addHandler(servletContextHandlers.get(i));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Wraps the given {@link Handler} in a GzipHandler if the given {@link PerformanceProfile}
+	 * contains a compression configuration.
+	 *
+	 * @param resolved
+	 *            the resolved profile
+	 * @param handler
+	 *            the handler
+	 * @return the GzipHandler or the given handler if compression is not configured
+	 */
+	private Handler compress(final PerformanceProfile resolved, final Handler handler)
+	{
+		if (resolved.getCompressionConfiguration() == null)
+		{
+			return handler;
+		}
+		return HandlerFactory.newGzipHandler(resolved.getCompressionConfiguration(), handler);
+	}
+
+	/**
+	 * Gets the {@link ConnectionFactoriesProvider} from the config or the default http/1.1
+	 * {@link ConnectionFactoriesProvider} if not set.
+	 *
+	 * @return the connection factories provider
+	 */
+	private ConnectionFactoriesProvider getConnectionFactoriesProvider()
+	{
+		if (config.getConnectionFactoriesProvider() == null)
+		{
+			return new HttpConnectionFactoriesProvider();
+		}
+		return config.getConnectionFactoriesProvider();
+	}
+
+	/**
+	 * Checks if the config has servlet context handler configurations.
+	 *
+	 * @return true, if the config has servlet context handler configurations
+	 */
+	private boolean hasServletContextHandlerConfigurations()
+	{
+		return config.getServletContextHandlerConfigurations() != null
+			&& !config.getServletContextHandlerConfigurations().isEmpty();
+	}
+
+	/**
+	 * Adds the http connectors, the connectors of the connector providers and, if a key store is
+	 * available, the https connectors to the given {@link Server}.
+	 *
+	 * @param target
+	 *            the server
+	 * @param resolved
+	 *            the resolved profile
+	 * @param byteBufferPool
+	 *            the byte buffer pool that is shared from all connectors
+	 */
+	private void initializeConnectors(final Server target, final PerformanceProfile resolved,
+		final ByteBufferPool byteBufferPool)
+	{
+		final HttpConfiguration httpConfiguration = ConfigurationFactory
+			.newHttpConfiguration(Jetty9Runner.HTTPS, config.getHttpsPort(), resolved);
+		final ServerConnectorConfiguration connectorConfiguration = getConnectorConfiguration(
+			resolved);
+		final ConnectionFactoriesProvider factoriesProvider = getConnectionFactoriesProvider();
+
+		addServerConnectors(target,
+			ConfigurationFactory.newServerConnectors(target, connectorConfiguration, byteBufferPool,
+				config.getHttpPort(), resolved.getHttpIdleTimeout(),
+				() -> factoriesProvider.newHttpConnectionFactories(httpConfiguration)));
+		if (config.getConnectorProviders() != null)
+		{
+			for (final ConnectorProvider connectorProvider : config.getConnectorProviders())
+			{
+				final Connector connector = connectorProvider.newConnector(target,
+					httpConfiguration, byteBufferPool, resolved.getHttpIdleTimeout());
+				ConfigurationFactory.setInputBufferSize(connectorConfiguration.getInputBufferSize(),
+					connector.getConnectionFactories().toArray(new ConnectionFactory[0]));
+				target.addConnector(connector);
+			}
+		}
+		if ((config.getKeyStorePathResource() != null)
+			&& !config.getKeyStorePathResource().isEmpty())
+		{
+			final Resource keystore = ConfigurationFactory
+				.newKeyStoreResource(config.getKeyStorePathResource());
+			if ((keystore != null) && keystore.exists())
+			{
+				// if a keystore for a SSL certificate is available, start a SSL
+				// connector on port 'httpsPort'.
+				// By default, the quickstart comes with a Apache Wicket Quickstart
+				// Certificate that expires about half way september 2021. Do not
+				// use this certificate anywhere important as the passwords are
+				// available in the source.
+
+				final SslContextFactory sslContextFactory = ConfigurationFactory
+					.newSslContextFactory(keystore, config.getKeyStorePassword(),
+						config.getKeyStorePassword(), config.getTlsConfiguration());
+				watchKeyStore(target, keystore, sslContextFactory);
+
+				final HttpConfiguration httpsConfiguration = new HttpConfiguration(
+					httpConfiguration);
+				httpsConfiguration.addCustomizer(new SecureRequestCustomizer());
+
+				addServerConnectors(target,
+					ConfigurationFactory.newServerConnectors(target, connectorConfiguration,
+						byteBufferPool, config.getHttpsPort(), resolved.getHttpsIdleTimeout(),
+						() -> factoriesProvider
+							.newHttpsConnectionFactories(sslContextFactory, httpsConfiguration)));
+
+				log.info(
+					"***************************************************************************");
+				log.info("**  SSL access to the application has been enabled on port "
+					+ config.getHttpsPort() + ".         **");
+				log.info("**  You can access the application using SSL on https://localhost:"
+					+ config.getHttpsPort() + ".  **");
+				log.info(
+					"***************************************************************************");
+
+			}
+			else
+			{
+				log.severe("*****************************************************");
+				log.severe("**  Keystore is null. Provide a keystore for ssh.  **");
+				log.severe("*****************************************************");
+			}
+		}
+		else
+		{
+			log.info("***************************************************");
+			log.info("**  Keystore path is null. You can not use ssh.  **");
+			log.info("***************************************************");
+		}
+	}
+
+	/**
+	 * Wraps the given {@link Handler} in a {@link StatisticsHandler} and a metrics handler if the
+	 * config contains request metrics. The request metrics are added as bean to the given
+	 * {@link Server} so they are exposed over JMX. Without request metrics but with a shutdown
+	 * configuration the handler is wrapped in a plain {@link StatisticsHandler} that counts the
+	 * requests in flight for the graceful shutdown.
+	 *
+	 * @param target
+	 *            the server
+	 * @param handler
+	 *            the handler
+	 * @return the {@link StatisticsHandler} or the given handler if neither request metrics nor a
+	 *         shutdown configuration are set
+	 */
+	private Handler instrument(final Server target, final Handler handler)
+	{
+		if (config.getRequestMetrics() == null)
+		{
+			if (config.getShutdownConfiguration() == null)
+			{
+				return handler;
+			}
+			final StatisticsHandler statisticsHandler = new StatisticsHandler();
+			statisticsHandler.setHandler(handler);
+			return statisticsHandler;
+		}
+		target.addBean(config.getRequestMetrics());
+		config.getRequestMetrics()
+			.setByteBufferPool(target.getBean(InstrumentedByteBufferPool.class));
+		return HandlerFactory.newInstrumentedHandler(config.getRequestMetrics(), handler);
+	}
+
+	/**
+	 * Factory method for creating the handler tree of the contexts, the handlers of the config
+	 * with the compressed contexts and a fallback {@link DefaultHandler}.
+	 *
+	 * @param resolved
+	 *            the resolved profile
+	 * @return the handler
+	 */
+	private Handler newContextsHandler(final PerformanceProfile resolved)
+	{
+		if (config.getHandlers() == null)
+		{
+			config.setHandlers(new HandlerCollection());
+		}
+		if (config.getContexts() == null)
+		{
+			config.setContexts(hasServletContextHandlerConfigurations()
+				? new ParallelContextHandlerCollection(config.getContextStartThreads())
+				: new ContextHandlerCollection());
+		}
+		addServletContextHandlers(config.getContexts());
+		config.getHandlers().setHandlers(
+			new Handler[] { compress(resolved, config.getContexts()), new DefaultHandler() });
+		return config.getHandlers();
+	}
+
+	/**
+	 * Factory method for creating the handler tree of the servlet context handler, the compressed
+	 * servlet context handler or, if servlet context handler configurations are given, the
+	 * compressed contexts of the config or a new {@link ParallelContextHandlerCollection} with all
+	 * of them. If the config has a deployer, the servlet context handlers are added to the
+	 * {@link ContextHandlerCollection} of the deployer, so the deployed contexts are served too.
+	 *
+	 * @param resolved
+	 *            the resolved profile
+	 * @return the handler
+	 */
+	private Handler newServletContextHandler(final PerformanceProfile resolved)
+	{
+		Handler handler = config.getServletContextHandler();
+		final DeploymentManager deployer = config.getDeployer();
+		if (deployer != null || hasServletContextHandlerConfigurations())
+		{
+			final ContextHandlerCollection contexts;
+			if (deployer != null)
+			{
+				contexts = deployer.getContexts();
+			}
+			else if (config.getContexts() != null)
+			{
+				contexts = config.getContexts();
+			}
+			else
+			{
+				contexts = new ParallelContextHandlerCollection(config.getContextStartThreads());
+			}
+			if (handler != null && !Arrays.asList(contexts.getChildHandlers()).contains(handler))
+			{
+				contexts.addHandler(handler);
+			}
+			addServletContextHandlers(contexts);
+			handler = contexts;
+		}
+		return compress(resolved, handler);
+	}
+
+	/**
+	 * Sets the performance profile, if not set the profile of the config is taken and if the config
+	 * has no profile the {@link PerformancePreset#DEFAULT} profile.
+	 *
+	 * @param profile
+	 *            the profile
+	 * @return this {@link ServerBuilder}
+	 */
+	public ServerBuilder profile(final PerformanceProfile profile)
+	{
+		this.profile = profile;
+		return this;
+	}
+
+	/**
+	 * Resolves the profile that is applied. The server connector, thread pool and compression
+	 * configurations of the config take precedence over the ones of the profile.
+	 *
+	 * @return the resolved profile
+	 */
+	public PerformanceProfile resolveProfile()
+	{
+		PerformanceProfile base = profile;
+		if (base == null)
+		{
+			base = config.getPerformanceProfile() == null
+				? PerformancePreset.DEFAULT.newPerformanceProfile()
+				: config.getPerformanceProfile();
+		}
+		final PerformanceProfile.PerformanceProfileBuilder builder = base.toBuilder();
+		if (config.getServerConnectorConfiguration() != null)
+		{
+			builder.serverConnectorConfiguration(config.getServerConnectorConfiguration());
+		}
+		if (config.getThreadPoolConfiguration() != null)
+		{
+			builder.threadPoolConfiguration(config.getThreadPoolConfiguration());
+		}
+		if (config.getCompressionConfiguration() != null)
+		{
+			builder.compressionConfiguration(config.getCompressionConfiguration());
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Sets the server to build. If not set a new server is created with the thread pool of the
+	 * resolved profile, the thread pool of a given server is kept.
+	 *
+	 * @param server
+	 *            the server
+	 * @return this {@link ServerBuilder}
+	 */
+	public ServerBuilder server(final Server server)
+	{
+		this.server = server;
+		return this;
+	}
+
+	/**
+	 * Adds a {@link KeyStoreWatcher} as bean to the given {@link Server} if the TLS configuration
+	 * of the config enables the key store watch and the given key store is a file in the file
+	 * system.
+	 *
+	 * @param target
+	 *            the server
+	 * @param keystore
+	 *            the key store resource
+	 * @param sslContextFactory
+	 *            the ssl context factory
+	 */
+	private void watchKeyStore(final Server target, final Resource keystore,
+		final SslContextFactory sslContextFactory)
+	{
+		final TlsConfiguration tlsConfiguration = config.getTlsConfiguration();
+		if (tlsConfiguration == null || !tlsConfiguration.isKeyStoreWatch())
+		{
+			return;
+		}
+		File keyStoreFile = null;
+		try
+		{
+			keyStoreFile = keystore.getFile();
+		}
+		catch (final IOException e)
+		{
+			log.log(Level.FINE, "key store is not a file.", e);
+		}
+		if (keyStoreFile == null)
+		{
+			log.warning("Key store " + keystore + " is not a file and can not be watched.");
+			return;
+		}
+		target.addBean(new KeyStoreWatcher(sslContextFactory, keyStoreFile,
+			tlsConfiguration.getKeyStoreWatchQuietTime()));
+	}
+
+}
@@ -0,0 +1,323 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.NetworkConnector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.util.component.AbstractLifeCycle.AbstractLifeCycleListener;
+import org.eclipse.jetty.util.component.LifeCycle;
+
+import de.alpharogroup.jetty9.runner.shutdown.GracefulShutdown;
+import de.alpharogroup.jetty9.runner.startup.StartupProfiler;
+
+/**
+ * The class {@link ServerHandle} is the handle of a {@link Server} that was started from the
+ * <code>start</code> methods of the {@link Jetty9Runner} without blocking the caller. It gives
+ * access to the bound ports, that is the local ports if the server was started on the ephemeral
+ * port 0, the startup time with the breakdown per phase and the health state and can stop and
+ * await the server.
+ */
+public class ServerHandle implements AutoCloseable
+{
+
+	/**
+	 * The health state of a {@link Server}.
+	 */
+	public enum State
+	{
+		/** The server is starting. */
+		STARTING,
+		/** The server is started and ready for requests. */
+		RUNNING,
+		/** The server is draining the requests in flight or stopping. */
+		STOPPING,
+		/** The server is stopped. */
+		STOPPED,
+		/** The server failed to start or to stop. */
+		FAILED
+	}
+
+	/** The graceful shutdown or null if the server is stopped directly. */
+	private final GracefulShutdown gracefulShutdown;
+
+	/** The server. */
+	private final Server server;
+
+	/** The startup profiler. */
+	private final StartupProfiler startupProfiler;
+
+	/** The latch that is released if the server is stopped or failed. */
+	private final CountDownLatch stopped = new CountDownLatch(1);
+
+	/** The flag if the server failed to start. */
+	private volatile boolean startFailed;
+
+	/** The startup time in milliseconds. */
+	private volatile long startupTime = -1;
+
+	/**
+	 * Instantiates a new {@link ServerHandle}.
+	 *
+	 * @param server
+	 *            the server that is not started yet
+	 * @param gracefulShutdown
+	 *            the graceful shutdown or null
+	 */
+	ServerHandle(final Server server, final GracefulShutdown gracefulShutdown)
+	{
+		this.server = server;
+		this.gracefulShutdown = gracefulShutdown;
+		this.startupProfiler = StartupProfiler.install(server);
+		server.addLifeCycleListener(new AbstractLifeCycleListener()
+		{
+			@Override
+			public void lifeCycleFailure(final LifeCycle event, final Throwable cause)
+			{
+				stopped.countDown();
+			}
+
+			@Override
+			public void lifeCycleStopped(final LifeCycle event)
+			{
+				stopped.countDown();
+			}
+		});
+	}
+
+	/**
+	 * Waits until the server is stopped.
+	 *
+	 * @throws InterruptedException
+	 *             if the current thread was interrupted
+	 */
+	public void await() throws InterruptedException
+	{
+		stopped.await();
+	}
+
+	/**
+	 * Waits until the server is stopped or the given timeout expires.
+	 *
+	 * @param timeout
+	 *            the timeout
+	 * @param unit
+	 *            the time unit of the timeout
+	 * @return true, if the server is stopped
+	 * @throws InterruptedException
+	 *             if the current thread was interrupted
+	 */
+	public boolean await(final long timeout, final TimeUnit unit) throws InterruptedException
+	{
+		return stopped.await(timeout, unit);
+	}
+
+	/**
+	 * Stops the server, see {@link #stop()}.
+	 */
+	@Override
+	public void close()
+	{
+		stop();
+	}
+
+	/**
+	 * Gets the first bound http port or -1 if no http connector is open.
+	 *
+	 * @return the http port
+	 */
+	public int getHttpPort()
+	{
+		final List<Integer> ports = getLocalPorts(false);
+		return ports.isEmpty() ? -1 : ports.get(0);
+	}
+
+	/**
+	 * Gets the first bound https port or -1 if no https connector is open.
+	 *
+	 * @return the https port
+	 */
+	public int getHttpsPort()
+	{
+		final List<Integer> ports = getLocalPorts(true);
+		return ports.isEmpty() ? -1 : ports.get(0);
+	}
+
+	/**
+	 * Gets the uri of the first bound http port on localhost.
+	 *
+	 * @return the http uri or null if no http connector is open
+	 */
+	public URI getHttpUri()
+	{
+		final int port = getHttpPort();
+		return port < 0 ? null : URI.create("http://localhost:" + port + "/");
+	}
+
+	/**
+	 * Gets the local ports of all open connectors.
+	 *
+	 * @return the local ports
+	 */
+	public List<Integer> getLocalPorts()
+	{
+		final List<Integer> ports = new ArrayList<>();
+		ports.addAll(getLocalPorts(false));
+		ports.addAll(getLocalPorts(true));
+		return ports;
+	}
+
+	/**
+	 * Gets the local ports of the open http or https connectors.
+	 *
+	 * @param secure
+	 *            the flag if the ports of the https connectors are requested
+	 * @return the local ports
+	 */
+	private List<Integer> getLocalPorts(final boolean secure)
+	{
+		final List<Integer> ports = new ArrayList<>();
+		for (final Connector connector : server.getConnectors())
+		{
+			if (connector instanceof NetworkConnector
+				&& (connector.getConnectionFactory(SslConnectionFactory.class) != null) == secure)
+			{
+				final int port = ((NetworkConnector)connector).getLocalPort();
+				if (0 < port && !ports.contains(port))
+				{
+					ports.add(port);
+				}
+			}
+		}
+		return Collections.unmodifiableList(ports);
+	}
+
+	/**
+	 * Gets the server.
+	 *
+	 * @return the server
+	 */
+	public Server getServer()
+	{
+		return server;
+	}
+
+	/**
+	 * Gets the startup time in milliseconds per phase, that is the thread pool, the deployment
+	 * manager, every context and every connector, in the order the phases finished.
+	 *
+	 * @return the startup phases
+	 */
+	public Map<String, Long> getStartupPhases()
+	{
+		return startupProfiler.getPhases();
+	}
+
+	/**
+	 * Gets the time in milliseconds the server needed to start or -1 if it is not started yet.
+	 *
+	 * @return the startup time
+	 */
+	public long getStartupTime()
+	{
+		return startupTime;
+	}
+
+	/**
+	 * Gets the health state of the server. A server that failed to start stays in the state
+	 * {@link State#FAILED} also after it is stopped.
+	 *
+	 * @return the state
+	 */
+	public State getState()
+	{
+		if (startFailed || server.isFailed())
+		{
+			return State.FAILED;
+		}
+		if (server.isStarting())
+		{
+			return State.STARTING;
+		}
+		if (server.isStopping()
+			|| (server.isRunning() && gracefulShutdown != null && gracefulShutdown.isTriggered()))
+		{
+			return State.STOPPING;
+		}
+		if (server.isRunning())
+		{
+			return State.RUNNING;
+		}
+		return server.isStopped() && 0 <= startupTime ? State.STOPPED : State.STARTING;
+	}
+
+	/**
+	 * Checks if the server is started and ready for requests.
+	 *
+	 * @return true, if the server is ready
+	 */
+	public boolean isReady()
+	{
+		return getState() == State.RUNNING;
+	}
+
+	/**
+	 * Starts the server and measures the startup time.
+	 *
+	 * @throws Exception
+	 *             if the server could not be started
+	 */
+	void start() throws Exception
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			server.start();
+		}
+		catch (final Exception e)
+		{
+			startFailed = true;
+			throw e;
+		}
+		startupTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	}
+
+	/**
+	 * Stops the server. If a graceful shutdown is configured the requests in flight are drained
+	 * before.
+	 */
+	public void stop()
+	{
+		if (gracefulShutdown != null)
+		{
+			gracefulShutdown.shutdown();
+		}
+		else
+		{
+			GracefulShutdown.stop(server);
+		}
+	}
+
+}
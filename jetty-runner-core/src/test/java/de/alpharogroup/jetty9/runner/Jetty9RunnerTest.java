@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.testng.annotations.Test;
+
+import de.alpharogroup.jetty9.runner.config.Jetty9RunConfiguration;
+import de.alpharogroup.jetty9.runner.config.ShutdownConfiguration;
+import de.alpharogroup.jetty9.runner.config.ThreadPoolConfiguration;
+
+/**
+ * The unit test class for the class {@link Jetty9Runner}.
+ */
+public class Jetty9RunnerTest
+{
+
+	/**
+	 * Checks if a thread with the given name prefix is alive, the threads that are stopping get
+	 * the given timeout to finish.
+	 *
+	 * @param prefix
+	 *            the name prefix of the threads
+	 * @param timeout
+	 *            the timeout in milliseconds
+	 * @return true, if a thread with the given name prefix is alive after the timeout
+	 * @throws InterruptedException
+	 *             if the current thread was interrupted
+	 */
+	private static boolean hasThread(final String prefix, final long timeout)
+		throws InterruptedException
+	{
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		while (true)
+		{
+			boolean alive = false;
+			for (final Thread thread : Thread.getAllStackTraces().keySet())
+			{
+				alive |= thread.isAlive() && thread.getName().startsWith(prefix);
+			}
+			if (!alive || deadline < System.nanoTime())
+			{
+				return alive;
+			}
+			Thread.sleep(50);
+		}
+	}
+
+	/**
+	 * Test method for {@link Jetty9Runner#startServletContextHandler(Server, Jetty9RunConfiguration)}
+	 * with a graceful shutdown and a http port that is already bound, the server has to be stopped
+	 * with its thread pool.
+	 *
+	 * @throws Exception
+	 *             is thrown if an exception occurs
+	 */
+	@Test
+	public void testStartServletContextHandlerStopsServerOnBindFailure() throws Exception
+	{
+		final String poolName = "jetty9-runner-test-" + System.nanoTime();
+		final Server server = Jetty9Runner
+			.newServer(ThreadPoolConfiguration.builder().name(poolName).build());
+		try (ServerSocket occupied = new ServerSocket(0))
+		{
+			final Jetty9RunConfiguration config = Jetty9RunConfiguration.builder()
+				.servletContextHandler(new ServletContextHandler())
+				.httpPort(occupied.getLocalPort())
+				.shutdownConfiguration(ShutdownConfiguration.builder().shutdownHook(false).build())
+				.build();
+			try
+			{
+				Jetty9Runner.startServletContextHandler(server, config);
+				fail("The server must not start on a port that is already bound.");
+			}
+			catch (final IllegalStateException e)
+			{
+				// expected
+			}
+		}
+		assertTrue(server.isStopped());
+		assertTrue(((LifeCycle)server.getThreadPool()).isStopped());
+		assertFalse(hasThread(poolName, 5000));
+	}
+
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * HTTP/2 configuration.
+ * <p>
+ * This class is a holder of the HTTP/2 configuration. The defaults of the flow control values are
+ * the same as the defaults of jetty's HTTP/2 connection factories.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class Http2Configuration
+{
+
+	/** The default initial session receive window in bytes. */
+	public static final int DEFAULT_INITIAL_SESSION_RECV_WINDOW = 1024 * 1024;
+
+	/** The default initial stream receive window in bytes. */
+	public static final int DEFAULT_INITIAL_STREAM_RECV_WINDOW = 512 * 1024;
+
+	/** The default max concurrent streams per connection. */
+	public static final int DEFAULT_MAX_CONCURRENT_STREAMS = 128;
+
+	/** The flag if cleartext HTTP/2 (h2c) is enabled on the http connector. */
+	@Builder.Default
+	private boolean h2c = true;
+
+	/** The flag if HTTP/2 over TLS (h2) negotiated with ALPN is enabled on the https connector. */
+	@Builder.Default
+	private boolean h2 = true;
+
+	/** The initial session receive window in bytes. */
+	@Builder.Default
+	private int initialSessionRecvWindow = DEFAULT_INITIAL_SESSION_RECV_WINDOW;
+
+	/** The initial stream receive window in bytes. */
+	@Builder.Default
+	private int initialStreamRecvWindow = DEFAULT_INITIAL_STREAM_RECV_WINDOW;
+
+	/** The max concurrent streams per connection. */
+	@Builder.Default
+	private int maxConcurrentStreams = DEFAULT_MAX_CONCURRENT_STREAMS;
+
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.connector;
+
+import java.util.Comparator;
+
+import org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http2.HTTP2Cipher;
+import org.eclipse.jetty.http2.server.AbstractHTTP2ServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.util.JavaVersion;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+import de.alpharogroup.jetty9.runner.config.Http2Configuration;
+import de.alpharogroup.jetty9.runner.ssl.CipherSuiteComparator;
+
+/**
+ * The class {@link Http2ConnectionFactoriesProvider} is a {@link ConnectionFactoriesProvider}
+ * that adds HTTP/2 to the connectors. The https connector negotiates h2 or http/1.1 over ALPN and
+ * the http connector accepts http/1.1 and cleartext h2c.
+ * <p>
+ * Note: ALPN needs a java 9 or newer runtime or a java 8 runtime with the alpn-boot jar that
+ * matches the java 8 update in the boot classpath, for instance with
+ * {@code -Xbootclasspath/p:alpn-boot-8.1.13.v20181017.jar}. Without it the https connector can not
+ * be created with h2 and h2 has to be disabled in the {@link Http2Configuration}.
+ * </p>
+ */
+public class Http2ConnectionFactoriesProvider implements ConnectionFactoriesProvider
+{
+
+	/** The class name of the ALPN api from the alpn-boot jar. */
+	private static final String ALPN_BOOT_CLASS_NAME = "org.eclipse.jetty.alpn.ALPN";
+
+	/** The configuration. */
+	private final Http2Configuration configuration;
+
+	/**
+	 * Instantiates a new {@link Http2ConnectionFactoriesProvider} with the default
+	 * {@link Http2Configuration}.
+	 */
+	public Http2ConnectionFactoriesProvider()
+	{
+		this(Http2Configuration.builder().build());
+	}
+
+	/**
+	 * Instantiates a new {@link Http2ConnectionFactoriesProvider}.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 */
+	public Http2ConnectionFactoriesProvider(final Http2Configuration configuration)
+	{
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Checks if ALPN is supported from the running jvm, that is a java 9 or newer runtime or a java
+	 * 8 runtime with the alpn-boot jar in the boot classpath.
+	 *
+	 * @return true, if ALPN is supported
+	 */
+	public static boolean isAlpnSupported()
+	{
+		if (9 <= JavaVersion.VERSION.getPlatform())
+		{
+			return true;
+		}
+		try
+		{
+			// the alpn-boot jar has to be loaded from the boot class loader
+			Class.forName(ALPN_BOOT_CLASS_NAME, false, null);
+			return true;
+		}
+		catch (final ClassNotFoundException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Configures the given HTTP/2 connection factory from the configuration.
+	 *
+	 * @param <T>
+	 *            the generic type of the connection factory
+	 * @param connectionFactory
+	 *            the connection factory
+	 * @return the given connection factory
+	 */
+	private <T extends AbstractHTTP2ServerConnectionFactory> T configure(final T connectionFactory)
+	{
+		connectionFactory.setMaxConcurrentStreams(configuration.getMaxConcurrentStreams());
+		connectionFactory.setInitialStreamRecvWindow(configuration.getInitialStreamRecvWindow());
+		connectionFactory
+			.setInitialSessionRecvWindow(configuration.getInitialSessionRecvWindow());
+		return connectionFactory;
+	}
+
+	/**
+	 * Gets the configuration.
+	 *
+	 * @return the configuration
+	 */
+	public Http2Configuration getConfiguration()
+	{
+		return configuration;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ConnectionFactory[] newHttpConnectionFactories(
+		final HttpConfiguration httpConfiguration)
+	{
+		if (!configuration.isH2c())
+		{
+			return new ConnectionFactory[] { new HttpConnectionFactory(httpConfiguration) };
+		}
+		return new ConnectionFactory[] { new HttpConnectionFactory(httpConfiguration),
+				configure(new HTTP2CServerConnectionFactory(httpConfiguration)) };
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IllegalStateException
+	 *             if h2 is enabled and ALPN is not supported from the running jvm
+	 */
+	@Override
+	public ConnectionFactory[] newHttpsConnectionFactories(
+		final SslContextFactory sslContextFactory, final HttpConfiguration httpsConfiguration)
+	{
+		if (!configuration.isH2())
+		{
+			return new ConnectionFactory[] {
+					new SslConnectionFactory(sslContextFactory, HttpVersion.HTTP_1_1.asString()),
+					new HttpConnectionFactory(httpsConfiguration) };
+		}
+		if (!isAlpnSupported())
+		{
+			throw new IllegalStateException("HTTP/2 over TLS (h2) needs ALPN, that is not "
+				+ "supported from java " + JavaVersion.VERSION
+				+ ": run on java 9 or newer, add the alpn-boot jar that matches the java 8 update"
+				+ " with -Xbootclasspath/p or disable h2 in the Http2Configuration.");
+		}
+		// HTTP/2 requires TLS 1.2+ cipher suites that are not black listed, so prefer them and
+		// keep a configured cipher suite order within them
+		final Comparator<String> cipherComparator = sslContextFactory.getCipherComparator();
+		sslContextFactory.setCipherComparator(cipherComparator instanceof CipherSuiteComparator
+			? ((CipherSuiteComparator)cipherComparator).withPrimary(HTTP2Cipher.COMPARATOR)
+			: HTTP2Cipher.COMPARATOR);
+		sslContextFactory.setUseCipherSuitesOrder(true);
+
+		final HttpConnectionFactory http1 = new HttpConnectionFactory(httpsConfiguration);
+		final HTTP2ServerConnectionFactory http2 = configure(
+			new HTTP2ServerConnectionFactory(httpsConfiguration));
+		final ALPNServerConnectionFactory alpn = new ALPNServerConnectionFactory(
+			http2.getProtocol(), http1.getProtocol());
+		alpn.setDefaultProtocol(http1.getProtocol());
+		return new ConnectionFactory[] {
+				new SslConnectionFactory(sslContextFactory, alpn.getProtocol()), alpn, http2,
+				http1 };
+	}
+
+}
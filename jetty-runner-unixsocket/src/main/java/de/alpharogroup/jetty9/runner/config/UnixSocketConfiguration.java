@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.config;
+
+import java.io.File;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Unix domain socket configuration.
+ * <p>
+ * This class is a holder of the configuration of a connector on a unix domain socket, for a
+ * reverse proxy on the same host that forwards the requests without the tcp loopback overhead.
+ * </p>
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class UnixSocketConfiguration
+{
+
+	/** The default path of the socket file in the temporary directory. */
+	public static final String DEFAULT_SOCKET_PATH = new File(
+		System.getProperty("java.io.tmpdir"), "jetty-runner.sock").getAbsolutePath();
+
+	/** The accept queue size, the backlog of the server socket. Zero takes the os default. */
+	private int acceptQueueSize;
+
+	/**
+	 * The flag if a socket file that is left from a previous run is deleted before the socket is
+	 * bound, otherwise the bind fails. A file at the socket path that is not a socket is never
+	 * deleted and fails the bind.
+	 */
+	@Builder.Default
+	private boolean deleteStaleSocket = true;
+
+	/**
+	 * The posix permissions of the socket file, for instance <code>rw-rw----</code> for access of
+	 * the owner and the group of the proxy. If null the permissions of the umask are kept.
+	 * <p>
+	 * The socket file gets the permissions of the umask on bind and the permissions can only be
+	 * changed after the bind. To close this gap the socket is bound in a temporary directory next
+	 * to the socket path that only the owner can access and moved to the socket path after the
+	 * permissions are set. So the directory of the socket path has to be writable and the bound
+	 * path in the temporary directory is about 25 characters longer than the socket path, that
+	 * has to stay within the limit of 107 bytes of a unix socket path.
+	 * </p>
+	 */
+	private String permissions;
+
+	/**
+	 * The flag if the connections start with the PROXY protocol header of the reverse proxy, so
+	 * the requests get the client address instead of the unix socket.
+	 */
+	private boolean proxyProtocol;
+
+	/** The number of selector threads. */
+	@Builder.Default
+	private int selectors = 1;
+
+	/** The path of the socket file. */
+	@Builder.Default
+	private String socketPath = DEFAULT_SOCKET_PATH;
+
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.connector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.logging.Level;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.unixsocket.UnixSocketConnector;
+
+import de.alpharogroup.jetty9.runner.config.UnixSocketConfiguration;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+import lombok.extern.java.Log;
+
+/**
+ * The class {@link ConfigurableUnixSocketConnector} is a {@link UnixSocketConnector} that is
+ * tuned from a {@link UnixSocketConfiguration}. Additional to the jetty
+ * {@link UnixSocketConnector} it sets the permissions of the socket file and deletes a socket
+ * file that is left from a previous run if no server listens on it. Any other file at the socket
+ * path is never deleted.
+ * <p>
+ * The socket file gets the permissions of the umask on bind. So that no client can connect in
+ * the time until the permissions are set, the socket is bound in a new temporary directory next
+ * to the socket path that only the owner can access, gets its permissions there and is then
+ * moved atomically to the socket path.
+ * </p>
+ */
+@Log
+public class ConfigurableUnixSocketConnector extends UnixSocketConnector
+{
+
+	/** The permissions of the temporary directory the socket is bound in. */
+	private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions
+		.fromString("rwx------");
+
+	/** The mask of the file type bits of the unix file mode. */
+	private static final int S_IFMT = 0170000;
+
+	/** The file type bits of a socket in the unix file mode. */
+	private static final int S_IFSOCK = 0140000;
+
+	/** The configuration. */
+	private final UnixSocketConfiguration configuration;
+
+	/** The permissions of the socket file or null if the permissions of the umask are kept. */
+	private final Set<PosixFilePermission> permissions;
+
+	/**
+	 * Instantiates a new {@link ConfigurableUnixSocketConnector}.
+	 *
+	 * @param server
+	 *            the server
+	 * @param configuration
+	 *            the configuration
+	 * @param byteBufferPool
+	 *            the byte buffer pool, if null the pool bean of the server or a new pool is taken
+	 * @param factories
+	 *            the connection factories
+	 * @throws IllegalArgumentException
+	 *             if the permissions of the configuration are not valid
+	 */
+	public ConfigurableUnixSocketConnector(final Server server,
+		final UnixSocketConfiguration configuration, final ByteBufferPool byteBufferPool,
+		final ConnectionFactory... factories)
+	{
+		super(server, null, null, byteBufferPool, configuration.getSelectors(), factories);
+		this.configuration = configuration;
+		this.permissions = configuration.getPermissions() == null
+			? null
+			: PosixFilePermissions.fromString(configuration.getPermissions());
+		setUnixSocket(configuration.getSocketPath());
+		setAcceptQueueSize(configuration.getAcceptQueueSize());
+		setName("unix:" + configuration.getSocketPath());
+	}
+
+	/**
+	 * Checks if a server listens on the given socket file.
+	 *
+	 * @param socketFile
+	 *            the socket file
+	 * @return true, if a connection to the socket file can be opened
+	 */
+	private static boolean isListening(final File socketFile)
+	{
+		try (UnixSocketChannel channel = UnixSocketChannel.open(new UnixSocketAddress(socketFile)))
+		{
+			return channel.isConnected();
+		}
+		catch (final IOException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Checks if the given path is a socket file. The file type is taken from the unix file mode
+	 * if the file system provides it, otherwise every file that is neither a regular file, a
+	 * directory nor a symbolic link is taken as socket.
+	 *
+	 * @param path
+	 *            the path
+	 * @return true, if the path is a socket file
+	 * @throws IOException
+	 *             if the attributes of the path could not be read
+	 */
+	private static boolean isSocket(final Path path) throws IOException
+	{
+		try
+		{
+			final Object mode = Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+			if (mode instanceof Integer)
+			{
+				return ((Integer)mode & S_IFMT) == S_IFSOCK;
+			}
+		}
+		catch (final UnsupportedOperationException | IllegalArgumentException e)
+		{
+			log.log(Level.FINE, "The unix file mode of " + path + " is not available.", e);
+		}
+		return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS)
+			.isOther();
+	}
+
+	/**
+	 * Gets the configuration.
+	 *
+	 * @return the configuration
+	 */
+	public UnixSocketConfiguration getConfiguration()
+	{
+		return configuration;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void open() throws IOException
+	{
+		if (isOpen())
+		{
+			return;
+		}
+		final File socketFile = new File(getUnixSocket());
+		if (configuration.isDeleteStaleSocket() && socketFile.exists())
+		{
+			if (!isSocket(socketFile.toPath()))
+			{
+				throw new IOException("The path " + socketFile
+					+ " of the unix socket exists and is not a socket, it is not deleted.");
+			}
+			if (isListening(socketFile))
+			{
+				throw new IOException("The unix socket " + socketFile + " is in use.");
+			}
+			log.info("The stale unix socket " + socketFile + " is deleted.");
+			Files.delete(socketFile.toPath());
+		}
+		if (permissions == null)
+		{
+			super.open();
+			return;
+		}
+		if (socketFile.exists())
+		{
+			throw new IOException("The unix socket " + socketFile + " already exists.");
+		}
+		final Path target = socketFile.getAbsoluteFile().toPath();
+		final Path directory = Files.createTempDirectory(target.getParent(),
+			"." + socketFile.getName() + "-", PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+		final Path bound = directory.resolve(socketFile.getName());
+		try
+		{
+			setUnixSocket(bound.toString());
+			super.open();
+			Files.setPosixFilePermissions(bound, permissions);
+			Files.move(bound, target, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (final IOException e)
+		{
+			// closes the channel and deletes the bound socket file
+			close();
+			throw e;
+		}
+		finally
+		{
+			setUnixSocket(target.toString());
+			try
+			{
+				Files.deleteIfExists(directory);
+			}
+			catch (final IOException e)
+			{
+				log.log(Level.FINE, "The directory " + directory + " could not be deleted.", e);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.connector;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.ProxyConnectionFactory;
+import org.eclipse.jetty.server.Server;
+
+import de.alpharogroup.jetty9.runner.config.UnixSocketConfiguration;
+
+/**
+ * The class {@link UnixSocketConnectorProvider} is a {@link ConnectorProvider} for a
+ * {@link ConfigurableUnixSocketConnector} that serves http/1.1 on a unix domain socket. If the
+ * PROXY protocol is enabled the connections start with the PROXY protocol header of the reverse
+ * proxy and the requests get the address of the client.
+ * <p>
+ * Note: the unix domain sockets are provided from the native jnr-unixsocket library, that
+ * supports only linux and macOS.
+ * </p>
+ */
+public class UnixSocketConnectorProvider implements ConnectorProvider
+{
+
+	/** The configuration. */
+	private final UnixSocketConfiguration configuration;
+
+	/**
+	 * Instantiates a new {@link UnixSocketConnectorProvider} with the default
+	 * {@link UnixSocketConfiguration}.
+	 */
+	public UnixSocketConnectorProvider()
+	{
+		this(UnixSocketConfiguration.builder().build());
+	}
+
+	/**
+	 * Instantiates a new {@link UnixSocketConnectorProvider}.
+	 *
+	 * @param configuration
+	 *            the configuration
+	 */
+	public UnixSocketConnectorProvider(final UnixSocketConfiguration configuration)
+	{
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Gets the configuration.
+	 *
+	 * @return the configuration
+	 */
+	public UnixSocketConfiguration getConfiguration()
+	{
+		return configuration;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Connector newConnector(final Server server, final HttpConfiguration httpConfiguration,
+		final ByteBufferPool byteBufferPool, final long idleTimeout)
+	{
+		final HttpConnectionFactory http = new HttpConnectionFactory(httpConfiguration);
+		final ConnectionFactory[] factories = configuration.isProxyProtocol()
+			? new ConnectionFactory[] { new ProxyConnectionFactory(http.getProtocol()), http }
+			: new ConnectionFactory[] { http };
+		final ConfigurableUnixSocketConnector connector = new ConfigurableUnixSocketConnector(
+			server, configuration, byteBufferPool, factories);
+		connector.setIdleTimeout(idleTimeout);
+		return connector;
+	}
+
+}
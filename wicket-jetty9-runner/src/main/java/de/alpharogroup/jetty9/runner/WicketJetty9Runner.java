@@ -17,11 +17,14 @@ package de.alpharogroup.jetty9.runner;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
 import java.util.logging.Level;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.protocol.http.ContextParamWebApplicationFactory;
 import org.apache.wicket.protocol.http.WicketFilter;
+import org.apache.wicket.util.lang.Generics;
 import org.eclipse.jetty.deploy.DeploymentManager;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
@@ -37,6 +40,8 @@ import de.alpharogroup.jetty9.runner.config.StartConfig;
 import de.alpharogroup.jetty9.runner.factories.DeploymentManagerFactory;
 import de.alpharogroup.jetty9.runner.factories.ServletContextHandlerFactory;
 import de.alpharogroup.jetty9.runner.factories.WicketServletContextHandlerFactory;
+import de.alpharogroup.jetty9.runner.startup.ParallelContextHandlerCollection;
+import de.alpharogroup.jetty9.runner.wicket.PageStoreWebApplicationFactory;
 import lombok.extern.java.Log;
 
 /**
@@ -90,19 +95,22 @@ public class WicketJetty9Runner
 
 
 	/**
-	 * Run a jetty server with the given {@link StartConfig} object.
+	 * Run a jetty server with the given {@link StartConfig} object. This method blocks until the
+	 * server is stopped. If the server could not be started the jvm exits with the exit code
+	 * {@link Jetty9Runner#EXIT_CODE_START_FAILED}.
 	 *
 	 * @param startConfig
 	 *            the start config
 	 */
 	public static void run(final StartConfig startConfig)
 	{
-		WicketJetty9Runner.run(startConfig, new Server());
+		Jetty9Runner.runServletContextHandler(newJetty9RunConfiguration(startConfig));
 	}
 
 	/**
 	 * Run a jetty server with the given {@link StartConfig} object on the given {@link Server}
-	 * object.
+	 * object. This method blocks until the server is stopped. If the server could not be started
+	 * the jvm exits with the exit code {@link Jetty9Runner#EXIT_CODE_START_FAILED}.
 	 *
 	 * @param startConfig
 	 *            the start config
@@ -111,7 +119,54 @@ public class WicketJetty9Runner
 	 */
 	public static void run(final StartConfig startConfig, final Server server)
 	{
+		Jetty9Runner.runServletContextHandler(server, newJetty9RunConfiguration(startConfig));
+	}
+
+	/**
+	 * Starts a jetty server with the given {@link StartConfig} object without blocking.
+	 *
+	 * @param startConfig
+	 *            the start config
+	 * @return the {@link ServerHandle} of the started server
+	 * @throws IllegalStateException
+	 *             if the server could not be started, see
+	 *             {@link Jetty9Runner#startServletContextHandler(Jetty9RunConfiguration)}
+	 */
+	public static ServerHandle start(final StartConfig startConfig)
+	{
+		return Jetty9Runner.startServletContextHandler(newJetty9RunConfiguration(startConfig));
+	}
+
+	/**
+	 * Starts a jetty server with the given {@link StartConfig} object on the given {@link Server}
+	 * object without blocking. The http and https ports can be 0 for ephemeral ports, the bound
+	 * ports are provided from the returned {@link ServerHandle}.
+	 *
+	 * @param startConfig
+	 *            the start config
+	 * @param server
+	 *            the server
+	 * @return the {@link ServerHandle} of the started server
+	 * @throws IllegalStateException
+	 *             if the server could not be started, see
+	 *             {@link Jetty9Runner#startServletContextHandler(Server, Jetty9RunConfiguration)}
+	 */
+	public static ServerHandle start(final StartConfig startConfig, final Server server)
+	{
+		return Jetty9Runner.startServletContextHandler(server,
+			newJetty9RunConfiguration(startConfig));
+	}
 
+	/**
+	 * Factory method for create the {@link Jetty9RunConfiguration} with the wicket application
+	 * context from the given {@link StartConfig} object.
+	 *
+	 * @param startConfig
+	 *            the start config
+	 * @return the new {@link Jetty9RunConfiguration}.
+	 */
+	private static Jetty9RunConfiguration newJetty9RunConfiguration(final StartConfig startConfig)
+	{
 		System.setProperty(WICKET_CONFIGURATION_KEY, startConfig.getRuntimeConfigurationType());
 
 		if (startConfig.getLogFile().exists())
@@ -126,7 +181,15 @@ public class WicketJetty9Runner
 			}
 		}
 
-		final ContextHandlerCollection contexts = new ContextHandlerCollection();
+		final ContextHandlerCollection contexts = new ParallelContextHandlerCollection(
+			startConfig.getContextStartThreads());
+
+		final Map<String, String> wicketInitParameters = Generics.newHashMap();
+		if (startConfig.getPageStoreConfiguration() != null)
+		{
+			wicketInitParameters.putAll(PageStoreWebApplicationFactory
+				.newInitParameters(startConfig.getPageStoreConfiguration()));
+		}
 
 		final ServletContextHandler servletContextHandler = ServletContextHandlerFactory
 			.getNewServletContextHandler(ServletContextHandlerConfiguration.builder()
@@ -136,20 +199,28 @@ public class WicketJetty9Runner
 					.initParameter(WicketFilter.FILTER_MAPPING_PARAM, startConfig.getFilterPath())
 					.initParameter(ContextParamWebApplicationFactory.APP_CLASS_PARAM,
 						startConfig.getApplicationName())
-					.build())
+					.initParameters(wicketInitParameters).build())
 				.servletHolderConfiguration(
 					ServletHolderConfiguration.builder().servletClass(DefaultServlet.class)
 						.pathSpec(startConfig.getFilterPath()).build())
+				.bulkheadConfigurations(startConfig.getBulkheadConfigurations() == null
+					? Collections.emptyList()
+					: startConfig.getBulkheadConfigurations())
+				.compressionConfiguration(startConfig.getCompressionConfiguration())
 				.contextPath(startConfig.getContextPath()).webapp(startConfig.getWebapp())
 				.maxInactiveInterval(startConfig.getSessionTimeout())
-				.filterPath(startConfig.getFilterPath()).build());
+				.rateLimitConfiguration(startConfig.getRateLimitConfiguration())
+				.sessionStoreConfiguration(startConfig.getSessionStoreConfiguration())
+				.requestMetrics(startConfig.getRequestMetrics())
+				.filterPath(startConfig.getFilterPath())
+				.staticResourceConfiguration(startConfig.getStaticResourceConfiguration()).build());
 
+		// the deployer is only started for a separate deploy directory, never for the webapp
 		final DeploymentManager deployer = DeploymentManagerFactory.newDeploymentManager(contexts,
-			startConfig.getWebapp().getAbsolutePath(), null);
+			startConfig.getWebapp(), startConfig.getDeploymentConfiguration());
 
-		final Jetty9RunConfiguration configuration = Jetty9Runner
-			.newJetty9RunConfiguration(servletContextHandler, contexts, deployer, startConfig);
-		Jetty9Runner.runServletContextHandler(server, configuration);
+		return Jetty9Runner.newJetty9RunConfiguration(servletContextHandler, contexts, deployer,
+			startConfig);
 	}
 
 }
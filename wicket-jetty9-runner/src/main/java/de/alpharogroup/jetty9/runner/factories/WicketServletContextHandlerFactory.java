@@ -16,7 +16,6 @@
 package de.alpharogroup.jetty9.runner.factories;
 
 import java.io.File;
-import java.util.EnumSet;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -29,9 +28,12 @@ import org.apache.wicket.util.lang.Generics;
 import org.eclipse.jetty.servlet.DefaultServlet;
 import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
 
 import de.alpharogroup.file.search.PathFinder;
+import de.alpharogroup.jetty9.runner.config.PageStoreConfiguration;
 import de.alpharogroup.jetty9.runner.config.ServletContextHandlerConfiguration;
+import de.alpharogroup.jetty9.runner.wicket.PageStoreWebApplicationFactory;
 
 /**
  * The factory class {@link WicketServletContextHandlerFactory} for creating
@@ -40,6 +42,29 @@ import de.alpharogroup.jetty9.runner.config.ServletContextHandlerConfiguration;
 public class WicketServletContextHandlerFactory
 {
 
+	/**
+	 * Initialize the page store of the wicket application of the given {@link FilterHolder} from
+	 * the given {@link PageStoreConfiguration}. The settings are set as init parameters of the
+	 * {@link WicketFilter} and applied from the {@link PageStoreWebApplicationFactory}.
+	 *
+	 * @param pageStoreConfiguration
+	 *            the page store configuration, can be null
+	 * @param filter
+	 *            the filter holder of the {@link WicketFilter}
+	 */
+	public static void initializePageStore(final PageStoreConfiguration pageStoreConfiguration,
+		final FilterHolder filter)
+	{
+		if (pageStoreConfiguration != null)
+		{
+			for (final Entry<String, String> initParameter : PageStoreWebApplicationFactory
+				.newInitParameters(pageStoreConfiguration).entrySet())
+			{
+				filter.setInitParameter(initParameter.getKey(), initParameter.getValue());
+			}
+		}
+	}
+
 	/**
 	 * New servlet context handler.
 	 *
@@ -169,6 +194,15 @@ public class WicketServletContextHandlerFactory
 
 		context.setResourceBase(configuration.getWebapp().getAbsolutePath());
 
+		ServletContextHandlerFactory.initializeRateLimit(configuration.getRateLimitConfiguration(),
+			context);
+
+		ServletContextHandlerFactory.initializeBulkheads(configuration.getBulkheadConfigurations(),
+			context);
+
+		ServletContextHandlerFactory.initializeCacheControlRules(
+			configuration.getStaticResourceConfiguration(), context);
+
 		final FilterHolder filter = new FilterHolder(WicketFilter.class);
 		filter.setInitParameter(ContextParamWebApplicationFactory.APP_CLASS_PARAM,
 			configuration.getApplicationClass().getName());
@@ -177,11 +211,23 @@ public class WicketServletContextHandlerFactory
 		{
 			filter.setInitParameter(initParameter.getKey(), initParameter.getValue());
 		}
-		context.addFilter(filter, configuration.getFilterPath(),
-			EnumSet.of(DispatcherType.REQUEST, DispatcherType.ERROR));
-		context.addServlet(DefaultServlet.class, configuration.getFilterPath());
+		initializePageStore(configuration.getPageStoreConfiguration(), filter);
+		context.addFilter(filter, configuration.getFilterPath(), ServletContextHandlerFactory
+			.getDispatcherTypes(context, DispatcherType.REQUEST, DispatcherType.ERROR));
+		final ServletHolder defaultServlet = context.addServlet(DefaultServlet.class,
+			configuration.getFilterPath());
+		ServletContextHandlerFactory.initializeStaticResources(
+			configuration.getStaticResourceConfiguration(), defaultServlet);
+
+		ServletContextHandlerFactory.initializeCompression(
+			configuration.getCompressionConfiguration(), context);
+
+		ServletContextHandlerFactory.initializeMetrics(configuration.getRequestMetrics(), context);
 
 		context.getSessionHandler().setMaxInactiveInterval(configuration.getMaxInactiveInterval());
+
+		ServletContextHandlerFactory.initializeSessions(
+			configuration.getSessionStoreConfiguration(), context);
 		return context;
 	}
 }
@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.wicket;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+
+import javax.servlet.FilterConfig;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.IApplicationListener;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.serialize.ISerializer;
+import org.apache.wicket.settings.StoreSettings;
+import org.apache.wicket.util.lang.Bytes;
+
+/**
+ * The class {@link PageStoreApplicationListener} applies the page store settings from the init
+ * parameters of the wicket filter to the {@link StoreSettings} and the serializer of the
+ * application. Only the init parameters that are set are applied. The page manager reads the
+ * store settings when it is created on the first request, so the settings take effect although
+ * they are applied after the application is initialized.
+ */
+public class PageStoreApplicationListener implements IApplicationListener
+{
+
+	/** The filter config. */
+	private final FilterConfig filterConfig;
+
+	/**
+	 * Instantiates a new {@link PageStoreApplicationListener}.
+	 *
+	 * @param filterConfig
+	 *            the filter config of the wicket filter
+	 */
+	public PageStoreApplicationListener(final FilterConfig filterConfig)
+	{
+		this.filterConfig = filterConfig;
+	}
+
+	/**
+	 * Factory method for creating the serializer of the given class name. A constructor with the
+	 * application key is preferred over the default constructor.
+	 *
+	 * @param className
+	 *            the class name of the serializer
+	 * @param application
+	 *            the application
+	 * @return the serializer
+	 */
+	private static ISerializer newSerializer(final String className,
+		final Application application)
+	{
+		try
+		{
+			final Class<? extends ISerializer> serializerClass = Class
+				.forName(className, true, Thread.currentThread().getContextClassLoader())
+				.asSubclass(ISerializer.class);
+			try
+			{
+				final Constructor<? extends ISerializer> constructor = serializerClass
+					.getConstructor(String.class);
+				return constructor.newInstance(application.getApplicationKey());
+			}
+			catch (final NoSuchMethodException e)
+			{
+				return serializerClass.newInstance();
+			}
+		}
+		catch (final ReflectiveOperationException | ClassCastException e)
+		{
+			throw new WicketRuntimeException("The serializer " + className
+				+ " could not be created.", e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onAfterInitialized(final Application application)
+	{
+		final StoreSettings storeSettings = application.getStoreSettings();
+		final String asynchronous = getInitParameter(
+			PageStoreWebApplicationFactory.ASYNCHRONOUS_PARAM);
+		if (asynchronous != null)
+		{
+			storeSettings.setAsynchronous(Boolean.parseBoolean(asynchronous));
+		}
+		final String queueCapacity = getInitParameter(
+			PageStoreWebApplicationFactory.ASYNCHRONOUS_QUEUE_CAPACITY_PARAM);
+		if (queueCapacity != null)
+		{
+			storeSettings.setAsynchronousQueueCapacity(Integer.parseInt(queueCapacity));
+		}
+		final String inmemoryCacheSize = getInitParameter(
+			PageStoreWebApplicationFactory.INMEMORY_CACHE_SIZE_PARAM);
+		if (inmemoryCacheSize != null)
+		{
+			storeSettings.setInmemoryCacheSize(Integer.parseInt(inmemoryCacheSize));
+		}
+		final String maxSizePerSession = getInitParameter(
+			PageStoreWebApplicationFactory.MAX_SIZE_PER_SESSION_PARAM);
+		if (maxSizePerSession != null)
+		{
+			storeSettings.setMaxSizePerSession(Bytes.bytes(Long.parseLong(maxSizePerSession)));
+		}
+		final String fileStoreFolder = getInitParameter(
+			PageStoreWebApplicationFactory.FILE_STORE_FOLDER_PARAM);
+		if (fileStoreFolder != null)
+		{
+			storeSettings.setFileStoreFolder(new File(fileStoreFolder));
+		}
+		final String serializer = getInitParameter(
+			PageStoreWebApplicationFactory.SERIALIZER_PARAM);
+		if (serializer != null)
+		{
+			application.getFrameworkSettings()
+				.setSerializer(newSerializer(serializer, application));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onBeforeDestroyed(final Application application)
+	{
+	}
+
+	/**
+	 * Gets the trimmed init parameter with the given name or null if it is not set.
+	 *
+	 * @param name
+	 *            the name of the init parameter
+	 * @return the init parameter or null
+	 */
+	private String getInitParameter(final String name)
+	{
+		final String value = filterConfig.getInitParameter(name);
+		return value == null || value.trim().isEmpty() ? null : value.trim();
+	}
+
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2015 Asterios Raptis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alpharogroup.jetty9.runner.wicket;
+
+import java.util.Map;
+
+import org.apache.wicket.protocol.http.ContextParamWebApplicationFactory;
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.protocol.http.WicketFilter;
+import org.apache.wicket.util.lang.Generics;
+
+import de.alpharogroup.jetty9.runner.config.PageStoreConfiguration;
+
+/**
+ * The class {@link PageStoreWebApplicationFactory} is a {@link ContextParamWebApplicationFactory}
+ * that adds a {@link PageStoreApplicationListener} to the created application, so the page store
+ * settings from the init parameters of the {@link WicketFilter} are applied after the application
+ * is initialized.
+ */
+public class PageStoreWebApplicationFactory extends ContextParamWebApplicationFactory
+{
+
+	/** The init parameter for the flag if the page store is asynchronous. */
+	public static final String ASYNCHRONOUS_PARAM = "pageStore.asynchronous";
+
+	/** The init parameter for the queue capacity of the asynchronous page store. */
+	public static final String ASYNCHRONOUS_QUEUE_CAPACITY_PARAM = "pageStore."
+		+ "asynchronousQueueCapacity";
+
+	/** The init parameter for the folder of the disk store. */
+	public static final String FILE_STORE_FOLDER_PARAM = "pageStore.fileStoreFolder";
+
+	/** The init parameter for the number of pages per session in the in-memory cache. */
+	public static final String INMEMORY_CACHE_SIZE_PARAM = "pageStore.inmemoryCacheSize";
+
+	/** The init parameter for the maximum size in bytes of the disk store per session. */
+	public static final String MAX_SIZE_PER_SESSION_PARAM = "pageStore.maxSizePerSession";
+
+	/** The init parameter for the class name of the page serializer. */
+	public static final String SERIALIZER_PARAM = "pageStore.serializer";
+
+	/**
+	 * Factory method for creating the init parameters of the {@link WicketFilter} from the given
+	 * {@link PageStoreConfiguration}. The init parameters contains this class as application
+	 * factory.
+	 *
+	 * @param configuration
+	 *            the page store configuration
+	 * @return the init parameters
+	 */
+	public static Map<String, String> newInitParameters(
+		final PageStoreConfiguration configuration)
+	{
+		final Map<String, String> initParameters = Generics.newHashMap();
+		initParameters.put(WicketFilter.APP_FACT_PARAM,
+			PageStoreWebApplicationFactory.class.getName());
+		initParameters.put(ASYNCHRONOUS_PARAM, String.valueOf(configuration.isAsynchronous()));
+		initParameters.put(ASYNCHRONOUS_QUEUE_CAPACITY_PARAM,
+			String.valueOf(configuration.getAsynchronousQueueCapacity()));
+		initParameters.put(INMEMORY_CACHE_SIZE_PARAM,
+			String.valueOf(configuration.getInmemoryCacheSize()));
+		initParameters.put(MAX_SIZE_PER_SESSION_PARAM,
+			String.valueOf(configuration.getMaxSizePerSession()));
+		if (configuration.getFileStoreFolder() != null)
+		{
+			initParameters.put(FILE_STORE_FOLDER_PARAM,
+				configuration.getFileStoreFolder().getAbsolutePath());
+		}
+		if (configuration.getSerializerClass() != null)
+		{
+			initParameters.put(SERIALIZER_PARAM, configuration.getSerializerClass().getName());
+		}
+		return initParameters;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public WebApplication createApplication(final WicketFilter filter)
+	{
+		final WebApplication application = super.createApplication(filter);
+		application.getApplicationListeners()
+			.add(new PageStoreApplicationListener(filter.getFilterConfig()));
+		return application;
+	}
+
+}